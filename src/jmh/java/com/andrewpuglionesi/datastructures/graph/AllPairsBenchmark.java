@@ -0,0 +1,74 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares tiled Floyd-Warshall against Dijkstra's algorithm from every node for all-pairs shortest paths, on random
+ * directed graphs of increasing density, to check where the automatic choice between them switches over.
+ * Run with {@code gradle jmh -PjmhIncludes=AllPairsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AllPairsBenchmark {
+
+    @Param({"1000"})
+    private int nodeCount;
+
+    @Param({"8", "128", "512"})
+    private int outDegree;
+
+    @Param({"4"})
+    private int parallelism;
+
+    private CsrGraph<Integer> snapshot;
+
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        DirectedGraph<Integer> graph = new DirectedGraph<>(GraphStorage.PRIMITIVE);
+        for (int i = 0; i < nodeCount; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            for (int edge = 0; edge < outDegree; edge++) {
+                graph.addEdge(i, random.nextInt(nodeCount), 1 + random.nextInt(100));
+            }
+        }
+        snapshot = graph.freeze();
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public DistanceMatrix<Integer> floydWarshall() {
+        DistanceMatrix<Integer> matrix = DistanceMatrix.allocate(snapshot);
+        AllPairsShortestPaths.floydWarshall(snapshot, pool, matrix);
+        return matrix;
+    }
+
+    @Benchmark
+    public DistanceMatrix<Integer> dijkstraFromEveryNode() {
+        DistanceMatrix<Integer> matrix = DistanceMatrix.allocate(snapshot);
+        AllPairsShortestPaths.dijkstra(snapshot, pool, matrix);
+        return matrix;
+    }
+}
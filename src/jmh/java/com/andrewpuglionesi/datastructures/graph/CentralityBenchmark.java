@@ -0,0 +1,81 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures PageRank from equal ranks and from the ranks of the graph before a few edges were added, and sampled
+ * betweenness, on a random directed graph.
+ * Run with {@code gradle jmh -PjmhIncludes=CentralityBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CentralityBenchmark {
+
+    @Param({"200000"})
+    private int nodeCount;
+
+    @Param({"8"})
+    private int degree;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private CsrGraph<Integer> snapshot;
+
+    private CentralityScores<Integer> previous;
+
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        DirectedGraph<Integer> graph = new DirectedGraph<>(GraphStorage.PRIMITIVE);
+        for (int i = 0; i < nodeCount; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            for (int edge = 0; edge < degree; edge++) {
+                graph.addEdge(i, random.nextInt(nodeCount));
+            }
+        }
+        pool = new ForkJoinPool(parallelism);
+        previous = graph.freeze().pageRank(0.85, 1e-9, pool);
+        for (int edge = 0; edge < 100; edge++) {
+            graph.addEdge(random.nextInt(nodeCount), random.nextInt(nodeCount));
+        }
+        snapshot = graph.freeze();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public CentralityScores<Integer> coldPageRank() {
+        return snapshot.pageRank(0.85, 1e-9, pool);
+    }
+
+    @Benchmark
+    public CentralityScores<Integer> warmPageRank() {
+        return snapshot.pageRank(previous, 0.85, 1e-9, pool);
+    }
+
+    @Benchmark
+    public CentralityScores<Integer> sampledBetweenness() {
+        return snapshot.betweennessCentrality(64, DistanceMetric.HOPS, 1, pool);
+    }
+}
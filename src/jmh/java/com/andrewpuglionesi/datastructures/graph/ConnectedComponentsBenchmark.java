@@ -0,0 +1,70 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the parallel Afforest labeling of connected components against Tarjan's algorithm over the same snapshot,
+ * on a random undirected graph with one giant component.
+ * Run with {@code gradle jmh -PjmhIncludes=ConnectedComponentsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConnectedComponentsBenchmark {
+
+    @Param({"1000000"})
+    private int nodeCount;
+
+    @Param({"8"})
+    private int degree;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private CsrGraph<Integer> snapshot;
+
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>(GraphStorage.PRIMITIVE);
+        for (int i = 0; i < nodeCount; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            for (int edge = 0; edge < degree / 2; edge++) {
+                graph.addEdge(i, random.nextInt(nodeCount));
+            }
+        }
+        snapshot = graph.freeze();
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public ComponentLabeling<Integer> sequentialTarjan() {
+        return snapshot.stronglyConnectedComponents();
+    }
+
+    @Benchmark
+    public ComponentLabeling<Integer> parallelAfforest() {
+        return snapshot.connectedComponents(pool);
+    }
+}
@@ -0,0 +1,111 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a number of ingestion threads take to load the same total number of edges into one graph, either
+ * into an ordinary graph behind a single lock (the way callers had to share a graph before) or into a concurrent
+ * graph with no external locking.
+ * Run with {@code gradle jmh -PjmhIncludes=ContentionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ContentionBenchmark {
+
+    private static final int EDGES = 200_000;
+
+    private static final int NODES = 50_000;
+
+    @Param({"1", "4", "16", "32"})
+    private int threads;
+
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public Graph<Integer> directedSingleLock() throws Exception {
+        DirectedGraph<Integer> graph = new DirectedGraph<>();
+        load((from, to) -> {
+            synchronized (graph) {
+                graph.addEdge(from, to);
+            }
+        });
+        return graph;
+    }
+
+    @Benchmark
+    public Graph<Integer> directedConcurrent() throws Exception {
+        ConcurrentDirectedGraph<Integer> graph = new ConcurrentDirectedGraph<>();
+        load(graph::addEdge);
+        return graph;
+    }
+
+    @Benchmark
+    public Graph<Integer> undirectedSingleLock() throws Exception {
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>();
+        load((from, to) -> {
+            synchronized (graph) {
+                graph.addEdge(from, to);
+            }
+        });
+        return graph;
+    }
+
+    @Benchmark
+    public Graph<Integer> undirectedConcurrent() throws Exception {
+        ConcurrentUndirectedGraph<Integer> graph = new ConcurrentUndirectedGraph<>();
+        load(graph::addEdge);
+        return graph;
+    }
+
+    /**
+     * Splits {@link #EDGES} pseudo-random edges evenly among the threads and waits for all of them to be added.
+     */
+    private void load(EdgeSink sink) throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        int perThread = EDGES / threads;
+        for (int thread = 0; thread < threads; thread++) {
+            int first = thread * perThread;
+            tasks.add(() -> {
+                for (int i = first; i < first + perThread; i++) {
+                    sink.add(Math.floorMod(i * 0x9E3779B1, NODES), Math.floorMod(i * 0x85EBCA6B, NODES));
+                }
+                return null;
+            });
+        }
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+    }
+
+    @FunctionalInterface
+    private interface EdgeSink {
+        void add(int from, int to);
+    }
+}
@@ -0,0 +1,79 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares edge lookups, breadth-first searches and reachability queries on a small, dense, undirected graph across
+ * storages.
+ * Run with {@code gradle jmh -PjmhIncludes=DenseBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DenseBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"5000"})
+    private int nodeCount;
+
+    @Param({"100"})
+    private int degree;
+
+    @Param({"HASH", "PRIMITIVE", "DENSE"})
+    private GraphStorage storage;
+
+    private UndirectedGraph<Integer> graph;
+
+    private int[] origins;
+
+    private int[] destinations;
+
+    private int query;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        graph = new UndirectedGraph<>(storage);
+        for (int i = 0; i < nodeCount; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < nodeCount * degree / 2; i++) {
+            graph.addEdge(random.nextInt(nodeCount), random.nextInt(nodeCount));
+        }
+        origins = new int[QUERIES];
+        destinations = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            origins[i] = random.nextInt(nodeCount);
+            destinations[i] = random.nextInt(nodeCount);
+        }
+    }
+
+    @Benchmark
+    public boolean containsEdge() {
+        int i = query++ % QUERIES;
+        return graph.containsEdge(origins[i], destinations[i]);
+    }
+
+    @Benchmark
+    public int distanceBetween() {
+        int i = query++ % QUERIES;
+        return graph.distanceBetween(origins[i], destinations[i]);
+    }
+
+    @Benchmark
+    public int getNodesConnectedTo() {
+        int i = query++ % QUERIES;
+        return graph.getNodesConnectedTo(origins[i]).size();
+    }
+}
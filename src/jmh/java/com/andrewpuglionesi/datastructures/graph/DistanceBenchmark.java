@@ -0,0 +1,91 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares forward and bidirectional breadth-first searches for the distance between random pairs of nodes, both on
+ * the live graph (whose bidirectional search uses its index of inbound edges) and on a snapshot of it, on a random
+ * directed graph in which each node has a handful of outbound edges, so that the number of nodes within a given
+ * distance grows quickly, as it does in a social network.
+ * Run with {@code gradle jmh -PjmhIncludes=DistanceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DistanceBenchmark {
+
+    private static final int QUERIES = 64;
+
+    @Param({"100000"})
+    private int nodeCount;
+
+    @Param({"8"})
+    private int outDegree;
+
+    private DirectedGraph<Integer> graph;
+
+    private CsrGraph<Integer> snapshot;
+
+    private int[] origins;
+
+    private int[] destinations;
+
+    private int query;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        graph = new DirectedGraph<>(GraphStorage.PRIMITIVE);
+        for (int i = 0; i < nodeCount; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            for (int edge = 0; edge < outDegree; edge++) {
+                graph.addEdge(i, random.nextInt(nodeCount));
+            }
+        }
+        graph.indexInboundEdges();
+        snapshot = graph.freeze();
+        snapshot.distanceBetween(0, 1, SearchDirection.BIDIRECTIONAL); // builds the reverse adjacency up front
+        origins = new int[QUERIES];
+        destinations = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            origins[i] = random.nextInt(nodeCount);
+            destinations[i] = random.nextInt(nodeCount);
+        }
+    }
+
+    @Benchmark
+    public int graphForward() {
+        int i = query++ % QUERIES;
+        return graph.distanceBetween(origins[i], destinations[i]);
+    }
+
+    @Benchmark
+    public int graphBidirectional() {
+        int i = query++ % QUERIES;
+        return graph.distanceBetween(origins[i], destinations[i], SearchDirection.BIDIRECTIONAL);
+    }
+
+    @Benchmark
+    public int snapshotForward() {
+        int i = query++ % QUERIES;
+        return snapshot.distanceBetween(origins[i], destinations[i], SearchDirection.FORWARD);
+    }
+
+    @Benchmark
+    public int snapshotBidirectional() {
+        int i = query++ % QUERIES;
+        return snapshot.distanceBetween(origins[i], destinations[i], SearchDirection.BIDIRECTIONAL);
+    }
+}
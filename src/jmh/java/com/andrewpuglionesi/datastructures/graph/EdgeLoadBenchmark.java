@@ -0,0 +1,84 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading a graph one edge at a time with loading it in a single call to addEdges, for each kind of storage,
+ * on a random edge list with a few percent of repeated edges.
+ * Run with {@code gradle jmh -PjmhIncludes=EdgeLoadBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EdgeLoadBenchmark {
+
+    @Param({"100000"})
+    private int nodeCount;
+
+    @Param({"1000000"})
+    private int edgeCount;
+
+    @Param({"HASH", "PRIMITIVE"})
+    private GraphStorage storage;
+
+    private Integer[] origins;
+
+    private Integer[] termini;
+
+    private double[] weights;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        origins = new Integer[edgeCount];
+        termini = new Integer[edgeCount];
+        weights = new double[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            origins[i] = random.nextInt(nodeCount);
+            termini[i] = random.nextInt(nodeCount);
+            weights[i] = random.nextInt(100);
+        }
+    }
+
+    @Benchmark
+    public Graph<Integer> directedOneAtATime() {
+        DirectedGraph<Integer> graph = new DirectedGraph<>(storage);
+        for (int i = 0; i < edgeCount; i++) {
+            graph.addEdge(origins[i], termini[i], weights[i]);
+        }
+        return graph;
+    }
+
+    @Benchmark
+    public Graph<Integer> directedBulk() {
+        DirectedGraph<Integer> graph = new DirectedGraph<>(storage);
+        graph.addEdges(origins, termini, weights);
+        return graph;
+    }
+
+    @Benchmark
+    public Graph<Integer> undirectedOneAtATime() {
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>(storage);
+        for (int i = 0; i < edgeCount; i++) {
+            graph.addEdge(origins[i], termini[i], weights[i]);
+        }
+        return graph;
+    }
+
+    @Benchmark
+    public Graph<Integer> undirectedBulk() {
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>(storage);
+        graph.addEdges(origins, termini, weights);
+        return graph;
+    }
+}
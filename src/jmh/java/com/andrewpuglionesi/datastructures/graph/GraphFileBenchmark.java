@@ -0,0 +1,91 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the startup cost of building a graph from an in-memory edge list with that of mapping a graph file, and
+ * the cost of a traversal over each.
+ * Run with {@code gradle jmh -PjmhIncludes=GraphFileBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GraphFileBenchmark {
+
+    @Param({"100000"})
+    private int nodeCount;
+
+    @Param({"8"})
+    private int outDegree;
+
+    private Integer[] origins;
+
+    private Integer[] termini;
+
+    private double[] weights;
+
+    private Path file;
+
+    private Graph<Integer> built;
+
+    private Graph<Integer> mapped;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        int edgeCount = nodeCount * outDegree;
+        origins = new Integer[edgeCount];
+        termini = new Integer[edgeCount];
+        weights = new double[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            origins[i] = i / outDegree;
+            termini[i] = random.nextInt(nodeCount);
+            weights[i] = random.nextInt(100);
+        }
+        built = loadEdges();
+        file = Files.createTempFile("graph", ".bin");
+        GraphFile.write(built, file, NodeCodec.integers());
+        mapped = GraphFile.read(file, NodeCodec.integers());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public Graph<Integer> loadEdges() {
+        DirectedGraph<Integer> graph = new DirectedGraph<>(GraphStorage.PRIMITIVE);
+        graph.addEdges(origins, termini, weights);
+        return graph;
+    }
+
+    @Benchmark
+    public Graph<Integer> mapFile() throws IOException {
+        return GraphFile.read(file, NodeCodec.integers());
+    }
+
+    @Benchmark
+    public int traverseBuilt() {
+        return built.distanceBetween(0, nodeCount - 1);
+    }
+
+    @Benchmark
+    public int traverseMapped() {
+        return mapped.distanceBetween(0, nodeCount - 1);
+    }
+}
@@ -0,0 +1,87 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares exact point-to-point queries answered by a landmark oracle against a plain Dijkstra search, and against the
+ * oracle's bounds alone, on a weighted grid shaped like a road network.
+ * Run with {@code gradle jmh -PjmhIncludes=LandmarkOracleBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LandmarkOracleBenchmark {
+
+    @Param({"300"})
+    private int side;
+
+    @Param({"16"})
+    private int landmarkCount;
+
+    private UndirectedGraph<Integer> graph;
+
+    private LandmarkOracle<Integer> oracle;
+
+    private int[] origins;
+
+    private int[] destinations;
+
+    private int query;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        graph = new UndirectedGraph<>(GraphStorage.PRIMITIVE);
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                int cell = row * side + column;
+                if (column + 1 < side) {
+                    graph.addEdge(cell, cell + 1, 1 + random.nextInt(10));
+                }
+                if (row + 1 < side) {
+                    graph.addEdge(cell, cell + side, 1 + random.nextInt(10));
+                }
+            }
+        }
+        oracle = graph.landmarkOracle(landmarkCount, DistanceMetric.WEIGHTS);
+        origins = new int[1024];
+        destinations = new int[1024];
+        for (int i = 0; i < origins.length; i++) {
+            origins[i] = random.nextInt(side * side);
+            destinations[i] = random.nextInt(side * side);
+        }
+    }
+
+    private int next() {
+        query = (query + 1) & (origins.length - 1);
+        return query;
+    }
+
+    @Benchmark
+    public double dijkstra() {
+        int i = next();
+        return graph.shortestPath(origins[i], destinations[i]).distance();
+    }
+
+    @Benchmark
+    public double oracleDistance() {
+        int i = next();
+        return oracle.distance(origins[i], destinations[i]);
+    }
+
+    @Benchmark
+    public double oracleBounds() {
+        int i = next();
+        return oracle.lowerBound(origins[i], destinations[i]) + oracle.upperBound(origins[i], destinations[i]);
+    }
+}
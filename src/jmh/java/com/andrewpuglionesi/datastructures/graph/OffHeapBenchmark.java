@@ -0,0 +1,89 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building and traversing a sparse, road-network-like graph stored in primitive arrays on the heap with one
+ * stored off the heap.
+ * Run with {@code gradle jmh -PjmhIncludes=OffHeapBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OffHeapBenchmark {
+
+    @Param({"200000"})
+    private int nodeCount;
+
+    @Param({"4"})
+    private int outDegree;
+
+    private int[] termini;
+
+    private DirectedGraph<Integer> onHeap;
+
+    private OffHeapDirectedGraph<Integer> offHeap;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        termini = new int[nodeCount * outDegree];
+        for (int i = 0; i < termini.length; i++) {
+            termini[i] = random.nextInt(nodeCount);
+        }
+        onHeap = new DirectedGraph<>(GraphStorage.PRIMITIVE);
+        offHeap = new OffHeapDirectedGraph<>();
+        load(onHeap);
+        load(offHeap);
+    }
+
+    @TearDown
+    public void tearDown() {
+        offHeap.close();
+    }
+
+    private void load(Graph<Integer> graph) {
+        for (int i = 0; i < nodeCount; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < termini.length; i++) {
+            graph.addEdge(i / outDegree, termini[i], i);
+        }
+    }
+
+    @Benchmark
+    public Graph<Integer> buildOnHeap() {
+        DirectedGraph<Integer> graph = new DirectedGraph<>(GraphStorage.PRIMITIVE);
+        load(graph);
+        return graph;
+    }
+
+    @Benchmark
+    public int buildOffHeap() {
+        try (OffHeapDirectedGraph<Integer> graph = new OffHeapDirectedGraph<>()) {
+            load(graph);
+            return graph.size();
+        }
+    }
+
+    @Benchmark
+    public int traverseOnHeap() {
+        return onHeap.distanceBetween(0, nodeCount - 1);
+    }
+
+    @Benchmark
+    public int traverseOffHeap() {
+        return offHeap.distanceBetween(0, nodeCount - 1);
+    }
+}
@@ -0,0 +1,90 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the parallel, direction-optimizing breadth-first search for the distances from one node to all others
+ * against a sequential top-down search over the same snapshot, on a random directed graph.
+ * Run with {@code gradle jmh -PjmhIncludes=ParallelDistancesBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelDistancesBenchmark {
+
+    @Param({"1000000"})
+    private int nodeCount;
+
+    @Param({"16"})
+    private int outDegree;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private CsrGraph<Integer> snapshot;
+
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        DirectedGraph<Integer> graph = new DirectedGraph<>(GraphStorage.PRIMITIVE);
+        for (int i = 0; i < nodeCount; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            for (int edge = 0; edge < outDegree; edge++) {
+                graph.addEdge(i, random.nextInt(nodeCount));
+            }
+        }
+        snapshot = graph.freeze();
+        pool = new ForkJoinPool(parallelism);
+        snapshot.distancesFrom(0, pool); // builds the reverse adjacency up front
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int[] sequentialTopDown() {
+        int[] offsets = snapshot.offsets();
+        int[] targets = snapshot.targets();
+        int[] distances = new int[snapshot.size()];
+        Arrays.fill(distances, -1);
+        int[] queue = new int[snapshot.size()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        distances[0] = 0;
+        while (head < tail) {
+            int curr = queue[head++];
+            for (int i = offsets[curr]; i < offsets[curr + 1]; i++) {
+                if (distances[targets[i]] < 0) {
+                    distances[targets[i]] = distances[curr] + 1;
+                    queue[tail++] = targets[i];
+                }
+            }
+        }
+        return distances;
+    }
+
+    @Benchmark
+    public DistanceLabeling<Integer> parallelDirectionOptimizing() {
+        return snapshot.distancesFrom(0, pool);
+    }
+}
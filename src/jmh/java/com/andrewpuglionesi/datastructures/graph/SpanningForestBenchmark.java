@@ -0,0 +1,76 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the parallel Boruvka search for a minimum spanning forest against Kruskal's algorithm over the same
+ * snapshot, on a random undirected graph, and measures the public entry point, which picks between them by the pool's
+ * parallelism.
+ * Run with {@code gradle jmh -PjmhIncludes=SpanningForestBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SpanningForestBenchmark {
+
+    @Param({"1000000"})
+    private int nodeCount;
+
+    @Param({"4"})
+    private int degree;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private CsrGraph<Integer> snapshot;
+
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>(GraphStorage.PRIMITIVE);
+        for (int i = 0; i < nodeCount; i++) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            for (int edge = 0; edge < degree / 2; edge++) {
+                graph.addEdge(i, random.nextInt(nodeCount), random.nextInt(1 << 20));
+            }
+        }
+        snapshot = graph.freeze();
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public SpanningForest<Integer> kruskal() {
+        return Kruskal.search(snapshot);
+    }
+
+    @Benchmark
+    public SpanningForest<Integer> parallelBoruvka() {
+        return ParallelBoruvka.search(snapshot, pool);
+    }
+
+    @Benchmark
+    public SpanningForest<Integer> minimumSpanningForest() {
+        return snapshot.minimumSpanningForest(pool);
+    }
+}
@@ -0,0 +1,111 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the iterative depth-first searches against the recursive ones they replaced, on a long chain (the shape
+ * that used to overflow the stack) with a few extra forward edges. The chain is kept short enough for the recursive
+ * versions to survive on a default-sized stack.
+ * Run with {@code gradle jmh -PjmhIncludes=TraversalBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TraversalBenchmark {
+
+    @Param({"1000", "5000"})
+    private int length;
+
+    private DirectedGraph<Integer> graph;
+
+    private CsrGraph<Integer> snapshot;
+
+    @Setup
+    public void setup() {
+        graph = new DirectedGraph<>();
+        for (int i = 0; i < length; i++) {
+            graph.addEdge(i, i + 1);
+            if (i % 10 == 0) {
+                graph.addEdge(i, Math.min(length, i + 7));
+            }
+        }
+        snapshot = graph.freeze();
+    }
+
+    @Benchmark
+    public boolean hasCycleRecursive() {
+        Set<Integer> visited = new HashSet<>();
+        for (Integer node : graph) {
+            if (searchForCycle(node, visited, new HashSet<>())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean hasCycleIterative() {
+        return graph.hasCycle();
+    }
+
+    @Benchmark
+    public boolean hasCycleIterativeOnSnapshot() {
+        return snapshot.hasCycle();
+    }
+
+    @Benchmark
+    public int getNodesConnectedToRecursive() {
+        Set<Integer> visited = new HashSet<>();
+        collectConnectionsDepthFirst(0, visited);
+        return visited.size();
+    }
+
+    @Benchmark
+    public int getNodesConnectedToIterative() {
+        return graph.getNodesConnectedTo(0).size();
+    }
+
+    /**
+     * The recursive cycle search that DirectedGraph used before it was made iterative.
+     */
+    private boolean searchForCycle(Integer node, Set<Integer> visited, Set<Integer> precedingNodes) {
+        if (precedingNodes.contains(node)) {
+            return true;
+        }
+        if (visited.contains(node)) {
+            return false;
+        }
+        precedingNodes.add(node);
+        visited.add(node);
+        for (Integer neighbor : graph.getNeighbors(node)) {
+            if (searchForCycle(neighbor, visited, precedingNodes)) {
+                return true;
+            }
+        }
+        precedingNodes.remove(node);
+        return false;
+    }
+
+    /**
+     * The recursive search that Graph.getNodesConnectedTo used before it was made iterative.
+     */
+    private void collectConnectionsDepthFirst(Integer source, Set<Integer> visited) {
+        if (!visited.contains(source)) {
+            visited.add(source);
+            for (Integer neighbor : graph.getNeighbors(source)) {
+                collectConnectionsDepthFirst(neighbor, visited);
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * The physical storage behind a {@link Graph}: a set of node values and the weighted, directional edges between them.
+ * Stores know nothing about whether a graph is directed; {@link Graph} and its subclasses decide which directional
+ * edges to store. Callers are responsible for only adding edges between nodes that are already present.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.TooManyMethods"})
+interface AdjacencyStore<T> extends Iterable<T> {
+
+    /**
+     * Adds a node with no edges.
+     * @param value value of the node.
+     * @return true if the node was added, or false if the store already contains a node with the specified value.
+     */
+    boolean addNode(T value);
+
+    /**
+     * @param value value of a node.
+     * @return true if the store contains a node with the specified value.
+     */
+    boolean containsNode(T value);
+
+    /**
+     * @return the number of nodes in the store.
+     */
+    int size();
+
+    /**
+     * Adds a directional edge between two nodes that are already in the store, or updates the weight of the edge if
+     * it already exists.
+     * @param from value of the node that is the origin of the edge.
+     * @param to value of the node that is the terminus of the edge.
+     * @param weight the numeric weight of the edge.
+     */
+    void putEdge(T from, T to, double weight);
+
+    /**
+     * Adds or updates the directional edges between two nodes that are already in the store, in both directions. Stores
+     * that can be read while they are written make the two edges appear together.
+     * @param first value of one of the nodes.
+     * @param second value of the other node.
+     * @param weight the numeric weight of both edges.
+     */
+    default void putEdgePair(final T first, final T second, final double weight) {
+        this.putEdge(first, second, weight);
+        this.putEdge(second, first, weight);
+    }
+
+    /**
+     * Adds or updates many directional edges at once, adding any of their nodes that are not yet in the store. The
+     * result is the same as adding the edges one at a time, in order, so if an edge appears more than once, its last
+     * weight wins. Stores may override this to add each distinct node once and to size their storage up front from
+     * the edges' degrees, rather than growing it edge by edge.
+     * @param origins values of the nodes that are the origins of the edges.
+     * @param termini values of the nodes that are the termini of the edges.
+     * @param weights the numeric weights of the edges.
+     * @param count the number of edges, which are in the first {@code count} elements of each array.
+     * @param mirrored true to add every edge in both directions, as with {@link #putEdgePair(Object, Object, double)}.
+     */
+    default void putEdges(final T[] origins, final T[] termini, final double[] weights, final int count,
+                          final boolean mirrored) {
+        for (int i = 0; i < count; i++) {
+            this.addNode(origins[i]);
+            this.addNode(termini[i]);
+            if (mirrored) {
+                this.putEdgePair(origins[i], termini[i], weights[i]);
+            } else {
+                this.putEdge(origins[i], termini[i], weights[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes a directional edge.
+     * @param from value of the node that is the origin of the edge.
+     * @param to value of the node that is the terminus of the edge.
+     * @return true if the edge existed and was removed.
+     */
+    boolean removeEdge(T from, T to);
+
+    /**
+     * Removes the directional edges between two nodes, in both directions. Stores that can be read while they are
+     * written make the two edges disappear together.
+     * @param first value of one of the nodes.
+     * @param second value of the other node.
+     * @return true if either edge existed and was removed.
+     */
+    default boolean removeEdgePair(final T first, final T second) {
+        final boolean removedForward = this.removeEdge(first, second);
+        final boolean removedBackward = this.removeEdge(second, first);
+        return removedForward || removedBackward;
+    }
+
+    /**
+     * @param from value of the node that is the origin of the edge.
+     * @param to value of the node that is the terminus of the edge.
+     * @return true if the store contains the directional edge.
+     */
+    boolean containsEdge(T from, T to);
+
+    /**
+     * @param from value of the node that is the origin of the edge.
+     * @param to value of the node that is the terminus of the edge.
+     * @return the weight of the directional edge.
+     * @throws java.util.NoSuchElementException if the edge does not exist.
+     */
+    double edgeWeight(T from, T to);
+
+    /**
+     * @param from value of a node in the store.
+     * @return the number of edges whose origin is {@code from}.
+     */
+    int outDegree(T from);
+
+    /**
+     * Passes the terminus and weight of every edge whose origin is {@code from} to {@code action}. The store must not
+     * be modified while the edges are being visited.
+     * @param from value of a node in the store.
+     * @param action callback receiving each edge's terminus and weight.
+     */
+    void forEachEdge(T from, ObjDoubleConsumer<T> action);
+
+    /**
+     * @return a new cursor over the edges of this store, not yet positioned on any node.
+     */
+    EdgeCursor<T> newCursor();
+
+    /**
+     * Counts the store's edges and sums their weights. Unless a store keeps a running tally as it changes, this visits
+     * every edge. The caller must not modify the returned tally.
+     * @return the number of edges, the number of self-loops among them, and the sum of the edges' weights.
+     */
+    default EdgeTally tally() {
+        final EdgeTally tally = new EdgeTally();
+        for (final T node : this) {
+            this.forEachEdge(node, (neighbor, weight) -> tally.added(weight, Objects.equals(node, neighbor)));
+        }
+        return tally;
+    }
+
+    /**
+     * Takes an immutable snapshot of the store, whose mutators throw {@link UnsupportedOperationException}. Unless a
+     * store can do better, this copies every node and edge into a new store, node by node, so the copy is only
+     * point-in-time if nothing writes to the store while it is made. A store that is not thread-safe must not be
+     * written to during the copy at all; a concurrent store may be, in which case each edge is copied either as it
+     * was before a write or after it, and edges to nodes added while the copy is being made are left out.
+     * @return a read-only store holding the nodes and edges of this store.
+     */
+    default AdjacencyStore<T> snapshot() {
+        final VersionedAdjacencyStore<T> copy = new VersionedAdjacencyStore<>();
+        for (final T node : this) {
+            copy.addNode(node);
+        }
+        for (final T node : copy) {
+            this.forEachEdge(node, (neighbor, weight) -> {
+                if (copy.containsNode(neighbor)) {
+                    copy.putEdge(node, neighbor, weight);
+                }
+            });
+        }
+        return copy.snapshot();
+    }
+
+    /**
+     * Finds the minimum number of edges on a path between two nodes that are in the store. Unless a store can do
+     * better, this is a breadth-first search over the store's edge cursors.
+     * @param from value of the origin node.
+     * @param to value of the destination node.
+     * @return the minimum number of edges that must be crossed to travel between the nodes, or -1 if there is no path
+     * between them. If the nodes are the same, the length of the shortest cycle through the node.
+     */
+    @SuppressWarnings("PMD.CognitiveComplexity")
+    default int distanceBetween(final T from, final T to) {
+        // The queue is an array list with a moving head, so nodes can be enqueued without allocating a wrapper for
+        // each one. The nodes of each depth are contiguous, so depth is tracked by remembering where each level ends.
+        final EdgeCursor<T> cursor = this.newCursor();
+        final Set<T> visited = new HashSet<>();
+        final List<T> queue = new ArrayList<>();
+        queue.add(from);
+        visited.add(from);
+        int head = 0;
+        int depth = 0;
+        while (head < queue.size()) {
+            depth++;
+            final int levelEnd = queue.size();
+            while (head < levelEnd) {
+                cursor.reset(queue.get(head++));
+                while (cursor.advance()) {
+                    final T neighbor = cursor.destination();
+                    if (Objects.equals(neighbor, to)) {
+                        return depth;
+                    }
+                    if (visited.add(neighbor)) {
+                        queue.add(neighbor);
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds every node reachable from {@code source}, which must be in the store, to {@code visited}, along with
+     * {@code source} itself. Unless a store can do better, this is an iterative depth-first search. Each level of the
+     * search path is walked with its own cursor, and the cursors are reused whenever the path shrinks and grows again,
+     * so the search allocates memory in proportion to its maximum depth rather than to the number of edges it crosses.
+     * It only touches the part of the graph reachable from {@code source}.
+     * @param source value of the node to start from.
+     * @param visited the nodes that have been visited so far.
+     */
+    default void collectReachable(final T source, final Set<T> visited) {
+        final List<EdgeCursor<T>> path = new ArrayList<>();
+        path.add(this.newCursor());
+        path.get(0).reset(source);
+        visited.add(source);
+        int top = 0;
+        while (top >= 0) {
+            final EdgeCursor<T> cursor = path.get(top);
+            if (cursor.advance()) {
+                if (visited.add(cursor.destination())) {
+                    top++;
+                    if (top == path.size()) {
+                        path.add(this.newCursor());
+                    }
+                    path.get(top).reset(cursor.destination());
+                }
+            } else {
+                top--;
+            }
+        }
+    }
+}
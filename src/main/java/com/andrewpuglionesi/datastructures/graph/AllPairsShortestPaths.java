@@ -0,0 +1,415 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds the lightest path between every ordered pair of nodes of a graph in compressed sparse row form (see
+ * {@link CsrGraph}), by whichever of two algorithms suits the graph. A dense graph goes through Floyd-Warshall, which
+ * costs a cubic number of additions no matter how many edges there are, but performs them over the matrix in square
+ * tiles small enough to stay in cache, with the tiles of each round updated in parallel. A sparse graph goes through
+ * Dijkstra's algorithm from every source in turn, in parallel, which costs time in proportion to the edges rather
+ * than to the square of the nodes for each source, and writes each source's distances straight into its row of the
+ * result. Dijkstra's algorithm needs edge weights that are not negative, so a graph with a negative edge always goes
+ * through Floyd-Warshall. Either way the result's rows are the only copy of the matrix: Floyd-Warshall starts from
+ * the adjacency matrix written into them and relaxes them in place, whether they are on the heap or mapped from a
+ * file.
+ */
+@SuppressWarnings({"PMD.DoNotUseThreads", "PMD.ExcessiveParameterList"})
+final class AllPairsShortestPaths {
+
+    /**
+     * The side of a Floyd-Warshall tile. Three tiles of doubles this size take 96 KiB, within a typical L2 cache.
+     */
+    private static final int TILE = 64;
+
+    /**
+     * Floyd-Warshall is chosen once at least one in this many ordered pairs of nodes is joined by an edge. Its
+     * additions run over contiguous memory, while Dijkstra's algorithm follows edges all over the matrix and pays for a
+     * heap, so measured on a thousand random nodes the two break even at about a third of the pairs.
+     */
+    private static final int DENSE_PAIRS_PER_EDGE = 3;
+
+    /**
+     * The most sources a single task runs Dijkstra's algorithm from without splitting.
+     */
+    private static final int SOURCE_GRAIN = 16;
+
+    /**
+     * The most tiles, or rows of tiles, a single task updates without splitting.
+     */
+    private static final int TILE_GRAIN = 1;
+
+    private AllPairsShortestPaths() {
+    }
+
+    /**
+     * Finds the lightest path between every ordered pair of nodes, keeping the result on the heap.
+     * @param snapshot the graph to search.
+     * @param pool the pool whose workers run the search.
+     * @param <T> the data type of nodes' values.
+     * @return the weight of the lightest path between every ordered pair of nodes.
+     * @throws IllegalStateException if the graph has a cycle whose weights sum to less than zero.
+     */
+    /* default */ static <T> DistanceMatrix<T> search(final CsrGraph<T> snapshot, final ForkJoinPool pool) {
+        final DistanceMatrix<T> matrix = DistanceMatrix.allocate(snapshot);
+        searchInto(snapshot, pool, matrix);
+        return matrix;
+    }
+
+    /**
+     * Finds the lightest path between every ordered pair of nodes, writing the result into a matrix that is already
+     * allocated, such as one mapped from a file.
+     * @param snapshot the graph to search.
+     * @param pool the pool whose workers run the search.
+     * @param matrix receives the weight of the lightest path between every ordered pair of nodes.
+     * @throws IllegalStateException if the graph has a cycle whose weights sum to less than zero.
+     */
+    /* default */ static void searchInto(final CsrGraph<?> snapshot, final ForkJoinPool pool,
+                                         final DistanceMatrix<?> matrix) {
+        if (prefersFloydWarshall(snapshot)) {
+            floydWarshall(snapshot, pool, matrix);
+        } else {
+            dijkstra(snapshot, pool, matrix);
+        }
+    }
+
+    /**
+     * Finds the lightest path between every ordered pair of nodes with Floyd-Warshall, working on the rows of the
+     * result in place.
+     * @param snapshot the graph to search.
+     * @param pool the pool whose workers update the tiles of each round.
+     * @param matrix receives the weight of the lightest path between every ordered pair of nodes.
+     * @throws IllegalStateException if the graph has a cycle whose weights sum to less than zero.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    /* default */ static void floydWarshall(final CsrGraph<?> snapshot, final ForkJoinPool pool,
+                                            final DistanceMatrix<?> matrix) {
+        final int nodeCount = snapshot.size();
+        fillAdjacency(snapshot, matrix);
+        final int tiles = (nodeCount + TILE - 1) / TILE;
+        for (int pivot = 0; pivot < tiles; pivot++) {
+            final int start = pivot * TILE;
+            final int end = Math.min(start + TILE, nodeCount);
+            relax(matrix, start, end, start, end, start, end);
+            pool.invoke(new TileStep(matrix, pivot, true, 0, tiles));
+            pool.invoke(new TileStep(matrix, pivot, false, 0, tiles));
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            if (matrix.get(node, node) < 0) {
+                throw new IllegalStateException("Cannot find shortest paths through a cycle of negative weight");
+            }
+        }
+    }
+
+    /**
+     * Finds the lightest path between every ordered pair of nodes by running Dijkstra's algorithm from every node.
+     * @param snapshot the graph to search; must have no edge of negative weight.
+     * @param pool the pool whose workers run the searches.
+     * @param matrix receives the weight of the lightest path between every ordered pair of nodes.
+     */
+    /* default */ static void dijkstra(final CsrGraph<?> snapshot, final ForkJoinPool pool,
+                                       final DistanceMatrix<?> matrix) {
+        pool.invoke(new SourceStep(snapshot.offsets(), snapshot.targets(), snapshot.weights(), matrix, 0,
+                snapshot.size()));
+    }
+
+    /**
+     * @param snapshot the graph to search.
+     * @return true if the graph must be searched with Floyd-Warshall, because it has an edge of negative weight, or
+     * Floyd-Warshall is expected to beat Dijkstra's algorithm from every node, because the graph is dense.
+     */
+    private static boolean prefersFloydWarshall(final CsrGraph<?> snapshot) {
+        final long nodeCount = snapshot.size();
+        return hasNegativeWeight(snapshot.weights())
+                || (long) snapshot.edgeSlots() * DENSE_PAIRS_PER_EDGE >= nodeCount * nodeCount;
+    }
+
+    /**
+     * @param weights the weight of each edge.
+     * @return true if any weight is less than zero.
+     */
+    private static boolean hasNegativeWeight(final double... weights) {
+        for (final double weight : weights) {
+            if (weight < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes a graph's adjacency matrix into the rows of a matrix: the weight of the lightest edge between each ordered
+     * pair of nodes, 0 from each node to itself unless it has a lighter self-directed edge, and positive infinity
+     * between nodes with no edge between them.
+     * @param snapshot a graph.
+     * @param matrix receives the adjacency matrix.
+     */
+    private static void fillAdjacency(final CsrGraph<?> snapshot, final DistanceMatrix<?> matrix) {
+        final int nodeCount = snapshot.size();
+        final int[] offsets = snapshot.offsets();
+        final int[] targets = snapshot.targets();
+        final double[] weights = snapshot.weights();
+        final double[] row = new double[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+            row[node] = 0;
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                row[targets[i]] = Math.min(row[targets[i]], weights[i]);
+            }
+            matrix.putRow(node, row);
+        }
+    }
+
+    /**
+     * Shortens the paths between the nodes of one tile by routing them through the nodes of another range: for every
+     * intermediate node k, origin i and destination j in the ranges, the path from i to j becomes the path through k
+     * if that is lighter. Intermediate nodes come outermost, so a tile can route through itself.
+     * @param matrix the matrix.
+     * @param rowStart the first origin.
+     * @param rowEnd the origin after the last.
+     * @param columnStart the first destination.
+     * @param columnEnd the destination after the last.
+     * @param pivotStart the first intermediate node.
+     * @param pivotEnd the intermediate node after the last.
+     */
+    private static void relax(final DistanceMatrix<?> matrix, final int rowStart, final int rowEnd,
+                              final int columnStart, final int columnEnd, final int pivotStart, final int pivotEnd) {
+        for (int pivot = pivotStart; pivot < pivotEnd; pivot++) {
+            final DoubleBuffer pivotBand = matrix.band(pivot);
+            final int pivotRow = matrix.rowStart(pivot);
+            for (int row = rowStart; row < rowEnd; row++) {
+                final DoubleBuffer band = matrix.band(row);
+                final int rowOffset = matrix.rowStart(row);
+                final double toPivot = band.get(rowOffset + pivot);
+                if (toPivot != Double.POSITIVE_INFINITY) {
+                    relaxRow(band, rowOffset, pivotBand, pivotRow, toPivot, columnStart, columnEnd);
+                }
+            }
+        }
+    }
+
+    /**
+     * Shortens the paths from one origin to a range of destinations by routing them through one intermediate node.
+     * @param band the band holding the origin's row.
+     * @param rowOffset the index in {@code band} of the origin's first column.
+     * @param pivotBand the band holding the intermediate node's row.
+     * @param pivotOffset the index in {@code pivotBand} of the intermediate node's first column.
+     * @param toPivot the distance from the origin to the intermediate node.
+     * @param columnStart the first destination.
+     * @param columnEnd the destination after the last.
+     */
+    private static void relaxRow(final DoubleBuffer band, final int rowOffset, final DoubleBuffer pivotBand,
+                                 final int pivotOffset, final double toPivot, final int columnStart,
+                                 final int columnEnd) {
+        if (band.hasArray()) {
+            relaxRow(band.array(), band.arrayOffset() + rowOffset, pivotBand.array(),
+                    pivotBand.arrayOffset() + pivotOffset, toPivot, columnStart, columnEnd);
+            return;
+        }
+        for (int column = columnStart; column < columnEnd; column++) {
+            final double through = toPivot + pivotBand.get(pivotOffset + column);
+            if (through < band.get(rowOffset + column)) {
+                band.put(rowOffset + column, through);
+            }
+        }
+    }
+
+    /**
+     * Does the same as {@link #relaxRow(DoubleBuffer, int, DoubleBuffer, int, double, int, int)} over the arrays
+     * behind bands held on the heap, which runs faster than going through the buffers one double at a time.
+     * @param row the array holding the origin's row.
+     * @param rowOffset the index in {@code row} of the origin's first column.
+     * @param pivotRow the array holding the intermediate node's row.
+     * @param pivotOffset the index in {@code pivotRow} of the intermediate node's first column.
+     * @param toPivot the distance from the origin to the intermediate node.
+     * @param columnStart the first destination.
+     * @param columnEnd the destination after the last.
+     */
+    private static void relaxRow(final double[] row, final int rowOffset, final double[] pivotRow, final int pivotOffset,
+                                 final double toPivot, final int columnStart, final int columnEnd) {
+        for (int column = columnStart; column < columnEnd; column++) {
+            final double through = toPivot + pivotRow[pivotOffset + column];
+            if (through < row[rowOffset + column]) {
+                row[rowOffset + column] = through;
+            }
+        }
+    }
+
+    /**
+     * Updates a range of tiles in one round of tiled Floyd-Warshall, once the round's pivot tile (the one on the
+     * diagonal whose nodes serve as intermediates) has been routed through itself. The round then has two phases.
+     * First, the tiles in the pivot's row and column are routed through the pivot; each depends only on itself and
+     * the pivot, so all of them can be updated at once. Then, every other tile is routed through the tile in its row
+     * of the pivot's column and the tile in its column of the pivot's row, which the first phase left final.
+     */
+    private static final class TileStep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The matrix.
+         */
+        private final transient DistanceMatrix<?> matrix;
+
+        /**
+         * The index of the pivot tile along the diagonal.
+         */
+        private final int pivot;
+
+        /**
+         * True to update the tiles in the pivot's row and column, or false to update every other tile.
+         */
+        private final boolean pivotLines;
+
+        /**
+         * The first tile index to update: the tile in the pivot's row and the one in its column in the first phase,
+         * or a whole row of tiles in the second.
+         */
+        private final int start;
+
+        /**
+         * The tile index after the last to update.
+         */
+        private final int end;
+
+        private TileStep(final DistanceMatrix<?> matrix, final int pivot, final boolean pivotLines, final int start,
+                         final int end) {
+            super();
+            this.matrix = matrix;
+            this.pivot = pivot;
+            this.pivotLines = pivotLines;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > TILE_GRAIN) {
+                final int middle = (this.start + this.end) >>> 1;
+                invokeAll(this.split(this.start, middle), this.split(middle, this.end));
+                return;
+            }
+            final int tile = this.start;
+            if (tile == this.pivot) {
+                return;
+            }
+            final int nodeCount = this.matrix.size();
+            final int pivotStart = this.pivot * TILE;
+            final int pivotEnd = Math.min(pivotStart + TILE, nodeCount);
+            final int tileStart = tile * TILE;
+            final int tileEnd = Math.min(tileStart + TILE, nodeCount);
+            if (this.pivotLines) {
+                relax(this.matrix, pivotStart, pivotEnd, tileStart, tileEnd, pivotStart, pivotEnd);
+                relax(this.matrix, tileStart, tileEnd, pivotStart, pivotEnd, pivotStart, pivotEnd);
+                return;
+            }
+            final int tiles = (nodeCount + TILE - 1) / TILE;
+            for (int column = 0; column < tiles; column++) {
+                if (column != this.pivot) {
+                    final int columnStart = column * TILE;
+                    relax(this.matrix, tileStart, tileEnd, columnStart, Math.min(columnStart + TILE, nodeCount),
+                            pivotStart, pivotEnd);
+                }
+            }
+        }
+
+        /**
+         * @param from the first tile index to update.
+         * @param until the tile index after the last to update.
+         * @return a task updating the range.
+         */
+        private TileStep split(final int from, final int until) {
+            return new TileStep(this.matrix, this.pivot, this.pivotLines, from, until);
+        }
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from a range of sources, reusing one distance array and one heap for all of them, and
+     * writes each source's distances into its row of the result.
+     */
+    private static final class SourceStep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * CSR edge offsets of each node.
+         */
+        private final int[] offsets;
+
+        /**
+         * CSR edge termini.
+         */
+        private final int[] targets;
+
+        /**
+         * CSR edge weights.
+         */
+        private final double[] weights;
+
+        /**
+         * Receives each source's distances.
+         */
+        private final transient DistanceMatrix<?> matrix;
+
+        /**
+         * The id of the first source.
+         */
+        private final int start;
+
+        /**
+         * The id after the last source.
+         */
+        private final int end;
+
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        private SourceStep(final int[] offsets, final int[] targets, final double[] weights,
+                           final DistanceMatrix<?> matrix, final int start, final int end) {
+            super();
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.matrix = matrix;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > SOURCE_GRAIN) {
+                final int middle = (this.start + this.end) >>> 1;
+                invokeAll(this.split(this.start, middle), this.split(middle, this.end));
+                return;
+            }
+            final int nodeCount = this.offsets.length - 1;
+            final double[] distances = new double[nodeCount];
+            final IndexedMinHeap heap = new IndexedMinHeap(nodeCount);
+            for (int source = this.start; source < this.end; source++) {
+                Arrays.fill(distances, Double.POSITIVE_INFINITY);
+                distances[source] = 0;
+                heap.offer(source, 0);
+                while (!heap.isEmpty()) {
+                    final int node = heap.poll();
+                    for (int i = this.offsets[node]; i < this.offsets[node + 1]; i++) {
+                        final double distance = distances[node] + this.weights[i];
+                        final int target = this.targets[i];
+                        if (distance < distances[target]) {
+                            distances[target] = distance;
+                            heap.offer(target, distance);
+                        }
+                    }
+                }
+                this.matrix.putRow(source, distances);
+            }
+        }
+
+        /**
+         * @param from the id of the first source.
+         * @param until the id after the last source.
+         * @return a task searching from the range.
+         */
+        private SourceStep split(final int from, final int until) {
+            return new SourceStep(this.offsets, this.targets, this.weights, this.matrix, from, until);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A bidirectional breadth-first search over a live graph's adjacency, read through edge cursors: one over the outbound
+ * edges, for the side searching forward from the origin, and one over the inbound edges, for the side searching
+ * backward from the destination. It follows the same rules as the search over a snapshot (see
+ * {@link BreadthFirstSearch}), but keeps each side's visited nodes in a hash set and a list, so that it allocates in
+ * proportion to the nodes it visits rather than to the size of the graph, and needs no snapshot.
+ */
+@SuppressWarnings("PMD.ShortVariable")
+final class BidirectionalSearch {
+
+    private BidirectionalSearch() {
+    }
+
+    /**
+     * Finds the length of the shortest path between two distinct nodes by searching forward from the origin and
+     * backward from the destination at the same time, one whole level at a time, always advancing the side with the
+     * smaller frontier, and stopping as soon as one side reaches a node the other has visited.
+     * @param forward a cursor over the graph's outbound edges.
+     * @param backward a cursor over the graph's inbound edges.
+     * @param from value of the origin node.
+     * @param to value of the destination node, which must differ from the origin.
+     * @param <T> the data type of nodes' values.
+     * @return the minimum number of edges on a path from {@code from} to {@code to}, or -1 if there is none.
+     */
+    /* default */ static <T> int distance(final EdgeCursor<T> forward, final EdgeCursor<T> backward, final T from,
+                                          final T to) {
+        final Frontier<T> source = new Frontier<>(forward, from);
+        final Frontier<T> destination = new Frontier<>(backward, to);
+        while (!source.isExhausted() && !destination.isExhausted()) {
+            final boolean sourceIsSmaller = source.width() <= destination.width();
+            final Frontier<T> expanding = sourceIsSmaller ? source : destination;
+            final Frontier<T> other = sourceIsSmaller ? destination : source;
+            if (expanding.expand(other)) {
+                return source.depth + destination.depth + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * One side of a bidirectional search: a queue of the nodes it has visited, in order of depth, and a set of the
+     * same nodes.
+     * @param <T> the data type of nodes' values.
+     */
+    private static final class Frontier<T> {
+        /**
+         * Walks the edges this side follows.
+         */
+        private final EdgeCursor<T> cursor;
+
+        /**
+         * Every node this side has visited, in the order they were visited.
+         */
+        private final List<T> queue = new ArrayList<>();
+
+        /**
+         * The nodes this side has visited.
+         */
+        private final Set<T> visited = new HashSet<>();
+
+        /**
+         * Index in {@code queue} of the first node of the current level.
+         */
+        private int head;
+
+        /**
+         * Distance from this side's starting node to the nodes of the current level.
+         */
+        private int depth;
+
+        /**
+         * Creates a frontier containing only its starting node.
+         * @param cursor walks the edges this side follows.
+         * @param start value of the node this side starts from.
+         */
+        private Frontier(final EdgeCursor<T> cursor, final T start) {
+            this.cursor = cursor;
+            this.queue.add(start);
+            this.visited.add(start);
+        }
+
+        /**
+         * @return true if the current level is empty, so this side can reach no more nodes.
+         */
+        private boolean isExhausted() {
+            return this.head == this.queue.size();
+        }
+
+        /**
+         * @return the number of nodes in the current level.
+         */
+        private int width() {
+            return this.queue.size() - this.head;
+        }
+
+        /**
+         * Replaces the current level with the unvisited neighbors of its nodes, unless one of those neighbors has
+         * already been visited by the other side, in which case the level is left as it is.
+         * @param other the opposite side of the search.
+         * @return true if this side reached a node visited by {@code other}.
+         */
+        private boolean expand(final Frontier<T> other) {
+            final int levelEnd = this.queue.size();
+            for (int position = this.head; position < levelEnd; position++) {
+                this.cursor.reset(this.queue.get(position));
+                while (this.cursor.advance()) {
+                    final T neighbor = this.cursor.destination();
+                    if (other.visited.contains(neighbor)) {
+                        return true;
+                    }
+                    if (this.visited.add(neighbor)) {
+                        this.queue.add(neighbor);
+                    }
+                }
+            }
+            this.head = levelEnd;
+            this.depth++;
+            return false;
+        }
+    }
+}
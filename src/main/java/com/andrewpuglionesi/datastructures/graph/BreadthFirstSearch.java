@@ -0,0 +1,205 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+
+/**
+ * Breadth-first search engines over a graph in compressed sparse row form (see {@link CsrGraph}). Frontiers are kept
+ * in primitive int arrays, and the bidirectional search marks visited nodes in bitmaps, so a search allocates a
+ * handful of arrays no matter how many nodes it reaches.
+ */
+final class BreadthFirstSearch {
+
+    /**
+     * Marks a node that has not been reached by a search.
+     */
+    private static final int UNREACHED = -1;
+
+    /**
+     * log2 of the number of bits in a bitmap word.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    private BreadthFirstSearch() {
+    }
+
+    /**
+     * Finds the length of the shortest path between two nodes by searching outward from the source only.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     * @param source id of the origin node.
+     * @param destination id of the destination node. If it is the source, the shortest cycle through it is measured.
+     * @return the minimum number of edges on a path from {@code source} to {@code destination}, or -1 if there is none.
+     */
+    /* default */ static int distance(final int[] offsets, final int[] targets, final int source,
+                                      final int destination) {
+        final int nodeCount = offsets.length - 1;
+        final int[] depths = new int[nodeCount];
+        Arrays.fill(depths, UNREACHED);
+        final int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        depths[source] = 0;
+        while (head < tail) {
+            final int curr = queue[head++];
+            for (int i = offsets[curr]; i < offsets[curr + 1]; i++) {
+                final int neighbor = targets[i];
+                // nodes are dequeued in order of depth, so the first edge into the destination is on a shortest path
+                if (neighbor == destination) {
+                    return depths[curr] + 1;
+                }
+                if (depths[neighbor] == UNREACHED) {
+                    depths[neighbor] = depths[curr] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the length of the shortest path between two distinct nodes by searching forward from the source and
+     * backward from the destination at the same time, one whole level at a time, always advancing the side with the
+     * smaller frontier. The searches stop as soon as one reaches a node the other has visited. On graphs where the
+     * number of nodes within a given distance grows quickly, the two searches together visit far fewer nodes than a
+     * single search from the source would.
+     * Because each side expands whole levels, a node reached from one side's frontier is first found to be visited
+     * by the other side while it is on that side's frontier, so the distance follows from the two depths alone.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     * @param reverseOffsets CSR edge offsets of each node in the transposed graph.
+     * @param reverseTargets CSR edge termini in the transposed graph.
+     * @param source id of the origin node.
+     * @param destination id of the destination node, which must differ from the source.
+     * @return the minimum number of edges on a path from {@code source} to {@code destination}, or -1 if there is none.
+     */
+    /* default */ static int bidirectionalDistance(final int[] offsets, final int[] targets,
+                                                   final int[] reverseOffsets, final int[] reverseTargets,
+                                                   final int source, final int destination) {
+        final Frontier forward = new Frontier(offsets, targets, source);
+        final Frontier backward = new Frontier(reverseOffsets, reverseTargets, destination);
+        while (!forward.isExhausted() && !backward.isExhausted()) {
+            final boolean forwardIsSmaller = forward.width() <= backward.width();
+            final Frontier expanding = forwardIsSmaller ? forward : backward;
+            final Frontier other = forwardIsSmaller ? backward : forward;
+            if (expanding.expand(other)) {
+                return forward.depth + backward.depth + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param nodeCount the number of nodes.
+     * @return a bitmap with one cleared bit per node.
+     */
+    private static long[] newBitmap(final int nodeCount) {
+        return new long[(nodeCount >>> WORD_SHIFT) + 1];
+    }
+
+    /**
+     * @param bitmap a bitmap.
+     * @param node id of a node.
+     * @return true if the node's bit is set.
+     */
+    private static boolean isSet(final long[] bitmap, final int node) {
+        return (bitmap[node >>> WORD_SHIFT] & 1L << node) != 0;
+    }
+
+    /**
+     * One side of a bidirectional search: a queue of the nodes it has visited, in order of depth, and a bitmap of the
+     * same nodes.
+     */
+    private static final class Frontier {
+        /**
+         * CSR edge offsets of the graph this side searches.
+         */
+        private final int[] offsets;
+
+        /**
+         * CSR edge termini of the graph this side searches.
+         */
+        private final int[] targets;
+
+        /**
+         * Every node this side has visited, in the order they were visited.
+         */
+        private final int[] queue;
+
+        /**
+         * Bit {@code i} is set if this side has visited node {@code i}.
+         */
+        private final long[] visited;
+
+        /**
+         * Index in {@code queue} of the first node of the current level.
+         */
+        private int head;
+
+        /**
+         * Index in {@code queue} after the last node of the current level.
+         */
+        private int tail;
+
+        /**
+         * Distance from this side's starting node to the nodes of the current level.
+         */
+        private int depth;
+
+        /**
+         * Creates a frontier containing only its starting node.
+         * @param offsets CSR edge offsets of the graph this side searches.
+         * @param targets CSR edge termini of the graph this side searches.
+         * @param start id of the node this side starts from.
+         */
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        private Frontier(final int[] offsets, final int[] targets, final int start) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.queue = new int[offsets.length - 1];
+            this.visited = newBitmap(offsets.length - 1);
+            this.queue[this.tail++] = start;
+            this.visited[start >>> WORD_SHIFT] |= 1L << start;
+        }
+
+        /**
+         * @return true if the current level is empty, so this side can reach no more nodes.
+         */
+        private boolean isExhausted() {
+            return this.head == this.tail;
+        }
+
+        /**
+         * @return the number of nodes in the current level.
+         */
+        private int width() {
+            return this.tail - this.head;
+        }
+
+        /**
+         * Replaces the current level with the unvisited neighbors of its nodes, unless one of those neighbors has
+         * already been visited by the other side, in which case the level is left as it is.
+         * @param other the opposite side of the search.
+         * @return true if this side reached a node visited by {@code other}.
+         */
+        private boolean expand(final Frontier other) {
+            final int levelEnd = this.tail;
+            for (int position = this.head; position < levelEnd; position++) {
+                final int curr = this.queue[position];
+                for (int i = this.offsets[curr]; i < this.offsets[curr + 1]; i++) {
+                    final int neighbor = this.targets[i];
+                    if (isSet(other.visited, neighbor)) {
+                        return true;
+                    }
+                    if (!isSet(this.visited, neighbor)) {
+                        this.visited[neighbor >>> WORD_SHIFT] |= 1L << neighbor;
+                        this.queue[this.tail++] = neighbor;
+                    }
+                }
+            }
+            this.head = levelEnd;
+            this.depth++;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * The result of a centrality computation: a score for each node of a graph, such as its PageRank or its betweenness.
+ * The scores are stored as a primitive array indexed by the node ids of a {@link CsrGraph} snapshot, so a result
+ * takes one double per node.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.AvoidFieldNameMatchingMethodName", "PMD.ArrayIsStoredDirectly"})
+public final class CentralityScores<T> {
+
+    /**
+     * The snapshot whose nodes were scored.
+     */
+    private final CsrGraph<T> snapshot;
+
+    /**
+     * {@code scores[i]} is the score of the node whose id in {@code snapshot} is {@code i}.
+     */
+    private final double[] scores;
+
+    /**
+     * The number of iterations the computation ran, or 0 if it was not iterative.
+     */
+    private final int iterations;
+
+    /**
+     * Creates a result.
+     * @param snapshot the snapshot whose nodes were scored.
+     * @param scores the score of each node, indexed by the nodes' ids in {@code snapshot}.
+     * @param iterations the number of iterations the computation ran, or 0 if it was not iterative.
+     */
+    /* default */ CentralityScores(final CsrGraph<T> snapshot, final double[] scores, final int iterations) {
+        this.snapshot = snapshot;
+        this.scores = scores;
+        this.iterations = iterations;
+    }
+
+    /**
+     * @param node value of a node.
+     * @return the node's score.
+     * @throws NoSuchElementException if the node was not in the scored graph.
+     */
+    public double score(final T node) {
+        final int id = this.snapshot.idOf(node);
+        if (id < 0) {
+            throw new NoSuchElementException("No node exists with value " + node);
+        }
+        return this.scores[id];
+    }
+
+    /**
+     * @param node value of a node.
+     * @return true if the node was in the scored graph.
+     */
+    public boolean containsNode(final T node) {
+        return this.snapshot.containsNode(node);
+    }
+
+    /**
+     * @return the number of nodes scored.
+     */
+    public int size() {
+        return this.scores.length;
+    }
+
+    /**
+     * @return the number of iterations the computation ran before it converged, or 0 if it was not iterative.
+     */
+    public int iterations() {
+        return this.iterations;
+    }
+
+    /**
+     * @return a copy of the scores, indexed by the nodes' ids in the snapshot they were computed over.
+     */
+    public double[] toArray() {
+        return this.scores.clone();
+    }
+
+    /**
+     * Finds the highest-scoring nodes, keeping only {@code count} candidates at a time.
+     * @param count the most nodes to return.
+     * @return the values of up to {@code count} nodes with the highest scores, highest first. Ties go to the node
+     * with the lower id.
+     * @throws IllegalArgumentException if {@code count} is negative.
+     */
+    public List<T> top(final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Cannot return a negative number of nodes");
+        }
+        // the lowest-ranked candidate is at the head, ready to be displaced
+        final Queue<Integer> candidates = new PriorityQueue<>((first, second) -> {
+            final int order = Double.compare(this.scores[first], this.scores[second]);
+            return order == 0 ? Integer.compare(second, first) : order;
+        });
+        for (int id = 0; id < this.scores.length; id++) {
+            candidates.add(id);
+            if (candidates.size() > count) {
+                candidates.poll();
+            }
+        }
+        final List<T> nodes = new ArrayList<>(candidates.size());
+        while (!candidates.isEmpty()) {
+            nodes.add(this.snapshot.valueOf(candidates.poll()));
+        }
+        Collections.reverse(nodes);
+        return nodes;
+    }
+}
@@ -0,0 +1,124 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The result of partitioning a graph's nodes into components: each node is labeled with the id of its component, an
+ * int between 0 and {@code componentCount() - 1}. The labels are stored as a primitive array indexed by the node ids
+ * of a {@link CsrGraph} snapshot, so a labeling takes one int per node.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.AvoidFieldNameMatchingMethodName", "PMD.ArrayIsStoredDirectly"})
+public final class ComponentLabeling<T> {
+
+    /**
+     * The snapshot whose nodes were labeled.
+     */
+    private final CsrGraph<T> snapshot;
+
+    /**
+     * {@code labels[i]} is the component id of the node whose id in {@code snapshot} is {@code i}.
+     */
+    private final int[] labels;
+
+    /**
+     * The number of components.
+     */
+    private final int componentCount;
+
+    /**
+     * Creates a labeling.
+     * @param snapshot the snapshot whose nodes were labeled.
+     * @param labels the component id of each node, indexed by the nodes' ids in {@code snapshot}.
+     * @param componentCount the number of components.
+     */
+    /* default */ ComponentLabeling(final CsrGraph<T> snapshot, final int[] labels, final int componentCount) {
+        this.snapshot = snapshot;
+        this.labels = labels;
+        this.componentCount = componentCount;
+    }
+
+    /**
+     * @return the number of components. An empty graph has zero components.
+     */
+    public int componentCount() {
+        return this.componentCount;
+    }
+
+    /**
+     * @param node value of a node.
+     * @return the id of the component containing {@code node}.
+     * @throws NoSuchElementException if the node was not in the labeled graph.
+     */
+    public int componentOf(final T node) {
+        final int id = this.snapshot.idOf(node);
+        if (id < 0) {
+            throw new NoSuchElementException("No node exists with value " + node);
+        }
+        return this.labels[id];
+    }
+
+    /**
+     * @param first value of a node.
+     * @param second value of a node.
+     * @return true if both nodes are in the same component.
+     * @throws NoSuchElementException if either node was not in the labeled graph.
+     */
+    public boolean sameComponent(final T first, final T second) {
+        return this.componentOf(first) == this.componentOf(second);
+    }
+
+    /**
+     * @return the number of nodes in each component, indexed by component id.
+     */
+    public int[] componentSizes() {
+        final int[] sizes = new int[this.componentCount];
+        for (final int label : this.labels) {
+            sizes[label]++;
+        }
+        return sizes;
+    }
+
+    /**
+     * @return the values of the nodes in each component, indexed by component id.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public List<Set<T>> components() {
+        final List<Set<T>> components = new ArrayList<>(this.componentCount);
+        for (int component = 0; component < this.componentCount; component++) {
+            components.add(new HashSet<>());
+        }
+        for (int id = 0; id < this.labels.length; id++) {
+            components.get(this.labels[id]).add(this.snapshot.valueOf(id));
+        }
+        return components;
+    }
+
+    /**
+     * Builds the condensation of the labeled graph: a graph with one node per component (identified by component id)
+     * and an edge from component {@code a} to component {@code b} whenever the labeled graph has an edge from a node
+     * in {@code a} to a node in {@code b}. Edges within a component are dropped. The condensation of a directed graph
+     * partitioned into strongly connected components is acyclic.
+     * @return the condensation, with default edge weights.
+     */
+    public DirectedGraph<Integer> condensation() {
+        final DirectedGraph<Integer> condensation = new DirectedGraph<>(GraphStorage.PRIMITIVE);
+        for (int component = 0; component < this.componentCount; component++) {
+            condensation.addNode(component);
+        }
+        final int[] offsets = this.snapshot.offsets();
+        final int[] targets = this.snapshot.targets();
+        for (int from = 0; from < this.labels.length; from++) {
+            for (int i = offsets[from]; i < offsets[from + 1]; i++) {
+                if (this.labels[from] != this.labels[targets[i]]) {
+                    condensation.addEdge(this.labels[from], this.labels[targets[i]]);
+                }
+            }
+        }
+        return condensation;
+    }
+}
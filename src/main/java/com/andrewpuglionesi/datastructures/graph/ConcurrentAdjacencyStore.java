@@ -0,0 +1,225 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Stores a graph as nested concurrent hash maps: each node's value maps to a concurrent map from its neighbors' values
+ * to the connecting edges. Any number of threads can add nodes and add or remove edges at once, and writers to
+ * different nodes' edges never block each other. Reads never block, and iterating over nodes or edges while other
+ * threads modify the store is safe, though the iteration may or may not reflect the modifications. Does not support
+ * null values. The running count and weight sum of the edges are split into stripes by the hash of each edge's
+ * origin, like the cells of a {@link java.util.concurrent.atomic.LongAdder}. A writer swaps in an updated copy of its
+ * stripe's tally with a compare-and-set, so the tally takes no lock of its own, and writers to different stripes never
+ * retry because of each other. {@link #tally()} adds the stripes up, so it may briefly lag behind edges that other threads
+ * are adding or removing.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.TooManyMethods"})
+final class ConcurrentAdjacencyStore<T> implements AdjacencyStore<T> {
+
+    /**
+     * Maps a node's value to the neighbors of the node.
+     */
+    private final ConcurrentMap<T, ConcurrentMap<T, Graph.Edge>> nodes = new ConcurrentHashMap<>();
+
+    /**
+     * The number of stripes the tally is split into. A power of two.
+     */
+    private static final int TALLY_STRIPES = 64;
+
+    /**
+     * Counts the edges whose origins hash to each stripe, and sums their weights. A stripe's tally is never modified
+     * once it is in the array; writers replace it with an updated copy.
+     */
+    private final AtomicReferenceArray<EdgeTally> tallies = new AtomicReferenceArray<>(TALLY_STRIPES);
+
+    /**
+     * Creates an empty store.
+     */
+    @SuppressWarnings({"PMD.AvoidInstantiatingObjectsInLoops", "PMD.CommentDefaultAccessModifier"})
+    /* default */ ConcurrentAdjacencyStore() {
+        for (int stripe = 0; stripe < TALLY_STRIPES; stripe++) {
+            this.tallies.set(stripe, new EdgeTally());
+        }
+    }
+
+    @Override
+    public boolean addNode(final T value) {
+        return this.nodes.putIfAbsent(value, new ConcurrentHashMap<>()) == null;
+    }
+
+    @Override
+    public boolean containsNode(final T value) {
+        return this.nodes.containsKey(value);
+    }
+
+    @Override
+    public int size() {
+        return this.nodes.size();
+    }
+
+    @Override
+    public void putEdge(final T from, final T to, final double weight) {
+        // the tally is updated while the map holds the edge's bin, so every edge's changes reach the tally in order
+        this.nodes.get(from).compute(to, (neighbor, replaced) -> {
+            if (replaced == null) {
+                this.updateTally(from, tally -> tally.added(weight, from.equals(to)));
+            } else {
+                this.updateTally(from, tally -> tally.reweighted(replaced.getWeight(), weight));
+            }
+            return new Graph.Edge(weight);
+        });
+    }
+
+    @Override
+    public boolean removeEdge(final T from, final T to) {
+        final Map<T, Graph.Edge> edges = this.nodes.get(from);
+        if (edges == null) {
+            return false;
+        }
+        final boolean[] found = {false};
+        edges.computeIfPresent(to, (neighbor, removed) -> {
+            this.updateTally(from, tally -> tally.removed(removed.getWeight(), from.equals(to)));
+            found[0] = true;
+            return null;
+        });
+        return found[0];
+    }
+
+    @Override
+    public boolean containsEdge(final T from, final T to) {
+        final Map<T, Graph.Edge> edges = this.nodes.get(from);
+        return edges != null && edges.containsKey(to);
+    }
+
+    @Override
+    public double edgeWeight(final T from, final T to) {
+        final Map<T, Graph.Edge> edges = this.nodes.get(from);
+        final Graph.Edge edge = edges == null ? null : edges.get(to);
+        if (edge == null) {
+            throw new NoSuchElementException("No edge exists from " + from + " to " + to);
+        }
+        return edge.getWeight();
+    }
+
+    @Override
+    public int outDegree(final T from) {
+        return this.nodes.get(from).size();
+    }
+
+    @Override
+    public void forEachEdge(final T from, final ObjDoubleConsumer<T> action) {
+        for (final Map.Entry<T, Graph.Edge> entry : this.nodes.get(from).entrySet()) {
+            action.accept(entry.getKey(), entry.getValue().getWeight());
+        }
+    }
+
+    /**
+     * @return the sum of the stripes' tallies, which does not change while the caller reads it.
+     */
+    @Override
+    public EdgeTally tally() {
+        final EdgeTally total = new EdgeTally();
+        for (int stripe = 0; stripe < TALLY_STRIPES; stripe++) {
+            total.merge(this.tallies.get(stripe));
+        }
+        return total;
+    }
+
+    @Override
+    public EdgeCursor<T> newCursor() {
+        return new Cursor();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this.nodes.keySet().iterator();
+    }
+
+    /**
+     * Swaps an updated copy of a stripe's tally into the stripe, retrying if another writer swapped in a copy first.
+     * @param from value of the origin of the edge that changed.
+     * @param change applies the edge's change to a copy of its stripe's tally.
+     */
+    private void updateTally(final T from, final Consumer<EdgeTally> change) {
+        final int stripe = stripeOf(from);
+        EdgeTally current;
+        EdgeTally updated;
+        do {
+            current = this.tallies.get(stripe);
+            updated = current.copy();
+            change.accept(updated);
+        } while (!this.tallies.compareAndSet(stripe, current, updated));
+    }
+
+    /**
+     * @param value value of a node.
+     * @return the tally stripe of the edges whose origin is the node.
+     */
+    private static int stripeOf(final Object value) {
+        final int hash = value.hashCode();
+        return (hash ^ hash >>> 16) & TALLY_STRIPES - 1;
+    }
+
+    /**
+     * Walks a node's edges with a weakly consistent iterator over its neighbor map.
+     */
+    private final class Cursor implements EdgeCursor<T> {
+        /**
+         * The node whose edges are being walked.
+         */
+        private T origin;
+
+        /**
+         * Iterator over the node's neighbor map.
+         */
+        private Iterator<Map.Entry<T, Graph.Edge>> edges;
+
+        /**
+         * The edge the cursor is on.
+         */
+        private Map.Entry<T, Graph.Edge> current;
+
+        @Override
+        public void reset(final T source) {
+            final Map<T, Graph.Edge> neighbors = ConcurrentAdjacencyStore.this.nodes.get(source);
+            if (neighbors == null) {
+                throw new NoSuchElementException("Cannot retrieve edges because node does not exist in graph: "
+                        + source);
+            }
+            this.origin = source;
+            this.edges = neighbors.entrySet().iterator();
+        }
+
+        @Override
+        public boolean advance() {
+            if (this.edges == null || !this.edges.hasNext()) {
+                return false;
+            }
+            this.current = this.edges.next();
+            return true;
+        }
+
+        @Override
+        public T source() {
+            return this.origin;
+        }
+
+        @Override
+        public T destination() {
+            return this.current.getKey();
+        }
+
+        @Override
+        public double weight() {
+            return this.current.getValue().getWeight();
+        }
+    }
+}
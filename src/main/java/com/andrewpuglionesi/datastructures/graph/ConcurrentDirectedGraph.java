@@ -0,0 +1,110 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Collection;
+
+/**
+ * A directed graph that any number of threads can modify at once. Nodes are kept in a concurrent map, and each node's
+ * edges in a concurrent map of their own, so threads adding or removing edges of different nodes never wait for each
+ * other, and readers never wait at all. Queries made while other threads modify the graph see each edge either as it
+ * was before a modification or after it. Once the graph indexes inbound edges (see {@link #indexInboundEdges()}),
+ * adding or removing an edge locks both of its nodes (or rather, their stripes of a fixed pool of locks), so that an
+ * edge and its copy in the index are always changed together, as {@link ConcurrentUndirectedGraph} does with the two
+ * directions of an edge. Does not support null values.
+ * @param <T> the data type of nodes' values. This type should have a reliable hashCode() and equals()
+ *           implementation, as the graph uses a hash table to store and retrieve nodes.
+ */
+@SuppressWarnings("PMD.ShortVariable")
+public class ConcurrentDirectedGraph<T> extends DirectedGraph<T> {
+
+    /**
+     * Locks the two nodes of an edge while both of its copies are changed, once the graph indexes inbound edges.
+     */
+    private final LockStripes stripes = new LockStripes();
+
+    /**
+     * Initializes an empty graph.
+     */
+    public ConcurrentDirectedGraph() {
+        super(new ConcurrentAdjacencyStore<>());
+    }
+
+    /**
+     * Creates a graph containing nodes with the specified values. The graph will initially contain no edges.
+     * @param values values to add to the graph.
+     * @throws UnsupportedOperationException if there is a duplicate value.
+     */
+    @SuppressWarnings("PMD.ConstructorCallsOverridableMethod")
+    public ConcurrentDirectedGraph(final Collection<T> values) {
+        this();
+        values.forEach(this::addNode);
+    }
+
+    @Override
+    public void addEdge(final T from, final T to, final double edgeWeight) {
+        // nodes are added race-free first, so that the superclass never tries to add a node another thread just added
+        this.addNodeIfAbsent(from);
+        this.addNodeIfAbsent(to);
+        if (!this.hasInboundIndex()) {
+            super.addEdge(from, to, edgeWeight);
+            return;
+        }
+        this.stripes.lock(from, to);
+        try {
+            super.addEdge(from, to, edgeWeight);
+        } finally {
+            this.stripes.unlock(from, to);
+        }
+    }
+
+    @Override
+    public void addEdge(final T from, final T to) {
+        this.addEdge(from, to, DEFAULT_EDGE_WEIGHT);
+    }
+
+    @Override
+    public void removeEdge(final T from, final T to) {
+        if (!this.hasInboundIndex()) {
+            super.removeEdge(from, to);
+            return;
+        }
+        this.stripes.lock(from, to);
+        try {
+            super.removeEdge(from, to);
+        } finally {
+            this.stripes.unlock(from, to);
+        }
+    }
+
+    /**
+     * Adds the edges one at a time once the graph indexes inbound edges, so that each edge's nodes are locked while
+     * both of its copies are added.
+     */
+    @Override
+    protected void insertEdges(final T[] origins, final T[] termini, final double[] weights, final int count) {
+        if (!this.hasInboundIndex()) {
+            super.insertEdges(origins, termini, weights, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            this.addEdge(origins[i], termini[i], weights[i]);
+        }
+    }
+
+    /**
+     * Not supported: the order is updated by searches that other threads' edges would invalidate.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void maintainTopologicalOrder() {
+        throw new UnsupportedOperationException("A concurrent graph cannot keep a topological order");
+    }
+
+    /**
+     * @return an empty concurrent store, so that threads can update the index of inbound edges at once, too. Each
+     * edge's two copies are changed together under the lock stripes of its nodes.
+     */
+    @Override
+    /* default */ AdjacencyStore<T> newInboundStore() {
+        return new ConcurrentAdjacencyStore<>();
+    }
+}
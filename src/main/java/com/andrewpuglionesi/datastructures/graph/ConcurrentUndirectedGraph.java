@@ -0,0 +1,97 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Collection;
+
+/**
+ * An undirected graph that any number of threads can modify at once. Nodes are kept in a concurrent map, and each
+ * node's edges in a concurrent map of their own. Since each edge is stored once per direction, adding or removing an
+ * edge locks both of its nodes (or rather, the stripes of a fixed pool of locks that the nodes hash to), so that the
+ * two directions are always changed together: concurrent writers can never leave an edge in place in one direction
+ * only. Writers to edges whose nodes hash to different stripes never wait for each other, and readers never wait at
+ * all. A query made while an edge is being changed may see only one of its directions changed so far.
+ * Connectivity queries take a snapshot of the graph, rather than maintaining connected components incrementally as
+ * {@link UndirectedGraph} does. Does not support null values.
+ * @param <T> the data type of nodes' values. This type should have a reliable hashCode() and equals()
+ *           implementation, as the graph uses a hash table to store and retrieve nodes.
+ */
+@SuppressWarnings("PMD.ShortVariable")
+public class ConcurrentUndirectedGraph<T> extends UndirectedGraph<T> {
+
+    /**
+     * Locks the two nodes of an edge while both of its directions are changed.
+     */
+    private final LockStripes stripes = new LockStripes();
+
+    /**
+     * Initializes an empty graph.
+     */
+    public ConcurrentUndirectedGraph() {
+        super(new ConcurrentAdjacencyStore<>());
+    }
+
+    /**
+     * Creates a graph containing nodes with the specified values. The graph will initially contain no edges.
+     * @param values values to add to the graph.
+     * @throws UnsupportedOperationException if there is a duplicate value.
+     */
+    @SuppressWarnings("PMD.ConstructorCallsOverridableMethod")
+    public ConcurrentUndirectedGraph(final Collection<T> values) {
+        this();
+        values.forEach(this::addNode);
+    }
+
+    @Override
+    public void addEdge(final T from, final T to, final double weight) {
+        // nodes are added race-free first, so that the superclass never tries to add a node another thread just added
+        this.addNodeIfAbsent(from);
+        this.addNodeIfAbsent(to);
+        this.stripes.lock(from, to);
+        try {
+            super.addEdge(from, to, weight);
+        } finally {
+            this.stripes.unlock(from, to);
+        }
+    }
+
+    /**
+     * Adds the edges one at a time, so that each edge's nodes are locked while both of its directions are added.
+     */
+    @Override
+    protected void insertEdges(final T[] origins, final T[] termini, final double[] weights, final int count) {
+        for (int i = 0; i < count; i++) {
+            this.addEdge(origins[i], termini[i], weights[i]);
+        }
+    }
+
+    @Override
+    public void removeEdge(final T from, final T to) {
+        this.stripes.lock(from, to);
+        try {
+            super.removeEdge(from, to);
+        } finally {
+            this.stripes.unlock(from, to);
+        }
+    }
+
+    /**
+     * Counts the connected components of a snapshot of the graph. See {@link UndirectedGraph#componentCount()}.
+     * @return the number of connected components. An empty graph has no components.
+     */
+    @Override
+    public int componentCount() {
+        return this.connectedComponents().componentCount();
+    }
+
+    /**
+     * Determines whether there is a path between two nodes in a snapshot of the graph. See
+     * {@link UndirectedGraph#sameComponent(Object, Object)}.
+     * @param first value of a node.
+     * @param second value of a node.
+     * @return true if the nodes are in the same connected component. A node is always in its own component.
+     * @throws java.util.NoSuchElementException if either node does not exist in the graph.
+     */
+    @Override
+    public boolean sameComponent(final T first, final T second) {
+        return this.connectedComponents().sameComponent(first, second);
+    }
+}
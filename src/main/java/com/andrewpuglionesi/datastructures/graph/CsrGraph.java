@@ -0,0 +1,861 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An immutable, read-optimized snapshot of a {@link Graph} in compressed sparse row (CSR) form. Every node is assigned
+ * a dense integer id between 0 and {@code size() - 1}. The outbound edges of the node with id {@code i} occupy the
+ * index range {@code [offsets[i], offsets[i + 1])} of the {@code targets} and {@code weights} arrays, so traversals
+ * walk flat primitive arrays instead of hashing their way through nested maps.
+ * Modifying the graph a snapshot was taken from does not modify the snapshot.
+ * @param <T> the data type of nodes' values. This type should have a reliable hashCode() and equals() implementation,
+ *           as the snapshot uses a hash table to translate values into ids.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.AvoidFieldNameMatchingMethodName", "PMD.TooManyMethods", "PMD.GodClass",
+        "PMD.DoNotUseThreads", "PMD.CouplingBetweenObjects", "PMD.CyclomaticComplexity"})
+public final class CsrGraph<T> implements Iterable<T> {
+
+    /**
+     * The damping factor of {@link #pageRank()}.
+     */
+    private static final double DEFAULT_DAMPING = 0.85;
+
+    /**
+     * The convergence tolerance of {@link #pageRank()}.
+     */
+    private static final double DEFAULT_TOLERANCE = 1e-9;
+
+    /**
+     * Seeds the choice of sources of {@link #betweennessCentrality(int, DistanceMetric)}.
+     */
+    private static final long DEFAULT_SEED = 42;
+
+    /**
+     * Maps a node's value to its id.
+     */
+    private final Map<T, Integer> ids;
+
+    /**
+     * Maps a node's id to its value.
+     */
+    private final T[] values;
+
+    /**
+     * {@code offsets[i]} is the index of the first outbound edge of node {@code i} in {@code targets} and
+     * {@code weights}. The array has one more element than there are nodes, so the final element is the edge count.
+     */
+    private final int[] offsets;
+
+    /**
+     * The id of the terminus of each edge, grouped by the origin node.
+     */
+    private final int[] targets;
+
+    /**
+     * The weight of each edge, parallel to {@code targets}.
+     */
+    private final double[] weights;
+
+    /**
+     * True if this is a snapshot of a directed graph.
+     */
+    private final boolean directed;
+
+    /**
+     * Lazily computed transpose of a directed snapshot (i.e., the same graph with every edge reversed).
+     */
+    @SuppressWarnings("PMD.AvoidUsingVolatile")
+    private volatile CsrGraph<T> transpose;
+
+    /**
+     * Creates a snapshot from already-built CSR arrays.
+     * @param ids maps each node's value to its id.
+     * @param values maps each node's id to its value.
+     * @param offsets edge offsets of each node.
+     * @param targets edge termini.
+     * @param weights edge weights.
+     * @param directed true if the graph is directed.
+     */
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    private CsrGraph(final Map<T, Integer> ids, final T[] values, final int[] offsets, final int[] targets,
+                     final double[] weights, final boolean directed) {
+        this.ids = ids;
+        this.values = values;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.directed = directed;
+    }
+
+    /**
+     * Builds a CSR snapshot of a graph. If other threads modify a concurrent graph while the snapshot is taken, the
+     * snapshot holds each node's edges as they were when that node was copied, leaving out edges to nodes that were
+     * added after the nodes were copied.
+     * @param graph the graph to copy.
+     * @param <T> the data type of the graph's values.
+     * @return an immutable snapshot of {@code graph} as it is at the time of the call.
+     */
+    @SuppressWarnings({"unchecked", "PMD.ShortMethodName", "PMD.UseConcurrentHashMap"})
+    public static <T> CsrGraph<T> of(final Graph<T> graph) {
+        final List<T> nodes = new ArrayList<>(graph.size());
+        for (final T value : graph) {
+            nodes.add(value);
+        }
+        final int nodeCount = nodes.size();
+        final T[] values = nodes.toArray((T[]) new Object[nodeCount]);
+        final Map<T, Integer> ids = new HashMap<>((int) (nodeCount / 0.75f) + 1);
+        int capacity = 0;
+        for (int id = 0; id < nodeCount; id++) {
+            ids.put(values[id], id);
+            capacity += graph.outDegree(values[id]);
+        }
+        final int[] offsets = new int[nodeCount + 1];
+        int[] targets = new int[capacity];
+        double[] weights = new double[capacity];
+        int position = 0;
+        final EdgeCursor<T> cursor = graph.edgeCursor();
+        for (int id = 0; id < nodeCount; id++) {
+            cursor.reset(values[id]);
+            while (cursor.advance()) {
+                final Integer target = ids.get(cursor.destination());
+                if (target == null) {
+                    continue;
+                }
+                if (position == targets.length) {
+                    targets = Arrays.copyOf(targets, position * 2 + 1);
+                    weights = Arrays.copyOf(weights, position * 2 + 1);
+                }
+                targets[position] = target;
+                weights[position] = cursor.weight();
+                position++;
+            }
+            offsets[id + 1] = position;
+        }
+        if (position != targets.length) {
+            targets = Arrays.copyOf(targets, position);
+            weights = Arrays.copyOf(weights, position);
+        }
+        return new CsrGraph<>(ids, values, offsets, targets, weights, graph.isDirected());
+    }
+
+    /**
+     * Rebuilds a snapshot from the arrays of one that was written out.
+     * @param values maps each node's id to its value.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     * @param weights CSR edge weights.
+     * @param directed true if the graph is directed.
+     * @param <T> the data type of nodes' values.
+     * @return a snapshot over the arrays, which it takes ownership of.
+     */
+    @SuppressWarnings("PMD.UseConcurrentHashMap")
+    /* default */ static <T> CsrGraph<T> fromArrays(final T[] values, final int[] offsets, final int[] targets,
+                                                    final double[] weights, final boolean directed) {
+        final Map<T, Integer> ids = new HashMap<>((int) (values.length / 0.75f) + 1);
+        for (int id = 0; id < values.length; id++) {
+            ids.put(values[id], id);
+        }
+        return new CsrGraph<>(ids, values, offsets, targets, weights, directed);
+    }
+
+    /**
+     * @return the number of nodes in the snapshot.
+     */
+    public int size() {
+        return this.values.length;
+    }
+
+    /**
+     * @return the number of directional edges stored in the snapshot. Each edge of an undirected graph is stored
+     * twice (once per direction), except for self-directed edges.
+     */
+    public int edgeSlots() {
+        return this.targets.length;
+    }
+
+    /**
+     * @return true if the snapshot has no nodes.
+     */
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * @return true if this is a snapshot of a directed graph.
+     */
+    public boolean isDirected() {
+        return this.directed;
+    }
+
+    /**
+     * @param node value of a node.
+     * @return true if the node is present in the snapshot.
+     */
+    public boolean containsNode(final T node) {
+        return this.ids.containsKey(node);
+    }
+
+    /**
+     * @param node value of a node.
+     * @return the dense id of the node, or -1 if the node is not present in the snapshot.
+     */
+    public int idOf(final T node) {
+        final Integer id = this.ids.get(node);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id the dense id of a node.
+     * @return the value of the node with the specified id.
+     * @throws IndexOutOfBoundsException if no node has the specified id.
+     */
+    public T valueOf(final int id) {
+        return this.values[id];
+    }
+
+    /**
+     * Returns all the neighbors of a node as a list. Modifying the returned list will not modify the snapshot.
+     * @param from value of the node whose neighbors to retrieve.
+     * @return a list of nodes that are connected to {@code from} in the snapshot.
+     * @throws NoSuchElementException if the node is not present in the snapshot.
+     */
+    public List<T> getNeighbors(final T from) {
+        final int id = this.requireId(from);
+        final List<T> neighbors = new ArrayList<>(this.offsets[id + 1] - this.offsets[id]);
+        for (int i = this.offsets[id]; i < this.offsets[id + 1]; i++) {
+            neighbors.add(this.values[this.targets[i]]);
+        }
+        return neighbors;
+    }
+
+    /**
+     * Computes the minimum distance (i.e., shortest path length) between two nodes using a breadth-first traversal.
+     * Follows the same conventions as {@link Graph#distanceBetween(Object, Object)}: the path length is the number of
+     * edges, and the distance between a node and itself is the length of the shortest cycle through the node.
+     * @param from value of the origin node.
+     * @param to value of the destination node.
+     * @return the minimum number of edges that must be crossed to travel between the nodes, or -1 if there is no path
+     * between them.
+     */
+    public int distanceBetween(final T from, final T to) {
+        return this.distanceBetween(from, to, SearchDirection.FORWARD);
+    }
+
+    /**
+     * Computes the minimum distance between two nodes, like {@link #distanceBetween(Object, Object)}, with a choice of
+     * search. A bidirectional search for the distance between a node and itself (the shortest cycle through the node)
+     * searches forward, since both of its sides would start from the same node.
+     * @param from value of the origin node.
+     * @param to value of the destination node.
+     * @param direction how to search for the shortest path.
+     * @return the minimum number of edges that must be crossed to travel between the nodes, or -1 if there is no path
+     * between them.
+     */
+    public int distanceBetween(final T from, final T to, final SearchDirection direction) {
+        final int source = this.idOf(from);
+        final int destination = this.idOf(to);
+        if (source < 0 || destination < 0) {
+            return -1;
+        }
+        if (direction == SearchDirection.FORWARD || source == destination) {
+            return BreadthFirstSearch.distance(this.offsets, this.targets, source, destination);
+        }
+        final CsrGraph<T> reverse = this.transpose();
+        return BreadthFirstSearch.bidirectionalDistance(this.offsets, this.targets, reverse.offsets, reverse.targets,
+                source, destination);
+    }
+
+    /**
+     * Computes the distance from a node to every node in the snapshot with a parallel breadth-first search on the
+     * common fork-join pool. See {@link #distancesFrom(Object, ForkJoinPool)}.
+     * @param source value of the node to start from.
+     * @return the distance from {@code source} to every node.
+     * @throws NoSuchElementException if the node is not present in the snapshot.
+     */
+    public DistanceLabeling<T> distancesFrom(final T source) {
+        return this.distancesFrom(source, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the distance (i.e., the number of edges on a shortest path) from a node to every node in the snapshot.
+     * Each level of the breadth-first search is expanded in parallel, and wide levels are expanded bottom-up, with
+     * every unvisited node looking for a parent on the frontier, which for a directed snapshot uses its reverse
+     * adjacency. Unlike {@link #distanceBetween(Object, Object)}, the distance from the source to itself is 0.
+     * @param source value of the node to start from.
+     * @param pool the pool whose workers expand each level of the search.
+     * @return the distance from {@code source} to every node.
+     * @throws NoSuchElementException if the node is not present in the snapshot.
+     */
+    public DistanceLabeling<T> distancesFrom(final T source, final ForkJoinPool pool) {
+        final int id = this.idOf(source);
+        if (id < 0) {
+            throw new NoSuchElementException("No node exists with value " + source);
+        }
+        final CsrGraph<T> reverse = this.transpose();
+        final int[] distances = ParallelBreadthFirstSearch.distancesFrom(this.offsets, this.targets, reverse.offsets,
+                reverse.targets, id, pool);
+        return new DistanceLabeling<>(this, distances);
+    }
+
+    /**
+     * Follows the same conventions as {@link Graph#hasCycle()}. For a snapshot of an undirected graph, a cycle is
+     * either a self-directed edge or a circular path containing three or more nodes.
+     * @return true if there exists a cycle in the snapshot.
+     */
+    public boolean hasCycle() {
+        return this.directed
+                ? DepthFirstSearch.hasDirectedCycle(this.offsets, this.targets)
+                : DepthFirstSearch.hasUndirectedCycle(this.offsets, this.targets);
+    }
+
+    /**
+     * Follows the same conventions as {@link Graph#getNodesConnectedTo(Object)}: retrieves all nodes that are
+     * connected to {@code source} by one or more edges, excluding {@code source} itself.
+     * @param source value of a node.
+     * @return a set containing the values of all nodes connected to {@code source}, excluding {@code source} itself.
+     * @throws NoSuchElementException if the node is not present in the snapshot.
+     */
+    public Set<T> getNodesConnectedTo(final T source) {
+        final int id = this.idOf(source);
+        if (id < 0) {
+            throw new NoSuchElementException("No node exists with value " + source);
+        }
+        final int[] reached = DepthFirstSearch.collectReachable(this.offsets, this.targets, id);
+        final Set<T> connected = new HashSet<>((int) (reached.length / 0.75f) + 1);
+        for (int i = 1; i < reached.length; i++) { // the first node reached is the source
+            connected.add(this.values[reached[i]]);
+        }
+        return connected;
+    }
+
+    /**
+     * Follows the same conventions as {@link Graph#isConnectedGraph()}: a snapshot of a directed graph must be
+     * strongly connected.
+     * @return true if this is a connected graph. An empty graph is not considered to be connected.
+     */
+    public boolean isConnectedGraph() {
+        if (this.isEmpty()) {
+            return false;
+        }
+        if (this.directed) {
+            return this.stronglyConnectedComponents().componentCount() == 1;
+        }
+        return DepthFirstSearch.collectReachable(this.offsets, this.targets, 0).length == this.size();
+    }
+
+    /**
+     * Partitions the snapshot into strongly connected components in linear time, using an iterative version of
+     * Tarjan's algorithm. Within a strongly connected component, every node can reach every other node. Components
+     * are numbered in reverse topological order: an edge between two different components always leads from the
+     * component with the higher id to the one with the lower id. For a snapshot of an undirected graph, the strongly
+     * connected components are simply its connected components.
+     * @return the component of every node.
+     */
+    public ComponentLabeling<T> stronglyConnectedComponents() {
+        final int[] labels = new int[this.size()];
+        final int count = DepthFirstSearch.labelStronglyConnectedComponents(this.offsets, this.targets, labels);
+        return new ComponentLabeling<>(this, labels, count);
+    }
+
+    /**
+     * Partitions a snapshot of an undirected graph into connected components on the common fork-join pool. See
+     * {@link #connectedComponents(ForkJoinPool)}.
+     * @return the component of every node.
+     * @throws UnsupportedOperationException if the snapshot is of a directed graph.
+     */
+    public ComponentLabeling<T> connectedComponents() {
+        return this.connectedComponents(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Partitions a snapshot of an undirected graph into connected components with the Afforest algorithm, a
+     * lock-free union-find that splits its work among the pool's workers. It links along a couple of edges per node,
+     * samples the nodes to find the largest component, and then only looks at the edges of nodes outside it, so on a
+     * graph with one giant component most edges are never examined. Components are numbered in the order of their
+     * lowest node ids. This gives the same partition as {@link #stronglyConnectedComponents()}, which runs on a
+     * single thread.
+     * @param pool the pool whose workers label the nodes.
+     * @return the component of every node.
+     * @throws UnsupportedOperationException if the snapshot is of a directed graph.
+     */
+    public ComponentLabeling<T> connectedComponents(final ForkJoinPool pool) {
+        if (this.directed) {
+            throw new UnsupportedOperationException("Connected components need an undirected graph");
+        }
+        return ParallelComponents.label(this, pool);
+    }
+
+    /**
+     * Orders the snapshot's nodes with Kahn's algorithm, so that every edge leads from an earlier node to a later one.
+     * @return the nodes in topological order.
+     * @throws IllegalStateException if the snapshot has a cycle.
+     */
+    public List<T> topologicalOrder() {
+        final int[] order = this.requireTopologicalOrder();
+        final List<T> nodes = new ArrayList<>(order.length);
+        for (final int id : order) {
+            nodes.add(this.values[id]);
+        }
+        return nodes;
+    }
+
+    /**
+     * Groups the snapshot's nodes into levels on the common fork-join pool. See
+     * {@link #topologicalLevels(ForkJoinPool)}.
+     * @return the nodes of each level, in order of level.
+     * @throws IllegalStateException if the snapshot has a cycle.
+     */
+    public List<List<T>> topologicalLevels() {
+        return this.topologicalLevels(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Groups the snapshot's nodes into levels that can be processed one batch at a time: the first level holds the
+     * nodes that no edge leads to, and each later level holds the nodes whose every inbound edge comes from an earlier
+     * level, at least one of them from the level just before. No edge joins two nodes on the same level, so the nodes
+     * of a level have no dependencies on each other. Each level is found in parallel.
+     * @param pool the pool whose workers find each level.
+     * @return the nodes of each level, in order of level.
+     * @throws IllegalStateException if the snapshot has a cycle.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public List<List<T>> topologicalLevels(final ForkJoinPool pool) {
+        final int[] levels = new int[this.size()];
+        final int levelCount = TopologicalSort.levels(this.offsets, this.targets, pool, levels);
+        if (levelCount < 0) {
+            throw cyclic();
+        }
+        final List<List<T>> grouped = new ArrayList<>(levelCount);
+        for (int level = 0; level < levelCount; level++) {
+            grouped.add(new ArrayList<>());
+        }
+        for (int id = 0; id < levels.length; id++) {
+            grouped.get(levels[id]).add(this.values[id]);
+        }
+        return grouped;
+    }
+
+    /**
+     * Finds the lightest path from a node to every node of an acyclic snapshot in linear time, by relaxing each edge
+     * once, in topological order. Unlike Dijkstra's algorithm, this allows edges of negative weight.
+     * @param source value of the node to start from.
+     * @return the weight of the lightest path from {@code source} to every node, and the paths themselves.
+     * @throws NoSuchElementException if the node is not present in the snapshot.
+     * @throws IllegalStateException if the snapshot has a cycle.
+     */
+    public PathLabeling<T> dagShortestPathsFrom(final T source) {
+        return this.dagPathsFrom(source, false);
+    }
+
+    /**
+     * Finds the heaviest path from a node to every node of an acyclic snapshot in linear time, by relaxing each edge
+     * once, in topological order. The heaviest path through a graph of jobs weighted by their durations is its
+     * critical path.
+     * @param source value of the node to start from.
+     * @return the weight of the heaviest path from {@code source} to every node, and the paths themselves.
+     * @throws NoSuchElementException if the node is not present in the snapshot.
+     * @throws IllegalStateException if the snapshot has a cycle.
+     */
+    public PathLabeling<T> dagLongestPathsFrom(final T source) {
+        return this.dagPathsFrom(source, true);
+    }
+
+    /**
+     * Finds the lightest path between every ordered pair of nodes on the common fork-join pool, keeping the result on
+     * the heap. See {@link #allPairsShortestPaths(ForkJoinPool, Path)}.
+     * @return the weight of the lightest path between every ordered pair of nodes.
+     * @throws IllegalStateException if the snapshot has a cycle whose weights sum to less than zero.
+     */
+    public DistanceMatrix<T> allPairsShortestPaths() {
+        return this.allPairsShortestPaths(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Finds the lightest path between every ordered pair of nodes, keeping the result on the heap. See
+     * {@link #allPairsShortestPaths(ForkJoinPool, Path)}.
+     * @param pool the pool whose workers run the search.
+     * @return the weight of the lightest path between every ordered pair of nodes.
+     * @throws IllegalStateException if the snapshot has a cycle whose weights sum to less than zero.
+     */
+    public DistanceMatrix<T> allPairsShortestPaths(final ForkJoinPool pool) {
+        return AllPairsShortestPaths.search(this, pool);
+    }
+
+    /**
+     * Finds the lightest path between every ordered pair of nodes, and maps the result from a file, so that a matrix
+     * too large for the heap can still be built and queried. A dense snapshot is searched with a tiled, parallel
+     * Floyd-Warshall; a sparse one by running Dijkstra's algorithm from every node in parallel. A snapshot with edges
+     * of negative weight is always searched with Floyd-Warshall. Both work on the mapped rows in place, so the heap
+     * never holds a copy of the matrix, whichever is chosen.
+     * @param pool the pool whose workers run the search.
+     * @param file the file to hold the result, which is created or overwritten; see {@link DistanceMatrix} for its
+     *             layout.
+     * @return the weight of the lightest path between every ordered pair of nodes.
+     * @throws IOException if the file cannot be created or mapped.
+     * @throws IllegalStateException if the snapshot has a cycle whose weights sum to less than zero.
+     */
+    public DistanceMatrix<T> allPairsShortestPaths(final ForkJoinPool pool, final Path file) throws IOException {
+        final DistanceMatrix<T> matrix = DistanceMatrix.map(this, file);
+        AllPairsShortestPaths.searchInto(this, pool, matrix);
+        return matrix;
+    }
+
+    /**
+     * Builds a landmark distance oracle over the snapshot on the common fork-join pool. See
+     * {@link #landmarkOracle(int, DistanceMetric, ForkJoinPool)}.
+     * @param landmarkCount the number of landmarks.
+     * @param metric how to measure distances.
+     * @return the oracle.
+     * @throws IllegalArgumentException if {@code landmarkCount} is less than 1.
+     * @throws IllegalStateException if distances are measured by weight and an edge has a negative weight.
+     */
+    public LandmarkOracle<T> landmarkOracle(final int landmarkCount, final DistanceMetric metric) {
+        return this.landmarkOracle(landmarkCount, metric, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds a landmark distance oracle over the snapshot, which answers bounds on the distance between any two nodes
+     * in time proportional to the number of landmarks, and exact distances with a search that explores little more
+     * than the shortest path itself. The oracle holds one or, for a directed snapshot, two doubles per node per
+     * landmark. Landmarks are chosen one after another, each with a parallel breadth-first search, and the searches
+     * from and to every landmark then run in parallel.
+     * @param landmarkCount the number of landmarks; a dozen or two is typical.
+     * @param metric how to measure distances.
+     * @param pool the pool whose workers run the searches.
+     * @return the oracle.
+     * @throws IllegalArgumentException if {@code landmarkCount} is less than 1.
+     * @throws IllegalStateException if distances are measured by weight and an edge has a negative weight.
+     */
+    public LandmarkOracle<T> landmarkOracle(final int landmarkCount, final DistanceMetric metric,
+                                            final ForkJoinPool pool) {
+        return LandmarkOracle.build(this, landmarkCount, metric, pool);
+    }
+
+    /**
+     * Finds a minimum spanning forest of a snapshot of an undirected graph on the common fork-join pool. See
+     * {@link #minimumSpanningForest(ForkJoinPool)}.
+     * @return the forest.
+     * @throws UnsupportedOperationException if the snapshot is of a directed graph.
+     */
+    public SpanningForest<T> minimumSpanningForest() {
+        return this.minimumSpanningForest(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Finds a minimum spanning forest of a snapshot of an undirected graph: for every connected component, a tree
+     * connecting all of its nodes whose edges have the lightest total weight. A pool of several workers runs Boruvka's
+     * algorithm, which takes at most {@code log2(n)} rounds, and splits the work of each round among the workers. A
+     * pool of a single worker gains nothing from splitting the rounds, so the calling thread runs Kruskal's algorithm
+     * instead, which sorts the edges once and takes about two thirds of the time of Boruvka's on one core.
+     * Self-directed edges are never in the forest, and negative weights are allowed.
+     * @param pool the pool whose workers run the search.
+     * @return the forest.
+     * @throws UnsupportedOperationException if the snapshot is of a directed graph.
+     */
+    public SpanningForest<T> minimumSpanningForest(final ForkJoinPool pool) {
+        if (this.directed) {
+            throw new UnsupportedOperationException("A minimum spanning forest needs an undirected graph");
+        }
+        return pool.getParallelism() == 1 ? Kruskal.search(this) : ParallelBoruvka.search(this, pool);
+    }
+
+    /**
+     * Ranks the snapshot's nodes by PageRank on the common fork-join pool, with a damping factor of 0.85 and a
+     * tolerance of {@code 1e-9}. See {@link #pageRank(double, double, ForkJoinPool)}.
+     * @return the rank of each node.
+     */
+    public CentralityScores<T> pageRank() {
+        return this.pageRank(DEFAULT_DAMPING, DEFAULT_TOLERANCE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Ranks the snapshot's nodes by PageRank: the probability that a walk which follows a random outbound edge with
+     * probability {@code damping}, and otherwise jumps to a random node, is at each node. A node without outbound
+     * edges jumps to a random node. Edge weights are ignored, and an undirected edge counts in both directions. Starts
+     * from equal ranks and iterates, splitting each iteration among the pool's workers, until the ranks change by less
+     * than {@code tolerance} in total, or 1000 iterations have run.
+     * @param damping the probability of following an edge rather than jumping, at least 0 and less than 1.
+     * @param tolerance the largest total change to the ranks, summed over every node, at which they have converged.
+     * @param pool the pool whose workers run each iteration.
+     * @return the rank of each node. The ranks sum to 1.
+     * @throws IllegalArgumentException if {@code damping} is not at least 0 and less than 1, or {@code tolerance} is
+     * not positive.
+     */
+    public CentralityScores<T> pageRank(final double damping, final double tolerance, final ForkJoinPool pool) {
+        final double[] ranks = new double[this.size()];
+        Arrays.fill(ranks, 1.0 / this.size());
+        return this.pageRank(ranks, damping, tolerance, pool);
+    }
+
+    /**
+     * Ranks the snapshot's nodes by PageRank like {@link #pageRank(double, double, ForkJoinPool)}, but starts from
+     * the ranks of an earlier computation, such as one over a snapshot of the same graph before a few edges changed.
+     * Starting close to the answer takes fewer iterations to converge. Nodes that were not ranked before start with
+     * the rank every node would have if all ranks were equal, and the starting ranks are then scaled to sum to 1.
+     * @param previous earlier ranks of some or all of the snapshot's nodes, matched to them by value.
+     * @param damping the probability of following an edge rather than jumping, at least 0 and less than 1.
+     * @param tolerance the largest total change to the ranks, summed over every node, at which they have converged.
+     * @param pool the pool whose workers run each iteration.
+     * @return the rank of each node. The ranks sum to 1.
+     * @throws IllegalArgumentException if {@code damping} is not at least 0 and less than 1, or {@code tolerance} is
+     * not positive.
+     */
+    public CentralityScores<T> pageRank(final CentralityScores<T> previous, final double damping,
+                                        final double tolerance, final ForkJoinPool pool) {
+        final double[] ranks = new double[this.size()];
+        double sum = 0;
+        for (int id = 0; id < ranks.length; id++) {
+            final T node = this.values[id];
+            ranks[id] = previous.containsNode(node) ? previous.score(node) : 1.0 / ranks.length;
+            sum += ranks[id];
+        }
+        for (int id = 0; id < ranks.length; id++) {
+            ranks[id] = sum > 0 ? ranks[id] / sum : 1.0 / ranks.length;
+        }
+        return this.pageRank(ranks, damping, tolerance, pool);
+    }
+
+    /**
+     * Scores every node by its out-degree, divided by the most edges a node could have to other nodes. Self-directed
+     * edges are counted. See {@link #inDegreeCentrality()} for directed graphs.
+     * @return the degree centrality of each node. Every node of a graph with fewer than two nodes scores 0.
+     */
+    public CentralityScores<T> degreeCentrality() {
+        final double[] scores = new double[this.size()];
+        for (int id = 0; id < scores.length; id++) {
+            scores[id] = this.offsets[id + 1] - this.offsets[id];
+        }
+        return new CentralityScores<>(this, normalizeDegrees(scores), 0);
+    }
+
+    /**
+     * Scores every node by its in-degree, divided by the most edges a node could have from other nodes. For an
+     * undirected snapshot, this is the same as {@link #degreeCentrality()}.
+     * @return the in-degree centrality of each node. Every node of a graph with fewer than two nodes scores 0.
+     */
+    public CentralityScores<T> inDegreeCentrality() {
+        final double[] scores = new double[this.size()];
+        for (final int target : this.targets) {
+            scores[target]++;
+        }
+        return new CentralityScores<>(this, normalizeDegrees(scores), 0);
+    }
+
+    /**
+     * Estimates the snapshot's betweenness centrality on the common fork-join pool, choosing the sampled sources with
+     * a fixed seed. See {@link #betweennessCentrality(int, DistanceMetric, long, ForkJoinPool)}.
+     * @param sampleCount the number of sources to search from.
+     * @param metric how to measure the length of a path.
+     * @return the estimated betweenness of each node.
+     * @throws IllegalArgumentException if {@code sampleCount} is less than 1.
+     * @throws IllegalStateException if paths are measured by weight and an edge's weight is not positive.
+     */
+    public CentralityScores<T> betweennessCentrality(final int sampleCount, final DistanceMetric metric) {
+        return this.betweennessCentrality(sampleCount, metric, DEFAULT_SEED, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Estimates the snapshot's betweenness centrality: for each node, the sum over every pair of other nodes of the
+     * fraction of the shortest paths between them that pass through the node. Runs Brandes' algorithm from a random
+     * sample of source nodes, in parallel on the pool's workers, and scales the result up to the whole graph; the
+     * estimate sharpens as the sample grows, and is exact when the sample includes every node. Each search takes time
+     * proportional to the number of edges, or to {@code e log n} when paths are measured by weight. For an undirected
+     * snapshot, each pair of nodes is counted once.
+     * @param sampleCount the number of sources to search from.
+     * @param metric how to measure the length of a path.
+     * @param seed seeds the choice of sources.
+     * @param pool the pool whose workers run the searches.
+     * @return the estimated betweenness of each node.
+     * @throws IllegalArgumentException if {@code sampleCount} is less than 1.
+     * @throws IllegalStateException if paths are measured by weight and an edge's weight is not positive.
+     */
+    public CentralityScores<T> betweennessCentrality(final int sampleCount, final DistanceMetric metric,
+                                                     final long seed, final ForkJoinPool pool) {
+        if (sampleCount <= 0) {
+            throw new IllegalArgumentException("Betweenness needs at least one sampled source");
+        }
+        if (metric == DistanceMetric.WEIGHTS) {
+            for (final double weight : this.weights) {
+                if (weight <= 0) {
+                    throw new IllegalStateException("Cannot count paths by weight with weights that are not positive");
+                }
+            }
+        }
+        return new CentralityScores<>(this, SampledBetweenness.estimate(this, sampleCount, metric, seed, pool), 0);
+    }
+
+    /**
+     * @param ranks the rank of each node to start from, which sum to 1; receives the final ranks.
+     * @param damping the probability of following an edge rather than jumping.
+     * @param tolerance the largest total change to the ranks at which they have converged.
+     * @param pool the pool whose workers run each iteration.
+     * @return the final ranks.
+     */
+    private CentralityScores<T> pageRank(final double[] ranks, final double damping, final double tolerance,
+                                         final ForkJoinPool pool) {
+        if (Double.isNaN(damping) || damping < 0 || damping >= 1) {
+            throw new IllegalArgumentException("Damping must be at least 0 and less than 1, not " + damping);
+        }
+        if (Double.isNaN(tolerance) || tolerance <= 0) {
+            throw new IllegalArgumentException("Tolerance must be positive, not " + tolerance);
+        }
+        final int iterations = PageRank.iterate(this, damping, tolerance, ranks, pool);
+        return new CentralityScores<>(this, ranks, iterations);
+    }
+
+    /**
+     * @param degrees the degree of each node; receives the normalized degrees.
+     * @return {@code degrees}, each divided by one less than the number of nodes.
+     */
+    private static double[] normalizeDegrees(final double[] degrees) {
+        final double scale = degrees.length > 1 ? 1.0 / (degrees.length - 1) : 0;
+        for (int id = 0; id < degrees.length; id++) {
+            degrees[id] *= scale;
+        }
+        return degrees;
+    }
+
+    /**
+     * @param source value of the node to start from.
+     * @param longest true to find the heaviest paths, or false to find the lightest.
+     * @return the weight of the best path from {@code source} to every node, and the paths themselves.
+     */
+    private PathLabeling<T> dagPathsFrom(final T source, final boolean longest) {
+        final int id = this.idOf(source);
+        if (id < 0) {
+            throw new NoSuchElementException("No node exists with value " + source);
+        }
+        final int[] order = this.requireTopologicalOrder();
+        final double[] distances = new double[this.size()];
+        final int[] predecessors = new int[this.size()];
+        TopologicalSort.paths(this.offsets, this.targets, this.weights, order, id, longest, distances, predecessors);
+        return new PathLabeling<>(this, distances, predecessors, id);
+    }
+
+    /**
+     * @return the ids of the nodes in topological order.
+     * @throws IllegalStateException if the snapshot has a cycle.
+     */
+    private int[] requireTopologicalOrder() {
+        final int[] order = TopologicalSort.order(this.offsets, this.targets);
+        if (order.length < this.size()) {
+            throw cyclic();
+        }
+        return order;
+    }
+
+    /**
+     * @return the exception thrown when an algorithm that needs an acyclic graph is given one with a cycle.
+     */
+    private static IllegalStateException cyclic() {
+        return new IllegalStateException("The graph has a cycle, so its nodes have no topological order");
+    }
+
+    /**
+     * @return the same snapshot with the direction of every edge reversed. For an undirected snapshot, returns this.
+     */
+    /* default */ CsrGraph<T> transpose() {
+        if (!this.directed) {
+            return this;
+        }
+        CsrGraph<T> result = this.transpose;
+        if (result == null) {
+            result = this.buildTranspose();
+            this.transpose = result;
+        }
+        return result;
+    }
+
+    /**
+     * Reverses every edge with a counting sort on the edges' termini.
+     * @return the transpose of this snapshot.
+     */
+    private CsrGraph<T> buildTranspose() {
+        final int[] reversedOffsets = new int[this.size() + 1];
+        for (final int target : this.targets) {
+            reversedOffsets[target + 1]++;
+        }
+        for (int id = 0; id < this.size(); id++) {
+            reversedOffsets[id + 1] += reversedOffsets[id];
+        }
+        final int[] cursor = Arrays.copyOf(reversedOffsets, this.size());
+        final int[] reversedTargets = new int[this.targets.length];
+        final double[] reversedWeights = new double[this.weights.length];
+        for (int from = 0; from < this.size(); from++) {
+            for (int i = this.offsets[from]; i < this.offsets[from + 1]; i++) {
+                final int position = cursor[this.targets[i]]++;
+                reversedTargets[position] = from;
+                reversedWeights[position] = this.weights[i];
+            }
+        }
+        return new CsrGraph<>(this.ids, this.values, reversedOffsets, reversedTargets, reversedWeights, true);
+    }
+
+    /**
+     * Follows the same conventions as the {@code totalWeight()} method of the graph the snapshot was taken from.
+     * @return the sum of every edge's weight, combined.
+     */
+    public double totalWeight() {
+        double sum = 0;
+        for (final double weight : this.weights) {
+            sum += weight;
+        }
+        return this.directed ? sum : sum / 2; // undirected edges are stored once in each direction
+    }
+
+    /**
+     * @return an iterator over the values in the snapshot, in order of id.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return Arrays.asList(this.values).iterator();
+    }
+
+    /**
+     * @return the CSR edge offsets of each node. Must not be modified.
+     */
+    @SuppressWarnings("PMD.MethodReturnsInternalArray")
+    /* default */ int[] offsets() {
+        return this.offsets;
+    }
+
+    /**
+     * @return the terminus id of each edge. Must not be modified.
+     */
+    @SuppressWarnings("PMD.MethodReturnsInternalArray")
+    /* default */ int[] targets() {
+        return this.targets;
+    }
+
+    /**
+     * @return the weight of each edge. Must not be modified.
+     */
+    @SuppressWarnings("PMD.MethodReturnsInternalArray")
+    /* default */ double[] weights() {
+        return this.weights;
+    }
+
+    /**
+     * @param node value of a node.
+     * @return the node's id.
+     * @throws NoSuchElementException if the node is not present in the snapshot.
+     */
+    private int requireId(final T node) {
+        final int id = this.idOf(node);
+        if (id < 0) {
+            throw new NoSuchElementException("Cannot retrieve neighbors because node does not exist in graph: " + node);
+        }
+        return id;
+    }
+}
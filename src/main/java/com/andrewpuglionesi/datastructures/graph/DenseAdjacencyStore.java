@@ -0,0 +1,390 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Stores a graph as an adjacency matrix. Each node's value is interned to a dense int id, and each node's outbound
+ * edges are a row of bits, one per node, so checking for an edge is a single bit test once the ids are known, and a
+ * breadth-first search expands a whole level by OR-ing together the rows of the nodes on it, 64 nodes per operation.
+ * Weights are kept in a matrix of their own, whose rows are only allocated once a node has an edge whose weight is not
+ * {@link Graph#DEFAULT_EDGE_WEIGHT}, so unweighted graphs pay nothing for them. The matrix takes memory in proportion
+ * to the square of the number of nodes, so the store suits small, dense graphs.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.TooManyMethods", "PMD.UseConcurrentHashMap"})
+final class DenseAdjacencyStore<T> implements AdjacencyStore<T> {
+
+    /**
+     * log2 of the number of bits in a row's word.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * Number of nodes the store has room for before its first resize. A multiple of the word size.
+     */
+    private static final int INITIAL_NODE_CAPACITY = 64;
+
+    /**
+     * Maps a node's value to its id.
+     */
+    private final Map<T, Integer> ids = new HashMap<>();
+
+    /**
+     * Maps a node's id to its value.
+     */
+    private Object[] values = new Object[INITIAL_NODE_CAPACITY];
+
+    /**
+     * Bit {@code j} of {@code rows[i]} is set if there is an edge from node {@code i} to node {@code j}.
+     */
+    private long[][] rows = new long[INITIAL_NODE_CAPACITY][];
+
+    /**
+     * {@code weights[i][j]} is the weight of the edge from node {@code i} to node {@code j}. A null row means that
+     * every edge of the node has the default weight.
+     */
+    private double[][] weights = new double[INITIAL_NODE_CAPACITY][];
+
+    /**
+     * {@code degrees[i]} is the number of edges whose origin is node {@code i}.
+     */
+    private int[] degrees = new int[INITIAL_NODE_CAPACITY];
+
+    /**
+     * Counts the edges and sums their weights.
+     */
+    private final EdgeTally edgeTally = new EdgeTally();
+
+    @Override
+    public boolean addNode(final T value) {
+        if (this.ids.containsKey(value)) {
+            return false;
+        }
+        final int id = this.ids.size();
+        if (id == this.values.length) {
+            this.grow(id * 2);
+        }
+        this.values[id] = value;
+        this.rows[id] = new long[this.values.length >>> WORD_SHIFT];
+        this.ids.put(value, id);
+        return true;
+    }
+
+    @Override
+    public boolean containsNode(final T value) {
+        return this.ids.containsKey(value);
+    }
+
+    @Override
+    public int size() {
+        return this.ids.size();
+    }
+
+    @Override
+    public void putEdge(final T from, final T to, final double weight) {
+        final int origin = this.ids.get(from);
+        final int terminus = this.ids.get(to);
+        final long[] row = this.rows[origin];
+        final long bit = 1L << terminus;
+        if ((row[terminus >>> WORD_SHIFT] & bit) == 0) {
+            row[terminus >>> WORD_SHIFT] |= bit;
+            this.degrees[origin]++;
+            this.edgeTally.added(weight, origin == terminus);
+        } else {
+            this.edgeTally.reweighted(this.weightOf(origin, terminus), weight);
+        }
+        if (this.weights[origin] == null && Double.compare(weight, Graph.DEFAULT_EDGE_WEIGHT) != 0) {
+            this.weights[origin] = new double[this.values.length];
+            Arrays.fill(this.weights[origin], Graph.DEFAULT_EDGE_WEIGHT);
+        }
+        if (this.weights[origin] != null) {
+            this.weights[origin][terminus] = weight;
+        }
+    }
+
+    @Override
+    public boolean removeEdge(final T from, final T to) {
+        final Integer origin = this.ids.get(from);
+        final Integer terminus = this.ids.get(to);
+        if (origin == null || terminus == null || !this.hasEdge(origin, terminus)) {
+            return false;
+        }
+        this.rows[origin][terminus >>> WORD_SHIFT] &= ~(1L << terminus);
+        this.degrees[origin]--;
+        this.edgeTally.removed(this.weightOf(origin, terminus), origin.equals(terminus));
+        return true;
+    }
+
+    @Override
+    public boolean containsEdge(final T from, final T to) {
+        final Integer origin = this.ids.get(from);
+        final Integer terminus = this.ids.get(to);
+        return origin != null && terminus != null && this.hasEdge(origin, terminus);
+    }
+
+    @Override
+    public double edgeWeight(final T from, final T to) {
+        if (!this.containsEdge(from, to)) {
+            throw new NoSuchElementException("No edge exists from " + from + " to " + to);
+        }
+        return this.weightOf(this.ids.get(from), this.ids.get(to));
+    }
+
+    @Override
+    public int outDegree(final T from) {
+        return this.degrees[this.ids.get(from)];
+    }
+
+    @Override
+    public void forEachEdge(final T from, final ObjDoubleConsumer<T> action) {
+        final int origin = this.ids.get(from);
+        final long[] row = this.rows[origin];
+        for (int word = 0; word < row.length; word++) {
+            for (long bits = row[word]; bits != 0; bits &= bits - 1) {
+                final int terminus = word << WORD_SHIFT | Long.numberOfTrailingZeros(bits);
+                action.accept(this.valueOf(terminus), this.weightOf(origin, terminus));
+            }
+        }
+    }
+
+    @Override
+    public EdgeTally tally() {
+        return this.edgeTally;
+    }
+
+    @Override
+    public EdgeCursor<T> newCursor() {
+        return new Cursor();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int nextId;
+
+            @Override
+            public boolean hasNext() {
+                return this.nextId < DenseAdjacencyStore.this.size();
+            }
+
+            @Override
+            public T next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return DenseAdjacencyStore.this.valueOf(this.nextId++);
+            }
+        };
+    }
+
+    /**
+     * Searches breadth-first one level at a time: the next level is the OR of the rows of the nodes on the current
+     * level, minus the nodes that have already been visited, computed a word at a time.
+     */
+    @Override
+    public int distanceBetween(final T from, final T to) {
+        final int target = this.ids.get(to);
+        final int words = this.values.length >>> WORD_SHIFT;
+        long[] frontier = new long[words];
+        long[] next = new long[words];
+        final long[] visited = new long[words];
+        final int source = this.ids.get(from);
+        frontier[source >>> WORD_SHIFT] = 1L << source;
+        visited[source >>> WORD_SHIFT] = 1L << source;
+        for (int depth = 1; this.expand(frontier, next); depth++) {
+            if ((next[target >>> WORD_SHIFT] & 1L << target) != 0) {
+                return depth;
+            }
+            boolean grew = false;
+            for (int word = 0; word < words; word++) {
+                next[word] &= ~visited[word];
+                visited[word] |= next[word];
+                grew |= next[word] != 0;
+            }
+            if (!grew) {
+                break;
+            }
+            final long[] expanded = frontier;
+            frontier = next;
+            next = expanded;
+        }
+        return -1;
+    }
+
+    /**
+     * Searches breadth-first, a level at a time, like {@link #distanceBetween(Object, Object)}, then adds the values
+     * of the visited nodes to {@code visited}.
+     */
+    @Override
+    public void collectReachable(final T source, final Set<T> visited) {
+        final int words = this.values.length >>> WORD_SHIFT;
+        long[] frontier = new long[words];
+        long[] next = new long[words];
+        final long[] reached = new long[words];
+        final int id = this.ids.get(source);
+        frontier[id >>> WORD_SHIFT] = 1L << id;
+        reached[id >>> WORD_SHIFT] = 1L << id;
+        boolean grew = true;
+        while (grew && this.expand(frontier, next)) {
+            grew = false;
+            for (int word = 0; word < words; word++) {
+                next[word] &= ~reached[word];
+                reached[word] |= next[word];
+                grew |= next[word] != 0;
+            }
+            final long[] expanded = frontier;
+            frontier = next;
+            next = expanded;
+        }
+        for (int word = 0; word < words; word++) {
+            for (long bits = reached[word]; bits != 0; bits &= bits - 1) {
+                visited.add(this.valueOf(word << WORD_SHIFT | Long.numberOfTrailingZeros(bits)));
+            }
+        }
+    }
+
+    /**
+     * Overwrites {@code next} with the OR of the rows of the nodes in {@code frontier}.
+     * @param frontier a set of node ids, as a bitset.
+     * @param next receives the ids of every node that a node in {@code frontier} has an edge to.
+     * @return true if {@code frontier} was not empty.
+     */
+    private boolean expand(final long[] frontier, final long[] next) {
+        Arrays.fill(next, 0L);
+        boolean nonEmpty = false;
+        for (int word = 0; word < frontier.length; word++) {
+            for (long bits = frontier[word]; bits != 0; bits &= bits - 1) {
+                final long[] row = this.rows[word << WORD_SHIFT | Long.numberOfTrailingZeros(bits)];
+                for (int i = 0; i < row.length; i++) {
+                    next[i] |= row[i];
+                }
+                nonEmpty = true;
+            }
+        }
+        return nonEmpty;
+    }
+
+    /**
+     * @param origin id of the node that is the origin of the edge.
+     * @param terminus id of the node that is the terminus of the edge.
+     * @return true if the edge exists.
+     */
+    private boolean hasEdge(final int origin, final int terminus) {
+        return (this.rows[origin][terminus >>> WORD_SHIFT] & 1L << terminus) != 0;
+    }
+
+    /**
+     * @param origin id of the node that is the origin of an existing edge.
+     * @param terminus id of the node that is the terminus of the edge.
+     * @return the weight of the edge.
+     */
+    private double weightOf(final int origin, final int terminus) {
+        final double[] row = this.weights[origin];
+        return row == null ? Graph.DEFAULT_EDGE_WEIGHT : row[terminus];
+    }
+
+    /**
+     * @param id a node's id.
+     * @return the node's value.
+     */
+    @SuppressWarnings("unchecked")
+    private T valueOf(final int id) {
+        return (T) this.values[id];
+    }
+
+    /**
+     * Widens the matrix to make room for more nodes.
+     * @param capacity the number of nodes to make room for; a multiple of the word size.
+     */
+    private void grow(final int capacity) {
+        final int nodeCount = this.values.length;
+        this.values = Arrays.copyOf(this.values, capacity);
+        this.rows = Arrays.copyOf(this.rows, capacity);
+        this.weights = Arrays.copyOf(this.weights, capacity);
+        this.degrees = Arrays.copyOf(this.degrees, capacity);
+        for (int id = 0; id < nodeCount; id++) {
+            this.rows[id] = Arrays.copyOf(this.rows[id], capacity >>> WORD_SHIFT);
+            if (this.weights[id] != null) {
+                this.weights[id] = Arrays.copyOf(this.weights[id], capacity);
+            }
+        }
+    }
+
+    /**
+     * Walks a node's row a set bit at a time.
+     */
+    private final class Cursor implements EdgeCursor<T> {
+        /**
+         * Id of the node whose edges are being walked.
+         */
+        private int origin;
+
+        /**
+         * Index of the row's word holding the edge the cursor is on.
+         */
+        private int word;
+
+        /**
+         * The bits of that word that have not been walked yet.
+         */
+        private long remaining;
+
+        /**
+         * Id of the terminus of the edge the cursor is on.
+         */
+        private int terminus;
+
+        /**
+         * The origin's row, or an empty row before the cursor is reset.
+         */
+        private long[] row = new long[0];
+
+        @Override
+        public void reset(final T source) {
+            final Integer id = DenseAdjacencyStore.this.ids.get(source);
+            if (id == null) {
+                throw new NoSuchElementException("Cannot retrieve edges because node does not exist in graph: "
+                        + source);
+            }
+            this.origin = id;
+            this.row = DenseAdjacencyStore.this.rows[id];
+            this.word = 0;
+            this.remaining = this.row.length == 0 ? 0 : this.row[0];
+        }
+
+        @Override
+        public boolean advance() {
+            while (this.remaining == 0) {
+                if (this.word + 1 >= this.row.length) {
+                    return false;
+                }
+                this.word++;
+                this.remaining = this.row[this.word];
+            }
+            this.terminus = this.word << WORD_SHIFT | Long.numberOfTrailingZeros(this.remaining);
+            this.remaining &= this.remaining - 1;
+            return true;
+        }
+
+        @Override
+        public T source() {
+            return DenseAdjacencyStore.this.valueOf(this.origin);
+        }
+
+        @Override
+        public T destination() {
+            return DenseAdjacencyStore.this.valueOf(this.terminus);
+        }
+
+        @Override
+        public double weight() {
+            return DenseAdjacencyStore.this.weightOf(this.origin, this.terminus);
+        }
+    }
+}
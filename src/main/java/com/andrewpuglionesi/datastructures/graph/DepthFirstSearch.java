@@ -0,0 +1,234 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+
+/**
+ * Depth-first search engines over a graph in compressed sparse row form (see {@link CsrGraph}). The searches keep an
+ * explicit stack of node ids and edge positions in primitive arrays rather than recursing, so they can handle paths
+ * of any length without risking a {@link StackOverflowError}. Nodes are colored white (not yet visited), grey (on the
+ * current search path) or black (fully explored).
+ */
+final class DepthFirstSearch {
+
+    /**
+     * Color of a node that the search has not visited yet.
+     */
+    private static final byte WHITE = 0;
+
+    /**
+     * Color of a node that is on the current search path.
+     */
+    private static final byte GREY = 1;
+
+    /**
+     * Color of a node whose descendants have all been explored.
+     */
+    private static final byte BLACK = 2;
+
+    /**
+     * Marks the absence of a parent in the search tree.
+     */
+    private static final int NO_PARENT = -1;
+
+    private DepthFirstSearch() {
+    }
+
+    /**
+     * Searches for a directed cycle. Reaching a grey node means the search has found a path from that node back to
+     * itself. A self-directed edge constitutes a cycle.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     * @return true if there exists a cycle.
+     */
+    /* default */ static boolean hasDirectedCycle(final int[] offsets, final int[] targets) {
+        final int nodeCount = offsets.length - 1;
+        final byte[] colors = new byte[nodeCount];
+        final int[] stack = new int[nodeCount];
+        final int[] nextEdge = new int[nodeCount];
+        for (int root = 0; root < nodeCount; root++) {
+            if (colors[root] != WHITE) {
+                continue;
+            }
+            int top = 0;
+            stack[top] = root;
+            nextEdge[top] = offsets[root];
+            colors[root] = GREY;
+            while (top >= 0) {
+                final int curr = stack[top];
+                if (nextEdge[top] == offsets[curr + 1]) {
+                    colors[curr] = BLACK;
+                    top--;
+                    continue;
+                }
+                final int neighbor = targets[nextEdge[top]++];
+                if (colors[neighbor] == GREY) {
+                    return true;
+                }
+                if (colors[neighbor] == WHITE) {
+                    colors[neighbor] = GREY;
+                    top++;
+                    stack[top] = neighbor;
+                    nextEdge[top] = offsets[neighbor];
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Searches for a cycle in an undirected graph whose edges are stored in both directions. The edge leading back to
+     * a node's parent in the search tree is the same edge the search arrived by, so it is not a cycle; reaching any
+     * other grey node is. A self-directed edge constitutes a cycle.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     * @return true if there exists a self-directed edge or a circular path containing three or more nodes.
+     */
+    @SuppressWarnings("PMD.CognitiveComplexity")
+    /* default */ static boolean hasUndirectedCycle(final int[] offsets, final int[] targets) {
+        final int nodeCount = offsets.length - 1;
+        final byte[] colors = new byte[nodeCount];
+        final int[] stack = new int[nodeCount];
+        final int[] parents = new int[nodeCount];
+        final int[] nextEdge = new int[nodeCount];
+        for (int root = 0; root < nodeCount; root++) {
+            if (colors[root] != WHITE) {
+                continue;
+            }
+            int top = 0;
+            stack[top] = root;
+            parents[top] = NO_PARENT;
+            nextEdge[top] = offsets[root];
+            colors[root] = GREY;
+            while (top >= 0) {
+                final int curr = stack[top];
+                if (nextEdge[top] == offsets[curr + 1]) {
+                    colors[curr] = BLACK;
+                    top--;
+                    continue;
+                }
+                final int neighbor = targets[nextEdge[top]++];
+                if (colors[neighbor] == GREY && neighbor != parents[top]) {
+                    return true;
+                }
+                if (colors[neighbor] == WHITE) {
+                    colors[neighbor] = GREY;
+                    top++;
+                    stack[top] = neighbor;
+                    parents[top] = curr;
+                    nextEdge[top] = offsets[neighbor];
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds every node reachable from a source node.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     * @param source id of the node to start from.
+     * @return the ids of the nodes reachable from {@code source}, including {@code source} itself, in the order they
+     * were first reached.
+     */
+    /* default */ static int[] collectReachable(final int[] offsets, final int[] targets, final int source) {
+        final int nodeCount = offsets.length - 1;
+        final boolean[] visited = new boolean[nodeCount];
+        final int[] reached = new int[nodeCount];
+        final int[] stack = new int[nodeCount];
+        final int[] nextEdge = new int[nodeCount];
+        int reachedCount = 0;
+        int top = 0;
+        stack[top] = source;
+        nextEdge[top] = offsets[source];
+        visited[source] = true;
+        reached[reachedCount++] = source;
+        while (top >= 0) {
+            final int curr = stack[top];
+            if (nextEdge[top] == offsets[curr + 1]) {
+                top--;
+                continue;
+            }
+            final int neighbor = targets[nextEdge[top]++];
+            if (!visited[neighbor]) {
+                visited[neighbor] = true;
+                reached[reachedCount++] = neighbor;
+                top++;
+                stack[top] = neighbor;
+                nextEdge[top] = offsets[neighbor];
+            }
+        }
+        return Arrays.copyOf(reached, reachedCount);
+    }
+
+    /**
+     * Labels the strongly connected components of a directed graph with an iterative version of Tarjan's algorithm,
+     * in O(V + E) time. Every node gets a discovery index and a low-link (the lowest discovery index reachable from the
+     * node's subtree through nodes still on the component stack); a node whose low-link equals its own index is the
+     * root of a component consisting of itself and everything above it on the component stack.
+     * Components are numbered in the order they are completed, which is a reverse topological order of the
+     * condensation: if an edge leads from component {@code a} to a different component {@code b}, then {@code a > b}.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     * @param labels receives the component id of each node; must have one element per node.
+     * @return the number of strongly connected components.
+     */
+    @SuppressWarnings({"PMD.CognitiveComplexity", "PMD.CyclomaticComplexity", "PMD.NPathComplexity"})
+    /* default */ static int labelStronglyConnectedComponents(final int[] offsets, final int[] targets,
+                                                             final int[] labels) {
+        final int nodeCount = offsets.length - 1;
+        final int[] discovery = new int[nodeCount];
+        Arrays.fill(discovery, -1);
+        final int[] lowLinks = new int[nodeCount];
+        final boolean[] onComponentStack = new boolean[nodeCount];
+        final int[] componentStack = new int[nodeCount];
+        final int[] stack = new int[nodeCount];
+        final int[] nextEdge = new int[nodeCount];
+        int componentTop = 0;
+        int discovered = 0;
+        int componentCount = 0;
+        for (int root = 0; root < nodeCount; root++) {
+            if (discovery[root] >= 0) {
+                continue;
+            }
+            int top = 0;
+            stack[top] = root;
+            nextEdge[top] = offsets[root];
+            discovery[root] = discovered;
+            lowLinks[root] = discovered++;
+            componentStack[componentTop++] = root;
+            onComponentStack[root] = true;
+            while (top >= 0) {
+                final int curr = stack[top];
+                if (nextEdge[top] < offsets[curr + 1]) {
+                    final int neighbor = targets[nextEdge[top]++];
+                    if (discovery[neighbor] < 0) {
+                        top++;
+                        stack[top] = neighbor;
+                        nextEdge[top] = offsets[neighbor];
+                        discovery[neighbor] = discovered;
+                        lowLinks[neighbor] = discovered++;
+                        componentStack[componentTop++] = neighbor;
+                        onComponentStack[neighbor] = true;
+                    } else if (onComponentStack[neighbor]) {
+                        lowLinks[curr] = Math.min(lowLinks[curr], discovery[neighbor]);
+                    }
+                    continue;
+                }
+                if (lowLinks[curr] == discovery[curr]) {
+                    int member;
+                    do {
+                        member = componentStack[--componentTop];
+                        onComponentStack[member] = false;
+                        labels[member] = componentCount;
+                    } while (member != curr);
+                    componentCount++;
+                }
+                top--;
+                if (top >= 0) {
+                    lowLinks[stack[top]] = Math.min(lowLinks[stack[top]], lowLinks[curr]);
+                }
+            }
+        }
+        return componentCount;
+    }
+}
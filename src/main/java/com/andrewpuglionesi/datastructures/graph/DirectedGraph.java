@@ -1,17 +1,35 @@
 package com.andrewpuglionesi.datastructures.graph;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
+import java.util.Objects;
 
 /**
  * A directed graph, in which creating a new edge is a directional operation from one node to another.
  * @param <T> @param <T> the data type of nodes' values. This type should have a reliable hashCode() and equals()
  *           implementation, as the graph uses a hash table to store and retrieve nodes.
  */
-@SuppressWarnings("PMD.ShortVariable")
+@SuppressWarnings({"PMD.ShortVariable", "PMD.TooManyMethods"})
 public class DirectedGraph<T> extends Graph<T> {
 
+    /**
+     * Holds every edge of the graph reversed, so that each node's inbound edges are its outbound edges here, or null
+     * until {@link #indexInboundEdges()} is called.
+     */
+    private AdjacencyStore<T> inbound;
+
+    /**
+     * A topological order of the graph's nodes, once {@link #maintainTopologicalOrder()} has been called.
+     */
+    private TopologicalOrder<T> order;
+
+    /**
+     * Whether {@code order} is up to date, which also means the graph is known to be acyclic.
+     */
+    private boolean orderCurrent;
+
     /**
      * See {@link Graph#Graph()}
      */
@@ -26,102 +44,371 @@ public class DirectedGraph<T> extends Graph<T> {
         super(values);
     }
 
+    /**
+     * See {@link Graph#Graph(GraphStorage)}
+     */
+    public DirectedGraph(final GraphStorage storage) {
+        super(storage);
+    }
+
+    /**
+     * See {@link Graph#Graph(Collection, GraphStorage)}
+     */
+    public DirectedGraph(final Collection<T> values, final GraphStorage storage) {
+        super(values, storage);
+    }
+
+    /**
+     * See {@link Graph#Graph(AdjacencyStore)}
+     */
+    /* default */ DirectedGraph(final AdjacencyStore<T> store) {
+        super(store);
+    }
+
+    @Override
+    public void addNode(final T value) {
+        super.addNode(value);
+        if (this.inbound != null) {
+            this.inbound.addNode(value);
+        }
+        if (this.orderCurrent) {
+            this.order.addNode(value);
+        }
+    }
+
+    @Override
+    /* default */ boolean addNodeIfAbsent(final T value) {
+        final boolean added = super.addNodeIfAbsent(value);
+        if (this.inbound != null) {
+            this.inbound.addNode(value);
+        }
+        if (this.orderCurrent) {
+            this.order.addNode(value);
+        }
+        return added;
+    }
+
+    /**
+     * Adds an edge to the graph, as described by {@link Graph#addEdge(Object, Object, double)}. While the graph keeps
+     * a topological order (see {@link #maintainTopologicalOrder()}), the edge is still added if it closes a cycle, but
+     * the graph stops keeping the order; {@link #tryAddEdgeAcyclic(Object, Object, double)} refuses such edges instead.
+     */
     @Override
     public void addEdge(final T from, final T to, final double edgeWeight) {
         super.insertEdge(from, to, edgeWeight);
+        if (this.inbound != null) {
+            this.inbound.putEdge(to, from, edgeWeight);
+        }
+        if (this.orderCurrent && !this.order.addEdge(from, to)) {
+            this.orderCurrent = false;
+        }
     }
 
     @Override
     public void addEdge(final T from, final T to) {
-        super.insertEdge(from, to);
+        this.addEdge(from, to, DEFAULT_EDGE_WEIGHT);
     }
 
     @Override
     public void removeEdge(final T from, final T to) {
         super.deleteEdge(from, to);
+        if (this.inbound != null) {
+            this.inbound.removeEdge(to, from);
+        }
     }
 
-    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    /**
+     * Adds a batch of edges. While the graph keeps a topological order, the order's searches must never follow an edge
+     * it has not been given, so each edge is added on its own, as {@link #addEdge(Object, Object, double)} does, until
+     * one closes a cycle; the rest of the batch is then added at once.
+     */
     @Override
-    public boolean hasCycle() {
-        final Set<T> visited = new HashSet<>();
-        for (final T node : this) {
-            if (this.searchForCycle(node, visited, new HashSet<>())) {
-                return true;
-            }
+    protected void insertEdges(final T[] origins, final T[] termini, final double[] weights, final int count) {
+        int added = 0;
+        while (added < count && this.orderCurrent) {
+            this.addEdge(origins[added], termini[added], weights[added]);
+            added++;
+        }
+        if (added == 0) {
+            this.insertRemaining(origins, termini, weights, count);
+        } else if (added < count) {
+            this.insertRemaining(Arrays.copyOfRange(origins, added, count), Arrays.copyOfRange(termini, added, count),
+                    Arrays.copyOfRange(weights, added, count), count - added);
         }
-        return false;
     }
 
     /**
-     * Returns true if a cycle is detected during a depth-first search.
-     * @param node the node currently being hit by the recursive search.
-     * @param visited a set of all nodes that have been visited by the cycle-searching algorithm since its inception.
-     * @param precedingNodes a set of nodes preceding this node in the current depth-first-search path. If a node in
-     *                       this set is reached, then there is a cycle.
-     * @return true if a cycle is detected during a depth-first search starting at {@code node}.
+     * Adds a batch of edges to the graph and to its index of inbound edges, if it has one, without touching the
+     * topological order.
+     * @param origins value of the origin of each edge.
+     * @param termini value of the terminus of each edge.
+     * @param weights the weight of each edge.
+     * @param count the number of edges.
      */
-    private boolean searchForCycle(final T node, final Set<T> visited, final Set<T> precedingNodes) {
-        if (precedingNodes.contains(node)) {
-            return true;
+    private void insertRemaining(final T[] origins, final T[] termini, final double[] weights, final int count) {
+        super.insertEdges(origins, termini, weights, count);
+        if (this.inbound != null) {
+            this.inbound.putEdges(termini, origins, weights, count, false);
         }
-        if (visited.contains(node)) {
+    }
+
+    /**
+     * Starts keeping a topological order of the graph's nodes, which is then updated incrementally as edges are added,
+     * so that {@link #tryAddEdgeAcyclic(Object, Object, double)} can refuse an edge that would close a cycle by
+     * searching only the part of the graph the edge reorders, and {@link #hasCycle()} takes constant time. The order
+     * needs an index of inbound edges, which this builds (see {@link #indexInboundEdges()}). Adding an edge that closes
+     * a cycle with {@link #addEdge(Object, Object, double)} stops the graph from keeping the order; calling this again
+     * once the cycle has been broken starts it again. Calling this while the order is kept has no further effect.
+     * @throws IllegalStateException if the graph has a cycle.
+     */
+    public void maintainTopologicalOrder() {
+        if (this.orderCurrent) {
+            return;
+        }
+        this.indexInboundEdges();
+        this.order = new TopologicalOrder<>(this);
+        this.orderCurrent = true;
+    }
+
+    /**
+     * @return true if the graph is keeping a topological order (see {@link #maintainTopologicalOrder()}), which means
+     * it is known to have no cycle.
+     */
+    public boolean isMaintainingTopologicalOrder() {
+        return this.orderCurrent;
+    }
+
+    /**
+     * See {@link #tryAddEdgeAcyclic(Object, Object, double)}. The newly added edge will have the default edge weight
+     * of {@value DEFAULT_EDGE_WEIGHT}.
+     */
+    public boolean tryAddEdgeAcyclic(final T from, final T to) {
+        return this.tryAddEdgeAcyclic(from, to, DEFAULT_EDGE_WEIGHT);
+    }
+
+    /**
+     * Adds an edge to the graph, as {@link #addEdge(Object, Object, double)} does, unless the edge would close a
+     * cycle. Starts keeping a topological order of the graph (see {@link #maintainTopologicalOrder()}) if it is not
+     * already kept, and uses it to answer in time proportional to the part of the graph the edge reorders: an edge
+     * that agrees with the current order is accepted at once.
+     * @param from value of the node that is the origin of the edge.
+     * @param to value of the node that is the terminus of the edge.
+     * @param edgeWeight the numeric weight of the new edge.
+     * @return true if the edge was added, or false if it would have closed a cycle, in which case the graph is
+     * unchanged.
+     * @throws IllegalStateException if the graph already has a cycle.
+     */
+    public boolean tryAddEdgeAcyclic(final T from, final T to, final double edgeWeight) {
+        this.maintainTopologicalOrder();
+        if (Objects.equals(from, to)
+                || this.containsNode(from) && this.containsNode(to) && !this.order.addEdge(from, to)) {
             return false;
         }
-        precedingNodes.add(node);
-        visited.add(node);
-        for (final T neighbor : this.getNeighbors(node)) {
-            if (this.searchForCycle(neighbor, visited, precedingNodes)) {
-                return true;
-            }
+        this.addEdge(from, to, edgeWeight);
+        return true;
+    }
+
+    /**
+     * Builds an index of every node's inbound edges, which the graph keeps up to date as edges are added and removed
+     * from then on. Without the index, finding a node's inbound edges means checking every node in the graph for an
+     * edge to it; with it, {@link #getInboundNeighbors(Object)} and {@link #getInboundEdges(Object)} take time in
+     * proportion to the number of inbound edges, and {@link #inDegree(Object)} takes constant time, at the cost of
+     * storing every edge twice and updating both copies on every change. Calling this more than once has no further
+     * effect. It must not be called while other threads are modifying the graph.
+     */
+    public void indexInboundEdges() {
+        if (this.inbound != null) {
+            return;
+        }
+        final AdjacencyStore<T> index = this.newInboundStore();
+        for (final T node : this) {
+            index.addNode(node);
+        }
+        for (final T node : this) {
+            this.forEachOutboundEdge(node, (origin, terminus, weight) -> index.putEdge(terminus, origin, weight));
         }
-        precedingNodes.remove(node);
-        return false;
+        this.inbound = index;
+    }
+
+    /**
+     * @return true if {@link #indexInboundEdges()} has been called.
+     */
+    public boolean hasInboundIndex() {
+        return this.inbound != null;
+    }
+
+    /**
+     * @return a new cursor over the graph's inbound edges, which must have been indexed.
+     */
+    /* default */ EdgeCursor<T> inboundCursor() {
+        return this.inbound.newCursor();
     }
 
     @Override
-    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
-    public boolean isConnectedGraph() {
-        if (this.isEmpty()) {
-            return false;
+    /* default */ EdgeCursor<T> reverseCursor() {
+        return this.inbound == null ? null : this.inbound.newCursor();
+    }
+
+    /**
+     * @return an empty store to hold the index of inbound edges.
+     */
+    /* default */ AdjacencyStore<T> newInboundStore() {
+        return new HashAdjacencyStore<>();
+    }
+
+    /**
+     * Returns the nodes that have an edge to a node, as a list. Modifying the returned list will not modify the graph.
+     * Takes time in proportion to the size of the graph unless the graph has an index of inbound edges; see
+     * {@link #indexInboundEdges()}.
+     * @param to value of the node whose predecessors to retrieve.
+     * @return a list of nodes that are the origins of edges whose terminus is {@code to}.
+     * @throws java.util.NoSuchElementException if the node is not present in the graph.
+     */
+    public List<T> getInboundNeighbors(final T to) {
+        this.requireNode(to);
+        final List<T> neighbors = new ArrayList<>();
+        if (this.inbound == null) {
+            for (final T node : this) {
+                if (this.containsEdge(node, to)) {
+                    neighbors.add(node);
+                }
+            }
+        } else {
+            this.inbound.forEachEdge(to, (neighbor, weight) -> neighbors.add(neighbor));
         }
-        // In a directed graph, a DFS from a single node cannot determine whether the graph is *strongly* connected.
-        // Consider a directed graph {A->B, A->C, A->D}. If we start the search with A, the graph seems connected as
-        // heck, but B, C, and D have zero connections. So the obvious approach is to do a DFS from *every* node.
-        // This is slightly optimized by maintaining a set of nodes known to have full connectivity--whenever we
-        // encounter a member of the set, we know we can reach every other node, and thus the point of origin for the
-        // search iteration must also be fully connected.
-        // It turns out there's another algorithm for strong connectivity that runs in linear time. Oh well.
-        final Set<T> fullyConnectedNodes = new HashSet<>(); // Nodes that are known to be connected to all other nodes
-        for (final T node : this) {
-            final Set<T> visited = new HashSet<>();
-            final boolean canReachConnectedNode = this.canReachConnectedNode(node, visited, fullyConnectedNodes);
-            if (canReachConnectedNode || visited.size() == this.size()) {
-                fullyConnectedNodes.add(node);
-            } else {
-                return false; // if we find one node that is not connected to all others, the graph isn't connected
+        return neighbors;
+    }
+
+    /**
+     * Retrieves a list of edges ending at a specific node. Modifying the returned list will not modify the graph.
+     * Takes time in proportion to the size of the graph unless the graph has an index of inbound edges; see
+     * {@link #indexInboundEdges()}.
+     * @param to value of the node whose inbound edges to retrieve.
+     * @return edges whose terminus is {@code to}.
+     * @throws java.util.NoSuchElementException if the node is not present in the graph.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public List<EdgeView> getInboundEdges(final T to) {
+        this.requireNode(to);
+        final List<EdgeView> edges = new ArrayList<>();
+        if (this.inbound == null) {
+            for (final T node : this) {
+                if (this.containsEdge(node, to)) {
+                    edges.add(new EdgeView(node, to, this.edgeWeight(node, to)));
+                }
             }
+        } else {
+            this.inbound.forEachEdge(to, (origin, weight) -> edges.add(new EdgeView(origin, to, weight)));
         }
-        return true;
+        return edges;
     }
 
     /**
-     * @param source a node's value.
-     * @param visited set of nodes that have already been visited by this recursive search.
-     * @param fullyConnectedNodes a set of nodes, each of which is known to be fully connected to all other nodes.
-     * @return true if {@code source} is directly or indirectly connected to a node within {@code fullyConnectedNodes}.
+     * Counts a node's inbound edges, in constant time if the graph has an index of inbound edges (see
+     * {@link #indexInboundEdges()}), and otherwise in time proportional to the size of the graph.
+     * @param node value of a node in the graph.
+     * @return the number of edges whose terminus is {@code node}.
+     * @throws java.util.NoSuchElementException if the node is not present in the graph.
      */
-    private boolean canReachConnectedNode(final T source, final Set<T> visited, final Set<T> fullyConnectedNodes) {
-        if (fullyConnectedNodes.contains(source)) {
-            return true;
+    public int inDegree(final T node) {
+        this.requireNode(node);
+        if (this.inbound != null) {
+            return this.inbound.outDegree(node);
         }
-        visited.add(source);
-        for (final T neighbor : this.getNeighbors(source)) {
-            if (!visited.contains(neighbor) && this.canReachConnectedNode(neighbor, visited, fullyConnectedNodes)) {
-                return true;
+        int degree = 0;
+        for (final T origin : this) {
+            if (this.containsEdge(origin, node)) {
+                degree++;
             }
         }
-        return false; // Neither this node nor any of its (indirect) connections was in fullyConnectedNodes
+        return degree;
+    }
+
+    @Override
+    protected boolean isDirected() {
+        return true;
+    }
+
+    @Override
+    public DirectedGraph<T> snapshot() {
+        return new DirectedGraph<>(this.snapshotStore());
+    }
+
+    /**
+     * Takes constant time while the graph keeps a topological order (see {@link #maintainTopologicalOrder()}), since
+     * the graph is then known to be acyclic. Otherwise, searches for a cycle with an iterative depth-first search over
+     * a snapshot of the graph (see {@link #freeze()}), so that arbitrarily long paths can be searched without
+     * overflowing the call stack, unless the query cache (see {@link #enableQueryCache(int)}) holds the answer.
+     * @return true if there exists a cycle in the graph.
+     */
+    @Override
+    public boolean hasCycle() {
+        return !this.orderCurrent && this.cached(() -> this.freeze().hasCycle(), "hasCycle");
+    }
+
+    @Override
+    public boolean isConnectedGraph() {
+        // In a directed graph, a DFS from a single node cannot determine whether the graph is *strongly* connected.
+        // Consider a directed graph {A->B, A->C, A->D}. If we start the search with A, the graph seems connected as
+        // heck, but B, C, and D have zero connections. Instead, Tarjan's algorithm partitions the graph into strongly
+        // connected components in linear time, and the graph is strongly connected if there's only one of them.
+        return !this.isEmpty() && this.stronglyConnectedComponents().componentCount() == 1;
+    }
+
+    /**
+     * Partitions the graph into strongly connected components in linear time. Within a strongly connected component,
+     * every node can reach every other node. See {@link CsrGraph#stronglyConnectedComponents()} for how components
+     * are numbered.
+     * @return the component of every node, from which component sizes and the condensation of the graph can also be
+     * retrieved.
+     */
+    public ComponentLabeling<T> stronglyConnectedComponents() {
+        return this.freeze().stronglyConnectedComponents();
+    }
+
+    /**
+     * Orders the graph's nodes so that every edge leads from an earlier node to a later one. While the graph keeps a
+     * topological order (see {@link #maintainTopologicalOrder()}), that order is returned; otherwise, one is found
+     * with Kahn's algorithm over a snapshot of the graph (see {@link CsrGraph#topologicalOrder()}).
+     * @return the nodes in topological order.
+     * @throws IllegalStateException if the graph has a cycle.
+     */
+    public List<T> topologicalOrder() {
+        return this.orderCurrent ? this.order.nodes() : this.freeze().topologicalOrder();
+    }
+
+    /**
+     * Groups the graph's nodes into levels with no dependencies within a level, for processing in batches. See
+     * {@link CsrGraph#topologicalLevels(java.util.concurrent.ForkJoinPool)}.
+     * @return the nodes of each level, in order of level.
+     * @throws IllegalStateException if the graph has a cycle.
+     */
+    public List<List<T>> topologicalLevels() {
+        return this.freeze().topologicalLevels();
+    }
+
+    /**
+     * Finds the lightest path from a node to every node of an acyclic graph in linear time. See
+     * {@link CsrGraph#dagShortestPathsFrom(Object)}.
+     * @param source value of the node to start from.
+     * @return the weight of the lightest path from {@code source} to every node, and the paths themselves.
+     * @throws java.util.NoSuchElementException if the node is not present in the graph.
+     * @throws IllegalStateException if the graph has a cycle.
+     */
+    public PathLabeling<T> dagShortestPathsFrom(final T source) {
+        return this.freeze().dagShortestPathsFrom(source);
+    }
+
+    /**
+     * Finds the heaviest path, such as the critical path of a graph of jobs, from a node to every node of an acyclic
+     * graph in linear time. See {@link CsrGraph#dagLongestPathsFrom(Object)}.
+     * @param source value of the node to start from.
+     * @return the weight of the heaviest path from {@code source} to every node, and the paths themselves.
+     * @throws java.util.NoSuchElementException if the node is not present in the graph.
+     * @throws IllegalStateException if the graph has a cycle.
+     */
+    public PathLabeling<T> dagLongestPathsFrom(final T source) {
+        return this.freeze().dagLongestPathsFrom(source);
     }
 
     /**
@@ -0,0 +1,73 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A disjoint-set (union-find) structure over arbitrary values. Each value is interned to a dense int id when it is
+ * added, and the sets themselves live in a {@link UnionFind} forest.
+ * @param <T> the data type of the values.
+ */
+@SuppressWarnings("PMD.UseConcurrentHashMap")
+final class DisjointSets<T> {
+
+    /**
+     * Maps each value to its element in {@code forest}.
+     */
+    private final Map<T, Integer> ids = new HashMap<>();
+
+    /**
+     * The sets, over the values' ids.
+     */
+    private final UnionFind forest = new UnionFind(0);
+
+    /**
+     * Adds a value in a set of its own, unless the value has already been added.
+     * @param value the value to add.
+     */
+    /* default */ void add(final T value) {
+        if (!this.ids.containsKey(value)) {
+            this.ids.put(value, this.forest.add());
+        }
+    }
+
+    /**
+     * Merges the sets containing two values that have already been added.
+     * @param first a value.
+     * @param second a value.
+     */
+    /* default */ void union(final T first, final T second) {
+        this.forest.union(this.idOf(first), this.idOf(second));
+    }
+
+    /**
+     * @param first a value.
+     * @param second a value.
+     * @return true if the values are in the same set.
+     * @throws NoSuchElementException if either value has not been added.
+     */
+    /* default */ boolean sameSet(final T first, final T second) {
+        return this.forest.find(this.idOf(first)) == this.forest.find(this.idOf(second));
+    }
+
+    /**
+     * @return the number of disjoint sets.
+     */
+    /* default */ int countSets() {
+        return this.forest.countSets();
+    }
+
+    /**
+     * @param value a value.
+     * @return the value's id.
+     * @throws NoSuchElementException if the value has not been added.
+     */
+    private int idOf(final T value) {
+        final Integer element = this.ids.get(value);
+        if (element == null) {
+            throw new NoSuchElementException("No node exists with value " + value);
+        }
+        return element;
+    }
+}
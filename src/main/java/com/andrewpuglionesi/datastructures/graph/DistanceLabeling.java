@@ -0,0 +1,74 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * The result of a breadth-first search from a single source: each node is labeled with its distance from the source,
+ * i.e., the minimum number of edges on a path from the source to the node. The labels are stored as a primitive array
+ * indexed by the node ids of a {@link CsrGraph} snapshot, so a labeling takes one int per node.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.ArrayIsStoredDirectly"})
+public final class DistanceLabeling<T> {
+
+    /**
+     * The distance label of a node that cannot be reached from the source.
+     */
+    public static final int UNREACHABLE = -1;
+
+    /**
+     * The snapshot whose nodes were labeled.
+     */
+    private final CsrGraph<T> snapshot;
+
+    /**
+     * {@code distances[i]} is the distance to the node whose id in {@code snapshot} is {@code i}.
+     */
+    private final int[] distances;
+
+    /**
+     * Creates a labeling.
+     * @param snapshot the snapshot whose nodes were labeled.
+     * @param distances the distance to each node, indexed by the nodes' ids in {@code snapshot}.
+     */
+    /* default */ DistanceLabeling(final CsrGraph<T> snapshot, final int[] distances) {
+        this.snapshot = snapshot;
+        this.distances = distances;
+    }
+
+    /**
+     * @param node value of a node.
+     * @return the minimum number of edges on a path from the source to {@code node}, 0 if {@code node} is the source,
+     * or {@value #UNREACHABLE} if there is no such path.
+     * @throws NoSuchElementException if the node was not in the labeled graph.
+     */
+    public int distanceTo(final T node) {
+        final int id = this.snapshot.idOf(node);
+        if (id < 0) {
+            throw new NoSuchElementException("No node exists with value " + node);
+        }
+        return this.distances[id];
+    }
+
+    /**
+     * @return the number of nodes that can be reached from the source, including the source itself.
+     */
+    public int reachableCount() {
+        int count = 0;
+        for (final int distance : this.distances) {
+            if (distance != UNREACHABLE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return a copy of the distance to every node, indexed by the nodes' ids in the snapshot (see
+     * {@link CsrGraph#idOf(Object)}), with {@value #UNREACHABLE} for nodes that cannot be reached.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(this.distances, this.distances.length);
+    }
+}
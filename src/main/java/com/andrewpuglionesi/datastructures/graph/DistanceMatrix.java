@@ -0,0 +1,227 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * The result of an all-pairs shortest path search: the total weight of the lightest path between every ordered pair of
+ * nodes of a {@link CsrGraph} snapshot. The weights are stored row-major, as one double per pair, so row {@code i}
+ * holds the distances from the node whose id is {@code i}, and column {@code j} of that row the distance to the node
+ * whose id is {@code j}. The rows either live on the heap or are mapped from a file, in the platform's native byte
+ * order; a matrix too large for one buffer is split into bands of whole rows.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.TooManyMethods"})
+public final class DistanceMatrix<T> {
+
+    /**
+     * The most doubles a single band holds, which keeps a mapped band under the 2 GiB a single mapping allows.
+     */
+    /* default */ static final int MAX_BAND_LENGTH = Integer.MAX_VALUE / Double.BYTES;
+
+    /**
+     * The snapshot whose nodes the rows and columns belong to.
+     */
+    private final CsrGraph<T> snapshot;
+
+    /**
+     * Consecutive groups of rows, {@code rowsPerBand} to a band.
+     */
+    private final DoubleBuffer[] bands;
+
+    /**
+     * The number of rows in every band but possibly the last.
+     */
+    private final int rowsPerBand;
+
+    /**
+     * True if the bands are mapped from a file.
+     */
+    private final boolean mapped;
+
+    /**
+     * Creates a matrix over bands that are already allocated.
+     * @param snapshot the snapshot whose nodes the rows and columns belong to.
+     * @param bands consecutive groups of rows.
+     * @param rowsPerBand the number of rows in every band but possibly the last.
+     * @param mapped true if the bands are mapped from a file.
+     */
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    private DistanceMatrix(final CsrGraph<T> snapshot, final DoubleBuffer[] bands, final int rowsPerBand,
+                           final boolean mapped) {
+        this.snapshot = snapshot;
+        this.bands = bands;
+        this.rowsPerBand = rowsPerBand;
+        this.mapped = mapped;
+    }
+
+    /**
+     * Allocates a matrix on the heap, to be filled in row by row.
+     * @param snapshot the snapshot whose nodes the rows and columns belong to.
+     * @param <T> the data type of nodes' values.
+     * @return a matrix of zeros.
+     */
+    /* default */ static <T> DistanceMatrix<T> allocate(final CsrGraph<T> snapshot) {
+        final int nodeCount = snapshot.size();
+        final int rowsPerBand = bandHeight(nodeCount);
+        final DoubleBuffer[] bands = new DoubleBuffer[bandCount(nodeCount, rowsPerBand)];
+        for (int band = 0; band < bands.length; band++) {
+            bands[band] = DoubleBuffer.allocate(rowsIn(band, nodeCount, rowsPerBand) * nodeCount);
+        }
+        return new DistanceMatrix<>(snapshot, bands, rowsPerBand, false);
+    }
+
+    /**
+     * Maps a matrix from a file, to be filled in row by row. The file is created, or truncated if it exists, and
+     * grows to hold eight bytes per pair of nodes. The mapping stays valid after the file is closed, until the matrix
+     * is garbage collected, and the operating system writes the rows back to the file as they are filled in.
+     * @param snapshot the snapshot whose nodes the rows and columns belong to.
+     * @param path the file to map.
+     * @param <T> the data type of nodes' values.
+     * @return a matrix of zeros.
+     * @throws IOException if the file cannot be created or mapped.
+     */
+    /* default */ static <T> DistanceMatrix<T> map(final CsrGraph<T> snapshot, final Path path) throws IOException {
+        final int nodeCount = snapshot.size();
+        final int rowsPerBand = bandHeight(nodeCount);
+        final DoubleBuffer[] bands = new DoubleBuffer[bandCount(nodeCount, rowsPerBand)];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final long bandBytes = (long) Double.BYTES * rowsPerBand * nodeCount;
+            for (int band = 0; band < bands.length; band++) {
+                final long length = (long) Double.BYTES * rowsIn(band, nodeCount, rowsPerBand) * nodeCount;
+                bands[band] = channel.map(FileChannel.MapMode.READ_WRITE, band * bandBytes, length)
+                        .order(ByteOrder.nativeOrder())
+                        .asDoubleBuffer();
+            }
+        }
+        return new DistanceMatrix<>(snapshot, bands, rowsPerBand, true);
+    }
+
+    /**
+     * @param from value of the origin node.
+     * @param to value of the destination node.
+     * @return the total weight of the edges on the lightest path from {@code from} to {@code to}, 0 if they are the
+     * same node, or positive infinity if there is no such path.
+     * @throws NoSuchElementException if either node was not in the searched graph.
+     */
+    public double distance(final T from, final T to) {
+        return this.get(this.requireId(from), this.requireId(to));
+    }
+
+    /**
+     * @param from value of the origin node.
+     * @param to value of the destination node.
+     * @return true if there is a path from {@code from} to {@code to}, or they are the same node.
+     * @throws NoSuchElementException if either node was not in the searched graph.
+     */
+    public boolean isReachable(final T from, final T to) {
+        return this.distance(from, to) != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @param from value of the origin node.
+     * @return a copy of the distances from {@code from} to every node, indexed by the nodes' ids in the snapshot (see
+     * {@link CsrGraph#idOf(Object)}).
+     * @throws NoSuchElementException if the node was not in the searched graph.
+     */
+    public double[] row(final T from) {
+        final double[] row = new double[this.size()];
+        final int id = this.requireId(from);
+        this.band(id).get(this.rowStart(id), row);
+        return row;
+    }
+
+    /**
+     * @return the number of nodes, which is the number of rows and of columns.
+     */
+    public int size() {
+        return this.snapshot.size();
+    }
+
+    /**
+     * @return true if the matrix is mapped from a file rather than held on the heap.
+     */
+    public boolean isMapped() {
+        return this.mapped;
+    }
+
+    /**
+     * @param from id of the origin node.
+     * @param to id of the destination node.
+     * @return the distance from {@code from} to {@code to}.
+     */
+    /* default */ double get(final int from, final int to) {
+        return this.band(from).get(this.rowStart(from) + to);
+    }
+
+    /**
+     * Fills in a row. Rows may be filled in concurrently, as long as no two threads fill in the same row.
+     * @param from id of the origin node.
+     * @param distances the distances from {@code from} to every node, indexed by id.
+     */
+    /* default */ void putRow(final int from, final double[] distances) {
+        this.band(from).put(this.rowStart(from), distances);
+    }
+
+    /**
+     * @param row a row.
+     * @return the band holding the row.
+     */
+    /* default */ DoubleBuffer band(final int row) {
+        return this.bands[row / this.rowsPerBand];
+    }
+
+    /**
+     * @param row a row.
+     * @return the index of the row's first column within its band.
+     */
+    /* default */ int rowStart(final int row) {
+        return row % this.rowsPerBand * this.size();
+    }
+
+    /**
+     * @param node value of a node.
+     * @return the node's id in the snapshot.
+     * @throws NoSuchElementException if the node was not in the searched graph.
+     */
+    private int requireId(final T node) {
+        final int id = this.snapshot.idOf(node);
+        if (id < 0) {
+            throw new NoSuchElementException("No node exists with value " + node);
+        }
+        return id;
+    }
+
+    /**
+     * @param nodeCount the number of nodes.
+     * @return the most rows that fit in a band.
+     */
+    private static int bandHeight(final int nodeCount) {
+        return nodeCount == 0 ? 1 : Math.max(1, Math.min(nodeCount, MAX_BAND_LENGTH / nodeCount));
+    }
+
+    /**
+     * @param nodeCount the number of nodes.
+     * @param rowsPerBand the most rows that fit in a band.
+     * @return the number of bands needed to hold every row.
+     */
+    private static int bandCount(final int nodeCount, final int rowsPerBand) {
+        return (nodeCount + rowsPerBand - 1) / rowsPerBand;
+    }
+
+    /**
+     * @param band a band.
+     * @param nodeCount the number of nodes.
+     * @param rowsPerBand the most rows that fit in a band.
+     * @return the number of rows in the band.
+     */
+    private static int rowsIn(final int band, final int nodeCount, final int rowsPerBand) {
+        return Math.min(rowsPerBand, nodeCount - band * rowsPerBand);
+    }
+}
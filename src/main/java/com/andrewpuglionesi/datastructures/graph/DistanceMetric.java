@@ -0,0 +1,17 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+/**
+ * The ways the length of a path can be measured.
+ */
+public enum DistanceMetric {
+    /**
+     * The number of edges on the path, as {@link Graph#distanceBetween(Object, Object)} measures it. Distances are
+     * found with breadth-first searches.
+     */
+    HOPS,
+    /**
+     * The sum of the weights of the edges on the path, as {@link Graph#shortestPath(Object, Object)} measures it.
+     * Distances are found with Dijkstra's algorithm, so no edge may have a negative weight.
+     */
+    WEIGHTS
+}
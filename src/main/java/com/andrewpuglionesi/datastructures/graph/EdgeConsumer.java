@@ -0,0 +1,16 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+/**
+ * Receives the edges of a graph one at a time, without an object being allocated to describe each edge.
+ * @param <T> the data type of nodes' values.
+ */
+@FunctionalInterface
+public interface EdgeConsumer<T> {
+    /**
+     * Processes a single edge.
+     * @param source value of the node that is the origin of the edge.
+     * @param destination value of the node that is the terminus of the edge.
+     * @param weight the weight of the edge.
+     */
+    void accept(T source, T destination, double weight);
+}
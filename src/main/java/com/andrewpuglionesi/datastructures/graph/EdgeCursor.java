@@ -0,0 +1,45 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+/**
+ * A reusable cursor over the outbound edges of one node at a time. A single cursor can walk the edges of any number
+ * of nodes by calling {@link #reset(Object)} between them, so a traversal can visit every edge of a graph without
+ * allocating an object per edge:
+ * <pre>
+ *     final EdgeCursor&lt;T&gt; cursor = graph.edgeCursor();
+ *     cursor.reset(node);
+ *     while (cursor.advance()) {
+ *         visit(cursor.destination(), cursor.weight());
+ *     }
+ * </pre>
+ * The graph must not be modified while a cursor is in use.
+ * @param <T> the data type of nodes' values.
+ */
+public interface EdgeCursor<T> {
+    /**
+     * Positions the cursor before the first outbound edge of a node.
+     * @param source value of the node whose edges to walk.
+     * @throws java.util.NoSuchElementException if the node does not exist in the graph.
+     */
+    void reset(T source);
+
+    /**
+     * Moves the cursor to the next edge.
+     * @return true if the cursor is now on an edge, or false if the node's edges have been exhausted.
+     */
+    boolean advance();
+
+    /**
+     * @return value of the node whose edges the cursor is walking.
+     */
+    T source();
+
+    /**
+     * @return value of the terminus of the edge the cursor is on.
+     */
+    T destination();
+
+    /**
+     * @return the weight of the edge the cursor is on.
+     */
+    double weight();
+}
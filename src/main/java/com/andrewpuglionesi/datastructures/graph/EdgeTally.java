@@ -0,0 +1,181 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+/**
+ * A running count of a store's directional edges, how many of them are self-loops, and the sum of their weights,
+ * which the store updates as it adds, reweighs and removes edges, so that none of them has to be recomputed by visiting
+ * every edge. The sum is compensated (Neumaier's variant of Kahan summation): alongside the running sum, it keeps the
+ * low-order bits that each addition rounded away, so adding and removing millions of edges accumulates no more error
+ * than summing the final set of weights once. Infinite and NaN weights are counted rather than summed, so that removing
+ * them restores a finite sum. Not thread-safe.
+ */
+final class EdgeTally {
+
+    /**
+     * The number of edges.
+     */
+    private long edges;
+
+    /**
+     * The number of edges whose origin is also their terminus.
+     */
+    private long loops;
+
+    /**
+     * The sum of the finite weights, less the rounding error in {@code compensation}.
+     */
+    private double sum;
+
+    /**
+     * The rounding error of {@code sum}.
+     */
+    private double compensation;
+
+    /**
+     * The number of weights that are positive infinity.
+     */
+    private long positiveInfinities;
+
+    /**
+     * The number of weights that are negative infinity.
+     */
+    private long negativeInfinities;
+
+    /**
+     * The number of weights that are NaN.
+     */
+    private long nans;
+
+    /**
+     * Counts an edge that was added.
+     * @param weight the weight of the edge.
+     * @param loop true if the edge's origin is also its terminus.
+     */
+    /* default */ void added(final double weight, final boolean loop) {
+        this.edges++;
+        if (loop) {
+            this.loops++;
+        }
+        this.accumulate(weight, 1);
+    }
+
+    /**
+     * Counts an edge that was removed.
+     * @param weight the weight the edge had.
+     * @param loop true if the edge's origin is also its terminus.
+     */
+    /* default */ void removed(final double weight, final boolean loop) {
+        this.edges--;
+        if (loop) {
+            this.loops--;
+        }
+        this.accumulate(-weight, -1);
+        if (this.edges == 0) {
+            // drop whatever rounding error is left, so that an emptied store sums to exactly zero
+            this.sum = 0;
+            this.compensation = 0;
+        }
+    }
+
+    /**
+     * Accounts for a change in the weight of an existing edge.
+     * @param oldWeight the weight the edge had.
+     * @param newWeight the weight the edge has now.
+     */
+    /* default */ void reweighted(final double oldWeight, final double newWeight) {
+        this.accumulate(-oldWeight, -1);
+        this.accumulate(newWeight, 1);
+    }
+
+    /**
+     * @return the number of edges.
+     */
+    /* default */ long edgeCount() {
+        return this.edges;
+    }
+
+    /**
+     * @return the number of edges whose origin is also their terminus.
+     */
+    /* default */ long loopCount() {
+        return this.loops;
+    }
+
+    /**
+     * @return the sum of the edges' weights.
+     */
+    /* default */ double totalWeight() {
+        if (this.nans > 0 || this.positiveInfinities > 0 && this.negativeInfinities > 0) {
+            return Double.NaN;
+        }
+        if (this.positiveInfinities > 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (this.negativeInfinities > 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return this.sum + this.compensation;
+    }
+
+    /**
+     * @return a tally that starts out equal to this one, and changes independently of it.
+     */
+    /* default */ EdgeTally copy() {
+        final EdgeTally copy = new EdgeTally();
+        copy.edges = this.edges;
+        copy.loops = this.loops;
+        copy.sum = this.sum;
+        copy.compensation = this.compensation;
+        copy.positiveInfinities = this.positiveInfinities;
+        copy.negativeInfinities = this.negativeInfinities;
+        copy.nans = this.nans;
+        return copy;
+    }
+
+    /**
+     * Adds another tally's edges to this one, such as when combining the tallies of separate parts of a store.
+     * @param other the tally to add, which is not modified.
+     */
+    /* default */ void merge(final EdgeTally other) {
+        this.edges += other.edges;
+        this.loops += other.loops;
+        this.positiveInfinities += other.positiveInfinities;
+        this.negativeInfinities += other.negativeInfinities;
+        this.nans += other.nans;
+        this.addFinite(other.sum);
+        this.addFinite(other.compensation);
+    }
+
+    /**
+     * Adds a value to the compensated sum, or counts it if it is not finite.
+     * @param value the value to add; the negation of a weight if the weight is being taken out of the sum.
+     * @param direction 1 if the weight is being added to the sum, or -1 if it is being taken out.
+     */
+    private void accumulate(final double value, final int direction) {
+        if (Double.isNaN(value)) {
+            this.nans += direction;
+        } else if (Double.isInfinite(value)) {
+            // value is negated when direction is -1, so its sign times direction is the weight's sign
+            if (value * direction > 0) {
+                this.positiveInfinities += direction;
+            } else {
+                this.negativeInfinities += direction;
+            }
+        } else {
+            this.addFinite(value);
+        }
+    }
+
+    /**
+     * Adds a finite value to the compensated sum.
+     * @param value the value to add.
+     */
+    private void addFinite(final double value) {
+        final double total = this.sum + value;
+        if (Math.abs(this.sum) >= Math.abs(value)) {
+            this.compensation += this.sum - total + value;
+        } else {
+            this.compensation += value - total + this.sum;
+        }
+        this.sum = total;
+    }
+}
@@ -3,17 +3,28 @@ package com.andrewpuglionesi.datastructures.graph;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
 
 /**
  * Foundation for a basic in-memory graph data structure. Nodes are stored and retrieved by indexing their
  * values in a Map. The nodes' values must be unique. The implementations in this abstract class do not dictate whether
  * the graph is directed or undirected, nor do they dictate whether the graph can contain cycles or reflexive edges.
  * The addEdge and removeEdge methods are not implemented so that concrete subclasses may control this behavior.
+ * How nodes and edges are physically stored is chosen at construction time (see {@link GraphStorage}) and does not
+ * affect the graph's behavior.
  * @param <T> the data type of nodes' values. This type should have a reliable hashCode() and equals() implementation
  *           as the graph uses a hash table to store and retrieve nodes.
  */
-@SuppressWarnings({"PMD.ShortVariable", "PMD.ShortClassName", "PMD.TooManyMethods"})
+@SuppressWarnings({"PMD.ShortVariable", "PMD.ShortClassName", "PMD.TooManyMethods", "PMD.GodClass",
+        "PMD.CyclomaticComplexity", "PMD.CouplingBetweenObjects"})
 public abstract class Graph<T> implements Iterable<T> {
 
     /**
@@ -22,9 +33,24 @@ public abstract class Graph<T> implements Iterable<T> {
     public static final double DEFAULT_EDGE_WEIGHT = 0;
 
     /**
-     * Maps a node's value to the neighbors of the node.
+     * How many edges {@link #addEdges(Iterable)} makes room for at first when it can't tell how many there are.
      */
-    private final Map<T, Map<T, Edge>> nodes;
+    private static final int INITIAL_BATCH_CAPACITY = 64;
+
+    /**
+     * Holds the graph's nodes and directional edges.
+     */
+    private final AdjacencyStore<T> store;
+
+    /**
+     * Counts the graph's mutations. See {@link #version()}.
+     */
+    private final AtomicLong mutations = new AtomicLong();
+
+    /**
+     * Caches the results of queries, if enabled. See {@link #enableQueryCache(int)}.
+     */
+    private QueryCache queryCache = QueryCache.DISABLED;
 
     /**
      * Represents a weighted edge in the graph.
@@ -52,7 +78,15 @@ public abstract class Graph<T> implements Iterable<T> {
 
         @Override
         public int hashCode() {
-            return Objects.hash(this.weight);
+            return hashCode(this.weight);
+        }
+
+        /**
+         * @param weight an edge weight.
+         * @return the hash code of an edge with the specified weight.
+         */
+        /* default */ static int hashCode(final double weight) {
+            return 31 + Double.hashCode(weight); // equivalent to Objects.hash(weight), without boxing
         }
     }
 
@@ -60,7 +94,23 @@ public abstract class Graph<T> implements Iterable<T> {
      * Initializes an empty graph.
      */
     protected Graph() {
-        this.nodes = new HashMap<>();
+        this(GraphStorage.HASH);
+    }
+
+    /**
+     * Initializes an empty graph.
+     * @param storage how the graph's nodes and edges are stored.
+     */
+    protected Graph(final GraphStorage storage) {
+        this(storage.<T>createStore());
+    }
+
+    /**
+     * Initializes an empty graph.
+     * @param store holds the graph's nodes and directional edges.
+     */
+    /* default */ Graph(final AdjacencyStore<T> store) {
+        this.store = store;
     }
 
     /**
@@ -69,7 +119,18 @@ public abstract class Graph<T> implements Iterable<T> {
      * @throws UnsupportedOperationException if there is a duplicate value.
      */
     protected Graph(final Collection<T> values) {
-        this.nodes = new HashMap<>();
+        this(values, GraphStorage.HASH);
+    }
+
+    /**
+     * Creates a graph containing nodes with the specified values. The graph will initially contain no edges.
+     * @param values values to add to the graph.
+     * @param storage how the graph's nodes and edges are stored.
+     * @throws UnsupportedOperationException if there is a duplicate value.
+     */
+    @SuppressWarnings("PMD.ConstructorCallsOverridableMethod")
+    protected Graph(final Collection<T> values, final GraphStorage storage) {
+        this(storage);
         values.forEach(this::addNode);
     }
 
@@ -79,10 +140,10 @@ public abstract class Graph<T> implements Iterable<T> {
      * @throws UnsupportedOperationException if the graph already contains a node with the specified value.
      */
     public void addNode(final T value) {
-        if (this.containsNode(value)) {
+        if (!this.store.addNode(value)) {
             throw new UnsupportedOperationException("There is already a node in the Graph with value: " + value);
         }
-        this.nodes.put(value, new HashMap<>());
+        this.mutations.incrementAndGet();
     }
 
     /**
@@ -125,7 +186,8 @@ public abstract class Graph<T> implements Iterable<T> {
         if (!this.containsNode(to)) {
             this.addNode(to);
         }
-        this.nodes.get(from).put(to, new Edge(edgeWeight));
+        this.store.putEdge(from, to, edgeWeight);
+        this.mutations.incrementAndGet();
     }
 
     /**
@@ -144,9 +206,120 @@ public abstract class Graph<T> implements Iterable<T> {
      * @param to value of the node that is the terminus of the edge.
      */
     protected void deleteEdge(final T from, final T to) {
-        final Map<T, Edge> edges = this.nodes.get(from);
-        if (edges != null) {
-            edges.remove(to);
+        if (this.store.removeEdge(from, to)) {
+            this.mutations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Inserts edges in both directions between nodes with the values {@code first} and {@code second}, as a single
+     * step of the underlying storage, so that no snapshot of the graph can contain one edge without the other. The
+     * nodes will be created if no nodes with the supplied values exist.
+     * @param first value of one of the nodes.
+     * @param second value of the other node.
+     * @param edgeWeight the numeric weight of both edges.
+     */
+    protected void insertEdgePair(final T first, final T second, final double edgeWeight) {
+        if (!this.containsNode(first)) {
+            this.addNode(first);
+        }
+        if (!this.containsNode(second)) {
+            this.addNode(second);
+        }
+        this.store.putEdgePair(first, second, edgeWeight);
+        this.mutations.incrementAndGet();
+    }
+
+    /**
+     * Deletes the edges in both directions between nodes with the values {@code first} and {@code second}, as a single
+     * step of the underlying storage. If neither edge exists, the graph will remain unchanged.
+     * @param first value of one of the nodes.
+     * @param second value of the other node.
+     */
+    protected void deleteEdgePair(final T first, final T second) {
+        if (this.store.removeEdgePair(first, second)) {
+            this.mutations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Adds many edges at once. The result is the same as calling {@link #addEdge(Object, Object)} for each pair of
+     * values in turn, but the nodes and edges are handed to the underlying storage as a batch, so it can add each
+     * distinct node once and size its storage from the edges' degrees up front, rather than growing it edge by edge.
+     * @param origins values of the nodes that are the origins of the edges (assuming the graph is directed).
+     * @param termini values of the nodes that are the termini of the edges (assuming the graph is directed).
+     * @throws IllegalArgumentException if the arrays' lengths differ.
+     */
+    public void addEdges(final T[] origins, final T[] termini) {
+        final double[] weights = new double[origins.length];
+        Arrays.fill(weights, DEFAULT_EDGE_WEIGHT);
+        this.addEdges(origins, termini, weights);
+    }
+
+    /**
+     * Adds many edges at once. The result is the same as calling {@link #addEdge(Object, Object, double)} for each
+     * edge in turn, so if the same edge appears more than once, it ends up with the last of its weights. The nodes and
+     * edges are handed to the underlying storage as a batch, so it can add each distinct node once and size its
+     * storage from the edges' degrees up front, rather than growing it edge by edge.
+     * @param origins values of the nodes that are the origins of the edges (assuming the graph is directed).
+     * @param termini values of the nodes that are the termini of the edges (assuming the graph is directed).
+     * @param weights the numeric weights of the edges.
+     * @throws IllegalArgumentException if the arrays' lengths differ.
+     */
+    public void addEdges(final T[] origins, final T[] termini, final double[] weights) {
+        if (origins.length != termini.length || origins.length != weights.length) {
+            throw new IllegalArgumentException("Cannot add edges from arrays of different lengths: " + origins.length
+                    + ", " + termini.length + " and " + weights.length);
+        }
+        this.insertEdges(origins, termini, weights, origins.length);
+    }
+
+    /**
+     * Adds many edges at once, such as the edges of another graph. See {@link #addEdges(Object[], Object[], double[])}.
+     * @param edges the edges to add, each with its source, destination and weight.
+     */
+    @SuppressWarnings("unchecked")
+    public void addEdges(final Iterable<EdgeView> edges) {
+        int capacity = edges instanceof Collection ? ((Collection<?>) edges).size() : INITIAL_BATCH_CAPACITY;
+        T[] origins = (T[]) new Object[capacity];
+        T[] termini = (T[]) new Object[capacity];
+        double[] weights = new double[capacity];
+        int count = 0;
+        for (final EdgeView edge : edges) {
+            if (count == capacity) {
+                capacity = Math.max(INITIAL_BATCH_CAPACITY, capacity * 2);
+                origins = Arrays.copyOf(origins, capacity);
+                termini = Arrays.copyOf(termini, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            origins[count] = edge.getSource();
+            termini[count] = edge.getDestination();
+            weights[count] = edge.getWeight();
+            count++;
+        }
+        this.insertEdges(origins, termini, weights, count);
+    }
+
+    /**
+     * Adds many edges at once. See {@link #addEdges(Iterable)}.
+     * @param edges the edges to add, each with its source, destination and weight.
+     */
+    public void addEdges(final Stream<EdgeView> edges) {
+        this.addEdges((Iterable<EdgeView>) edges::iterator);
+    }
+
+    /**
+     * Inserts many edges as a single batch of the underlying storage, creating any nodes that do not exist. Each edge
+     * is inserted in both directions if the graph is undirected.
+     * @param origins values of the nodes that are the origins of the edges.
+     * @param termini values of the nodes that are the termini of the edges.
+     * @param weights the numeric weights of the edges.
+     * @param count the number of edges, which are in the first {@code count} elements of each array.
+     */
+    protected void insertEdges(final T[] origins, final T[] termini, final double[] weights, final int count) {
+        this.store.putEdges(origins, termini, weights, count, !this.isDirected());
+        if (count > 0) {
+            this.mutations.incrementAndGet();
         }
     }
 
@@ -157,8 +330,17 @@ public abstract class Graph<T> implements Iterable<T> {
      * @return true if the edge exists.
      */
     public boolean containsEdge(final T from, final T to) {
-        final Map<T, Edge> edges = this.nodes.get(from);
-        return edges != null && edges.containsKey(to);
+        return this.store.containsEdge(from, to);
+    }
+
+    /**
+     * @param from value of the node that is the origin of the edge (assuming the graph is directed).
+     * @param to value of the node that is the terminus of the edge (assuming the graph is directed).
+     * @return the weight of the edge.
+     * @throws NoSuchElementException if the edge does not exist.
+     */
+    /* default */ double edgeWeight(final T from, final T to) {
+        return this.store.edgeWeight(from, to);
     }
 
     /**
@@ -167,14 +349,9 @@ public abstract class Graph<T> implements Iterable<T> {
      * @return a list of nodes that are connected to {@code from} in the graph.
      */
     public List<T> getNeighbors(final T from) {
-        if (!this.containsNode(from)) {
-            throw new NoSuchElementException("Cannot retrieve neighbors because node does not exist in graph: " + from);
-        }
-        final Map<T, Edge> edges = this.nodes.get(from);
-        final List<T> neighbors = new ArrayList<>();
-        if (edges != null) {
-            neighbors.addAll(edges.keySet());
-        }
+        this.requireNode(from);
+        final List<T> neighbors = new ArrayList<>(this.store.outDegree(from));
+        this.store.forEachEdge(from, (neighbor, weight) -> neighbors.add(neighbor));
         return neighbors;
     }
 
@@ -205,17 +382,46 @@ public abstract class Graph<T> implements Iterable<T> {
      * @return edges whose origin is {@code from}.
      */
     public List<EdgeView> getOutboundEdges(final T from) {
-        if (!this.containsNode(from)) {
-            throw new NoSuchElementException("Cannot retrieve neighbors because node does not exist in graph: " + from);
-        }
-        final List<EdgeView> output = new ArrayList<>();
-        final Map<T, Edge> edges = this.nodes.get(from);
-        for (final Map.Entry<T, Edge> entry : edges.entrySet()) {
-            output.add(new EdgeView(from, entry.getKey(), entry.getValue().weight));
-        }
+        this.requireNode(from);
+        final List<EdgeView> output = new ArrayList<>(this.store.outDegree(from));
+        this.store.forEachEdge(from, (destination, weight) -> output.add(new EdgeView(from, destination, weight)));
         return output;
     }
 
+    /**
+     * Passes every neighbor of a node to {@code action}, without copying the neighbors into a new collection.
+     * The graph must not be modified while the neighbors are being visited.
+     * @param from value of the node whose neighbors to visit.
+     * @param action callback receiving the value of each node that is connected to {@code from} in the graph.
+     * @throws NoSuchElementException if the node does not exist in the graph.
+     */
+    public void forEachNeighbor(final T from, final Consumer<? super T> action) {
+        this.requireNode(from);
+        this.store.forEachEdge(from, (neighbor, weight) -> action.accept(neighbor));
+    }
+
+    /**
+     * Passes every edge emanating from a node to {@code action}, without allocating an {@link EdgeView} per edge.
+     * The graph must not be modified while the edges are being visited.
+     * @param from value of the node whose edges to visit.
+     * @param action callback receiving the origin, terminus and weight of each edge whose origin is {@code from}.
+     * @throws NoSuchElementException if the node does not exist in the graph.
+     */
+    public void forEachOutboundEdge(final T from, final EdgeConsumer<? super T> action) {
+        this.requireNode(from);
+        this.store.forEachEdge(from, (destination, weight) -> action.accept(from, destination, weight));
+    }
+
+    /**
+     * Creates a cursor that can walk the outbound edges of any node in the graph, one node at a time. Traversals that
+     * need to stop partway through a node's edges (which {@link #forEachOutboundEdge(Object, EdgeConsumer)} cannot
+     * do) should create one cursor up front and reuse it for every node.
+     * @return a new cursor over the graph's edges, not yet positioned on any node.
+     */
+    public EdgeCursor<T> edgeCursor() {
+        return this.store.newCursor();
+    }
+
     /**
      * @return true if the graph has no nodes.
      */
@@ -227,7 +433,33 @@ public abstract class Graph<T> implements Iterable<T> {
      * @return the number of nodes in the graph.
      */
     public int size() {
-        return this.nodes.size();
+        return this.store.size();
+    }
+
+    /**
+     * Counts a node's outbound edges in constant time. In an undirected graph, this is the node's degree.
+     * @param node value of a node in the graph.
+     * @return the number of edges whose origin is {@code node}.
+     * @throws NoSuchElementException if the node is not present in the graph.
+     */
+    public int outDegree(final T node) {
+        this.requireNode(node);
+        return this.store.outDegree(node);
+    }
+
+    /**
+     * Adds a node to the graph unless it already contains a node with the specified value. Unlike
+     * {@link #addNode(Object)}, the check and the addition are a single step of the store, so threads racing to add the
+     * same node to a concurrent graph neither fail nor add it twice.
+     * @param value value to add to the graph.
+     * @return true if the node was added.
+     */
+    /* default */ boolean addNodeIfAbsent(final T value) {
+        if (!this.store.addNode(value)) {
+            return false;
+        }
+        this.mutations.incrementAndGet();
+        return true;
     }
 
     /**
@@ -235,20 +467,57 @@ public abstract class Graph<T> implements Iterable<T> {
      */
     @Override
     public Iterator<T> iterator() {
-        return this.nodes.keySet().iterator();
+        return this.store.iterator();
     }
 
+    /**
+     * Two graphs are equal if they contain the same nodes and the same directional edges with the same weights,
+     * regardless of how each graph is stored.
+     * @param other the object to compare with.
+     * @return true if {@code other} is an equal graph.
+     */
     @Override
+    @SuppressWarnings("unchecked")
     public boolean equals(final Object other) {
-        if (other instanceof Graph) {
-            return Objects.equals(this.nodes, ((Graph) other).nodes);
+        if (!(other instanceof Graph)) {
+            return false;
+        }
+        final AdjacencyStore<Object> otherStore = ((Graph<Object>) other).store;
+        if (this.size() != otherStore.size()) {
+            return false;
+        }
+        for (final T node : this) {
+            if (!otherStore.containsNode(node) || this.store.outDegree(node) != otherStore.outDegree(node)) {
+                return false;
+            }
+            final boolean[] edgesMatch = {true};
+            this.store.forEachEdge(node, (neighbor, weight) -> {
+                edgesMatch[0] &= otherStore.containsEdge(node, neighbor)
+                        && otherStore.edgeWeight(node, neighbor) == weight;
+            });
+            if (!edgesMatch[0]) {
+                return false;
+            }
         }
-        return false;
+        return true;
     }
 
+    /**
+     * Computes the same hash code as a {@code Map<T, Map<T, Edge>>} holding the graph's adjacency would, so that the
+     * hash code does not depend on how the graph is stored.
+     * @return a hash code consistent with {@link #equals(Object)}.
+     */
     @Override
     public int hashCode() {
-        return this.nodes.hashCode();
+        int hash = 0;
+        for (final T node : this) {
+            final int[] edgesHash = {0};
+            this.store.forEachEdge(node, (neighbor, weight) -> {
+                edgesHash[0] += Objects.hashCode(neighbor) ^ Edge.hashCode(weight);
+            });
+            hash += Objects.hashCode(node) ^ edgesHash[0];
+        }
+        return hash;
     }
 
     /**
@@ -260,36 +529,174 @@ public abstract class Graph<T> implements Iterable<T> {
      * between them.
      */
     public int distanceBetween(final T from, final T to) {
-        /**
-         * A small data class to track the depth of enqueued nodes in a breadth-first search.
-         */
-        @AllArgsConstructor
-        class NodeData {
-            private final T value;
-            private final int depth;
+        if (!this.containsNode(from) || !this.containsNode(to)) {
+            return -1;
         }
+        return this.cached(() -> this.store.distanceBetween(from, to), "distanceBetween", from, to);
+    }
 
+    /**
+     * Computes the minimum distance between two nodes, like {@link #distanceBetween(Object, Object)}, with a choice of
+     * search. A bidirectional search runs on the graph itself, and allocates only for the nodes it visits. Searching
+     * backward through a directed graph needs its inbound edges, so a directed graph searches forward instead unless
+     * it has an index of them (see {@link DirectedGraph#indexInboundEdges()}). Either way, the distance found is the
+     * same, so both searches share the query cache's results (see {@link #enableQueryCache(int)}).
+     * @param from value of the origin node.
+     * @param to value of the destination node.
+     * @param direction how to search for the shortest path.
+     * @return the minimum number of edges that must be crossed to travel between the nodes, or -1 if there is no path
+     * between them.
+     */
+    public int distanceBetween(final T from, final T to, final SearchDirection direction) {
+        final EdgeCursor<T> backward = this.reverseCursor();
+        if (direction == SearchDirection.FORWARD || backward == null || Objects.equals(from, to)) {
+            return this.distanceBetween(from, to);
+        }
         if (!this.containsNode(from) || !this.containsNode(to)) {
             return -1;
         }
+        // both directions find the same distance, so they share cached results
+        return this.cached(() -> BidirectionalSearch.distance(this.store.newCursor(), backward, from, to),
+                "distanceBetween", from, to);
+    }
 
-        final Set<T> visited = new HashSet<>();
-        final Queue<NodeData> queue = new LinkedList<>();
-        queue.add(new NodeData(from, 0));
+    /**
+     * @return a new cursor over the graph's edges reversed, so that each node's edges are its inbound edges, or null
+     * if the graph cannot walk them without checking every node. Each edge of an undirected graph goes both ways.
+     */
+    /* default */ EdgeCursor<T> reverseCursor() {
+        return this.isDirected() ? null : this.store.newCursor();
+    }
 
-        while (!queue.isEmpty()) {
-            final NodeData curr = queue.poll();
-            if (Objects.equals(curr.value, to) && curr.depth > 0) {
-                return curr.depth;
-            }
-            if (!visited.contains(curr.value)) {
-                visited.add(curr.value);
-                this.getNeighbors(curr.value).forEach((neighbor) -> {
-                    queue.offer(new NodeData(neighbor, curr.depth + 1));
-                });
-            }
+    /**
+     * Computes the distance (i.e., the number of edges on a shortest path) from a node to every node in the graph,
+     * expanding each level of the breadth-first search in parallel on the common fork-join pool. The search runs over
+     * a fresh {@link #freeze() snapshot} of the graph; see
+     * {@link CsrGraph#distancesFrom(Object, java.util.concurrent.ForkJoinPool)}.
+     * @param source value of the node to start from.
+     * @return the distance from {@code source} to every node. The distance from the source to itself is 0.
+     * @throws NoSuchElementException if the node is not present in the graph.
+     */
+    public DistanceLabeling<T> distancesFrom(final T source) {
+        return this.freeze().distancesFrom(source);
+    }
+
+    /**
+     * Finds the lightest path between two nodes with Dijkstra's algorithm. Unlike
+     * {@link #distanceBetween(Object, Object)}, the length of a path is the sum of its edges' weights. The search
+     * stops as soon as it reaches {@code to}, and allocates only for the nodes it explores, so a query between nearby
+     * nodes of a large graph is cheap.
+     * @param from value of the origin node.
+     * @param to value of the destination node.
+     * @return the lightest path from {@code from} to {@code to}, with its total weight.
+     * @throws NoSuchElementException if either node is not present in the graph.
+     * @throws IllegalStateException if the search reaches an edge of negative weight.
+     */
+    public WeightedPath<T> shortestPath(final T from, final T to) {
+        return this.shortestPath(from, to, node -> 0);
+    }
+
+    /**
+     * Finds the lightest path between two nodes with A*, which explores nodes in order of their distance from
+     * {@code from} plus the heuristic's estimate of their distance to {@code to}, so a heuristic that is close to the
+     * true distance, such as the straight-line distance between two places on a map, keeps the search from exploring
+     * nodes that lead away from {@code to}. The path found is guaranteed to be the lightest only if the heuristic
+     * never overestimates.
+     * @param from value of the origin node.
+     * @param to value of the destination node.
+     * @param heuristic estimates the weight of the lightest path from a node to {@code to}.
+     * @return the lightest path from {@code from} to {@code to}, with its total weight.
+     * @throws NoSuchElementException if either node is not present in the graph.
+     * @throws IllegalStateException if the search reaches an edge of negative weight.
+     */
+    public WeightedPath<T> shortestPath(final T from, final T to, final ToDoubleFunction<? super T> heuristic) {
+        this.requireNode(from);
+        this.requireNode(to);
+        return new ShortestPathSearch<T>(this, heuristic).between(from, to);
+    }
+
+    /**
+     * Builds a landmark distance oracle over a fresh {@link #freeze() snapshot} of the graph, in parallel on the common
+     * fork-join pool, for answering many distance queries about a graph that rarely changes; see
+     * {@link CsrGraph#landmarkOracle(int, DistanceMetric, ForkJoinPool)}. The oracle does not reflect later changes to
+     * the graph, so rebuild it after them.
+     * @param landmarkCount the number of landmarks.
+     * @param metric how to measure distances.
+     * @return the oracle.
+     * @throws IllegalArgumentException if {@code landmarkCount} is less than 1.
+     * @throws IllegalStateException if distances are measured by weight and an edge has a negative weight.
+     */
+    public LandmarkOracle<T> landmarkOracle(final int landmarkCount, final DistanceMetric metric) {
+        return this.freeze().landmarkOracle(landmarkCount, metric);
+    }
+
+    /**
+     * Ranks the nodes by PageRank, in parallel on the common fork-join pool, over a fresh {@link #freeze() snapshot}
+     * of the graph; see {@link CsrGraph#pageRank(double, double, ForkJoinPool)}. To rank the graph again after it
+     * changes, pass the result to {@link CsrGraph#pageRank(CentralityScores, double, double, ForkJoinPool)} on a new
+     * snapshot, which converges faster than starting over.
+     * @return the rank of each node.
+     */
+    public CentralityScores<T> pageRank() {
+        return this.freeze().pageRank();
+    }
+
+    /**
+     * Scores the nodes by their out-degree over a fresh {@link #freeze() snapshot} of the graph; see
+     * {@link CsrGraph#degreeCentrality()}.
+     * @return the degree centrality of each node.
+     */
+    public CentralityScores<T> degreeCentrality() {
+        return this.freeze().degreeCentrality();
+    }
+
+    /**
+     * Estimates the nodes' betweenness centrality, in parallel on the common fork-join pool, over a fresh
+     * {@link #freeze() snapshot} of the graph; see
+     * {@link CsrGraph#betweennessCentrality(int, DistanceMetric, long, ForkJoinPool)}.
+     * @param sampleCount the number of sources to search from.
+     * @param metric how to measure the length of a path.
+     * @return the estimated betweenness of each node.
+     * @throws IllegalArgumentException if {@code sampleCount} is less than 1.
+     * @throws IllegalStateException if paths are measured by weight and an edge's weight is not positive.
+     */
+    public CentralityScores<T> betweennessCentrality(final int sampleCount, final DistanceMetric metric) {
+        return this.freeze().betweennessCentrality(sampleCount, metric);
+    }
+
+    /**
+     * Finds the total weight of the lightest path between every ordered pair of nodes, in parallel on the common
+     * fork-join pool, over a fresh {@link #freeze() snapshot} of the graph; see
+     * {@link CsrGraph#allPairsShortestPaths(ForkJoinPool, Path)}. Unlike
+     * {@link #distanceBetween(Object, Object)}, the length of a path is the sum of its edges' weights.
+     * @return the weight of the lightest path between every ordered pair of nodes, held on the heap.
+     * @throws IllegalStateException if the graph has a cycle whose weights sum to less than zero.
+     */
+    public DistanceMatrix<T> allPairsShortestPaths() {
+        return this.freeze().allPairsShortestPaths();
+    }
+
+    /**
+     * Finds the total weight of the lightest path between every ordered pair of nodes, like
+     * {@link #allPairsShortestPaths()}, but maps the result from a file rather than holding it on the heap.
+     * @param file the file to hold the result, which is created or overwritten.
+     * @return the weight of the lightest path between every ordered pair of nodes.
+     * @throws IOException if the file cannot be created or mapped.
+     * @throws IllegalStateException if the graph has a cycle whose weights sum to less than zero.
+     */
+    @SuppressWarnings("PMD.DoNotUseThreads")
+    public DistanceMatrix<T> allPairsShortestPaths(final Path file) throws IOException {
+        return this.freeze().allPairsShortestPaths(ForkJoinPool.commonPool(), file);
+    }
+
+    /**
+     * @param node value of a node.
+     * @throws NoSuchElementException if the node is not present in the graph.
+     */
+    /* default */ void requireNode(final T node) {
+        if (!this.containsNode(node)) {
+            throw new NoSuchElementException("Cannot retrieve neighbors because node does not exist in graph: " + node);
         }
-        return -1;
     }
 
     /**
@@ -297,7 +704,109 @@ public abstract class Graph<T> implements Iterable<T> {
      * @return true if the node is present in the graph.
      */
     public boolean containsNode(final T node) {
-        return this.nodes.containsKey(node);
+        return this.store.containsNode(node);
+    }
+
+    /**
+     * @return true if every edge in the graph is directional, meaning that an edge from A to B does not connect B to A.
+     */
+    protected abstract boolean isDirected();
+
+    /**
+     * Takes an immutable snapshot of the graph in compressed sparse row form, which is much cheaper to traverse than
+     * the graph itself. Use it when a graph is built once and then queried many times. Subsequent modifications to
+     * the graph are not reflected in the snapshot.
+     * @return a read-only snapshot of the graph.
+     */
+    public CsrGraph<T> freeze() {
+        return CsrGraph.of(this);
+    }
+
+    /**
+     * Takes an immutable view of the graph that supports every query the graph does, and throws
+     * {@link UnsupportedOperationException} on any attempt to modify it. Once taken, the view is unaffected by later
+     * changes to the graph. With {@link GraphStorage#VERSIONED} storage, taking a snapshot costs constant time, the
+     * graph shares its nodes and edges with the snapshot until it modifies them, and the snapshot is a consistent,
+     * point-in-time view even if other threads keep modifying the graph. With other storage, the snapshot is a full
+     * copy made node by node, which must not overlap writes to the graph, except on a concurrent graph, where writes
+     * made during the copy may be seen for some nodes and not for others, but each edge is copied whole.
+     * @return a read-only snapshot of the graph.
+     */
+    public abstract Graph<T> snapshot();
+
+    /**
+     * @return a read-only, point-in-time copy of the graph's storage. See {@link #snapshot()}.
+     */
+    /* default */ AdjacencyStore<T> snapshotStore() {
+        return this.store.snapshot();
+    }
+
+    /**
+     * Reads the graph's mutation version, which every addition of a node and every addition, reweighting or removal of
+     * an edge increases, so two reads that return the same version saw the graph in the same state. Removing an edge
+     * that does not exist leaves the version alone.
+     * @return the number of mutations made to the graph so far.
+     */
+    public long version() {
+        return this.mutations.get();
+    }
+
+    /**
+     * Starts caching the results of {@link #distanceBetween(Object, Object)}, {@link #getNodesConnectedTo(Object)} and
+     * {@link #hasCycle()}, so that a query repeated while the graph is unchanged returns at once. Each result is
+     * stamped with the graph's {@link #version()} and is never served once the graph has changed. Once the cache holds
+     * {@code capacity} results, the least recently used is evicted to make room. Replaces any cache already enabled,
+     * along with its results and counters.
+     * @param capacity the most results to cache.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public void enableQueryCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("A query cache must hold at least one result: " + capacity);
+        }
+        this.queryCache = new QueryCache(capacity);
+    }
+
+    /**
+     * Stops caching the results of queries, and discards the cache's results and counters.
+     */
+    public void disableQueryCache() {
+        this.queryCache = QueryCache.DISABLED;
+    }
+
+    /**
+     * @return the number of queries answered from the cache since it was enabled, or 0 if it is not.
+     */
+    public long queryCacheHits() {
+        return this.queryCache.hits();
+    }
+
+    /**
+     * @return the number of queries the cache could not answer since it was enabled, or 0 if it is not.
+     */
+    public long queryCacheMisses() {
+        return this.queryCache.misses();
+    }
+
+    /**
+     * Answers a query from the cache, if it is enabled and holds the query's result at the graph's current version,
+     * or runs it otherwise.
+     * @param query computes the result.
+     * @param name the query's name.
+     * @param arguments the query's arguments.
+     * @param <R> the type of the result.
+     * @return the result of the query.
+     */
+    /* default */ <R> R cached(final Supplier<R> query, final String name, final Object... arguments) {
+        final QueryCache cache = this.queryCache;
+        if (!cache.isEnabled()) {
+            return query.get();
+        }
+        final Object[] key = new Object[arguments.length + 1];
+        key[0] = name;
+        System.arraycopy(arguments, 0, key, 1, arguments.length);
+        // the version is read before the query runs, so a mutation made while it runs makes its result stale
+        return cache.get(Arrays.asList(key), this.version(), query);
     }
 
     /**
@@ -324,29 +833,39 @@ public abstract class Graph<T> implements Iterable<T> {
         if (!this.containsNode(source)) {
             throw new NoSuchElementException("No node exists with value " + source);
         }
-        final Set<T> visited = new HashSet<>();
-        this.collectConnectionsDepthFirst(source, visited);
-        visited.remove(source);
-        return visited;
-    }
-
-    private void collectConnectionsDepthFirst(final T source, final Set<T> visited) {
-        if (!visited.contains(source)) {
-            visited.add(source);
-            for (final T neighbor : this.getNeighbors(source)) {
-                this.collectConnectionsDepthFirst(neighbor, visited);
-            }
-        }
+        final Set<T> connected = this.cached(() -> {
+            final Set<T> visited = new HashSet<>();
+            this.store.collectReachable(source, visited);
+            visited.remove(source);
+            return visited;
+        }, "getNodesConnectedTo", source);
+        // the cached set is never handed out, so callers can't modify it
+        return this.queryCache.isEnabled() ? new HashSet<>(connected) : connected;
     }
 
     /**
+     * Reads the running sum that the graph's storage keeps up to date as edges are added, reweighted and removed, so
+     * it takes constant time (except on a graph read from a {@link GraphFile}, whose weights are summed the first time
+     * they are asked for). The sum is compensated, so it is as accurate as summing the current weights afresh.
      * @return the sum of every edge's weight, combined.
      */
     protected double totalWeight() {
-        return this.nodes.values()
-                .stream()
-                .flatMap(map -> map.values().stream())
-                .mapToDouble(Edge::getWeight)
-                .sum();
+        return this.store.tally().totalWeight();
+    }
+
+    /**
+     * Counts the graph's edges in constant time. In a directed graph, an edge in each direction between two nodes
+     * counts as two edges.
+     * @return the number of edges in the graph.
+     */
+    public long edgeCount() {
+        return this.store.tally().edgeCount();
+    }
+
+    /**
+     * @return the number of edges whose origin is also their terminus.
+     */
+    /* default */ long selfLoopCount() {
+        return this.store.tally().loopCount();
     }
 }
@@ -0,0 +1,222 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes graphs to, and reads them from, a compact binary file that is laid out so that it can be memory-mapped and
+ * traversed without being parsed. A file holds, in order:
+ * <ol>
+ *     <li>a {@value #HEADER_BYTES}-byte header: a magic number, the format version, flags (whether the graph is
+ *     directed), the number of nodes, the number of directional edges and the size of the node dictionary's
+ *     values;</li>
+ *     <li>the node dictionary: where each node's encoded value starts (one int per node, plus one for the end),
+ *     followed by the encoded values (see {@link NodeCodec});</li>
+ *     <li>the edges in compressed sparse row form (see {@link CsrGraph}): where each node's edges start (one int per
+ *     node, plus one for the end), the terminus id of each edge, and, starting at a multiple of eight bytes, the weight
+ *     of each edge. Each node's edges are sorted by terminus, so an edge can be found with a binary search.</li>
+ * </ol>
+ * All numbers are big-endian. Reading a file decodes only the node dictionary; the edges are served straight from
+ * the mapped file, so opening even a very large graph costs little more than the page faults its traversals incur.
+ */
+@SuppressWarnings("PMD.ShortVariable")
+public final class GraphFile {
+
+    /**
+     * Identifies a graph file: "GRPH" in ASCII.
+     */
+    private static final int MAGIC = 0x47525048;
+
+    /**
+     * The version of the format written by {@link #write(Graph, Path, NodeCodec)}.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The flag that is set if the graph is directed.
+     */
+    private static final int DIRECTED_FLAG = 1;
+
+    /**
+     * The size of the header.
+     */
+    private static final int HEADER_BYTES = 32;
+
+    /**
+     * Sections that hold eight-byte values start at a multiple of this.
+     */
+    private static final int ALIGNMENT = 8;
+
+    private GraphFile() {
+    }
+
+    /**
+     * Writes a graph to a file, replacing the file if it exists.
+     * @param graph the graph to write.
+     * @param path the file to write.
+     * @param codec encodes the values of the graph's nodes.
+     * @param <T> the data type of nodes' values.
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if the graph is too large for a section of the file to be mapped in one piece.
+     */
+    @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.NPathComplexity"})
+    public static <T> void write(final Graph<T> graph, final Path path, final NodeCodec<T> codec)
+            throws IOException {
+        final CsrGraph<T> snapshot = graph.freeze();
+        final int nodeCount = snapshot.size();
+        final byte[][] encoded = new byte[nodeCount][];
+        long dictionaryBytes = 0;
+        for (int id = 0; id < nodeCount; id++) {
+            encoded[id] = codec.encode(snapshot.valueOf(id));
+            dictionaryBytes += encoded[id].length;
+        }
+        final int edgeCount = snapshot.edgeSlots();
+        if (dictionaryBytes + (long) Integer.BYTES * (nodeCount + 1) > Integer.MAX_VALUE
+                || (long) Double.BYTES * edgeCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Graph is too large to be written to a graph file");
+        }
+        final int[] offsets = snapshot.offsets();
+        final int[] targets = Arrays.copyOf(snapshot.targets(), edgeCount);
+        final double[] weights = Arrays.copyOf(snapshot.weights(), edgeCount);
+        for (int id = 0; id < nodeCount; id++) {
+            sortEdges(targets, weights, offsets[id], offsets[id + 1]);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(snapshot.isDirected() ? DIRECTED_FLAG : 0);
+            out.writeInt(nodeCount);
+            out.writeLong(edgeCount);
+            out.writeLong(dictionaryBytes);
+            int start = 0;
+            for (final byte[] value : encoded) {
+                out.writeInt(start);
+                start += value.length;
+            }
+            out.writeInt(start);
+            for (final byte[] value : encoded) {
+                out.write(value);
+            }
+            final long offsetsStart = pad(out,
+                    HEADER_BYTES + (long) Integer.BYTES * (nodeCount + 1) + dictionaryBytes);
+            for (final int offset : offsets) {
+                out.writeInt(offset);
+            }
+            for (final int target : targets) {
+                out.writeInt(target);
+            }
+            pad(out, offsetsStart + (long) Integer.BYTES * (nodeCount + 1 + edgeCount));
+            for (final double weight : weights) {
+                out.writeDouble(weight);
+            }
+        }
+    }
+
+    /**
+     * Maps a graph file into memory. The returned graph reads its edges from the mapped file, and cannot be modified.
+     * The mapping stays valid after the file is closed, until the graph is garbage collected.
+     * @param path the file to read.
+     * @param codec decodes the values of the graph's nodes.
+     * @param <T> the data type of nodes' values.
+     * @return a {@link DirectedGraph} or an {@link UndirectedGraph}, depending on what kind of graph was written.
+     * @throws IOException if the file cannot be read, or is not a graph file of a supported version.
+     */
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    public static <T> Graph<T> read(final Path path, final NodeCodec<T> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("Not a graph file: " + path);
+            }
+            final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a graph file: " + path);
+            }
+            final int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported graph file version " + version + ": " + path);
+            }
+            final boolean directed = (header.getInt() & DIRECTED_FLAG) != 0;
+            final int nodeCount = header.getInt();
+            final long edgeCount = header.getLong();
+            final long dictionaryBytes = header.getLong();
+            final long dictionaryStart = HEADER_BYTES;
+            final long offsetsStart = align(dictionaryStart + (long) Integer.BYTES * (nodeCount + 1) + dictionaryBytes);
+            final long targetsStart = offsetsStart + (long) Integer.BYTES * (nodeCount + 1);
+            final long weightsStart = align(targetsStart + Integer.BYTES * edgeCount);
+            if (channel.size() != weightsStart + Double.BYTES * edgeCount) {
+                throw new IOException("Graph file is truncated or corrupt: " + path);
+            }
+            final MappedAdjacencyStore<T> store = new MappedAdjacencyStore<>(
+                    map(channel, dictionaryStart, offsetsStart),
+                    nodeCount,
+                    codec,
+                    map(channel, offsetsStart, targetsStart).asIntBuffer(),
+                    map(channel, targetsStart, targetsStart + Integer.BYTES * edgeCount).asIntBuffer(),
+                    map(channel, weightsStart, channel.size()).asDoubleBuffer());
+            return directed ? new DirectedGraph<>(store) : new UndirectedGraph<>(store);
+        }
+    }
+
+    /**
+     * @param channel an open file.
+     * @param start where the section starts.
+     * @param end where the section ends.
+     * @return a read-only mapping of the section.
+     * @throws IOException if the section cannot be mapped.
+     */
+    private static MappedByteBuffer map(final FileChannel channel, final long start, final long end)
+            throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    }
+
+    /**
+     * Sorts a node's edges by terminus.
+     * @param targets the terminus of each edge.
+     * @param weights the weight of each edge, which are moved along with their termini.
+     * @param start index of the node's first edge.
+     * @param end index after the node's last edge.
+     */
+    private static void sortEdges(final int[] targets, final double[] weights, final int start, final int end) {
+        final long[] keys = new long[end - start];
+        for (int i = start; i < end; i++) {
+            keys[i - start] = (long) targets[i] << Integer.SIZE | i - start;
+        }
+        Arrays.sort(keys);
+        final double[] unsorted = Arrays.copyOfRange(weights, start, end);
+        for (int i = start; i < end; i++) {
+            targets[i] = (int) (keys[i - start] >>> Integer.SIZE);
+            weights[i] = unsorted[(int) keys[i - start]];
+        }
+    }
+
+    /**
+     * Pads the output with zeros up to a multiple of {@link #ALIGNMENT} bytes.
+     * @param out the output.
+     * @param position the number of bytes written to the output so far.
+     * @return the number of bytes written to the output after padding.
+     * @throws IOException if the output cannot be written.
+     */
+    private static long pad(final DataOutputStream out, final long position) throws IOException {
+        final long aligned = align(position);
+        for (long i = position; i < aligned; i++) {
+            out.writeByte(0);
+        }
+        return aligned;
+    }
+
+    /**
+     * @param position a position in a file.
+     * @return the first multiple of {@link #ALIGNMENT} at or after {@code position}.
+     */
+    private static long align(final long position) {
+        return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
@@ -0,0 +1,77 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+/**
+ * The ways a {@link Graph} can store its nodes and edges. The choice of storage affects memory use and speed, never
+ * the graph's behavior.
+ */
+public enum GraphStorage {
+    /**
+     * Nested hash maps from each node to its neighbors, with one object per edge. A good fit for small or
+     * frequently reshaped graphs.
+     */
+    HASH,
+    /**
+     * Interns each node to a dense int id and keeps each node's edges in growable primitive arrays, indexed by an
+     * open-addressing table keyed by the (origin, terminus) id pair. Allocates no object per edge, which makes it a
+     * good fit for large graphs.
+     */
+    PRIMITIVE,
+    /**
+     * Keeps nodes in pages of per-node edge maps that are copied on write whenever a snapshot might be sharing them,
+     * so that {@link Graph#snapshot()} is a constant-time operation and a snapshot's upkeep is proportional to the
+     * number of nodes modified after it. Other threads may take snapshots while the graph is being written to, and
+     * the writer never waits for readers of snapshots. A good fit for graphs that are analyzed while they are being
+     * updated. Does not support null values.
+     */
+    VERSIONED,
+    /**
+     * Interns each node to a dense int id and keeps an adjacency matrix of bitset rows, plus a weight matrix whose
+     * rows are only allocated for nodes with edges of non-default weight. Checking for an edge is a bit test, and
+     * breadth-first searches expand a level 64 nodes at a time. Takes memory in proportion to the square of the number
+     * of nodes, which makes it a good fit for small, dense graphs (see {@link #forDensity(int, long)}).
+     */
+    DENSE;
+
+    /**
+     * The most nodes {@link #forDensity(int, long)} will suggest {@link #DENSE} storage for: an adjacency matrix of
+     * this many nodes takes 8 MB.
+     */
+    private static final int MAX_DENSE_NODES = 1 << 13;
+
+    /**
+     * {@link #forDensity(int, long)} suggests {@link #DENSE} storage if at least one in this many possible edges is
+     * present, which is roughly where the matrix becomes smaller than {@link #PRIMITIVE} storage's per-edge arrays and
+     * index.
+     */
+    private static final int DENSE_EDGE_RATIO = 256;
+
+    /**
+     * Suggests a storage for a graph of a given size.
+     * @param nodeCount the number of nodes the graph is expected to have.
+     * @param edgeCount the number of directional edges the graph is expected to have (twice the number of edges, for
+     *                  an undirected graph).
+     * @return {@link #DENSE} for small graphs in which a sizable fraction of the possible edges are present, and
+     * {@link #PRIMITIVE} for other graphs.
+     */
+    public static GraphStorage forDensity(final int nodeCount, final long edgeCount) {
+        final long possibleEdges = (long) nodeCount * nodeCount;
+        if (nodeCount <= MAX_DENSE_NODES && edgeCount * DENSE_EDGE_RATIO >= possibleEdges) {
+            return DENSE;
+        }
+        return PRIMITIVE;
+    }
+
+    /**
+     * Creates an empty store of this kind.
+     * @param <T> the data type of nodes' values.
+     * @return a new, empty store.
+     */
+    /* default */ <T> AdjacencyStore<T> createStore() {
+        return switch (this) {
+            case HASH -> new HashAdjacencyStore<>();
+            case PRIMITIVE -> new PrimitiveAdjacencyStore<>();
+            case VERSIONED -> new VersionedAdjacencyStore<>();
+            case DENSE -> new DenseAdjacencyStore<>();
+        };
+    }
+}
@@ -0,0 +1,231 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Stores a graph as nested hash maps: each node's value maps to a map from its neighbors' values to the connecting
+ * edges. This is the default storage, and the most flexible one, since it needs nothing from nodes' values besides
+ * hashCode() and equals().
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.UseConcurrentHashMap", "PMD.TooManyMethods"})
+final class HashAdjacencyStore<T> implements AdjacencyStore<T> {
+
+    /**
+     * Maps a node's value to the neighbors of the node.
+     */
+    private Map<T, Map<T, Graph.Edge>> nodes = new HashMap<>();
+
+    /**
+     * Counts the edges and sums their weights.
+     */
+    private final EdgeTally edgeTally = new EdgeTally();
+
+    @Override
+    public boolean addNode(final T value) {
+        if (this.nodes.containsKey(value)) {
+            return false;
+        }
+        this.nodes.put(value, new HashMap<>());
+        return true;
+    }
+
+    @Override
+    public boolean containsNode(final T value) {
+        return this.nodes.containsKey(value);
+    }
+
+    @Override
+    public int size() {
+        return this.nodes.size();
+    }
+
+    @Override
+    public void putEdge(final T from, final T to, final double weight) {
+        final Graph.Edge replaced = this.nodes.get(from).put(to, new Graph.Edge(weight));
+        if (replaced == null) {
+            this.edgeTally.added(weight, Objects.equals(from, to));
+        } else {
+            this.edgeTally.reweighted(replaced.getWeight(), weight);
+        }
+    }
+
+    /**
+     * Counts how many edges each node is gaining, then gives every new node, and every node that has no edges yet, a
+     * neighbor map large enough to take all of them without rehashing, before adding any edge. An empty store also
+     * sizes its map of nodes for the batch.
+     */
+    @Override
+    public void putEdges(final T[] origins, final T[] termini, final double[] weights, final int count,
+                         final boolean mirrored) {
+        final Map<T, int[]> gained = gainedDegrees(origins, termini, count, mirrored);
+        if (this.nodes.isEmpty()) {
+            this.nodes = new HashMap<>(capacityFor(gained.size()));
+        }
+        this.presize(gained);
+        for (int i = 0; i < count; i++) {
+            this.putEdge(origins[i], termini[i], weights[i]);
+            if (mirrored) {
+                this.putEdge(termini[i], origins[i], weights[i]);
+            }
+        }
+    }
+
+    /**
+     * @param origins values of the nodes that are the origins of the edges.
+     * @param termini values of the nodes that are the termini of the edges.
+     * @param count the number of edges.
+     * @param mirrored true if every edge is being added in both directions.
+     * @return how many edges each of the edges' nodes is gaining (at most), in a single-element array.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private static <T> Map<T, int[]> gainedDegrees(final T[] origins, final T[] termini, final int count,
+                                                   final boolean mirrored) {
+        final Map<T, int[]> gained = new HashMap<>(capacityFor(count));
+        for (int i = 0; i < count; i++) {
+            gained.computeIfAbsent(origins[i], value -> new int[1])[0]++;
+            final int[] terminusGained = gained.computeIfAbsent(termini[i], value -> new int[1]);
+            if (mirrored && !Objects.equals(origins[i], termini[i])) {
+                terminusGained[0]++;
+            }
+        }
+        return gained;
+    }
+
+    /**
+     * Adds the nodes that are not yet in the store, and gives each of them, and each node that has no edges yet, a
+     * neighbor map large enough to take the edges it is gaining without rehashing.
+     * @param gained how many edges each node is gaining.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private void presize(final Map<T, int[]> gained) {
+        for (final Map.Entry<T, int[]> entry : gained.entrySet()) {
+            final Map<T, Graph.Edge> edges = this.nodes.get(entry.getKey());
+            if (edges == null || edges.isEmpty() && entry.getValue()[0] > 0) {
+                this.nodes.put(entry.getKey(), new HashMap<>(capacityFor(entry.getValue()[0])));
+            }
+        }
+    }
+
+    @Override
+    public boolean removeEdge(final T from, final T to) {
+        final Map<T, Graph.Edge> edges = this.nodes.get(from);
+        final Graph.Edge removed = edges == null ? null : edges.remove(to);
+        if (removed == null) {
+            return false;
+        }
+        this.edgeTally.removed(removed.getWeight(), Objects.equals(from, to));
+        return true;
+    }
+
+    @Override
+    public boolean containsEdge(final T from, final T to) {
+        final Map<T, Graph.Edge> edges = this.nodes.get(from);
+        return edges != null && edges.containsKey(to);
+    }
+
+    @Override
+    public double edgeWeight(final T from, final T to) {
+        final Map<T, Graph.Edge> edges = this.nodes.get(from);
+        final Graph.Edge edge = edges == null ? null : edges.get(to);
+        if (edge == null) {
+            throw new NoSuchElementException("No edge exists from " + from + " to " + to);
+        }
+        return edge.getWeight();
+    }
+
+    @Override
+    public int outDegree(final T from) {
+        return this.nodes.get(from).size();
+    }
+
+    @Override
+    public void forEachEdge(final T from, final ObjDoubleConsumer<T> action) {
+        for (final Map.Entry<T, Graph.Edge> entry : this.nodes.get(from).entrySet()) {
+            action.accept(entry.getKey(), entry.getValue().getWeight());
+        }
+    }
+
+    /**
+     * @param expectedSize a number of entries.
+     * @return the capacity a {@link HashMap} needs to hold that many entries without rehashing.
+     */
+    private static int capacityFor(final int expectedSize) {
+        return (int) (expectedSize / 0.75f) + 1;
+    }
+
+    @Override
+    public EdgeTally tally() {
+        return this.edgeTally;
+    }
+
+    @Override
+    public EdgeCursor<T> newCursor() {
+        return new Cursor();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this.nodes.keySet().iterator();
+    }
+
+    /**
+     * Walks a node's edges with an iterator over its neighbor map, so only one object is allocated per node.
+     */
+    private final class Cursor implements EdgeCursor<T> {
+        /**
+         * The node whose edges are being walked.
+         */
+        private T origin;
+
+        /**
+         * Iterator over the node's neighbor map.
+         */
+        private Iterator<Map.Entry<T, Graph.Edge>> edges;
+
+        /**
+         * The edge the cursor is on.
+         */
+        private Map.Entry<T, Graph.Edge> current;
+
+        @Override
+        public void reset(final T source) {
+            final Map<T, Graph.Edge> neighbors = HashAdjacencyStore.this.nodes.get(source);
+            if (neighbors == null) {
+                throw new NoSuchElementException("Cannot retrieve edges because node does not exist in graph: "
+                        + source);
+            }
+            this.origin = source;
+            this.edges = neighbors.entrySet().iterator();
+        }
+
+        @Override
+        public boolean advance() {
+            if (this.edges == null || !this.edges.hasNext()) {
+                return false;
+            }
+            this.current = this.edges.next();
+            return true;
+        }
+
+        @Override
+        public T source() {
+            return this.origin;
+        }
+
+        @Override
+        public T destination() {
+            return this.current.getKey();
+        }
+
+        @Override
+        public double weight() {
+            return this.current.getValue().getWeight();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+
+/**
+ * A 4-ary min-heap of node ids keyed by double priorities, indexed so that a node's priority can be lowered in place
+ * instead of pushing a duplicate entry. The heap, each node's position in it and each node's priority are primitive
+ * arrays indexed by dense node ids, so a search allocates nothing per node or per edge, and the same heap can be
+ * cleared and reused for the next search. With four children per node the heap is half as deep as a binary one, so
+ * lowering a priority, which searches do far more often than they remove the minimum, moves a node through half as
+ * many levels, and the children compared on the way down sit next to each other in memory.
+ */
+@SuppressWarnings("PMD.AvoidFieldNameMatchingMethodName")
+final class IndexedMinHeap {
+
+    /**
+     * The position of a node that is not in the heap.
+     */
+    private static final int ABSENT = -1;
+
+    /**
+     * The number of children of each node of the heap.
+     */
+    private static final int ARITY = 4;
+
+    /**
+     * The ids of the nodes in the heap, in heap order, in the first {@code size} elements.
+     */
+    private int[] heap;
+
+    /**
+     * {@code positions[i]} is the index of node {@code i} in {@code heap}, or {@link #ABSENT}.
+     */
+    private int[] positions;
+
+    /**
+     * {@code keys[i]} is the priority of node {@code i} while it is in the heap.
+     */
+    private double[] keys;
+
+    /**
+     * The number of nodes in the heap.
+     */
+    private int size;
+
+    /**
+     * Creates an empty heap.
+     * @param capacity the number of nodes; ids must be less than this, unless it is raised with
+     *                 {@link #ensureCapacity(int)}.
+     */
+    /* default */ IndexedMinHeap(final int capacity) {
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new double[capacity];
+        Arrays.fill(this.positions, ABSENT);
+    }
+
+    /**
+     * Makes room for more node ids.
+     * @param capacity the number of nodes; ids must be less than this.
+     */
+    /* default */ void ensureCapacity(final int capacity) {
+        final int length = this.positions.length;
+        if (capacity > length) {
+            final int grown = Math.max(capacity, length * 2);
+            this.heap = Arrays.copyOf(this.heap, grown);
+            this.keys = Arrays.copyOf(this.keys, grown);
+            this.positions = Arrays.copyOf(this.positions, grown);
+            Arrays.fill(this.positions, length, grown, ABSENT);
+        }
+    }
+
+    /**
+     * @return true if the heap holds no nodes.
+     */
+    /* default */ boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Adds a node to the heap, or lowers its priority if it is already in the heap with a higher one.
+     * @param node id of the node.
+     * @param key the node's priority.
+     */
+    /* default */ void offer(final int node, final double key) {
+        int position = this.positions[node];
+        if (position == ABSENT) {
+            position = this.size++;
+        } else if (key >= this.keys[node]) {
+            return;
+        }
+        this.keys[node] = key;
+        this.siftUp(node, position);
+    }
+
+    /**
+     * Removes the node with the lowest priority.
+     * @return the id of the node.
+     */
+    /* default */ int poll() {
+        final int min = this.heap[0];
+        this.positions[min] = ABSENT;
+        this.size--;
+        if (this.size > 0) {
+            this.siftDown(this.heap[this.size], 0);
+        }
+        return min;
+    }
+
+    /**
+     * Removes every node from the heap, in time proportional to the number of nodes in it.
+     */
+    /* default */ void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.positions[this.heap[i]] = ABSENT;
+        }
+        this.size = 0;
+    }
+
+    /**
+     * Moves a node up from a position until its parent's priority is no higher than its own.
+     * @param node id of the node.
+     * @param start the position to start from.
+     */
+    private void siftUp(final int node, final int start) {
+        final double key = this.keys[node];
+        int position = start;
+        while (position > 0) {
+            final int parentPosition = (position - 1) / ARITY;
+            final int parent = this.heap[parentPosition];
+            if (this.keys[parent] <= key) {
+                break;
+            }
+            this.place(parent, position);
+            position = parentPosition;
+        }
+        this.place(node, position);
+    }
+
+    /**
+     * Moves a node down from a position until none of its children has a lower priority than its own.
+     * @param node id of the node.
+     * @param start the position to start from.
+     */
+    private void siftDown(final int node, final int start) {
+        final double key = this.keys[node];
+        int position = start;
+        int first = ARITY * position + 1;
+        while (first < this.size) {
+            int child = first;
+            double childKey = this.keys[this.heap[first]];
+            final int last = Math.min(first + ARITY, this.size);
+            for (int sibling = first + 1; sibling < last; sibling++) {
+                final double siblingKey = this.keys[this.heap[sibling]];
+                if (siblingKey < childKey) {
+                    child = sibling;
+                    childKey = siblingKey;
+                }
+            }
+            if (childKey >= key) {
+                break;
+            }
+            this.place(this.heap[child], position);
+            position = child;
+            first = ARITY * position + 1;
+        }
+        this.place(node, position);
+    }
+
+    /**
+     * @param node id of a node.
+     * @param position the position to put it in.
+     */
+    private void place(final int node, final int position) {
+        this.heap[position] = node;
+        this.positions[node] = position;
+    }
+}
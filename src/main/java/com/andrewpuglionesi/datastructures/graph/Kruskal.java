@@ -0,0 +1,122 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+
+/**
+ * Finds a minimum spanning forest of an undirected graph in compressed sparse row form (see {@link CsrGraph}) with
+ * Kruskal's algorithm, on the calling thread: the edges are sorted by weight, and each joins the forest unless its
+ * ends are already connected, which a {@link UnionFind} tells in near-constant time. The sort is over primitive keys,
+ * so no edge is boxed or compared through a comparator: each key packs the high half of the bits of an edge's weight
+ * above the edge's index. Weights such as small integers fit in the high half, and then one sort puts the edges in
+ * order; otherwise, each run of edges whose weights share a high half is sorted again by the low half. On a single
+ * worker this beats {@link ParallelBoruvka}, which rescans every edge that still leaves a component in each of its
+ * rounds.
+ */
+final class Kruskal {
+
+    /**
+     * The number of bits a half of an edge's weight is shifted by when it is packed with the edge's index.
+     */
+    private static final int HALF_SHIFT = 32;
+
+    /**
+     * Masks an edge's index, or the low half of its weight, out of a packed key.
+     */
+    private static final long INDEX_MASK = 0xFFFF_FFFFL;
+
+    private Kruskal() {
+    }
+
+    /**
+     * Finds a minimum spanning forest: a spanning tree of lightest total weight for every connected component.
+     * @param snapshot an undirected graph, which has every edge in both directions.
+     * @param <T> the data type of nodes' values.
+     * @return the forest.
+     */
+    /* default */ static <T> SpanningForest<T> search(final CsrGraph<T> snapshot) {
+        final int nodeCount = snapshot.size();
+        final int[] offsets = snapshot.offsets();
+        final int[] targets = snapshot.targets();
+        final double[] weights = snapshot.weights();
+        // each edge once, from its lower end, which also leaves out self-directed edges
+        final int[] sources = new int[targets.length / 2];
+        final int[] slots = new int[sources.length];
+        final long[] keys = new long[sources.length];
+        final int[] lowHalves = new int[sources.length];
+        boolean split = false;
+        int edgeCount = 0;
+        for (int from = 0; from < nodeCount; from++) {
+            for (int slot = offsets[from]; slot < offsets[from + 1]; slot++) {
+                if (from < targets[slot]) {
+                    sources[edgeCount] = from;
+                    slots[edgeCount] = slot;
+                    final long weight = sortable(weights[slot]);
+                    keys[edgeCount] = weight & ~INDEX_MASK | edgeCount;
+                    lowHalves[edgeCount] = (int) weight;
+                    split |= lowHalves[edgeCount] != 0;
+                    edgeCount++;
+                }
+            }
+        }
+        Arrays.sort(keys, 0, edgeCount);
+        if (split) {
+            sortTies(keys, lowHalves, edgeCount);
+        }
+        final UnionFind components = new UnionFind(nodeCount);
+        final int[] treeSources = new int[Math.max(nodeCount - 1, 0)];
+        final int[] treeTargets = new int[treeSources.length];
+        final double[] treeWeights = new double[treeSources.length];
+        int treeEdges = 0;
+        for (int i = 0; i < edgeCount && treeEdges < treeSources.length; i++) {
+            final int edge = (int) (keys[i] & INDEX_MASK);
+            final int slot = slots[edge];
+            if (components.union(sources[edge], targets[slot])) {
+                treeSources[treeEdges] = sources[edge];
+                treeTargets[treeEdges] = targets[slot];
+                treeWeights[treeEdges] = weights[slot];
+                treeEdges++;
+            }
+        }
+        return new SpanningForest<>(snapshot, Arrays.copyOf(treeSources, treeEdges),
+                Arrays.copyOf(treeTargets, treeEdges), Arrays.copyOf(treeWeights, treeEdges));
+    }
+
+    /**
+     * Puts each run of keys whose edges' weights share a high half in the order of the weights' low halves.
+     * @param keys the packed keys, sorted.
+     * @param lowHalves the low half of the {@link #sortable(double) sortable} weight of each edge.
+     * @param edgeCount the number of edges.
+     */
+    @SuppressWarnings("PMD.AvoidLiteralsInIfCondition")
+    private static void sortTies(final long[] keys, final int[] lowHalves, final int edgeCount) {
+        int runStart = 0;
+        for (int i = 1; i <= edgeCount; i++) {
+            if (i < edgeCount && keys[i] >>> HALF_SHIFT == keys[runStart] >>> HALF_SHIFT) {
+                continue;
+            }
+            if (i - runStart > 1) {
+                final long highHalf = keys[runStart] & ~INDEX_MASK;
+                for (int key = runStart; key < i; key++) {
+                    final int edge = (int) (keys[key] & INDEX_MASK);
+                    // flipping the top bit makes the signed order of the low halves their unsigned order
+                    keys[key] = (long) (lowHalves[edge] ^ Integer.MIN_VALUE) << HALF_SHIFT | edge;
+                }
+                Arrays.sort(keys, runStart, i);
+                for (int key = runStart; key < i; key++) {
+                    keys[key] = highHalf | keys[key] & INDEX_MASK;
+                }
+            }
+            runStart = i;
+        }
+    }
+
+    /**
+     * @param weight a weight other than NaN.
+     * @return a long that compares, as a signed long, the way the weight compares as a double.
+     */
+    private static long sortable(final double weight) {
+        final long bits = Double.doubleToLongBits(weight);
+        // negative doubles order backwards by their bits, so flip all but the sign bit to turn them around
+        return bits ^ bits >> 63 & Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,551 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A precomputed distance oracle for a graph that is queried far more often than it changes, built on the ALT
+ * technique (A*, landmarks and the triangle inequality). A few nodes are chosen as landmarks, and the distances from
+ * every landmark to every node and from every node to every landmark are stored in primitive arrays, node by node, so
+ * the rows for a node sit together in memory. For any landmark L, the distance from u to v is at least
+ * {@code d(L, v) - d(L, u)} and at least {@code d(u, L) - d(v, L)}, and at most {@code d(u, L) + d(L, v)}, so bounds
+ * on any distance take one pass over the landmarks. An exact query runs A* with the best lower bound as its heuristic,
+ * which steers it straight at the destination, and skips any node the upper bound proves to be off every lightest
+ * path. An oracle is an immutable snapshot: it is not affected by later changes to the graph it was built from, and
+ * can be queried from many threads at once, each of which keeps its own search arrays.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.TooManyMethods", "PMD.AvoidFieldNameMatchingMethodName",
+        "PMD.DoNotUseThreads", "PMD.GodClass"})
+public final class LandmarkOracle<T> {
+
+    /**
+     * Identifies an oracle file: "ALTO" in ASCII.
+     */
+    private static final int MAGIC = 0x414C544F;
+
+    /**
+     * The version of the format written by {@link #write(Path, NodeCodec)}.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The flag that is set if the graph is directed.
+     */
+    private static final int DIRECTED_FLAG = 1;
+
+    /**
+     * The flag that is set if distances are measured by weight rather than by hops.
+     */
+    private static final int WEIGHTED_FLAG = 2;
+
+    /**
+     * How far, relative to the upper bound, a path's lower bound may exceed the upper bound before the path is pruned,
+     * so that rounding in sums of weights taken in different orders cannot prune the lightest path.
+     */
+    private static final double PRUNE_TOLERANCE = 1e-9;
+
+    /**
+     * Marks the absence of a predecessor on a path.
+     */
+    private static final int NO_PREDECESSOR = -1;
+
+    /**
+     * The graph the oracle answers queries about.
+     */
+    private final CsrGraph<T> snapshot;
+
+    /**
+     * How distances are measured.
+     */
+    private final DistanceMetric metric;
+
+    /**
+     * The ids of the landmarks.
+     */
+    private final int[] landmarks;
+
+    /**
+     * {@code fromLandmarks[n * k + l]} is the distance from landmark {@code l} to node {@code n}, where {@code k} is
+     * the number of landmarks, or positive infinity if there is no path.
+     */
+    private final double[] fromLandmarks;
+
+    /**
+     * {@code toLandmarks[n * k + l]} is the distance from node {@code n} to landmark {@code l}. For an undirected
+     * graph, this is the same array as {@code fromLandmarks}.
+     */
+    private final double[] toLandmarks;
+
+    /**
+     * Each querying thread's search arrays.
+     */
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * Creates an oracle over tables that are already filled in.
+     * @param snapshot the graph the oracle answers queries about.
+     * @param metric how distances are measured.
+     * @param landmarks the ids of the landmarks.
+     * @param fromLandmarks the distance from each landmark to each node.
+     * @param toLandmarks the distance from each node to each landmark.
+     */
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    private LandmarkOracle(final CsrGraph<T> snapshot, final DistanceMetric metric, final int[] landmarks,
+                           final double[] fromLandmarks, final double[] toLandmarks) {
+        this.snapshot = snapshot;
+        this.metric = metric;
+        this.landmarks = landmarks;
+        this.fromLandmarks = fromLandmarks;
+        this.toLandmarks = toLandmarks;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(snapshot.size()));
+    }
+
+    /**
+     * Builds an oracle. Landmarks are chosen farthest-first, each being the node farthest from the landmarks chosen
+     * before it, and the searches from and to every landmark then run in parallel.
+     * @param snapshot the graph to answer queries about.
+     * @param landmarkCount the number of landmarks. More landmarks give tighter bounds and faster exact queries, at
+     *                      the cost of one or two doubles per node per landmark. If the graph has fewer nodes, every
+     *                      node becomes a landmark.
+     * @param metric how to measure distances.
+     * @param pool the pool whose workers run the searches.
+     * @param <T> the data type of nodes' values.
+     * @return the oracle.
+     * @throws IllegalArgumentException if {@code landmarkCount} is less than 1, or the tables would be too large for
+     *                                  an array.
+     * @throws IllegalStateException if distances are measured by weight and an edge has a negative weight.
+     */
+    @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.AvoidLiteralsInIfCondition"})
+    /* default */ static <T> LandmarkOracle<T> build(final CsrGraph<T> snapshot, final int landmarkCount,
+                                                     final DistanceMetric metric, final ForkJoinPool pool) {
+        if (landmarkCount < 1) {
+            throw new IllegalArgumentException("An oracle needs at least one landmark");
+        }
+        final int count = Math.min(landmarkCount, snapshot.size());
+        if ((long) count * snapshot.size() > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many landmarks for a graph of " + snapshot.size() + " nodes");
+        }
+        if (metric == DistanceMetric.WEIGHTS) {
+            for (final double weight : snapshot.weights()) {
+                if (weight < 0) {
+                    throw new IllegalStateException("Cannot measure distances by weight with negative edge weights");
+                }
+            }
+        }
+        final int[] landmarks = count == 0 ? new int[0] : LandmarkTables.select(snapshot, count, pool);
+        final double[] fromLandmarks = new double[count * snapshot.size()];
+        final double[] toLandmarks = snapshot.isDirected() ? new double[fromLandmarks.length] : fromLandmarks;
+        LandmarkTables.fill(snapshot, landmarks, metric, pool, fromLandmarks, toLandmarks);
+        return new LandmarkOracle<>(snapshot, metric, landmarks, fromLandmarks, toLandmarks);
+    }
+
+    /**
+     * Estimates a distance from below, in time proportional to the number of landmarks.
+     * @param from value of the origin node.
+     * @param to value of the destination node.
+     * @return a distance that the distance from {@code from} to {@code to} is at least, or positive infinity if a
+     * landmark proves there is no path.
+     * @throws NoSuchElementException if either node was not in the graph.
+     */
+    public double lowerBound(final T from, final T to) {
+        return this.lowerBound(this.requireId(from), this.requireId(to));
+    }
+
+    /**
+     * Estimates a distance from above, in time proportional to the number of landmarks.
+     * @param from value of the origin node.
+     * @param to value of the destination node.
+     * @return the length of the shortest path from {@code from} to {@code to} through a landmark, which the distance
+     * is at most, or positive infinity if there is no such path.
+     * @throws NoSuchElementException if either node was not in the graph.
+     */
+    public double upperBound(final T from, final T to) {
+        return this.upperBound(this.requireId(from), this.requireId(to));
+    }
+
+    /**
+     * Finds a distance exactly. When the bounds meet, as they do whenever a lightest path runs through a landmark,
+     * the distance is answered without a search.
+     * @param from value of the origin node.
+     * @param to value of the destination node.
+     * @return the length of the shortest path from {@code from} to {@code to}, 0 if they are the same node, or
+     * positive infinity if there is no path.
+     * @throws NoSuchElementException if either node was not in the graph.
+     */
+    public double distance(final T from, final T to) {
+        final int source = this.requireId(from);
+        final int target = this.requireId(to);
+        final double lower = this.lowerBound(source, target);
+        if (lower == this.upperBound(source, target) || lower == Double.POSITIVE_INFINITY) {
+            return lower;
+        }
+        return this.search(source, target).distance();
+    }
+
+    /**
+     * Finds a shortest path with A*, guided by the landmarks' lower bounds and pruned by their upper bound.
+     * @param from value of the origin node.
+     * @param to value of the destination node.
+     * @return the shortest path from {@code from} to {@code to}, with its length.
+     * @throws NoSuchElementException if either node was not in the graph.
+     */
+    public WeightedPath<T> shortestPath(final T from, final T to) {
+        final int source = this.requireId(from);
+        final int target = this.requireId(to);
+        if (this.lowerBound(source, target) == Double.POSITIVE_INFINITY) {
+            return new WeightedPath<>(Double.POSITIVE_INFINITY, Collections.emptyList(), 0);
+        }
+        return this.search(source, target);
+    }
+
+    /**
+     * @return the landmarks, in the order they were chosen.
+     */
+    public List<T> landmarks() {
+        final List<T> values = new ArrayList<>(this.landmarks.length);
+        for (final int landmark : this.landmarks) {
+            values.add(this.snapshot.valueOf(landmark));
+        }
+        return values;
+    }
+
+    /**
+     * @return how distances are measured.
+     */
+    public DistanceMetric metric() {
+        return this.metric;
+    }
+
+    /**
+     * @return the number of nodes in the graph.
+     */
+    public int size() {
+        return this.snapshot.size();
+    }
+
+    /**
+     * Writes the oracle, including its graph, to a file, replacing the file if it exists. A file holds a header (a
+     * magic number, the format version, flags, and the numbers of nodes, directional edges and landmarks), each
+     * node's encoded value preceded by its length (see {@link NodeCodec}), the graph's edges in compressed sparse row
+     * form (see {@link CsrGraph}), the landmarks' ids, and the tables of distances from and, for a directed graph, to
+     * the landmarks. All numbers are big-endian.
+     * @param path the file to write.
+     * @param codec encodes the values of the graph's nodes.
+     * @throws IOException if the file cannot be written.
+     */
+    @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.NPathComplexity"})
+    public void write(final Path path, final NodeCodec<T> codec) throws IOException {
+        final boolean directed = this.snapshot.isDirected();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt((directed ? DIRECTED_FLAG : 0) | (this.metric == DistanceMetric.WEIGHTS ? WEIGHTED_FLAG : 0));
+            out.writeInt(this.size());
+            out.writeInt(this.snapshot.edgeSlots());
+            out.writeInt(this.landmarks.length);
+            for (final T value : this.snapshot) {
+                final byte[] encoded = codec.encode(value);
+                out.writeInt(encoded.length);
+                out.write(encoded);
+            }
+            for (final int offset : this.snapshot.offsets()) {
+                out.writeInt(offset);
+            }
+            for (final int target : this.snapshot.targets()) {
+                out.writeInt(target);
+            }
+            for (final double weight : this.snapshot.weights()) {
+                out.writeDouble(weight);
+            }
+            for (final int landmark : this.landmarks) {
+                out.writeInt(landmark);
+            }
+            for (final double distance : this.fromLandmarks) {
+                out.writeDouble(distance);
+            }
+            if (directed) {
+                for (final double distance : this.toLandmarks) {
+                    out.writeDouble(distance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads an oracle written by {@link #write(Path, NodeCodec)}.
+     * @param path the file to read.
+     * @param codec decodes the values of the graph's nodes.
+     * @param <T> the data type of nodes' values.
+     * @return the oracle.
+     * @throws IOException if the file cannot be read, or is not an oracle file of a supported version.
+     */
+    @SuppressWarnings({"unchecked", "PMD.AvoidInstantiatingObjectsInLoops"})
+    public static <T> LandmarkOracle<T> read(final Path path, final NodeCodec<T> codec) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an oracle file: " + path);
+            }
+            final int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported oracle file version " + version + ": " + path);
+            }
+            final int flags = in.readInt();
+            final boolean directed = (flags & DIRECTED_FLAG) != 0;
+            final DistanceMetric metric = (flags & WEIGHTED_FLAG) == 0 ? DistanceMetric.HOPS : DistanceMetric.WEIGHTS;
+            final int nodeCount = in.readInt();
+            final int edgeCount = in.readInt();
+            final int landmarkCount = in.readInt();
+            final T[] values = (T[]) new Object[nodeCount];
+            for (int id = 0; id < nodeCount; id++) {
+                final byte[] encoded = new byte[in.readInt()];
+                in.readFully(encoded);
+                values[id] = codec.decode(ByteBuffer.wrap(encoded));
+            }
+            final int[] offsets = readInts(in, nodeCount + 1);
+            final int[] targets = readInts(in, edgeCount);
+            final double[] weights = readDoubles(in, edgeCount);
+            final int[] landmarks = readInts(in, landmarkCount);
+            final double[] fromLandmarks = readDoubles(in, landmarkCount * nodeCount);
+            final double[] toLandmarks = directed ? readDoubles(in, fromLandmarks.length) : fromLandmarks;
+            final CsrGraph<T> snapshot = CsrGraph.fromArrays(values, offsets, targets, weights, directed);
+            return new LandmarkOracle<>(snapshot, metric, landmarks, fromLandmarks, toLandmarks);
+        }
+    }
+
+    /**
+     * @param from id of the origin node.
+     * @param to id of the destination node.
+     * @return a lower bound on the distance from {@code from} to {@code to}.
+     */
+    private double lowerBound(final int from, final int to) {
+        final int count = this.landmarks.length;
+        final int fromRow = from * count;
+        final int toRow = to * count;
+        double bound = 0;
+        for (int landmark = 0; landmark < count; landmark++) {
+            // the landmark reaches the origin, and so everything the origin reaches
+            final double landmarkToFrom = this.fromLandmarks[fromRow + landmark];
+            if (landmarkToFrom != Double.POSITIVE_INFINITY) {
+                bound = Math.max(bound, this.fromLandmarks[toRow + landmark] - landmarkToFrom);
+            }
+            // the destination reaches the landmark, and so does everything that reaches the destination
+            final double toToLandmark = this.toLandmarks[toRow + landmark];
+            if (toToLandmark != Double.POSITIVE_INFINITY) {
+                bound = Math.max(bound, this.toLandmarks[fromRow + landmark] - toToLandmark);
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * @param from id of the origin node.
+     * @param to id of the destination node.
+     * @return an upper bound on the distance from {@code from} to {@code to}.
+     */
+    private double upperBound(final int from, final int to) {
+        if (from == to) {
+            return 0;
+        }
+        final int count = this.landmarks.length;
+        double bound = Double.POSITIVE_INFINITY;
+        for (int landmark = 0; landmark < count; landmark++) {
+            bound = Math.min(bound, this.toLandmarks[from * count + landmark] + this.fromLandmarks[to * count + landmark]);
+        }
+        return bound;
+    }
+
+    /**
+     * Runs A* from one node to another, with the landmarks' lower bound to the destination as the heuristic, never
+     * following a path whose lower bound exceeds the landmarks' upper bound.
+     * @param source id of the origin node.
+     * @param target id of the destination node.
+     * @return the shortest path.
+     */
+    @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.CognitiveComplexity"})
+    private WeightedPath<T> search(final int source, final int target) {
+        final double upper = this.upperBound(source, target);
+        final double limit = upper == Double.POSITIVE_INFINITY
+                ? Double.MAX_VALUE // still prunes nodes that cannot reach the destination
+                : upper + Math.abs(upper) * PRUNE_TOLERANCE;
+        final int[] offsets = this.snapshot.offsets();
+        final int[] targets = this.snapshot.targets();
+        final double[] weights = this.snapshot.weights();
+        final boolean hops = this.metric == DistanceMetric.HOPS;
+        final Scratch state = this.scratch.get();
+        state.begin();
+        state.discover(source, this.lowerBound(source, target));
+        state.distances[source] = 0;
+        state.heap.offer(source, state.estimates[source]);
+        int settled = 0;
+        while (!state.heap.isEmpty()) {
+            final int node = state.heap.poll();
+            settled++;
+            if (node == target) {
+                return new WeightedPath<>(state.distances[target], this.pathTo(state, target), settled);
+            }
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                final int neighbor = targets[i];
+                if (!state.isDiscovered(neighbor)) {
+                    state.discover(neighbor, this.lowerBound(neighbor, target));
+                }
+                final double distance = state.distances[node] + (hops ? 1 : weights[i]);
+                final double estimate = distance + state.estimates[neighbor];
+                if (distance < state.distances[neighbor] && estimate <= limit) {
+                    state.distances[neighbor] = distance;
+                    state.predecessors[neighbor] = node;
+                    state.heap.offer(neighbor, estimate);
+                }
+            }
+        }
+        return new WeightedPath<>(Double.POSITIVE_INFINITY, Collections.emptyList(), settled);
+    }
+
+    /**
+     * @param state the search that reached {@code target}.
+     * @param target id of the destination node.
+     * @return the nodes on the path, from the origin to {@code target}.
+     */
+    private List<T> pathTo(final Scratch state, final int target) {
+        final List<T> path = new ArrayList<>();
+        for (int id = target; id != NO_PREDECESSOR; id = state.predecessors[id]) {
+            path.add(this.snapshot.valueOf(id));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * @param node value of a node.
+     * @return the node's id.
+     * @throws NoSuchElementException if the node was not in the graph.
+     */
+    private int requireId(final T node) {
+        final int id = this.snapshot.idOf(node);
+        if (id < 0) {
+            throw new NoSuchElementException("No node exists with value " + node);
+        }
+        return id;
+    }
+
+    /**
+     * @param in the input.
+     * @param count the number of values to read.
+     * @return the values.
+     * @throws IOException if the input cannot be read.
+     */
+    private static int[] readInts(final DataInputStream in, final int count) throws IOException {
+        final int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    /**
+     * @param in the input.
+     * @param count the number of values to read.
+     * @return the values.
+     * @throws IOException if the input cannot be read.
+     */
+    private static double[] readDoubles(final DataInputStream in, final int count) throws IOException {
+        final double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+
+    /**
+     * One thread's search arrays, reused from query to query. Rather than clearing the arrays before each search,
+     * which would cost time in proportion to the size of the graph, each search takes a new stamp, and a node's
+     * entries count only if the node carries the current stamp.
+     */
+    private static final class Scratch {
+
+        /**
+         * {@code stamps[i]} is the stamp of the last search that discovered node {@code i}.
+         */
+        private final int[] stamps;
+
+        /**
+         * {@code distances[i]} is the length of the shortest path found so far to node {@code i}.
+         */
+        private final double[] distances;
+
+        /**
+         * {@code estimates[i]} is the lower bound on the distance from node {@code i} to the destination.
+         */
+        private final double[] estimates;
+
+        /**
+         * {@code predecessors[i]} is the id of the node before node {@code i} on the shortest path found so far.
+         */
+        private final int[] predecessors;
+
+        /**
+         * Orders the discovered nodes by their distance from the origin plus their estimate.
+         */
+        private final IndexedMinHeap heap;
+
+        /**
+         * The stamp of the current search.
+         */
+        private int stamp;
+
+        /**
+         * @param nodeCount the number of nodes in the graph.
+         */
+        private Scratch(final int nodeCount) {
+            this.stamps = new int[nodeCount];
+            this.distances = new double[nodeCount];
+            this.estimates = new double[nodeCount];
+            this.predecessors = new int[nodeCount];
+            this.heap = new IndexedMinHeap(nodeCount);
+        }
+
+        /**
+         * Starts a new search.
+         */
+        private void begin() {
+            this.heap.clear();
+            this.stamp++;
+            if (this.stamp == 0) { // wrapped around, so old stamps could be mistaken for new ones
+                Arrays.fill(this.stamps, 0);
+                this.stamp = 1;
+            }
+        }
+
+        /**
+         * @param node id of a node.
+         * @return true if the current search has discovered the node.
+         */
+        private boolean isDiscovered(final int node) {
+            return this.stamps[node] == this.stamp;
+        }
+
+        /**
+         * Marks a node discovered by the current search.
+         * @param node id of the node.
+         * @param estimate the lower bound on the node's distance to the destination.
+         */
+        private void discover(final int node, final double estimate) {
+            this.stamps[node] = this.stamp;
+            this.distances[node] = Double.POSITIVE_INFINITY;
+            this.estimates[node] = estimate;
+            this.predecessors[node] = NO_PREDECESSOR;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Builds the tables of a {@link LandmarkOracle} from a graph in compressed sparse row form (see {@link CsrGraph}).
+ * Landmarks are chosen farthest-first: each is the node farthest, in hops, from every landmark chosen before it, with
+ * nodes no landmark reaches counting as farthest of all, so the landmarks spread over the graph and cover every part
+ * of it that can be covered. Then a search from every landmark, over the graph and, if it is directed, over its
+ * transpose, fills in the tables, all of those searches running in parallel.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class LandmarkTables {
+
+    /**
+     * The distance label of a node that a breadth-first search did not reach.
+     */
+    private static final int UNREACHED = -1;
+
+    /**
+     * The most searches a single task runs without splitting.
+     */
+    private static final int SEARCH_GRAIN = 1;
+
+    private LandmarkTables() {
+    }
+
+    /**
+     * Chooses landmarks farthest-first. Each choice takes a parallel breadth-first search.
+     * @param snapshot the graph.
+     * @param count the number of landmarks; must not exceed the number of nodes.
+     * @param pool the pool whose workers run the searches.
+     * @return the ids of the landmarks, in the order they were chosen.
+     */
+    /* default */ static int[] select(final CsrGraph<?> snapshot, final int count, final ForkJoinPool pool) {
+        final int nodeCount = snapshot.size();
+        final CsrGraph<?> reverse = snapshot.transpose();
+        // how far each node is from the nearest landmark, in hops; the first landmark is the node farthest from node 0
+        final long[] nearest = new long[nodeCount];
+        Arrays.fill(nearest, Long.MAX_VALUE);
+        final int[] landmarks = new int[count];
+        int candidate = farthest(snapshot, reverse, 0, nearest.clone(), pool);
+        for (int chosen = 0; chosen < count; chosen++) {
+            landmarks[chosen] = candidate;
+            if (chosen + 1 < count) {
+                candidate = farthest(snapshot, reverse, candidate, nearest, pool);
+            }
+        }
+        return landmarks;
+    }
+
+    /**
+     * Fills in the distances between every landmark and every node.
+     * @param snapshot the graph.
+     * @param landmarks the ids of the landmarks.
+     * @param metric how to measure distances.
+     * @param pool the pool whose workers run the searches.
+     * @param fromLandmarks receives the distance from landmark {@code l} to node {@code n} at
+     *                      {@code n * landmarks.length + l}.
+     * @param toLandmarks receives the distance from node {@code n} to landmark {@code l} at the same index. Left
+     *                    alone for an undirected graph, whose distances to the landmarks are its distances from them.
+     */
+    @SuppressWarnings("PMD.UseVarargs")
+    /* default */ static void fill(final CsrGraph<?> snapshot, final int[] landmarks, final DistanceMetric metric,
+                                   final ForkJoinPool pool, final double[] fromLandmarks,
+                                   final double[] toLandmarks) {
+        final int searches = snapshot.isDirected() ? 2 * landmarks.length : landmarks.length;
+        if (searches > 0) {
+            pool.invoke(new LandmarkStep(snapshot, landmarks, metric, fromLandmarks, toLandmarks, 0, searches));
+        }
+    }
+
+    /**
+     * Finds the distance from a node to every node.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     * @param weights CSR edge weights.
+     * @param source id of the node to start from.
+     * @param metric how to measure distances.
+     * @param distances receives the distance to each node, or positive infinity for nodes that cannot be reached.
+     */
+    @SuppressWarnings("PMD.UseVarargs")
+    /* default */ static void distancesFrom(final int[] offsets, final int[] targets, final double[] weights,
+                                            final int source, final DistanceMetric metric, final double[] distances) {
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[source] = 0;
+        if (metric == DistanceMetric.HOPS) {
+            hopsFrom(offsets, targets, source, distances);
+            return;
+        }
+        final IndexedMinHeap heap = new IndexedMinHeap(distances.length);
+        heap.offer(source, 0);
+        while (!heap.isEmpty()) {
+            final int node = heap.poll();
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                final double distance = distances[node] + weights[i];
+                final int target = targets[i];
+                if (distance < distances[target]) {
+                    distances[target] = distance;
+                    heap.offer(target, distance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the hops from a node to every node with a breadth-first search.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     * @param source id of the node to start from.
+     * @param distances holds 0 for the source and positive infinity for every other node, and receives the number of
+     *                  hops to each node that can be reached.
+     */
+    @SuppressWarnings("PMD.UseVarargs")
+    private static void hopsFrom(final int[] offsets, final int[] targets, final int source,
+                                 final double[] distances) {
+        final int[] queue = new int[distances.length];
+        int tail = 0;
+        queue[tail++] = source;
+        for (int head = 0; head < tail; head++) {
+            final int node = queue[head];
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                final int target = targets[i];
+                if (distances[target] == Double.POSITIVE_INFINITY) {
+                    distances[target] = distances[node] + 1;
+                    queue[tail++] = target;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lowers each node's distance to its nearest landmark with its distance to a new one, and finds the node that is
+     * then farthest from every landmark.
+     * @param snapshot the graph.
+     * @param reverse the graph's transpose.
+     * @param landmark id of the new landmark.
+     * @param nearest each node's distance, in hops, to its nearest landmark, or {@link Long#MAX_VALUE} if no landmark
+     *                reaches it; lowered in place.
+     * @param pool the pool whose workers run the search.
+     * @return the id of the node farthest from every landmark, lowest id first among ties.
+     */
+    private static int farthest(final CsrGraph<?> snapshot, final CsrGraph<?> reverse, final int landmark,
+                                final long[] nearest, final ForkJoinPool pool) {
+        final int[] hops = ParallelBreadthFirstSearch.distancesFrom(snapshot.offsets(), snapshot.targets(),
+                reverse.offsets(), reverse.targets(), landmark, pool);
+        int farthest = landmark;
+        for (int node = 0; node < nearest.length; node++) {
+            if (hops[node] != UNREACHED) {
+                nearest[node] = Math.min(nearest[node], hops[node]);
+            }
+            if (nearest[node] > nearest[farthest]) {
+                farthest = node;
+            }
+        }
+        return farthest;
+    }
+
+    /**
+     * Runs the searches from a range of landmarks: search {@code i} runs from landmark {@code i} over the graph if
+     * {@code i} is less than the number of landmarks, or from landmark {@code i} minus that number over the transpose
+     * otherwise. Each search writes its own column of a table, so none of them conflict.
+     */
+    private static final class LandmarkStep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The graph.
+         */
+        private final transient CsrGraph<?> snapshot;
+
+        /**
+         * The ids of the landmarks.
+         */
+        private final int[] landmarks;
+
+        /**
+         * How to measure distances.
+         */
+        private final DistanceMetric metric;
+
+        /**
+         * Receives the distances from each landmark.
+         */
+        private final double[] fromLandmarks;
+
+        /**
+         * Receives the distances to each landmark.
+         */
+        private final double[] toLandmarks;
+
+        /**
+         * The first search to run.
+         */
+        private final int start;
+
+        /**
+         * The search after the last to run.
+         */
+        private final int end;
+
+        @SuppressWarnings({"PMD.ArrayIsStoredDirectly", "PMD.ExcessiveParameterList"})
+        private LandmarkStep(final CsrGraph<?> snapshot, final int[] landmarks, final DistanceMetric metric,
+                             final double[] fromLandmarks, final double[] toLandmarks, final int start,
+                             final int end) {
+            super();
+            this.snapshot = snapshot;
+            this.landmarks = landmarks;
+            this.metric = metric;
+            this.fromLandmarks = fromLandmarks;
+            this.toLandmarks = toLandmarks;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > SEARCH_GRAIN) {
+                final int middle = (this.start + this.end) >>> 1;
+                invokeAll(this.split(this.start, middle), this.split(middle, this.end));
+                return;
+            }
+            final int count = this.landmarks.length;
+            final boolean backward = this.start >= count;
+            final int column = backward ? this.start - count : this.start;
+            final CsrGraph<?> graph = backward ? this.snapshot.transpose() : this.snapshot;
+            final double[] table = backward ? this.toLandmarks : this.fromLandmarks;
+            final double[] distances = new double[graph.size()];
+            distancesFrom(graph.offsets(), graph.targets(), graph.weights(), this.landmarks[column], this.metric,
+                    distances);
+            for (int node = 0; node < distances.length; node++) {
+                table[node * count + column] = distances[node];
+            }
+        }
+
+        /**
+         * @param from the first search to run.
+         * @param until the search after the last to run.
+         * @return a task running the range.
+         */
+        private LandmarkStep split(final int from, final int until) {
+            return new LandmarkStep(this.snapshot, this.landmarks, this.metric, this.fromLandmarks, this.toLandmarks,
+                    from, until);
+        }
+    }
+}
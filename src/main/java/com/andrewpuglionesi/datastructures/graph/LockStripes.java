@@ -0,0 +1,68 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed pool of locks that nodes are striped across by hash, for concurrent graphs that must change two copies of
+ * an edge together. Writers whose nodes hash to different stripes never wait for each other, and the pool takes the
+ * same memory no matter how many nodes there are.
+ */
+final class LockStripes {
+
+    /**
+     * The number of locks that nodes are striped across. A power of two.
+     */
+    private static final int STRIPE_COUNT = 256;
+
+    /**
+     * The lock for each stripe.
+     */
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPE_COUNT];
+
+    /**
+     * Creates the pool's locks.
+     */
+    /* default */ LockStripes() {
+        for (int stripe = 0; stripe < STRIPE_COUNT; stripe++) {
+            this.stripes[stripe] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the stripes of two nodes, always in ascending order so that two writers can never each hold the lock the
+     * other needs. The nodes may share a stripe.
+     * @param first value of a node.
+     * @param second value of a node.
+     */
+    /* default */ void lock(final Object first, final Object second) {
+        final int firstStripe = stripeOf(first);
+        final int secondStripe = stripeOf(second);
+        this.stripes[Math.min(firstStripe, secondStripe)].lock();
+        if (secondStripe != firstStripe) {
+            this.stripes[Math.max(firstStripe, secondStripe)].lock();
+        }
+    }
+
+    /**
+     * Unlocks the stripes locked by {@link #lock(Object, Object)}.
+     * @param first value of a node.
+     * @param second value of a node.
+     */
+    /* default */ void unlock(final Object first, final Object second) {
+        final int firstStripe = stripeOf(first);
+        final int secondStripe = stripeOf(second);
+        if (secondStripe != firstStripe) {
+            this.stripes[Math.max(firstStripe, secondStripe)].unlock();
+        }
+        this.stripes[Math.min(firstStripe, secondStripe)].unlock();
+    }
+
+    /**
+     * @param value value of a node.
+     * @return the stripe that the node hashes to.
+     */
+    private static int stripeOf(final Object value) {
+        final int hash = value.hashCode();
+        return (hash ^ hash >>> 16) & STRIPE_COUNT - 1;
+    }
+}
@@ -0,0 +1,201 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from non-negative {@code long} keys to {@code int} values that stores its entries in two flat primitive
+ * arrays. Collisions are resolved with linear probing, and removals shift later entries of a probe sequence backwards
+ * rather than leaving tombstones, so lookups never slow down as entries come and go.
+ */
+@SuppressWarnings("PMD.AvoidFieldNameMatchingMethodName")
+final class LongIntHashMap {
+
+    /**
+     * Marks an unoccupied slot. Keys must be non-negative, so this can never be a real key.
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * Value returned by {@link #get(long)} for absent keys.
+     */
+    /* default */ static final int ABSENT = -1;
+
+    /**
+     * The smallest capacity the table will be created with.
+     */
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Keys of each slot, or {@link #EMPTY}.
+     */
+    private long[] keys;
+
+    /**
+     * Values of each slot, parallel to {@code keys}.
+     */
+    private int[] values;
+
+    /**
+     * The number of entries in the map.
+     */
+    private int size;
+
+    /**
+     * Creates an empty map sized for approximately {@code expectedSize} entries.
+     * @param expectedSize the number of entries the map should be able to hold without resizing.
+     */
+    /* default */ LongIntHashMap(final int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 2 < expectedSize) {
+            capacity <<= 1;
+        }
+        this.allocate(capacity);
+    }
+
+    /**
+     * Combines two non-negative ints into a key.
+     * @param high the int to store in the upper 32 bits.
+     * @param low the int to store in the lower 32 bits.
+     * @return the combined key.
+     */
+    /* default */ static long key(final int high, final int low) {
+        return (long) high << Integer.SIZE | low;
+    }
+
+    /**
+     * @return the number of entries in the map.
+     */
+    /* default */ int size() {
+        return this.size;
+    }
+
+    /**
+     * @param key a non-negative key.
+     * @return the value mapped to {@code key}, or {@link #ABSENT} if there is none.
+     */
+    /* default */ int get(final long key) {
+        final int mask = this.keys.length - 1;
+        for (int slot = slotOf(key, mask); this.keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (this.keys[slot] == key) {
+                return this.values[slot];
+            }
+        }
+        return ABSENT;
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous mapping.
+     * @param key a non-negative key.
+     * @param value the value to associate with {@code key}.
+     */
+    /* default */ void put(final long key, final int value) {
+        if (this.size >= this.keys.length / 2) {
+            this.rehash(this.keys.length * 2);
+        }
+        final int mask = this.keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (this.keys[slot] != EMPTY && this.keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (this.keys[slot] == EMPTY) {
+            this.keys[slot] = key;
+            this.size++;
+        }
+        this.values[slot] = value;
+    }
+
+    /**
+     * Grows the table, if necessary, so that it can hold {@code expectedSize} entries without resizing again.
+     * @param expectedSize the number of entries the map should be able to hold.
+     */
+    /* default */ void ensureCapacity(final int expectedSize) {
+        int capacity = this.keys.length;
+        while (capacity / 2 < expectedSize) {
+            capacity <<= 1;
+        }
+        if (capacity != this.keys.length) {
+            this.rehash(capacity);
+        }
+    }
+
+    /**
+     * Removes the mapping for a key, if there is one.
+     * @param key a non-negative key.
+     * @return the value that was mapped to {@code key}, or {@link #ABSENT} if there was none.
+     */
+    /* default */ int remove(final long key) {
+        final int mask = this.keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (this.keys[slot] != key) {
+            if (this.keys[slot] == EMPTY) {
+                return ABSENT;
+            }
+            slot = (slot + 1) & mask;
+        }
+        final int removed = this.values[slot];
+        // Shift back any entries whose probe sequence passes through the vacated slot.
+        int gap = slot;
+        for (int next = (gap + 1) & mask; this.keys[next] != EMPTY; next = (next + 1) & mask) {
+            final int home = slotOf(this.keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                this.keys[gap] = this.keys[next];
+                this.values[gap] = this.values[next];
+                gap = next;
+            }
+        }
+        this.keys[gap] = EMPTY;
+        this.size--;
+        return removed;
+    }
+
+    /**
+     * Moves every entry into a new table.
+     * @param capacity the new table's capacity; a power of two.
+     */
+    private void rehash(final int capacity) {
+        final long[] oldKeys = this.keys;
+        final int[] oldValues = this.values;
+        final int oldSize = this.size;
+        this.allocate(capacity);
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i], mask);
+                while (this.keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+        this.size = oldSize;
+    }
+
+    /**
+     * Replaces the table with an empty one.
+     * @param capacity the new table's capacity; a power of two.
+     */
+    private void allocate(final int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        Arrays.fill(this.keys, EMPTY);
+        this.size = 0;
+    }
+
+    /**
+     * Scrambles a key's bits (using the MurmurHash3 finalizer) so that keys differing only in their upper bits
+     * still land in different slots.
+     * @param key a key.
+     * @param mask the table's capacity minus one.
+     * @return the slot at which the key's probe sequence starts.
+     */
+    private static int slotOf(final long key, final int mask) {
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) hash & mask;
+    }
+}
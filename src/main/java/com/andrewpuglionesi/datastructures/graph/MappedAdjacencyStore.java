@@ -0,0 +1,267 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Serves a graph straight from the sections of a memory-mapped {@link GraphFile}. Only the node dictionary is decoded,
+ * into an on-heap map from nodes' values to their ids; the edges are read from the mapped buffers in compressed sparse
+ * row form whenever they are needed, so the operating system pages them in and out of memory as traversals touch
+ * them. Each node's edges are sorted by terminus, so looking up an edge takes a binary search. The store is immutable:
+ * any attempt to modify it throws an {@link UnsupportedOperationException}.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.TooManyMethods", "PMD.UseConcurrentHashMap"})
+final class MappedAdjacencyStore<T> implements AdjacencyStore<T> {
+
+    /**
+     * Maps a node's value to its id.
+     */
+    private final Map<T, Integer> ids;
+
+    /**
+     * Maps a node's id to its value.
+     */
+    private final T[] values;
+
+    /**
+     * {@code offsets.get(i)} is the index of node {@code i}'s first edge in {@code targets} and {@code weights}.
+     */
+    private final IntBuffer offsets;
+
+    /**
+     * The terminus id of each edge.
+     */
+    private final IntBuffer targets;
+
+    /**
+     * The weight of each edge.
+     */
+    private final DoubleBuffer weights;
+
+    /**
+     * Counts the edges and sums their weights, or null until it is first asked for. Computing it reads every weight,
+     * which is left until it is needed so that opening a file does not page in the whole weights section.
+     */
+    private EdgeTally edgeTally;
+
+    /**
+     * Creates a store over the mapped sections of a graph file.
+     * @param dictionary the node dictionary: where each encoded value starts, then the encoded values.
+     * @param nodeCount the number of nodes.
+     * @param codec decodes nodes' values.
+     * @param offsets where each node's edges start.
+     * @param targets the terminus id of each edge.
+     * @param weights the weight of each edge.
+     */
+    /* default */ MappedAdjacencyStore(final ByteBuffer dictionary, final int nodeCount, final NodeCodec<T> codec,
+                                       final IntBuffer offsets, final IntBuffer targets, final DoubleBuffer weights) {
+        final int valuesStart = Integer.BYTES * (nodeCount + 1);
+        @SuppressWarnings("unchecked")
+        final T[] decoded = (T[]) new Object[nodeCount];
+        this.values = decoded;
+        this.ids = new HashMap<>((int) (nodeCount / 0.75f) + 1);
+        for (int id = 0; id < nodeCount; id++) {
+            final int start = valuesStart + dictionary.getInt(Integer.BYTES * id);
+            final int end = valuesStart + dictionary.getInt(Integer.BYTES * (id + 1));
+            this.values[id] = codec.decode(dictionary.slice(start, end - start));
+            this.ids.put(this.values[id], id);
+        }
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    @Override
+    public boolean addNode(final T value) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean containsNode(final T value) {
+        return this.ids.containsKey(value);
+    }
+
+    @Override
+    public int size() {
+        return this.values.length;
+    }
+
+    @Override
+    public void putEdge(final T from, final T to, final double weight) {
+        throw readOnly();
+    }
+
+    @Override
+    public void putEdgePair(final T first, final T second, final double weight) {
+        throw readOnly();
+    }
+
+    @Override
+    public void putEdges(final T[] origins, final T[] termini, final double[] weights, final int count,
+                         final boolean mirrored) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean removeEdge(final T from, final T to) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean removeEdgePair(final T first, final T second) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean containsEdge(final T from, final T to) {
+        return this.indexOf(from, to) >= 0;
+    }
+
+    @Override
+    public double edgeWeight(final T from, final T to) {
+        final int index = this.indexOf(from, to);
+        if (index < 0) {
+            throw new NoSuchElementException("No edge exists from " + from + " to " + to);
+        }
+        return this.weights.get(index);
+    }
+
+    @Override
+    public int outDegree(final T from) {
+        final int id = this.ids.get(from);
+        return this.offsets.get(id + 1) - this.offsets.get(id);
+    }
+
+    @Override
+    public void forEachEdge(final T from, final ObjDoubleConsumer<T> action) {
+        final int id = this.ids.get(from);
+        final int end = this.offsets.get(id + 1);
+        for (int i = this.offsets.get(id); i < end; i++) {
+            action.accept(this.values[this.targets.get(i)], this.weights.get(i));
+        }
+    }
+
+    @Override
+    public EdgeTally tally() {
+        if (this.edgeTally == null) {
+            this.edgeTally = AdjacencyStore.super.tally();
+        }
+        return this.edgeTally;
+    }
+
+    @Override
+    public EdgeCursor<T> newCursor() {
+        return new Cursor();
+    }
+
+    /**
+     * The store never changes, so it is its own snapshot.
+     */
+    @Override
+    public AdjacencyStore<T> snapshot() {
+        return this;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return Arrays.asList(this.values).iterator();
+    }
+
+    /**
+     * @param from value of the node that is the origin of the edge.
+     * @param to value of the node that is the terminus of the edge.
+     * @return the index of the edge in {@code targets} and {@code weights}, or -1 if there is no such edge.
+     */
+    private int indexOf(final T from, final T to) {
+        final Integer origin = this.ids.get(from);
+        final Integer terminus = this.ids.get(to);
+        if (origin == null || terminus == null) {
+            return -1;
+        }
+        int low = this.offsets.get(origin);
+        int high = this.offsets.get(origin + 1) - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int target = this.targets.get(middle);
+            if (target < terminus) {
+                low = middle + 1;
+            } else if (target > terminus) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the exception thrown by any attempt to modify the store.
+     */
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("A memory-mapped graph cannot be modified");
+    }
+
+    /**
+     * Walks a node's edges by index into the mapped buffers, without allocating anything per edge.
+     */
+    private final class Cursor implements EdgeCursor<T> {
+        /**
+         * The node whose edges are being walked.
+         */
+        private T origin;
+
+        /**
+         * The index of the edge the cursor is on.
+         */
+        private int index;
+
+        /**
+         * The index after the node's last edge.
+         */
+        private int end;
+
+        @Override
+        public void reset(final T source) {
+            final Integer id = MappedAdjacencyStore.this.ids.get(source);
+            if (id == null) {
+                throw new NoSuchElementException("Cannot retrieve edges because node does not exist in graph: "
+                        + source);
+            }
+            this.origin = source;
+            this.index = MappedAdjacencyStore.this.offsets.get(id) - 1;
+            this.end = MappedAdjacencyStore.this.offsets.get(id + 1);
+        }
+
+        @Override
+        public boolean advance() {
+            if (this.index + 1 >= this.end) {
+                return false;
+            }
+            this.index++;
+            return true;
+        }
+
+        @Override
+        public T source() {
+            return this.origin;
+        }
+
+        @Override
+        public T destination() {
+            return MappedAdjacencyStore.this.values[MappedAdjacencyStore.this.targets.get(this.index)];
+        }
+
+        @Override
+        public double weight() {
+            return MappedAdjacencyStore.this.weights.get(this.index);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts nodes' values to and from bytes, so that a graph can be written to a file (see {@link GraphFile}).
+ * Decoding the bytes a value was encoded to must give a value equal to it.
+ * @param <T> the data type of nodes' values.
+ */
+public interface NodeCodec<T> {
+
+    /**
+     * @param value value of a node.
+     * @return the value's encoding.
+     */
+    byte[] encode(T value);
+
+    /**
+     * @param bytes a buffer whose remaining bytes are exactly the encoding of one value.
+     * @return the value.
+     */
+    T decode(ByteBuffer bytes);
+
+    /**
+     * @return a codec that encodes integers as four big-endian bytes.
+     */
+    static NodeCodec<Integer> integers() {
+        return new NodeCodec<>() {
+            @Override
+            public byte[] encode(final Integer value) {
+                return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+            }
+
+            @Override
+            public Integer decode(final ByteBuffer bytes) {
+                return bytes.getInt();
+            }
+        };
+    }
+
+    /**
+     * @return a codec that encodes longs as eight big-endian bytes.
+     */
+    static NodeCodec<Long> longs() {
+        return new NodeCodec<>() {
+            @Override
+            public byte[] encode(final Long value) {
+                return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+            }
+
+            @Override
+            public Long decode(final ByteBuffer bytes) {
+                return bytes.getLong();
+            }
+        };
+    }
+
+    /**
+     * @return a codec that encodes strings as UTF-8.
+     */
+    static NodeCodec<String> strings() {
+        return new NodeCodec<>() {
+            @Override
+            public byte[] encode(final String value) {
+                return value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String decode(final ByteBuffer bytes) {
+                return StandardCharsets.UTF_8.decode(bytes).toString();
+            }
+        };
+    }
+}
@@ -0,0 +1,436 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Stores a graph's edges outside the Java heap, in {@link OffHeapRegion}s, so that the garbage collector neither has
+ * to trace them nor limits how many there can be. Only the dictionary between nodes' values and their dense int ids
+ * is kept on the heap. Each node's edges are kept in a block of edge slots, whose capacity is a power of two: the
+ * terminus id of each slot is stored in one region and its weight in another, and each node's block start, degree and
+ * capacity in a third. When a node's block fills up, its edges are moved to a block twice the size, and the old block
+ * is kept on a free list for the next node that needs a block of that size. Edges are found by scanning their origin's
+ * block, which suits sparse graphs such as road networks, in which every node has a handful of edges. The native memory
+ * is held until {@link #close()} is called; after that, the store cannot be used.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.TooManyMethods", "PMD.UseConcurrentHashMap", "PMD.GodClass"})
+final class OffHeapAdjacencyStore<T> implements AdjacencyStore<T>, AutoCloseable {
+
+    /**
+     * Capacity of the block allocated when a node gains its first edge.
+     */
+    private static final int INITIAL_DEGREE_CAPACITY = 4;
+
+    /**
+     * Number of nodes the store has room for before its first resize.
+     */
+    private static final int INITIAL_NODE_CAPACITY = 16;
+
+    /**
+     * The size of a node's record: its block start (a long), its degree and its block capacity (two ints).
+     */
+    private static final int NODE_BYTES = 16;
+
+    /**
+     * Offset of the degree within a node's record.
+     */
+    private static final int DEGREE_OFFSET = 8;
+
+    /**
+     * Offset of the block capacity within a node's record.
+     */
+    private static final int CAPACITY_OFFSET = 12;
+
+    /**
+     * Marks an empty free list.
+     */
+    private static final long NO_BLOCK = -1L;
+
+    /**
+     * Maps a node's value to its id.
+     */
+    private final Map<T, Integer> ids = new HashMap<>();
+
+    /**
+     * Maps a node's id to its value.
+     */
+    private Object[] values = new Object[INITIAL_NODE_CAPACITY];
+
+    /**
+     * The record of each node, indexed by id.
+     */
+    private final OffHeapRegion nodes;
+
+    /**
+     * The terminus id of each edge slot.
+     */
+    private final OffHeapRegion targets;
+
+    /**
+     * The weight of each edge slot.
+     */
+    private final OffHeapRegion weights;
+
+    /**
+     * The number of edge slots that have been handed out to blocks, used or free.
+     */
+    private long slotCount;
+
+    /**
+     * {@code freeBlocks[k]} is the first slot of a free block of capacity 2^k, or {@link #NO_BLOCK}. The first slot's
+     * weight holds the next free block of the same capacity.
+     */
+    private final long[] freeBlocks = new long[Long.SIZE];
+
+    /**
+     * Counts the edges and sums their weights.
+     */
+    private final EdgeTally edgeTally = new EdgeTally();
+
+    /**
+     * Whether the store's native memory has been released.
+     */
+    private boolean closed;
+
+    /**
+     * Creates an empty store whose regions use 1 GB slabs.
+     */
+    /* default */ OffHeapAdjacencyStore() {
+        this(OffHeapRegion.DEFAULT_SLAB_SHIFT);
+    }
+
+    /**
+     * Creates an empty store.
+     * @param slabShift log2 of the slab size of the store's regions.
+     */
+    /* default */ OffHeapAdjacencyStore(final int slabShift) {
+        this.nodes = new OffHeapRegion(slabShift);
+        this.targets = new OffHeapRegion(slabShift);
+        this.weights = new OffHeapRegion(slabShift);
+        Arrays.fill(this.freeBlocks, NO_BLOCK);
+    }
+
+    @Override
+    public boolean addNode(final T value) {
+        this.requireOpen();
+        if (this.ids.containsKey(value)) {
+            return false;
+        }
+        final int id = this.ids.size();
+        if (id == this.values.length) {
+            this.values = Arrays.copyOf(this.values, id * 2);
+        }
+        this.nodes.ensureCapacity((long) NODE_BYTES * (id + 1));
+        this.nodes.putLong(recordOf(id), NO_BLOCK);
+        this.nodes.putInt(recordOf(id) + DEGREE_OFFSET, 0);
+        this.nodes.putInt(recordOf(id) + CAPACITY_OFFSET, 0);
+        this.values[id] = value;
+        this.ids.put(value, id);
+        return true;
+    }
+
+    @Override
+    public boolean containsNode(final T value) {
+        this.requireOpen();
+        return this.ids.containsKey(value);
+    }
+
+    @Override
+    public int size() {
+        return this.ids.size();
+    }
+
+    @Override
+    public void putEdge(final T from, final T to, final double weight) {
+        this.requireOpen();
+        final int origin = this.ids.get(from);
+        final int terminus = this.ids.get(to);
+        final long slot = this.slotOf(origin, terminus);
+        if (slot != NO_BLOCK) {
+            this.edgeTally.reweighted(this.weights.getDouble(slot * Double.BYTES), weight);
+            this.weights.putDouble(slot * Double.BYTES, weight);
+            return;
+        }
+        final int degree = this.degreeOf(origin);
+        if (degree == this.capacityOf(origin)) {
+            this.growBlock(origin);
+        }
+        final long appended = this.blockOf(origin) + degree;
+        this.targets.putInt(appended * Integer.BYTES, terminus);
+        this.weights.putDouble(appended * Double.BYTES, weight);
+        this.nodes.putInt(recordOf(origin) + DEGREE_OFFSET, degree + 1);
+        this.edgeTally.added(weight, origin == terminus);
+    }
+
+    @Override
+    public boolean removeEdge(final T from, final T to) {
+        this.requireOpen();
+        final Integer origin = this.ids.get(from);
+        final Integer terminus = this.ids.get(to);
+        if (origin == null || terminus == null) {
+            return false;
+        }
+        final long slot = this.slotOf(origin, terminus);
+        if (slot == NO_BLOCK) {
+            return false;
+        }
+        this.edgeTally.removed(this.weights.getDouble(slot * Double.BYTES), origin.equals(terminus));
+        // Fill the hole with the origin's last edge, so each node's edges stay contiguous.
+        final int last = this.degreeOf(origin) - 1;
+        final long lastSlot = this.blockOf(origin) + last;
+        this.targets.putInt(slot * Integer.BYTES, this.targets.getInt(lastSlot * Integer.BYTES));
+        this.weights.putDouble(slot * Double.BYTES, this.weights.getDouble(lastSlot * Double.BYTES));
+        this.nodes.putInt(recordOf(origin) + DEGREE_OFFSET, last);
+        return true;
+    }
+
+    @Override
+    public boolean containsEdge(final T from, final T to) {
+        return this.indexOf(from, to) != NO_BLOCK;
+    }
+
+    @Override
+    public double edgeWeight(final T from, final T to) {
+        final long slot = this.indexOf(from, to);
+        if (slot == NO_BLOCK) {
+            throw new NoSuchElementException("No edge exists from " + from + " to " + to);
+        }
+        return this.weights.getDouble(slot * Double.BYTES);
+    }
+
+    @Override
+    public int outDegree(final T from) {
+        this.requireOpen();
+        return this.degreeOf(this.ids.get(from));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachEdge(final T from, final ObjDoubleConsumer<T> action) {
+        this.requireOpen();
+        final int origin = this.ids.get(from);
+        final long start = this.blockOf(origin);
+        final long end = start + this.degreeOf(origin);
+        for (long slot = start; slot < end; slot++) {
+            action.accept((T) this.values[this.targets.getInt(slot * Integer.BYTES)],
+                    this.weights.getDouble(slot * Double.BYTES));
+        }
+    }
+
+    @Override
+    public EdgeTally tally() {
+        this.requireOpen();
+        return this.edgeTally;
+    }
+
+    @Override
+    public EdgeCursor<T> newCursor() {
+        return new Cursor();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<T> iterator() {
+        this.requireOpen();
+        return Arrays.asList((T[]) Arrays.copyOf(this.values, this.ids.size())).iterator();
+    }
+
+    /**
+     * Releases the store's native memory. The store cannot be used afterwards; closing it again has no effect.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.nodes.free();
+        this.targets.free();
+        this.weights.free();
+    }
+
+    /**
+     * @param from value of the node that is the origin of the edge.
+     * @param to value of the node that is the terminus of the edge.
+     * @return the slot holding the edge, or {@link #NO_BLOCK} if there is no such edge.
+     */
+    private long indexOf(final T from, final T to) {
+        this.requireOpen();
+        final Integer origin = this.ids.get(from);
+        final Integer terminus = this.ids.get(to);
+        if (origin == null || terminus == null) {
+            return NO_BLOCK;
+        }
+        return this.slotOf(origin, terminus);
+    }
+
+    /**
+     * @param origin id of the node that is the origin of the edge.
+     * @param terminus id of the node that is the terminus of the edge.
+     * @return the slot holding the edge, or {@link #NO_BLOCK} if there is no such edge.
+     */
+    private long slotOf(final int origin, final int terminus) {
+        final long start = this.blockOf(origin);
+        final long end = start + this.degreeOf(origin);
+        for (long slot = start; slot < end; slot++) {
+            if (this.targets.getInt(slot * Integer.BYTES) == terminus) {
+                return slot;
+            }
+        }
+        return NO_BLOCK;
+    }
+
+    /**
+     * Moves a full node's edges to a block twice the size, and frees its old block.
+     * @param id the node's id.
+     */
+    private void growBlock(final int id) {
+        final int capacity = this.capacityOf(id);
+        final int grown = capacity == 0 ? INITIAL_DEGREE_CAPACITY : capacity * 2;
+        final long old = this.blockOf(id);
+        final long block = this.allocateBlock(grown);
+        for (int i = 0; i < capacity; i++) {
+            this.targets.putInt((block + i) * Integer.BYTES, this.targets.getInt((old + i) * Integer.BYTES));
+            this.weights.putDouble((block + i) * Double.BYTES, this.weights.getDouble((old + i) * Double.BYTES));
+        }
+        if (capacity > 0) {
+            this.freeBlock(old, capacity);
+        }
+        this.nodes.putLong(recordOf(id), block);
+        this.nodes.putInt(recordOf(id) + CAPACITY_OFFSET, grown);
+    }
+
+    /**
+     * @param capacity the number of slots in the block; a power of two.
+     * @return the first slot of a block of that many slots, reused from the free list if there is one.
+     */
+    private long allocateBlock(final int capacity) {
+        final int sizeClass = Integer.numberOfTrailingZeros(capacity);
+        final long free = this.freeBlocks[sizeClass];
+        if (free != NO_BLOCK) {
+            this.freeBlocks[sizeClass] = Double.doubleToRawLongBits(this.weights.getDouble(free * Double.BYTES));
+            return free;
+        }
+        final long block = this.slotCount;
+        this.slotCount += capacity;
+        this.targets.ensureCapacity(this.slotCount * Integer.BYTES);
+        this.weights.ensureCapacity(this.slotCount * Double.BYTES);
+        return block;
+    }
+
+    /**
+     * Adds a block to the free list for its capacity.
+     * @param block the first slot of the block.
+     * @param capacity the number of slots in the block; a power of two.
+     */
+    private void freeBlock(final long block, final int capacity) {
+        final int sizeClass = Integer.numberOfTrailingZeros(capacity);
+        this.weights.putDouble(block * Double.BYTES, Double.longBitsToDouble(this.freeBlocks[sizeClass]));
+        this.freeBlocks[sizeClass] = block;
+    }
+
+    /**
+     * @param id a node's id.
+     * @return the first slot of the node's block.
+     */
+    private long blockOf(final int id) {
+        return this.nodes.getLong(recordOf(id));
+    }
+
+    /**
+     * @param id a node's id.
+     * @return the number of edges whose origin is the node.
+     */
+    private int degreeOf(final int id) {
+        return this.nodes.getInt(recordOf(id) + DEGREE_OFFSET);
+    }
+
+    /**
+     * @param id a node's id.
+     * @return the number of slots in the node's block.
+     */
+    private int capacityOf(final int id) {
+        return this.nodes.getInt(recordOf(id) + CAPACITY_OFFSET);
+    }
+
+    /**
+     * @param id a node's id.
+     * @return the offset of the node's record.
+     */
+    private static long recordOf(final int id) {
+        return (long) NODE_BYTES * id;
+    }
+
+    /**
+     * @throws IllegalStateException if the store has been closed.
+     */
+    private void requireOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("The graph has been closed");
+        }
+    }
+
+    /**
+     * Walks a node's block slot by slot, without allocating anything per edge.
+     */
+    private final class Cursor implements EdgeCursor<T> {
+        /**
+         * The node whose edges are being walked.
+         */
+        private T origin;
+
+        /**
+         * The slot the cursor is on.
+         */
+        private long slot;
+
+        /**
+         * The slot after the node's last edge.
+         */
+        private long end;
+
+        @Override
+        public void reset(final T source) {
+            OffHeapAdjacencyStore.this.requireOpen();
+            final Integer id = OffHeapAdjacencyStore.this.ids.get(source);
+            if (id == null) {
+                throw new NoSuchElementException("Cannot retrieve edges because node does not exist in graph: "
+                        + source);
+            }
+            this.origin = source;
+            this.slot = OffHeapAdjacencyStore.this.blockOf(id) - 1;
+            this.end = OffHeapAdjacencyStore.this.blockOf(id) + OffHeapAdjacencyStore.this.degreeOf(id);
+        }
+
+        @Override
+        public boolean advance() {
+            if (this.slot + 1 >= this.end) {
+                return false;
+            }
+            this.slot++;
+            return true;
+        }
+
+        @Override
+        public T source() {
+            return this.origin;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T destination() {
+            final int target = OffHeapAdjacencyStore.this.targets.getInt(this.slot * Integer.BYTES);
+            return (T) OffHeapAdjacencyStore.this.values[target];
+        }
+
+        @Override
+        public double weight() {
+            return OffHeapAdjacencyStore.this.weights.getDouble(this.slot * Double.BYTES);
+        }
+    }
+}
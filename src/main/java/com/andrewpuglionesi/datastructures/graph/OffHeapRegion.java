@@ -0,0 +1,252 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A growable run of bytes outside the Java heap, addressed by {@code long} offsets. The bytes are kept in direct
+ * {@link ByteBuffer}s: a single buffer that doubles as it grows, until it reaches the slab size, and from then on a
+ * list of slab-sized buffers, so a region can hold far more than the 2 GB a single buffer is limited to. Values are
+ * stored in the platform's native byte order, and must not straddle two slabs, which is guaranteed if every value is
+ * stored at a multiple of its own size. {@link #free()} releases the native memory at once, rather than whenever the
+ * buffers happen to be garbage collected.
+ */
+@SuppressWarnings({"PMD.AvoidFieldNameMatchingMethodName", "PMD.TooManyMethods"})
+final class OffHeapRegion {
+
+    /**
+     * log2 of the default slab size, 1 GB.
+     */
+    /* default */ static final int DEFAULT_SLAB_SHIFT = 30;
+
+    /**
+     * The size of a new region.
+     */
+    private static final int INITIAL_BYTES = 1024;
+
+    /**
+     * {@code sun.misc.Unsafe.invokeCleaner(ByteBuffer)}, bound to the {@code Unsafe} instance, or absent if the
+     * running JVM does not provide it, in which case buffers are left for the garbage collector to release.
+     */
+    private static final Cleaner CLEANER = findCleaner();
+
+    /**
+     * log2 of the slab size.
+     */
+    private final int slabShift;
+
+    /**
+     * The buffers holding the region's bytes.
+     */
+    private ByteBuffer[] slabs;
+
+    /**
+     * The number of bytes the region can hold.
+     */
+    private long capacity;
+
+    /**
+     * Creates a region of 1 GB slabs.
+     */
+    /* default */ OffHeapRegion() {
+        this(DEFAULT_SLAB_SHIFT);
+    }
+
+    /**
+     * Creates a region.
+     * @param slabShift log2 of the slab size, which must be at least log2 of the initial size.
+     */
+    /* default */ OffHeapRegion(final int slabShift) {
+        this.slabShift = slabShift;
+        this.slabs = new ByteBuffer[] {allocate(INITIAL_BYTES)};
+        this.capacity = INITIAL_BYTES;
+    }
+
+    /**
+     * @return the number of bytes the region can hold without growing.
+     */
+    /* default */ long capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Grows the region, if necessary, so that it can hold at least {@code bytes} bytes. Bytes already in the region
+     * keep their offsets.
+     * @param bytes the number of bytes the region should be able to hold.
+     * @throws IllegalStateException if the region has been freed.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    /* default */ void ensureCapacity(final long bytes) {
+        this.requireLive();
+        if (bytes <= this.capacity) {
+            return;
+        }
+        final long slabBytes = 1L << this.slabShift;
+        if (this.capacity < slabBytes) {
+            long grown = this.capacity;
+            while (grown < bytes && grown < slabBytes) {
+                grown <<= 1;
+            }
+            final ByteBuffer old = this.slabs[0];
+            final ByteBuffer bigger = allocate((int) grown);
+            bigger.put(old.duplicate().clear());
+            this.slabs[0] = bigger;
+            this.capacity = grown;
+            release(old);
+        }
+        while (this.capacity < bytes) {
+            this.slabs = Arrays.copyOf(this.slabs, this.slabs.length + 1);
+            this.slabs[this.slabs.length - 1] = allocate((int) slabBytes);
+            this.capacity += slabBytes;
+        }
+    }
+
+    /**
+     * @param offset offset of the value, a multiple of four.
+     * @return the int at the offset.
+     */
+    /* default */ int getInt(final long offset) {
+        return this.slabOf(offset).getInt(this.positionOf(offset));
+    }
+
+    /**
+     * @param offset offset of the value, a multiple of four.
+     * @param value the int to store at the offset.
+     */
+    /* default */ void putInt(final long offset, final int value) {
+        this.slabOf(offset).putInt(this.positionOf(offset), value);
+    }
+
+    /**
+     * @param offset offset of the value, a multiple of eight.
+     * @return the long at the offset.
+     */
+    /* default */ long getLong(final long offset) {
+        return this.slabOf(offset).getLong(this.positionOf(offset));
+    }
+
+    /**
+     * @param offset offset of the value, a multiple of eight.
+     * @param value the long to store at the offset.
+     */
+    /* default */ void putLong(final long offset, final long value) {
+        this.slabOf(offset).putLong(this.positionOf(offset), value);
+    }
+
+    /**
+     * @param offset offset of the value, a multiple of eight.
+     * @return the double at the offset.
+     */
+    /* default */ double getDouble(final long offset) {
+        return this.slabOf(offset).getDouble(this.positionOf(offset));
+    }
+
+    /**
+     * @param offset offset of the value, a multiple of eight.
+     * @param value the double to store at the offset.
+     */
+    /* default */ void putDouble(final long offset, final double value) {
+        this.slabOf(offset).putDouble(this.positionOf(offset), value);
+    }
+
+    /**
+     * Releases the region's native memory. The region cannot be used afterwards. Freeing a region more than once
+     * has no further effect.
+     */
+    /* default */ void free() {
+        final ByteBuffer[] freed = this.slabs;
+        this.slabs = new ByteBuffer[0];
+        this.capacity = 0;
+        for (final ByteBuffer slab : freed) {
+            release(slab);
+        }
+    }
+
+    /**
+     * @param offset an offset in the region.
+     * @return the slab holding the offset.
+     * @throws IllegalStateException if the region has been freed.
+     */
+    private ByteBuffer slabOf(final long offset) {
+        final int slab = (int) (offset >>> this.slabShift);
+        if (slab >= this.slabs.length) {
+            this.requireLive();
+            throw new IndexOutOfBoundsException("Offset " + offset + " is outside of a region of " + this.capacity
+                    + " bytes");
+        }
+        return this.slabs[slab];
+    }
+
+    /**
+     * @param offset an offset in the region.
+     * @return the offset's position within its slab.
+     */
+    private int positionOf(final long offset) {
+        return (int) (offset & ((1L << this.slabShift) - 1));
+    }
+
+    /**
+     * @throws IllegalStateException if the region has been freed.
+     */
+    private void requireLive() {
+        if (this.slabs.length == 0) {
+            throw new IllegalStateException("Off-heap memory has already been freed");
+        }
+    }
+
+    /**
+     * @param bytes the size of the buffer.
+     * @return a new direct buffer in native byte order.
+     */
+    private static ByteBuffer allocate(final int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Releases a direct buffer's native memory, if the JVM allows it; otherwise, leaves it to the garbage collector.
+     * @param buffer a direct buffer that will not be used again.
+     */
+    private static void release(final ByteBuffer buffer) {
+        if (CLEANER != null) {
+            CLEANER.clean(buffer);
+        }
+    }
+
+    /**
+     * @return a cleaner backed by {@code sun.misc.Unsafe}, or null if it is unavailable.
+     */
+    @SuppressWarnings({"PMD.AvoidAccessibilityAlteration", "PMD.EmptyCatchBlock"})
+    private static Cleaner findCleaner() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field instance = unsafeClass.getDeclaredField("theUnsafe");
+            instance.setAccessible(true);
+            final Object unsafe = instance.get(null);
+            final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            return buffer -> {
+                try {
+                    invokeCleaner.invoke(unsafe, buffer);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    // the buffer will be released when it is garbage collected instead
+                }
+            };
+        } catch (ReflectiveOperationException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Releases a direct buffer's native memory.
+     */
+    @FunctionalInterface
+    private interface Cleaner {
+        /**
+         * @param buffer a direct buffer that will not be used again.
+         */
+        void clean(ByteBuffer buffer);
+    }
+}
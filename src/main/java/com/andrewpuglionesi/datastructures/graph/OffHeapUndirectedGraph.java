@@ -0,0 +1,58 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Collection;
+
+/**
+ * An undirected graph whose edges are stored outside the Java heap, so that it can be larger than the heap and
+ * adds nothing to garbage collection pauses. Only the dictionary between nodes' values and their internal ids is kept
+ * on the heap. Finding an edge scans its origin's edges, so the graph suits sparse graphs, such as road networks. The
+ * native memory is held until {@link #close()} is called, which should be done as soon as the graph is no longer
+ * needed, e.g., with a try-with-resources statement; after that, the graph cannot be used. Snapshots and frozen copies
+ * of the graph are stored on the heap.
+ * @param <T> the data type of nodes' values. This type should have a reliable hashCode() and equals()
+ *           implementation, as the graph uses a hash table to store and retrieve nodes.
+ */
+@SuppressWarnings("PMD.ShortVariable")
+public class OffHeapUndirectedGraph<T> extends UndirectedGraph<T> implements AutoCloseable {
+
+    /**
+     * Holds the graph's nodes and directional edges.
+     */
+    private final OffHeapAdjacencyStore<T> store;
+
+    /**
+     * Initializes an empty graph.
+     */
+    public OffHeapUndirectedGraph() {
+        this(new OffHeapAdjacencyStore<>());
+    }
+
+    /**
+     * Creates a graph containing nodes with the specified values. The graph will initially contain no edges.
+     * @param values values to add to the graph.
+     * @throws UnsupportedOperationException if there is a duplicate value.
+     */
+    @SuppressWarnings("PMD.ConstructorCallsOverridableMethod")
+    public OffHeapUndirectedGraph(final Collection<T> values) {
+        this();
+        values.forEach(this::addNode);
+    }
+
+    /**
+     * Initializes an empty graph.
+     * @param store holds the graph's nodes and directional edges.
+     */
+    /* default */ OffHeapUndirectedGraph(final OffHeapAdjacencyStore<T> store) {
+        super(store);
+        this.store = store;
+    }
+
+    /**
+     * Releases the native memory holding the graph's edges. The graph cannot be used afterwards; closing it again has
+     * no effect.
+     */
+    @Override
+    public void close() {
+        this.store.close();
+    }
+}
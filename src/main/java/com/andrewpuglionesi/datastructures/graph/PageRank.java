@@ -0,0 +1,199 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Computes PageRank over a graph in compressed sparse row form (see {@link CsrGraph}) by power iteration, splitting
+ * each iteration among the workers of a {@link ForkJoinPool}. Each iteration pulls every node's new rank from its
+ * inbound edges, read from the graph's transpose, so every worker writes only the ranks of its own range of nodes and
+ * no atomic updates are needed. Every node's share of rank is its rank divided by its out-degree; nodes with no
+ * outbound edges share their rank with every node. Edge weights are ignored.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class PageRank {
+
+    /**
+     * The most iterations a computation runs, whether or not the ranks have converged.
+     */
+    /* default */ static final int MAX_ITERATIONS = 1000;
+
+    /**
+     * The most nodes a single task ranks without splitting.
+     */
+    private static final int NODE_GRAIN = 4096;
+
+    /**
+     * CSR edge offsets of each node.
+     */
+    private final int[] offsets;
+
+    /**
+     * CSR edge offsets of each node in the transposed graph.
+     */
+    private final int[] reverseOffsets;
+
+    /**
+     * CSR edge termini in the transposed graph, i.e., the origins of each node's inbound edges.
+     */
+    private final int[] reverseTargets;
+
+    /**
+     * The probability of following an edge rather than jumping to a random node.
+     */
+    private final double damping;
+
+    /**
+     * The current rank of each node.
+     */
+    private final double[] ranks;
+
+    /**
+     * The share of its rank that each node passes along each of its outbound edges in the current iteration.
+     */
+    private double[] shares;
+
+    /**
+     * Receives the shares for the next iteration.
+     */
+    private double[] nextShares;
+
+    /**
+     * The sum of the ranks of the nodes without outbound edges, for the next iteration.
+     */
+    private final DoubleAdder dangling = new DoubleAdder();
+
+    /**
+     * The total change to the ranks in the current iteration.
+     */
+    private final DoubleAdder change = new DoubleAdder();
+
+    /**
+     * Prepares a computation.
+     * @param snapshot the graph.
+     * @param damping the probability of following an edge rather than jumping to a random node.
+     * @param ranks the rank of each node to start from, which must sum to 1; receives the final ranks.
+     */
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    private PageRank(final CsrGraph<?> snapshot, final double damping, final double[] ranks) {
+        final CsrGraph<?> reverse = snapshot.transpose();
+        this.offsets = snapshot.offsets();
+        this.reverseOffsets = reverse.offsets();
+        this.reverseTargets = reverse.targets();
+        this.damping = damping;
+        this.ranks = ranks;
+        this.shares = new double[ranks.length];
+        this.nextShares = new double[ranks.length];
+        double danglingRank = 0;
+        for (int node = 0; node < ranks.length; node++) {
+            final int outDegree = this.offsets[node + 1] - this.offsets[node];
+            if (outDegree == 0) {
+                danglingRank += ranks[node];
+            } else {
+                this.shares[node] = ranks[node] / outDegree;
+            }
+        }
+        this.dangling.add(danglingRank);
+    }
+
+    /**
+     * Iterates until the ranks change by less than a tolerance from one iteration to the next, or
+     * {@link #MAX_ITERATIONS} iterations have run.
+     * @param snapshot the graph.
+     * @param damping the probability of following an edge rather than jumping to a random node.
+     * @param tolerance the largest total change to the ranks, summed over every node, at which they have converged.
+     * @param ranks the rank of each node to start from, which must sum to 1; receives the final ranks.
+     * @param pool the pool whose workers run each iteration.
+     * @return the number of iterations run.
+     */
+    @SuppressWarnings("PMD.UseVarargs")
+    /* default */ static int iterate(final CsrGraph<?> snapshot, final double damping, final double tolerance,
+                                     final double[] ranks, final ForkJoinPool pool) {
+        return ranks.length == 0 ? 0 : new PageRank(snapshot, damping, ranks).run(tolerance, pool);
+    }
+
+    /**
+     * Runs iterations until the ranks converge.
+     * @param tolerance the largest total change to the ranks at which they have converged.
+     * @param pool the pool whose workers run each iteration.
+     * @return the number of iterations run.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private int run(final double tolerance, final ForkJoinPool pool) {
+        final int nodeCount = this.ranks.length;
+        int iterations = 0;
+        boolean converged = false;
+        while (!converged && iterations < MAX_ITERATIONS) {
+            final double base = (1 - this.damping + this.damping * this.dangling.sumThenReset()) / nodeCount;
+            this.change.reset();
+            pool.invoke(new PullStep(0, nodeCount, base));
+            final double[] spent = this.shares;
+            this.shares = this.nextShares;
+            this.nextShares = spent;
+            iterations++;
+            converged = this.change.sum() < tolerance;
+        }
+        return iterations;
+    }
+
+    /**
+     * Ranks a range of nodes from the shares of their inbound neighbors, and works out the nodes' own shares for the
+     * next iteration.
+     */
+    private final class PullStep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first node id to rank.
+         */
+        private final int start;
+
+        /**
+         * The node id after the last one to rank.
+         */
+        private final int end;
+
+        /**
+         * The rank every node receives in this iteration before its inbound edges are counted.
+         */
+        private final double base;
+
+        private PullStep(final int start, final int end, final double base) {
+            super();
+            this.start = start;
+            this.end = end;
+            this.base = base;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > NODE_GRAIN) {
+                final int middle = (this.start + this.end) >>> 1;
+                invokeAll(new PullStep(this.start, middle, this.base), new PullStep(middle, this.end, this.base));
+                return;
+            }
+            final PageRank pageRank = PageRank.this;
+            double danglingRank = 0;
+            double changed = 0;
+            for (int node = this.start; node < this.end; node++) {
+                double inbound = 0;
+                for (int i = pageRank.reverseOffsets[node]; i < pageRank.reverseOffsets[node + 1]; i++) {
+                    inbound += pageRank.shares[pageRank.reverseTargets[i]];
+                }
+                final double rank = this.base + pageRank.damping * inbound;
+                changed += Math.abs(rank - pageRank.ranks[node]);
+                pageRank.ranks[node] = rank;
+                final int outDegree = pageRank.offsets[node + 1] - pageRank.offsets[node];
+                if (outDegree == 0) {
+                    danglingRank += rank;
+                    pageRank.nextShares[node] = 0;
+                } else {
+                    pageRank.nextShares[node] = rank / outDegree;
+                }
+            }
+            pageRank.dangling.add(danglingRank);
+            pageRank.change.add(changed);
+        }
+    }
+}
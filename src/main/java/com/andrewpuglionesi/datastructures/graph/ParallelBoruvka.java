@@ -0,0 +1,403 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Finds a minimum spanning forest of an undirected graph in compressed sparse row form (see {@link CsrGraph}) with
+ * Boruvka's algorithm, running each step of each round in parallel on a {@link ForkJoinPool}.
+ * Every node starts out as a component of its own. In each round, the workers split the nodes among them, and every
+ * component finds the lightest edge leaving it by atomically lowering a per-component minimum. Each component is then
+ * hooked onto the component at the other end of its lightest edge, which joins the forest. Ties between edges of
+ * equal weight are broken by the id of the component they lead to, so the components' choices can only form cycles of
+ * two components that chose each other; the component with the lower id stays a root, and the other hooks onto it.
+ * Finally, pointer jumping flattens the hooked components so that every node points straight at its new root. Every
+ * round at least halves the number of components that still have edges leaving them, so there are at most
+ * {@code log2(n)} rounds, each of which takes time linear in the size of the graph. In practice, rounds speed up as
+ * they go, since each discards the edges it finds inside a component: the search works on its own copy of the edges,
+ * which it reorders so that the edges that still leave a node's component come first.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class ParallelBoruvka {
+
+    /**
+     * Marks a component that has no edge leaving it, or a node that was never hooked onto another.
+     */
+    private static final int NO_EDGE = -1;
+
+    /**
+     * The number of bits an edge's origin is shifted by when it is packed with the edge's slot.
+     */
+    private static final int SOURCE_SHIFT = 32;
+
+    /**
+     * Masks an edge's slot out of a packed edge.
+     */
+    private static final long SLOT_MASK = 0xFFFF_FFFFL;
+
+    /**
+     * The most nodes a single task examines without splitting.
+     */
+    private static final int NODE_GRAIN = 4096;
+
+    /**
+     * CSR edge offsets of each node.
+     */
+    private final int[] offsets;
+
+    /**
+     * A copy of the CSR edge termini. The edges in each node's range that still leave its component are kept at the
+     * front of the range, ahead of {@code liveEnds}.
+     */
+    private final int[] targets;
+
+    /**
+     * A copy of the CSR edge weights, reordered along with the termini.
+     */
+    private final double[] weights;
+
+    /**
+     * The slot after each node's last edge that may still leave its component. Once both ends of an edge are in the
+     * same component, they always will be, so each round discards the edges it finds inside a component, and later
+     * rounds never look at them again.
+     */
+    private final int[] liveEnds;
+
+    /**
+     * The root of each node's component at the start of a round. Roots are their own parents.
+     */
+    private int[] parents;
+
+    /**
+     * Receives each node's parent for the next round.
+     */
+    private int[] next;
+
+    /**
+     * The lightest edge found so far that leaves each root's component, packed as its origin shifted left by
+     * {@link #SOURCE_SHIFT} bits, plus its slot, or {@link #NO_EDGE}.
+     */
+    private final AtomicLongArray lightestEdges;
+
+    /**
+     * The origin of the edge by which each node was hooked onto another component while it was a root. A node is
+     * hooked at most once, since it is never a root again afterwards.
+     */
+    private final int[] treeSources;
+
+    /**
+     * The terminus of the edge by which each node was hooked, or {@link #NO_EDGE} if it never was.
+     */
+    private final int[] treeTargets;
+
+    /**
+     * The weight of the edge by which each node was hooked.
+     */
+    private final double[] treeWeights;
+
+    /**
+     * The number of components hooked in the current round.
+     */
+    private final AtomicInteger hooks = new AtomicInteger();
+
+    /**
+     * True if the current pass of pointer jumping moved any node.
+     */
+    private final AtomicBoolean jumped = new AtomicBoolean();
+
+    /**
+     * Prepares a search.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini, which are copied.
+     * @param weights CSR edge weights, which are copied.
+     */
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    private ParallelBoruvka(final int[] offsets, final int[] targets, final double[] weights) {
+        final int nodeCount = offsets.length - 1;
+        this.offsets = offsets;
+        this.targets = targets.clone();
+        this.weights = weights.clone();
+        this.liveEnds = Arrays.copyOfRange(offsets, 1, offsets.length);
+        this.parents = new int[nodeCount];
+        this.next = new int[nodeCount];
+        this.lightestEdges = new AtomicLongArray(nodeCount);
+        this.treeSources = new int[nodeCount];
+        this.treeTargets = new int[nodeCount];
+        this.treeWeights = new double[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            this.parents[node] = node;
+            this.lightestEdges.setPlain(node, NO_EDGE);
+            this.treeTargets[node] = NO_EDGE;
+        }
+    }
+
+    /**
+     * Finds a minimum spanning forest: a spanning tree of lightest total weight for every connected component.
+     * @param snapshot an undirected graph, which has every edge in both directions.
+     * @param pool the pool whose workers run each round.
+     * @param <T> the data type of nodes' values.
+     * @return the forest.
+     */
+    /* default */ static <T> SpanningForest<T> search(final CsrGraph<T> snapshot, final ForkJoinPool pool) {
+        final ParallelBoruvka search = new ParallelBoruvka(snapshot.offsets(), snapshot.targets(),
+                snapshot.weights());
+        search.run(pool);
+        return search.forest(snapshot);
+    }
+
+    /**
+     * Runs rounds until no component has an edge leaving it.
+     * @param pool the pool whose workers run each round.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private void run(final ForkJoinPool pool) {
+        final int nodeCount = this.parents.length;
+        boolean merging = nodeCount > 0;
+        while (merging) {
+            pool.invoke(new LightestEdgeStep(0, nodeCount));
+            this.hooks.set(0);
+            pool.invoke(new HookStep(0, nodeCount));
+            merging = this.hooks.get() > 0;
+            if (merging) {
+                do {
+                    this.jumped.set(false);
+                    pool.invoke(new JumpStep(0, nodeCount));
+                } while (this.jumped.get());
+                final int[] previous = this.parents;
+                this.parents = this.next;
+                this.next = previous;
+            }
+        }
+    }
+
+    /**
+     * Lowers a component's lightest leaving edge to an edge, unless the edge is no lighter.
+     * @param root the root of the component.
+     * @param source the id of the edge's origin.
+     * @param edge the slot of an edge leaving the component.
+     */
+    private void offer(final int root, final int source, final int edge) {
+        final long packed = (long) source << SOURCE_SHIFT | edge;
+        long current = this.lightestEdges.get(root);
+        while (current == NO_EDGE || this.isLighter(edge, (int) (current & SLOT_MASK))) {
+            final long witness = this.lightestEdges.compareAndExchange(root, current, packed);
+            if (witness == current) {
+                return;
+            }
+            current = witness;
+        }
+    }
+
+    /**
+     * Orders edges that leave the same component by weight, then by the root of the component they lead to.
+     * @param edge the slot of an edge.
+     * @param other the slot of an edge leaving the same component.
+     * @return true if {@code edge} comes first.
+     */
+    private boolean isLighter(final int edge, final int other) {
+        final double weight = this.weights[edge];
+        final double otherWeight = this.weights[other];
+        return weight < otherWeight
+                || weight == otherWeight && this.parents[this.targets[edge]] < this.parents[this.targets[other]];
+    }
+
+    /**
+     * Collects the edges the components were hooked by.
+     * @param snapshot the graph.
+     * @param <T> the data type of nodes' values.
+     * @return the forest.
+     */
+    private <T> SpanningForest<T> forest(final CsrGraph<T> snapshot) {
+        int edgeCount = 0;
+        for (final int target : this.treeTargets) {
+            if (target != NO_EDGE) {
+                edgeCount++;
+            }
+        }
+        final int[] sources = new int[edgeCount];
+        final int[] termini = new int[edgeCount];
+        final double[] edgeWeights = new double[edgeCount];
+        int count = 0;
+        for (int node = 0; node < this.treeTargets.length; node++) {
+            if (this.treeTargets[node] != NO_EDGE) {
+                sources[count] = this.treeSources[node];
+                termini[count] = this.treeTargets[node];
+                edgeWeights[count] = this.treeWeights[node];
+                count++;
+            }
+        }
+        return new SpanningForest<>(snapshot, sources, termini, edgeWeights);
+    }
+
+    /**
+     * Finds, for a range of nodes, the lightest edge leaving each node's component, and offers it to the component.
+     */
+    private final class LightestEdgeStep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first node id to examine.
+         */
+        private final int start;
+
+        /**
+         * The node id after the last one to examine.
+         */
+        private final int end;
+
+        private LightestEdgeStep(final int start, final int end) {
+            super();
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        @SuppressWarnings("PMD.CyclomaticComplexity")
+        protected void compute() {
+            if (this.end - this.start > NODE_GRAIN) {
+                final int middle = (this.start + this.end) >>> 1;
+                invokeAll(new LightestEdgeStep(this.start, middle), new LightestEdgeStep(middle, this.end));
+                return;
+            }
+            final ParallelBoruvka search = ParallelBoruvka.this;
+            for (int node = this.start; node < this.end; node++) {
+                final int root = search.parents[node];
+                int lightest = NO_EDGE;
+                double lightestWeight = 0;
+                int lightestRoot = 0;
+                int live = search.liveEnds[node];
+                int slot = search.offsets[node];
+                while (slot < live) {
+                    final int otherRoot = search.parents[search.targets[slot]];
+                    if (otherRoot == root) {
+                        // the edge is inside the component for good, so the last live edge takes its place
+                        live--;
+                        search.targets[slot] = search.targets[live];
+                        search.weights[slot] = search.weights[live];
+                        continue;
+                    }
+                    final double weight = search.weights[slot];
+                    if (lightest == NO_EDGE || weight < lightestWeight
+                            || weight == lightestWeight && otherRoot < lightestRoot) {
+                        lightest = slot;
+                        lightestWeight = weight;
+                        lightestRoot = otherRoot;
+                    }
+                    slot++;
+                }
+                search.liveEnds[node] = live;
+                if (lightest != NO_EDGE) {
+                    search.offer(root, node, lightest);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hooks each root in a range onto the component at the other end of its lightest leaving edge, and points every
+     * other node in the range at its current root.
+     */
+    private final class HookStep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first node id to examine.
+         */
+        private final int start;
+
+        /**
+         * The node id after the last one to examine.
+         */
+        private final int end;
+
+        private HookStep(final int start, final int end) {
+            super();
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > NODE_GRAIN) {
+                final int middle = (this.start + this.end) >>> 1;
+                invokeAll(new HookStep(this.start, middle), new HookStep(middle, this.end));
+                return;
+            }
+            final ParallelBoruvka search = ParallelBoruvka.this;
+            int hooked = 0;
+            for (int node = this.start; node < this.end; node++) {
+                final int parent = search.parents[node];
+                search.next[node] = parent;
+                final long packed = search.lightestEdges.get(node);
+                if (parent != node || packed == NO_EDGE) {
+                    continue;
+                }
+                final int edge = (int) (packed & SLOT_MASK);
+                final int other = search.parents[search.targets[edge]];
+                // the other component has an edge leaving it too: at worst, this one
+                final int otherEdge = (int) (search.lightestEdges.get(other) & SLOT_MASK);
+                final boolean mutual = search.parents[search.targets[otherEdge]] == node;
+                if (!mutual || node > other) {
+                    search.next[node] = other;
+                    // recorded now, since later rounds may move the edge within its origin's range
+                    search.treeSources[node] = (int) (packed >>> SOURCE_SHIFT);
+                    search.treeTargets[node] = search.targets[edge];
+                    search.treeWeights[node] = search.weights[edge];
+                    hooked++;
+                }
+            }
+            search.hooks.addAndGet(hooked);
+        }
+    }
+
+    /**
+     * Points each node in a range at its parent's parent, and clears the range's lightest edges for the next round.
+     */
+    private final class JumpStep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first node id to examine.
+         */
+        private final int start;
+
+        /**
+         * The node id after the last one to examine.
+         */
+        private final int end;
+
+        private JumpStep(final int start, final int end) {
+            super();
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > NODE_GRAIN) {
+                final int middle = (this.start + this.end) >>> 1;
+                invokeAll(new JumpStep(this.start, middle), new JumpStep(middle, this.end));
+                return;
+            }
+            final ParallelBoruvka search = ParallelBoruvka.this;
+            boolean moved = false;
+            for (int node = this.start; node < this.end; node++) {
+                search.lightestEdges.setPlain(node, NO_EDGE);
+                // another task may be moving the parent too, but either way the node ends up at one of its ancestors
+                final int parent = search.next[node];
+                final int grandparent = search.next[parent];
+                if (grandparent != parent) {
+                    search.next[node] = grandparent;
+                    moved = true;
+                }
+            }
+            if (moved) {
+                search.jumped.set(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A level-synchronous, direction-optimizing breadth-first search over a graph in compressed sparse row form (see
+ * {@link CsrGraph}) that expands each level in parallel on a {@link ForkJoinPool}.
+ * While the frontier is narrow, each level is expanded top-down: the frontier is split among the workers, which claim
+ * the unvisited neighbors of their nodes by atomically setting the nodes' bits in a shared bitset. Once the frontier
+ * has more outbound edges than the unvisited part of the graph has inbound ones, it is cheaper to expand bottom-up
+ * instead: the unvisited nodes are split among the workers, and each looks for any parent on the frontier, stopping
+ * at the first. Because every unvisited node is examined by exactly one worker, bottom-up levels need no claiming.
+ * The search returns to top-down once the frontier narrows again. (See Beamer, Asanovic and Patterson,
+ * "Direction-Optimizing Breadth-First Search", 2012.)
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class ParallelBreadthFirstSearch {
+
+    /**
+     * Marks a node that has not been reached by the search.
+     */
+    private static final int UNREACHED = -1;
+
+    /**
+     * log2 of the number of bits in a bitset word.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * A top-down level switches to bottom-up when the frontier's outbound edges outnumber the unvisited nodes'
+     * inbound edges divided by this.
+     */
+    private static final int TOP_DOWN_FACTOR = 14;
+
+    /**
+     * A bottom-up level switches back to top-down when the frontier holds fewer than this fraction of the nodes.
+     */
+    private static final int BOTTOM_UP_FACTOR = 24;
+
+    /**
+     * The most frontier nodes a single top-down task expands without splitting.
+     */
+    private static final int TOP_DOWN_GRAIN = 256;
+
+    /**
+     * The most nodes a single bottom-up task examines without splitting.
+     */
+    private static final int BOTTOM_UP_GRAIN = 4096;
+
+    /**
+     * Capacity of the buffer in which a top-down task first collects the nodes it claims.
+     */
+    private static final int INITIAL_BUFFER_CAPACITY = 64;
+
+    /**
+     * CSR edge offsets of each node.
+     */
+    private final int[] offsets;
+
+    /**
+     * CSR edge termini.
+     */
+    private final int[] targets;
+
+    /**
+     * CSR edge offsets of each node in the transposed graph.
+     */
+    private final int[] reverseOffsets;
+
+    /**
+     * CSR edge termini in the transposed graph.
+     */
+    private final int[] reverseTargets;
+
+    /**
+     * The distance from the source to each node, or {@link #UNREACHED}.
+     */
+    private final int[] distances;
+
+    /**
+     * Bit {@code i} is set once node {@code i} has been claimed by the search.
+     */
+    private final AtomicLongArray visited;
+
+    /**
+     * The nodes of the current level, in the first {@code frontierSize} elements.
+     */
+    private int[] frontier;
+
+    /**
+     * The number of nodes in the current level.
+     */
+    private int frontierSize;
+
+    /**
+     * Receives the nodes of the next level.
+     */
+    private int[] next;
+
+    /**
+     * The number of nodes in the next level so far.
+     */
+    private final AtomicInteger nextSize = new AtomicInteger();
+
+    /**
+     * The number of outbound edges of the nodes in the next level so far.
+     */
+    private final LongAdder nextOutboundEdges = new LongAdder();
+
+    /**
+     * The number of inbound edges of the nodes in the next level so far.
+     */
+    private final LongAdder nextInboundEdges = new LongAdder();
+
+    /**
+     * Distance from the source to the nodes of the current level.
+     */
+    private int depth;
+
+    /**
+     * Prepares a search from a source node.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     * @param reverseOffsets CSR edge offsets of each node in the transposed graph.
+     * @param reverseTargets CSR edge termini in the transposed graph.
+     * @param source id of the node to start from.
+     */
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    private ParallelBreadthFirstSearch(final int[] offsets, final int[] targets, final int[] reverseOffsets,
+                                       final int[] reverseTargets, final int source) {
+        final int nodeCount = offsets.length - 1;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.reverseOffsets = reverseOffsets;
+        this.reverseTargets = reverseTargets;
+        this.distances = new int[nodeCount];
+        Arrays.fill(this.distances, UNREACHED);
+        this.visited = new AtomicLongArray((nodeCount >>> WORD_SHIFT) + 1);
+        this.frontier = new int[nodeCount];
+        this.next = new int[nodeCount];
+        this.distances[source] = 0;
+        this.visited.set(source >>> WORD_SHIFT, 1L << source);
+        this.frontier[0] = source;
+        this.frontierSize = 1;
+    }
+
+    /**
+     * Finds the length of the shortest path from a source node to every node.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     * @param reverseOffsets CSR edge offsets of each node in the transposed graph.
+     * @param reverseTargets CSR edge termini in the transposed graph.
+     * @param source id of the node to start from.
+     * @param pool the pool whose workers expand each level.
+     * @return the minimum number of edges on a path from {@code source} to each node, indexed by node id, or -1 for
+     * nodes that cannot be reached. The distance from the source to itself is 0.
+     */
+    /* default */ static int[] distancesFrom(final int[] offsets, final int[] targets, final int[] reverseOffsets,
+                                              final int[] reverseTargets, final int source, final ForkJoinPool pool) {
+        return new ParallelBreadthFirstSearch(offsets, targets, reverseOffsets, reverseTargets, source).run(pool);
+    }
+
+    /**
+     * Expands levels until the frontier is empty, choosing the direction of each level from the sizes of the frontier
+     * and of the unvisited part of the graph.
+     * @param pool the pool whose workers expand each level.
+     * @return the distance from the source to each node.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private int[] run(final ForkJoinPool pool) {
+        final int nodeCount = this.distances.length;
+        final int source = this.frontier[0];
+        long frontierEdges = this.offsets[source + 1] - this.offsets[source];
+        long unvisitedEdges = this.reverseTargets.length
+                - (this.reverseOffsets[source + 1] - this.reverseOffsets[source]);
+        boolean bottomUp = false;
+        while (this.frontierSize > 0) {
+            if (bottomUp) {
+                bottomUp = this.frontierSize >= nodeCount / BOTTOM_UP_FACTOR;
+            } else {
+                bottomUp = frontierEdges > unvisitedEdges / TOP_DOWN_FACTOR;
+            }
+            this.nextSize.set(0);
+            this.nextOutboundEdges.reset();
+            this.nextInboundEdges.reset();
+            if (bottomUp) {
+                pool.invoke(new BottomUpStep(0, nodeCount));
+            } else {
+                pool.invoke(new TopDownStep(0, this.frontierSize));
+            }
+            frontierEdges = this.nextOutboundEdges.sum();
+            unvisitedEdges -= this.nextInboundEdges.sum();
+            final int[] expanded = this.frontier;
+            this.frontier = this.next;
+            this.next = expanded;
+            this.frontierSize = this.nextSize.get();
+            this.depth++;
+        }
+        return this.distances;
+    }
+
+    /**
+     * Adds nodes to the next level, reserving room for all of them at once so that tasks rarely contend.
+     * @param nodes the nodes to add, in the first {@code count} elements.
+     * @param count the number of nodes to add.
+     */
+    private void publish(final int[] nodes, final int count) {
+        if (count == 0) {
+            return;
+        }
+        long outbound = 0;
+        long inbound = 0;
+        for (int i = 0; i < count; i++) {
+            outbound += this.offsets[nodes[i] + 1] - this.offsets[nodes[i]];
+            inbound += this.reverseOffsets[nodes[i] + 1] - this.reverseOffsets[nodes[i]];
+        }
+        System.arraycopy(nodes, 0, this.next, this.nextSize.getAndAdd(count), count);
+        this.nextOutboundEdges.add(outbound);
+        this.nextInboundEdges.add(inbound);
+    }
+
+    /**
+     * Atomically sets a node's bit in the visited bitset.
+     * @param node id of a node.
+     * @return true if the bit was clear, i.e., the caller is the one who claimed the node.
+     */
+    private boolean claim(final int node) {
+        final int word = node >>> WORD_SHIFT;
+        final long mask = 1L << node;
+        long bits = this.visited.get(word);
+        while ((bits & mask) == 0) {
+            final long witness = this.visited.compareAndExchange(word, bits, bits | mask);
+            if (witness == bits) {
+                return true;
+            }
+            bits = witness;
+        }
+        return false;
+    }
+
+    /**
+     * Expands a range of the current level top-down.
+     */
+    private final class TopDownStep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Index in the frontier of the first node to expand.
+         */
+        private final int start;
+
+        /**
+         * Index in the frontier after the last node to expand.
+         */
+        private final int end;
+
+        private TopDownStep(final int start, final int end) {
+            super();
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > TOP_DOWN_GRAIN) {
+                final int middle = (this.start + this.end) >>> 1;
+                invokeAll(new TopDownStep(this.start, middle), new TopDownStep(middle, this.end));
+                return;
+            }
+            final ParallelBreadthFirstSearch search = ParallelBreadthFirstSearch.this;
+            int[] claimed = new int[INITIAL_BUFFER_CAPACITY];
+            int count = 0;
+            for (int position = this.start; position < this.end; position++) {
+                final int curr = search.frontier[position];
+                for (int i = search.offsets[curr]; i < search.offsets[curr + 1]; i++) {
+                    final int neighbor = search.targets[i];
+                    if (search.claim(neighbor)) {
+                        search.distances[neighbor] = search.depth + 1;
+                        if (count == claimed.length) {
+                            claimed = Arrays.copyOf(claimed, count * 2);
+                        }
+                        claimed[count++] = neighbor;
+                    }
+                }
+            }
+            search.publish(claimed, count);
+        }
+    }
+
+    /**
+     * Examines a range of node ids bottom-up, giving each unvisited node whose parent is on the current level the
+     * next level's depth. A node is on the current level if and only if its distance is the current depth; distances
+     * assigned by other tasks during this level are one greater, so they can't be mistaken for it.
+     */
+    private final class BottomUpStep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first node id to examine.
+         */
+        private final int start;
+
+        /**
+         * The node id after the last one to examine.
+         */
+        private final int end;
+
+        private BottomUpStep(final int start, final int end) {
+            super();
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > BOTTOM_UP_GRAIN) {
+                final int middle = (this.start + this.end) >>> 1;
+                invokeAll(new BottomUpStep(this.start, middle), new BottomUpStep(middle, this.end));
+                return;
+            }
+            final ParallelBreadthFirstSearch search = ParallelBreadthFirstSearch.this;
+            final int[] claimed = new int[this.end - this.start];
+            int count = 0;
+            for (int node = this.start; node < this.end; node++) {
+                if (search.distances[node] != UNREACHED) {
+                    continue;
+                }
+                for (int i = search.reverseOffsets[node]; i < search.reverseOffsets[node + 1]; i++) {
+                    if (search.distances[search.reverseTargets[i]] == search.depth) {
+                        search.claim(node);
+                        search.distances[node] = search.depth + 1;
+                        claimed[count++] = node;
+                        break;
+                    }
+                }
+            }
+            search.publish(claimed, count);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Labels the connected components of an undirected graph in compressed sparse row form (see {@link CsrGraph}) with
+ * the Afforest algorithm, running each phase in parallel on a {@link ForkJoinPool}. Every node starts out as the root
+ * of a tree of its own, and an edge is processed by linking the roots of its ends' trees with a compare-and-set that
+ * always hooks the higher root under the lower one, so each tree's root is the lowest id in it and no cycles can form.
+ * First, every node links along its first couple of edges only, which is usually enough to join most of a large graph
+ * into one giant component. A small random sample of nodes then finds that component, and the remaining phase skips
+ * every node inside it: since every edge is stored at both of its ends, an edge between the giant component and the
+ * rest is still seen from its other end. On graphs with a giant component, most edges are never looked at. (See
+ * Sutton, Ben-Nun and Barak, "Optimizing Parallel Graph Connectivity Computation via Subgraph Sampling", 2018.)
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class ParallelComponents {
+
+    /**
+     * The number of edges of each node linked before the giant component is sampled.
+     */
+    private static final int NEIGHBOR_ROUNDS = 2;
+
+    /**
+     * The number of nodes sampled to find the giant component.
+     */
+    private static final int SAMPLE_SIZE = 1024;
+
+    /**
+     * Seeds the sample, so that the work done is the same from one run to the next.
+     */
+    private static final long SAMPLE_SEED = 1;
+
+    /**
+     * The most nodes a single task examines without splitting.
+     */
+    private static final int NODE_GRAIN = 4096;
+
+    /**
+     * CSR edge offsets of each node.
+     */
+    private final int[] offsets;
+
+    /**
+     * CSR edge termini.
+     */
+    private final int[] targets;
+
+    /**
+     * The parent of each node in its component's tree. Roots are their own parents, and a parent never has a higher
+     * id than its child.
+     */
+    private final AtomicIntegerArray parents;
+
+    /**
+     * Prepares a labeling.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     */
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    private ParallelComponents(final int[] offsets, final int[] targets) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.parents = new AtomicIntegerArray(offsets.length - 1);
+        for (int node = 0; node < this.parents.length(); node++) {
+            this.parents.setPlain(node, node);
+        }
+    }
+
+    /**
+     * Labels every node with the id of its connected component.
+     * @param snapshot an undirected graph, which has every edge in both directions.
+     * @param pool the pool whose workers run each phase.
+     * @param <T> the data type of nodes' values.
+     * @return the labeling. Components are numbered in the order of their lowest node ids.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    /* default */ static <T> ComponentLabeling<T> label(final CsrGraph<T> snapshot, final ForkJoinPool pool) {
+        final ParallelComponents labeling = new ParallelComponents(snapshot.offsets(), snapshot.targets());
+        final int nodeCount = snapshot.size();
+        if (nodeCount == 0) {
+            return new ComponentLabeling<>(snapshot, new int[0], 0);
+        }
+        for (int round = 0; round < NEIGHBOR_ROUNDS; round++) {
+            pool.invoke(labeling.new LinkStep(0, nodeCount, round, round + 1, -1));
+            pool.invoke(labeling.new CompressStep(0, nodeCount));
+        }
+        final int giant = labeling.sampleLargestComponent();
+        pool.invoke(labeling.new LinkStep(0, nodeCount, NEIGHBOR_ROUNDS, Integer.MAX_VALUE, giant));
+        pool.invoke(labeling.new CompressStep(0, nodeCount));
+        return labeling.compact(snapshot);
+    }
+
+    /**
+     * Joins the trees of two nodes, hooking the higher of their roots under the lower.
+     * @param first a node.
+     * @param second another node.
+     */
+    private void link(final int first, final int second) {
+        int firstParent = this.parents.get(first);
+        int secondParent = this.parents.get(second);
+        while (firstParent != secondParent) {
+            final int high = Math.max(firstParent, secondParent);
+            final int low = Math.min(firstParent, secondParent);
+            final int highParent = this.parents.get(high);
+            if (highParent == low
+                    || highParent == high && this.parents.compareAndSet(high, high, low)) {
+                return;
+            }
+            // someone else hooked the higher node first, so climb and try again
+            firstParent = this.parents.get(this.parents.get(high));
+            secondParent = this.parents.get(low);
+        }
+    }
+
+    /**
+     * Points a node straight at its root. Roots only ever move down to lower ids, so the loop ends.
+     * @param node a node.
+     */
+    private void compress(final int node) {
+        int parent = this.parents.get(node);
+        int grandparent = this.parents.get(parent);
+        while (parent != grandparent) {
+            this.parents.set(node, grandparent);
+            parent = grandparent;
+            grandparent = this.parents.get(parent);
+        }
+    }
+
+    /**
+     * Estimates which component is largest from the roots of a random sample of nodes, whose trees have all been
+     * compressed.
+     * @return the root the most sampled nodes belong to.
+     */
+    private int sampleLargestComponent() {
+        final Random random = new Random(SAMPLE_SEED);
+        final int[] roots = new int[SAMPLE_SIZE];
+        for (int sample = 0; sample < SAMPLE_SIZE; sample++) {
+            roots[sample] = this.parents.get(random.nextInt(this.parents.length()));
+        }
+        Arrays.sort(roots);
+        int largest = roots[0];
+        int largestCount = 0;
+        int runStart = 0;
+        for (int sample = 1; sample <= SAMPLE_SIZE; sample++) {
+            if (sample == SAMPLE_SIZE || roots[sample] != roots[runStart]) {
+                if (sample - runStart > largestCount) {
+                    largest = roots[runStart];
+                    largestCount = sample - runStart;
+                }
+                runStart = sample;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Numbers the components, whose trees have all been compressed, from 0, in the order of their roots.
+     * @param snapshot the graph.
+     * @param <T> the data type of nodes' values.
+     * @return the labeling.
+     */
+    private <T> ComponentLabeling<T> compact(final CsrGraph<T> snapshot) {
+        final int[] labels = new int[this.parents.length()];
+        int count = 0;
+        for (int node = 0; node < labels.length; node++) {
+            final int root = this.parents.get(node);
+            // a root has the lowest id in its tree, so it is labeled before the rest of the tree
+            labels[node] = root == node ? count++ : labels[root];
+        }
+        return new ComponentLabeling<>(snapshot, labels, count);
+    }
+
+    /**
+     * Links a range of nodes along a range of their edges, skipping the nodes in one component.
+     */
+    private final class LinkStep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first node id to examine.
+         */
+        private final int start;
+
+        /**
+         * The node id after the last one to examine.
+         */
+        private final int end;
+
+        /**
+         * The position among each node's edges of the first one to link along.
+         */
+        private final int firstEdge;
+
+        /**
+         * The position among each node's edges after the last one to link along.
+         */
+        private final int lastEdge;
+
+        /**
+         * The root of the component whose nodes are skipped, or -1 to skip none.
+         */
+        private final int skipped;
+
+        private LinkStep(final int start, final int end, final int firstEdge, final int lastEdge, final int skipped) {
+            super();
+            this.start = start;
+            this.end = end;
+            this.firstEdge = firstEdge;
+            this.lastEdge = lastEdge;
+            this.skipped = skipped;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > NODE_GRAIN) {
+                final int middle = (this.start + this.end) >>> 1;
+                invokeAll(new LinkStep(this.start, middle, this.firstEdge, this.lastEdge, this.skipped),
+                        new LinkStep(middle, this.end, this.firstEdge, this.lastEdge, this.skipped));
+                return;
+            }
+            final ParallelComponents labeling = ParallelComponents.this;
+            for (int node = this.start; node < this.end; node++) {
+                if (labeling.parents.get(node) == this.skipped) {
+                    continue;
+                }
+                final int edgeEnd = labeling.offsets[node + 1];
+                final int first = labeling.offsets[node] + this.firstEdge;
+                final int last = edgeEnd - labeling.offsets[node] > this.lastEdge
+                        ? labeling.offsets[node] + this.lastEdge : edgeEnd;
+                for (int edge = first; edge < last; edge++) {
+                    labeling.link(node, labeling.targets[edge]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Points every node in a range straight at its root.
+     */
+    private final class CompressStep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first node id to examine.
+         */
+        private final int start;
+
+        /**
+         * The node id after the last one to examine.
+         */
+        private final int end;
+
+        private CompressStep(final int start, final int end) {
+            super();
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > NODE_GRAIN) {
+                final int middle = (this.start + this.end) >>> 1;
+                invokeAll(new CompressStep(this.start, middle), new CompressStep(middle, this.end));
+                return;
+            }
+            for (int node = this.start; node < this.end; node++) {
+                ParallelComponents.this.compress(node);
+            }
+        }
+    }
+}
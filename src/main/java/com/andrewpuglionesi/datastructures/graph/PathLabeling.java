@@ -0,0 +1,104 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The result of a weighted path search from a single source: each node is labeled with the total weight of the best
+ * path from the source to the node, and with the node before it on that path, so the path itself can be retraced.
+ * The labels are stored as primitive arrays indexed by the node ids of a {@link CsrGraph} snapshot.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.ArrayIsStoredDirectly"})
+public final class PathLabeling<T> {
+
+    /**
+     * The snapshot whose nodes were labeled.
+     */
+    private final CsrGraph<T> snapshot;
+
+    /**
+     * {@code distances[i]} is the weight of the path to the node whose id in {@code snapshot} is {@code i}.
+     */
+    private final double[] distances;
+
+    /**
+     * {@code predecessors[i]} is the id of the node before node {@code i} on its path, or
+     * {@link TopologicalSort#NO_PREDECESSOR}.
+     */
+    private final int[] predecessors;
+
+    /**
+     * The id of the source.
+     */
+    private final int source;
+
+    /**
+     * Creates a labeling.
+     * @param snapshot the snapshot whose nodes were labeled.
+     * @param distances the weight of the path to each node, indexed by the nodes' ids in {@code snapshot}.
+     * @param predecessors the node before each node on its path, indexed likewise.
+     * @param source the id of the source.
+     */
+    /* default */ PathLabeling(final CsrGraph<T> snapshot, final double[] distances, final int[] predecessors,
+                               final int source) {
+        this.snapshot = snapshot;
+        this.distances = distances;
+        this.predecessors = predecessors;
+        this.source = source;
+    }
+
+    /**
+     * @param node value of a node.
+     * @return the total weight of the edges on the path from the source to {@code node}, 0 if {@code node} is the
+     * source, or an infinity if there is no such path: positive when searching for the lightest paths, negative when
+     * searching for the heaviest.
+     * @throws NoSuchElementException if the node was not in the labeled graph.
+     */
+    public double distanceTo(final T node) {
+        return this.distances[this.requireId(node)];
+    }
+
+    /**
+     * @param node value of a node.
+     * @return true if there is a path from the source to {@code node}, or {@code node} is the source.
+     * @throws NoSuchElementException if the node was not in the labeled graph.
+     */
+    public boolean isReachable(final T node) {
+        final int id = this.requireId(node);
+        return id == this.source || this.predecessors[id] != TopologicalSort.NO_PREDECESSOR;
+    }
+
+    /**
+     * @param node value of a node.
+     * @return the nodes on the path from the source to {@code node}, both included, or an empty list if there is no
+     * such path.
+     * @throws NoSuchElementException if the node was not in the labeled graph.
+     */
+    public List<T> pathTo(final T node) {
+        if (!this.isReachable(node)) {
+            return Collections.emptyList();
+        }
+        final List<T> path = new ArrayList<>();
+        for (int id = this.snapshot.idOf(node); id != TopologicalSort.NO_PREDECESSOR; id = this.predecessors[id]) {
+            path.add(this.snapshot.valueOf(id));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * @param node value of a node.
+     * @return the node's id in the snapshot.
+     * @throws NoSuchElementException if the node was not in the labeled graph.
+     */
+    private int requireId(final T node) {
+        final int id = this.snapshot.idOf(node);
+        if (id < 0) {
+            throw new NoSuchElementException("No node exists with value " + node);
+        }
+        return id;
+    }
+}
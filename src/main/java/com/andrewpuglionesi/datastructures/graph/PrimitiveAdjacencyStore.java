@@ -0,0 +1,358 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Stores a graph in primitive arrays. Each node's value is interned to a dense int id when the node is added, and from
+ * then on edges are kept as growable int (terminus id) and double (weight) arrays per node. An open-addressing table
+ * keyed by the (origin, terminus) id pair locates an edge within its origin's arrays, so no object is allocated per
+ * edge.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.TooManyMethods", "PMD.UseConcurrentHashMap"})
+final class PrimitiveAdjacencyStore<T> implements AdjacencyStore<T> {
+
+    /**
+     * Capacity of the per-node arrays allocated when a node gains its first edge.
+     */
+    private static final int INITIAL_DEGREE_CAPACITY = 4;
+
+    /**
+     * Number of nodes the store has room for before its first resize.
+     */
+    private static final int INITIAL_NODE_CAPACITY = 16;
+
+    /**
+     * Maps a node's value to its id.
+     */
+    private final Map<T, Integer> ids = new HashMap<>();
+
+    /**
+     * Maps an edge's (origin id, terminus id) key to the edge's index within its origin's arrays.
+     */
+    private final LongIntHashMap edgeIndex = new LongIntHashMap(INITIAL_NODE_CAPACITY);
+
+    /**
+     * Maps a node's id to its value.
+     */
+    private Object[] values = new Object[INITIAL_NODE_CAPACITY];
+
+    /**
+     * {@code targets[i]} holds the terminus ids of node {@code i}'s edges, in its first {@code degrees[i]} elements.
+     */
+    private int[][] targets = new int[INITIAL_NODE_CAPACITY][];
+
+    /**
+     * {@code weights[i]} holds the weights of node {@code i}'s edges, parallel to {@code targets[i]}.
+     */
+    private double[][] weights = new double[INITIAL_NODE_CAPACITY][];
+
+    /**
+     * {@code degrees[i]} is the number of edges whose origin is node {@code i}.
+     */
+    private int[] degrees = new int[INITIAL_NODE_CAPACITY];
+
+    /**
+     * Counts the edges and sums their weights.
+     */
+    private final EdgeTally edgeTally = new EdgeTally();
+
+    @Override
+    public boolean addNode(final T value) {
+        if (this.ids.containsKey(value)) {
+            return false;
+        }
+        this.appendNode(value);
+        return true;
+    }
+
+    @Override
+    public boolean containsNode(final T value) {
+        return this.ids.containsKey(value);
+    }
+
+    @Override
+    public int size() {
+        return this.ids.size();
+    }
+
+    @Override
+    public void putEdge(final T from, final T to, final double weight) {
+        this.putEdge(this.ids.get(from), this.ids.get(to), weight);
+    }
+
+    /**
+     * Interns every node once, counts how many edges each origin is gaining, and grows each origin's arrays and the
+     * edge index to their final sizes before adding any edge, so no array is resized more than once.
+     */
+    @Override
+    public void putEdges(final T[] origins, final T[] termini, final double[] weights, final int count,
+                         final boolean mirrored) {
+        final int[] originIds = new int[count];
+        final int[] terminusIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            originIds[i] = this.intern(origins[i]);
+            terminusIds[i] = this.intern(termini[i]);
+        }
+        final int[] gained = new int[this.size()];
+        int gainedTotal = 0;
+        for (int i = 0; i < count; i++) {
+            gained[originIds[i]]++;
+            gainedTotal++;
+            if (mirrored && originIds[i] != terminusIds[i]) {
+                gained[terminusIds[i]]++;
+                gainedTotal++;
+            }
+        }
+        for (int id = 0; id < gained.length; id++) {
+            if (gained[id] > 0) {
+                this.ensureDegreeCapacity(id, this.degrees[id] + gained[id]);
+            }
+        }
+        this.edgeIndex.ensureCapacity(this.edgeIndex.size() + gainedTotal);
+        for (int i = 0; i < count; i++) {
+            this.putEdge(originIds[i], terminusIds[i], weights[i]);
+            if (mirrored) {
+                this.putEdge(terminusIds[i], originIds[i], weights[i]);
+            }
+        }
+    }
+
+    /**
+     * Adds or updates an edge between two nodes that are already in the store.
+     * @param origin id of the node that is the origin of the edge.
+     * @param terminus id of the node that is the terminus of the edge.
+     * @param weight the numeric weight of the edge.
+     */
+    private void putEdge(final int origin, final int terminus, final double weight) {
+        final long key = LongIntHashMap.key(origin, terminus);
+        final int existing = this.edgeIndex.get(key);
+        if (existing != LongIntHashMap.ABSENT) {
+            this.edgeTally.reweighted(this.weights[origin][existing], weight);
+            this.weights[origin][existing] = weight;
+            return;
+        }
+        final int degree = this.degrees[origin];
+        if (this.targets[origin] == null) {
+            this.ensureDegreeCapacity(origin, INITIAL_DEGREE_CAPACITY);
+        } else if (degree == this.targets[origin].length) {
+            this.ensureDegreeCapacity(origin, degree * 2);
+        }
+        this.targets[origin][degree] = terminus;
+        this.weights[origin][degree] = weight;
+        this.degrees[origin] = degree + 1;
+        this.edgeIndex.put(key, degree);
+        this.edgeTally.added(weight, origin == terminus);
+    }
+
+    @Override
+    public boolean removeEdge(final T from, final T to) {
+        final Integer origin = this.ids.get(from);
+        final Integer terminus = this.ids.get(to);
+        if (origin == null || terminus == null) {
+            return false;
+        }
+        final int index = this.edgeIndex.remove(LongIntHashMap.key(origin, terminus));
+        if (index == LongIntHashMap.ABSENT) {
+            return false;
+        }
+        this.edgeTally.removed(this.weights[origin][index], origin.equals(terminus));
+        // Fill the hole with the origin's last edge, so each node's edges stay contiguous.
+        final int last = this.degrees[origin] - 1;
+        if (index != last) {
+            final int movedTerminus = this.targets[origin][last];
+            this.targets[origin][index] = movedTerminus;
+            this.weights[origin][index] = this.weights[origin][last];
+            this.edgeIndex.put(LongIntHashMap.key(origin, movedTerminus), index);
+        }
+        this.degrees[origin] = last;
+        return true;
+    }
+
+    @Override
+    public boolean containsEdge(final T from, final T to) {
+        return this.indexOf(from, to) != LongIntHashMap.ABSENT;
+    }
+
+    @Override
+    public double edgeWeight(final T from, final T to) {
+        final int index = this.indexOf(from, to);
+        if (index == LongIntHashMap.ABSENT) {
+            throw new NoSuchElementException("No edge exists from " + from + " to " + to);
+        }
+        return this.weights[this.ids.get(from)][index];
+    }
+
+    @Override
+    public int outDegree(final T from) {
+        return this.degrees[this.ids.get(from)];
+    }
+
+    @Override
+    public void forEachEdge(final T from, final ObjDoubleConsumer<T> action) {
+        final int origin = this.ids.get(from);
+        final int[] edgeTargets = this.targets[origin];
+        final double[] edgeWeights = this.weights[origin];
+        for (int i = 0; i < this.degrees[origin]; i++) {
+            action.accept(this.valueOf(edgeTargets[i]), edgeWeights[i]);
+        }
+    }
+
+    @Override
+    public EdgeTally tally() {
+        return this.edgeTally;
+    }
+
+    @Override
+    public EdgeCursor<T> newCursor() {
+        return new Cursor();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int nextId;
+
+            @Override
+            public boolean hasNext() {
+                return this.nextId < PrimitiveAdjacencyStore.this.size();
+            }
+
+            @Override
+            public T next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return PrimitiveAdjacencyStore.this.valueOf(this.nextId++);
+            }
+        };
+    }
+
+    /**
+     * Adds a node that is not yet in the store.
+     * @param value value of the node.
+     * @return the new node's id.
+     */
+    private int appendNode(final T value) {
+        final int id = this.ids.size();
+        if (id == this.values.length) {
+            final int capacity = id * 2;
+            this.values = Arrays.copyOf(this.values, capacity);
+            this.targets = Arrays.copyOf(this.targets, capacity);
+            this.weights = Arrays.copyOf(this.weights, capacity);
+            this.degrees = Arrays.copyOf(this.degrees, capacity);
+        }
+        this.values[id] = value;
+        this.ids.put(value, id);
+        return id;
+    }
+
+    /**
+     * @param value value of a node, which is added to the store if it is not already there.
+     * @return the node's id.
+     */
+    private int intern(final T value) {
+        final Integer id = this.ids.get(value);
+        return id == null ? this.appendNode(value) : id;
+    }
+
+    /**
+     * Grows a node's edge arrays, if necessary, so that they can hold at least {@code capacity} edges.
+     * @param id the node's id.
+     * @param capacity the number of edges the arrays should be able to hold.
+     */
+    private void ensureDegreeCapacity(final int id, final int capacity) {
+        if (this.targets[id] == null) {
+            this.targets[id] = new int[capacity];
+            this.weights[id] = new double[capacity];
+        } else if (this.targets[id].length < capacity) {
+            this.targets[id] = Arrays.copyOf(this.targets[id], capacity);
+            this.weights[id] = Arrays.copyOf(this.weights[id], capacity);
+        }
+    }
+
+    /**
+     * @param from value of the node that is the origin of the edge.
+     * @param to value of the node that is the terminus of the edge.
+     * @return the index of the edge within its origin's arrays, or {@link LongIntHashMap#ABSENT} if there is no such
+     * edge.
+     */
+    private int indexOf(final T from, final T to) {
+        final Integer origin = this.ids.get(from);
+        final Integer terminus = this.ids.get(to);
+        if (origin == null || terminus == null) {
+            return LongIntHashMap.ABSENT;
+        }
+        return this.edgeIndex.get(LongIntHashMap.key(origin, terminus));
+    }
+
+    /**
+     * @param id a node's id.
+     * @return the value of the node.
+     */
+    @SuppressWarnings("unchecked")
+    private T valueOf(final int id) {
+        return (T) this.values[id];
+    }
+
+    /**
+     * Walks a node's edges by index, so walking edges allocates nothing at all.
+     */
+    private final class Cursor implements EdgeCursor<T> {
+        /**
+         * Id of the node whose edges are being walked.
+         */
+        private int origin;
+
+        /**
+         * Index of the edge the cursor is on within the origin's arrays.
+         */
+        private int index;
+
+        /**
+         * The number of edges of the origin node.
+         */
+        private int degree;
+
+        @Override
+        public void reset(final T source) {
+            final Integer id = PrimitiveAdjacencyStore.this.ids.get(source);
+            if (id == null) {
+                throw new NoSuchElementException("Cannot retrieve edges because node does not exist in graph: "
+                        + source);
+            }
+            this.origin = id;
+            this.index = -1;
+            this.degree = PrimitiveAdjacencyStore.this.degrees[id];
+        }
+
+        @Override
+        public boolean advance() {
+            if (this.index + 1 >= this.degree) {
+                return false;
+            }
+            this.index++;
+            return true;
+        }
+
+        @Override
+        public T source() {
+            return PrimitiveAdjacencyStore.this.valueOf(this.origin);
+        }
+
+        @Override
+        public T destination() {
+            return PrimitiveAdjacencyStore.this.valueOf(PrimitiveAdjacencyStore.this.targets[this.origin][this.index]);
+        }
+
+        @Override
+        public double weight() {
+            return PrimitiveAdjacencyStore.this.weights[this.origin][this.index];
+        }
+    }
+}
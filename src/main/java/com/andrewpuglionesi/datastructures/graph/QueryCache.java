@@ -0,0 +1,159 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of the results of a {@link Graph}'s queries, which evicts the least recently used result once it is
+ * full. Each result is stamped with the graph's mutation version (see {@link Graph#version()}) from before the query
+ * ran, and is served only while the graph is still at that version, so no result is served after a mutation that
+ * could have changed it; a stale result is replaced the next time its query runs, if it is not evicted first. Lookups
+ * are synchronized, but queries run outside the lock, so threads sharing a concurrent graph never wait on one
+ * another's searches. A cache with no capacity stores nothing and counts nothing.
+ */
+final class QueryCache {
+
+    /**
+     * A cache that stores nothing.
+     */
+    /* default */ static final QueryCache DISABLED = new QueryCache(0);
+
+    /**
+     * The most results the cache holds.
+     */
+    private final int capacity;
+
+    /**
+     * Maps each query and its arguments to its latest result, least recently used first.
+     */
+    private final Map<List<Object>, Result> results;
+
+    /**
+     * Guards the results and the counters.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The number of lookups answered from the cache.
+     */
+    private long hitCount;
+
+    /**
+     * The number of lookups that had to run their query.
+     */
+    private long missCount;
+
+    /**
+     * Creates an empty cache.
+     * @param capacity the most results the cache holds.
+     * @throws IllegalArgumentException if the capacity is negative.
+     */
+    /* default */ QueryCache(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("A query cache cannot have a negative capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<List<Object>, Result> eldest) {
+                return this.size() > QueryCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @return true if the cache can hold any results.
+     */
+    /* default */ boolean isEnabled() {
+        return this.capacity > 0;
+    }
+
+    /**
+     * Looks up the result of a query, running the query and caching its result unless the cache holds a result of it
+     * stamped with the current version.
+     * @param key the query's name followed by its arguments.
+     * @param version the graph's mutation version, read before the query runs.
+     * @param query computes the result.
+     * @param <R> the type of the result.
+     * @return the result of the query at {@code version}.
+     */
+    @SuppressWarnings("unchecked")
+    /* default */ <R> R get(final List<Object> key, final long version, final Supplier<R> query) {
+        if (!this.isEnabled()) {
+            return query.get();
+        }
+        this.lock.lock();
+        try {
+            final Result cached = this.results.get(key);
+            if (cached != null && cached.version == version) {
+                this.hitCount++;
+                return (R) cached.value;
+            }
+            this.missCount++;
+        } finally {
+            this.lock.unlock();
+        }
+        final R value = query.get();
+        this.lock.lock();
+        try {
+            final Result cached = this.results.get(key);
+            // a thread that saw a later version may have cached its result while this one ran
+            if (cached == null || cached.version < version) {
+                this.results.put(key, new Result(version, value));
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        return value;
+    }
+
+    /**
+     * @return the number of lookups answered from the cache.
+     */
+    /* default */ long hits() {
+        this.lock.lock();
+        try {
+            return this.hitCount;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of lookups that had to run their query.
+     */
+    /* default */ long misses() {
+        this.lock.lock();
+        try {
+            return this.missCount;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * A query's result, stamped with the version of the graph it was computed at.
+     */
+    private static final class Result {
+
+        /**
+         * The graph's mutation version from before the query ran.
+         */
+        private final long version;
+
+        /**
+         * The result.
+         */
+        private final Object value;
+
+        private Result(final long version, final Object value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Estimates the betweenness centrality of every node of a graph in compressed sparse row form (see {@link CsrGraph})
+ * with Brandes' algorithm, run from a random sample of source nodes rather than from all of them. A node's
+ * betweenness is the sum, over every ordered pair of other nodes, of the fraction of the shortest paths between the
+ * pair that pass through the node. Each search from a source counts the shortest paths to every node, then walks the
+ * nodes back from the farthest, adding up each node's dependency on the source; scaling the sum of the dependencies
+ * on the sampled sources by the number of nodes over the number of samples gives an unbiased estimate. The searches
+ * are split among the workers of a {@link ForkJoinPool}; each task keeps its own search arrays and running totals,
+ * and adds them to the shared totals when it is done. (See Brandes, "A Faster Algorithm for Betweenness Centrality",
+ * 2001, and Brandes and Pich, "Centrality Estimation in Large Networks", 2007.)
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class SampledBetweenness {
+
+    /**
+     * The most sources a single task searches from without splitting.
+     */
+    private static final int SOURCE_GRAIN = 8;
+
+    /**
+     * CSR edge offsets of each node.
+     */
+    private final int[] offsets;
+
+    /**
+     * CSR edge termini.
+     */
+    private final int[] targets;
+
+    /**
+     * CSR edge weights.
+     */
+    private final double[] weights;
+
+    /**
+     * How to measure the length of a path.
+     */
+    private final DistanceMetric metric;
+
+    /**
+     * The ids of the sampled sources.
+     */
+    private final int[] sources;
+
+    /**
+     * The sum of every node's dependencies on the sources searched so far.
+     */
+    private final double[] totals;
+
+    /**
+     * Guards the totals.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Prepares an estimate.
+     * @param snapshot the graph.
+     * @param metric how to measure the length of a path.
+     * @param sources the ids of the sampled sources.
+     */
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    private SampledBetweenness(final CsrGraph<?> snapshot, final DistanceMetric metric, final int[] sources) {
+        this.offsets = snapshot.offsets();
+        this.targets = snapshot.targets();
+        this.weights = snapshot.weights();
+        this.metric = metric;
+        this.sources = sources;
+        this.totals = new double[snapshot.size()];
+    }
+
+    /**
+     * Estimates the betweenness of every node. For an undirected graph, each pair of nodes is counted once rather than
+     * once in each direction.
+     * @param snapshot the graph.
+     * @param sampleCount the number of sources to search from. If the graph has no more nodes than this, every node
+     *                    is a source and the result is exact.
+     * @param metric how to measure the length of a path.
+     * @param seed seeds the choice of sources.
+     * @param pool the pool whose workers run the searches.
+     * @return the estimated betweenness of each node, indexed by id.
+     */
+    /* default */ static double[] estimate(final CsrGraph<?> snapshot, final int sampleCount,
+                                           final DistanceMetric metric, final long seed, final ForkJoinPool pool) {
+        final int nodeCount = snapshot.size();
+        final int[] nodes = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            nodes[node] = node;
+        }
+        final int count = Math.min(sampleCount, nodeCount);
+        // the first count elements of a partial Fisher-Yates shuffle
+        final Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            final int chosen = i + random.nextInt(nodeCount - i);
+            final int swap = nodes[i];
+            nodes[i] = nodes[chosen];
+            nodes[chosen] = swap;
+        }
+        final SampledBetweenness estimate = new SampledBetweenness(snapshot, metric, Arrays.copyOf(nodes, count));
+        if (count > 0) {
+            pool.invoke(estimate.new SourceStep(0, count));
+        }
+        final double scale = (snapshot.isDirected() ? 1.0 : 0.5) * nodeCount / Math.max(count, 1);
+        for (int node = 0; node < nodeCount; node++) {
+            estimate.totals[node] *= scale;
+        }
+        return estimate.totals;
+    }
+
+    /**
+     * Searches from a source, and adds every node's dependency on it to the node's running total.
+     * @param source id of the source.
+     * @param scratch the search arrays, which hold positive infinity for every distance and 0 for every path count
+     *                and dependency, and are left that way.
+     * @param partial the running totals.
+     */
+    private void accumulate(final int source, final Scratch scratch, final double[] partial) {
+        final int reached = this.metric == DistanceMetric.HOPS ? this.countHops(source, scratch)
+                : this.countWeights(source, scratch);
+        final double[] distances = scratch.distances;
+        final double[] paths = scratch.paths;
+        final double[] dependencies = scratch.dependencies;
+        // every node's successors on shortest paths are farther from the source, so they are done before it
+        for (int position = reached - 1; position >= 0; position--) {
+            final int node = scratch.order[position];
+            double dependency = 0;
+            for (int i = this.offsets[node]; i < this.offsets[node + 1]; i++) {
+                final int target = this.targets[i];
+                if (distances[target] == distances[node] + this.length(i)) {
+                    dependency += paths[node] / paths[target] * (1 + dependencies[target]);
+                }
+            }
+            dependencies[node] = dependency;
+            if (node != source) {
+                partial[node] += dependency;
+            }
+        }
+        for (int position = 0; position < reached; position++) {
+            final int node = scratch.order[position];
+            distances[node] = Double.POSITIVE_INFINITY;
+            paths[node] = 0;
+            dependencies[node] = 0;
+        }
+    }
+
+    /**
+     * Counts the shortest paths from a source to every node with a breadth-first search.
+     * @param source id of the source.
+     * @param scratch receives the distances, the path counts and the order in which nodes were reached.
+     * @return the number of nodes reached.
+     */
+    private int countHops(final int source, final Scratch scratch) {
+        final double[] distances = scratch.distances;
+        final double[] paths = scratch.paths;
+        final int[] order = scratch.order;
+        distances[source] = 0;
+        paths[source] = 1;
+        order[0] = source;
+        int tail = 1;
+        for (int head = 0; head < tail; head++) {
+            final int node = order[head];
+            for (int i = this.offsets[node]; i < this.offsets[node + 1]; i++) {
+                final int target = this.targets[i];
+                if (distances[target] == Double.POSITIVE_INFINITY) {
+                    distances[target] = distances[node] + 1;
+                    order[tail++] = target;
+                }
+                if (distances[target] == distances[node] + 1) {
+                    paths[target] += paths[node];
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Counts the lightest paths from a source to every node with Dijkstra's algorithm.
+     * @param source id of the source.
+     * @param scratch receives the distances, the path counts and the order in which nodes were settled.
+     * @return the number of nodes settled.
+     */
+    private int countWeights(final int source, final Scratch scratch) {
+        final double[] distances = scratch.distances;
+        final double[] paths = scratch.paths;
+        final IndexedMinHeap heap = scratch.heap;
+        distances[source] = 0;
+        paths[source] = 1;
+        heap.offer(source, 0);
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            final int node = heap.poll();
+            scratch.order[settled++] = node;
+            for (int i = this.offsets[node]; i < this.offsets[node + 1]; i++) {
+                final int target = this.targets[i];
+                final double distance = distances[node] + this.weights[i];
+                if (distance < distances[target]) {
+                    distances[target] = distance;
+                    paths[target] = paths[node];
+                    heap.offer(target, distance);
+                } else if (distance == distances[target]) {
+                    paths[target] += paths[node];
+                }
+            }
+        }
+        return settled;
+    }
+
+    /**
+     * @param edge the slot of an edge.
+     * @return the length the edge adds to a path.
+     */
+    private double length(final int edge) {
+        return this.metric == DistanceMetric.HOPS ? 1 : this.weights[edge];
+    }
+
+    /**
+     * Adds a task's running totals to the shared ones.
+     * @param partial the task's totals.
+     */
+    private void merge(final double[] partial) {
+        this.lock.lock();
+        try {
+            for (int node = 0; node < partial.length; node++) {
+                this.totals[node] += partial[node];
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * The arrays a task searches with, reused from one source to the next.
+     */
+    private static final class Scratch {
+
+        /**
+         * The distance from the source to each node, or positive infinity.
+         */
+        private final double[] distances;
+
+        /**
+         * The number of shortest paths from the source to each node.
+         */
+        private final double[] paths;
+
+        /**
+         * Each node's dependency on the source.
+         */
+        private final double[] dependencies;
+
+        /**
+         * The nodes in the order they were reached, which is nondecreasing distance from the source.
+         */
+        private final int[] order;
+
+        /**
+         * Orders the nodes waiting to be settled by a weighted search.
+         */
+        private final IndexedMinHeap heap;
+
+        /**
+         * Creates the arrays for a task.
+         * @param nodeCount the number of nodes.
+         * @param weighted true if the task runs weighted searches, which need a heap.
+         */
+        private Scratch(final int nodeCount, final boolean weighted) {
+            this.distances = new double[nodeCount];
+            Arrays.fill(this.distances, Double.POSITIVE_INFINITY);
+            this.paths = new double[nodeCount];
+            this.dependencies = new double[nodeCount];
+            this.order = new int[nodeCount];
+            this.heap = new IndexedMinHeap(weighted ? nodeCount : 0);
+        }
+    }
+
+    /**
+     * Searches from a range of the sampled sources.
+     */
+    private final class SourceStep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Index in the sample of the first source to search from.
+         */
+        private final int start;
+
+        /**
+         * Index in the sample after the last source to search from.
+         */
+        private final int end;
+
+        private SourceStep(final int start, final int end) {
+            super();
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > SOURCE_GRAIN) {
+                final int middle = (this.start + this.end) >>> 1;
+                invokeAll(new SourceStep(this.start, middle), new SourceStep(middle, this.end));
+                return;
+            }
+            final SampledBetweenness estimate = SampledBetweenness.this;
+            final int nodeCount = estimate.totals.length;
+            final Scratch scratch = new Scratch(nodeCount, estimate.metric == DistanceMetric.WEIGHTS);
+            final double[] partial = new double[nodeCount];
+            for (int position = this.start; position < this.end; position++) {
+                estimate.accumulate(estimate.sources[position], scratch, partial);
+            }
+            estimate.merge(partial);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+/**
+ * The ways a breadth-first search can look for the shortest path between two nodes. The choice affects speed, never
+ * the distance found.
+ */
+public enum SearchDirection {
+    /**
+     * Searches outward from the origin node until the destination is reached. Cheapest when the destination is close
+     * to the origin, or when the graph branches out slowly.
+     */
+    FORWARD,
+    /**
+     * Searches forward from the origin and backward from the destination at the same time, stopping where the two
+     * searches meet. On graphs where the number of nodes within a given distance grows quickly, such as social
+     * networks, this visits a small fraction of the nodes a forward search would. Searching backward through a
+     * directed graph requires its reverse adjacency: a snapshot builds it on first use and then keeps it, and a live
+     * {@link DirectedGraph} uses its index of inbound edges, and searches forward if it has none.
+     */
+    BIDIRECTIONAL
+}
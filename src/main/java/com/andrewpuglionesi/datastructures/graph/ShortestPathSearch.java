@@ -0,0 +1,167 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Finds the lightest path between two nodes of a {@link Graph} with Dijkstra's algorithm, or with A* when given a
+ * heuristic. Nodes are given dense ids in the order the search discovers them, so the distances, predecessors and
+ * {@link IndexedMinHeap} are primitive arrays that only grow as large as the part of the graph the search explores,
+ * and the search stops as soon as it settles the destination. A good heuristic steers the search towards the
+ * destination, so it settles far fewer nodes. Each search is used once.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.UseConcurrentHashMap"})
+final class ShortestPathSearch<T> {
+
+    /**
+     * How many nodes the arrays make room for at first.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Marks the absence of a predecessor on a path.
+     */
+    private static final int NO_PREDECESSOR = -1;
+
+    /**
+     * Walks the graph's outbound edges.
+     */
+    private final EdgeCursor<T> cursor;
+
+    /**
+     * Estimates the weight of the lightest path from a node to the destination.
+     */
+    private final ToDoubleFunction<? super T> heuristic;
+
+    /**
+     * Maps each discovered node's value to its id.
+     */
+    private final Map<T, Integer> ids = new HashMap<>();
+
+    /**
+     * Maps each discovered node's id to its value.
+     */
+    private final List<T> values = new ArrayList<>();
+
+    /**
+     * Orders the nodes waiting to be settled by their distance from the origin plus their estimated distance to the
+     * destination.
+     */
+    private final IndexedMinHeap heap = new IndexedMinHeap(INITIAL_CAPACITY);
+
+    /**
+     * {@code distances[i]} is the weight of the lightest path found so far to node {@code i}.
+     */
+    private double[] distances = new double[INITIAL_CAPACITY];
+
+    /**
+     * {@code estimates[i]} is the heuristic's estimate for node {@code i}, computed once, when it is discovered.
+     */
+    private double[] estimates = new double[INITIAL_CAPACITY];
+
+    /**
+     * {@code predecessors[i]} is the id of the node before node {@code i} on the lightest path found so far.
+     */
+    private int[] predecessors = new int[INITIAL_CAPACITY];
+
+    /**
+     * Creates a search.
+     * @param graph the graph to search.
+     * @param heuristic estimates the weight of the lightest path from a node to the destination. To guarantee that
+     *                  the path found is the lightest, it must never overestimate.
+     */
+    /* default */ ShortestPathSearch(final Graph<T> graph, final ToDoubleFunction<? super T> heuristic) {
+        this.cursor = graph.edgeCursor();
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Finds the lightest path between two nodes, both of which must be in the graph.
+     * @param from value of the origin node.
+     * @param to value of the destination node.
+     * @return the lightest path from {@code from} to {@code to}.
+     * @throws IllegalStateException if the search reaches an edge of negative weight.
+     */
+    /* default */ WeightedPath<T> between(final T from, final T to) {
+        final int source = this.discover(from);
+        final int target = this.discover(to);
+        this.distances[source] = 0;
+        this.heap.offer(source, this.estimates[source]);
+        int settled = 0;
+        while (!this.heap.isEmpty()) {
+            final int node = this.heap.poll();
+            settled++;
+            if (node == target) {
+                return new WeightedPath<>(this.distances[target], this.pathTo(target), settled);
+            }
+            this.relaxEdges(node);
+        }
+        return new WeightedPath<>(Double.POSITIVE_INFINITY, Collections.emptyList(), settled);
+    }
+
+    /**
+     * Offers every neighbor of a settled node a path through it.
+     * @param node id of the node.
+     * @throws IllegalStateException if the node has an edge of negative weight.
+     */
+    private void relaxEdges(final int node) {
+        this.cursor.reset(this.values.get(node));
+        while (this.cursor.advance()) {
+            final double weight = this.cursor.weight();
+            if (weight < 0) {
+                throw new IllegalStateException("Cannot find the lightest path through an edge of negative weight");
+            }
+            final int neighbor = this.discover(this.cursor.destination());
+            final double distance = this.distances[node] + weight;
+            if (distance < this.distances[neighbor]) {
+                this.distances[neighbor] = distance;
+                this.predecessors[neighbor] = node;
+                this.heap.offer(neighbor, distance + this.estimates[neighbor]);
+            }
+        }
+    }
+
+    /**
+     * @param value value of a node.
+     * @return the node's id, which is assigned if the node has not been discovered before.
+     */
+    private int discover(final T value) {
+        final Integer known = this.ids.get(value);
+        if (known != null) {
+            return known;
+        }
+        final int id = this.values.size();
+        if (id == this.distances.length) {
+            final int grown = id * 2;
+            this.distances = Arrays.copyOf(this.distances, grown);
+            this.estimates = Arrays.copyOf(this.estimates, grown);
+            this.predecessors = Arrays.copyOf(this.predecessors, grown);
+            this.heap.ensureCapacity(grown);
+        }
+        this.ids.put(value, id);
+        this.values.add(value);
+        this.distances[id] = Double.POSITIVE_INFINITY;
+        this.estimates[id] = this.heuristic.applyAsDouble(value);
+        this.predecessors[id] = NO_PREDECESSOR;
+        return id;
+    }
+
+    /**
+     * @param target id of a node with a path to it.
+     * @return the nodes on the path, from the origin to {@code target}.
+     */
+    private List<T> pathTo(final int target) {
+        final List<T> path = new ArrayList<>();
+        for (int id = target; id != NO_PREDECESSOR; id = this.predecessors[id]) {
+            path.add(this.values.get(id));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
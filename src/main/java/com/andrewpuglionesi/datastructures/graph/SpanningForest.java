@@ -0,0 +1,107 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+
+/**
+ * The result of a minimum spanning forest search: for every connected component of an undirected graph, a tree of
+ * the component's edges that connects all of its nodes with the lightest total weight. The forest's edges are stored
+ * as primitive arrays of the node ids of a {@link CsrGraph} snapshot, so a forest takes sixteen bytes per edge.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.AvoidFieldNameMatchingMethodName", "PMD.ArrayIsStoredDirectly"})
+public final class SpanningForest<T> {
+
+    /**
+     * The snapshot the forest spans.
+     */
+    private final CsrGraph<T> snapshot;
+
+    /**
+     * The id of one end of each edge.
+     */
+    private final int[] sources;
+
+    /**
+     * The id of the other end of each edge.
+     */
+    private final int[] termini;
+
+    /**
+     * The weight of each edge.
+     */
+    private final double[] weights;
+
+    /**
+     * The sum of the edges' weights.
+     */
+    private final double totalWeight;
+
+    /**
+     * Creates a forest.
+     * @param snapshot the snapshot the forest spans.
+     * @param sources the id of one end of each edge.
+     * @param termini the id of the other end of each edge.
+     * @param weights the weight of each edge.
+     */
+    /* default */ SpanningForest(final CsrGraph<T> snapshot, final int[] sources, final int[] termini,
+                                 final double[] weights) {
+        this.snapshot = snapshot;
+        this.sources = sources;
+        this.termini = termini;
+        this.weights = weights;
+        this.totalWeight = Arrays.stream(weights).sum();
+    }
+
+    /**
+     * @return the sum of the weights of the forest's edges, which is the least of any spanning forest of the graph.
+     */
+    public double totalWeight() {
+        return this.totalWeight;
+    }
+
+    /**
+     * @return the number of edges in the forest: the number of nodes, less the number of trees.
+     */
+    public int edgeCount() {
+        return this.sources.length;
+    }
+
+    /**
+     * @return the number of trees in the forest, which is the number of connected components of the graph. A node
+     * without edges is a tree of its own.
+     */
+    public int treeCount() {
+        return this.snapshot.size() - this.sources.length;
+    }
+
+    /**
+     * Passes every edge of the forest to {@code action}, once each, in no particular order or direction.
+     * @param action receives the values of the edge's ends and its weight.
+     */
+    public void forEachEdge(final EdgeConsumer<? super T> action) {
+        for (int i = 0; i < this.sources.length; i++) {
+            action.accept(this.snapshot.valueOf(this.sources[i]), this.snapshot.valueOf(this.termini[i]),
+                    this.weights[i]);
+        }
+    }
+
+    /**
+     * Builds the forest as a graph of its own.
+     * @return a new graph with every node of the spanned graph and every edge of the forest.
+     */
+    @SuppressWarnings("unchecked")
+    public UndirectedGraph<T> toGraph() {
+        final UndirectedGraph<T> forest = new UndirectedGraph<>();
+        for (final T node : this.snapshot) {
+            forest.addNode(node);
+        }
+        final T[] origins = (T[]) new Object[this.sources.length];
+        final T[] ends = (T[]) new Object[this.termini.length];
+        for (int i = 0; i < this.sources.length; i++) {
+            origins[i] = this.snapshot.valueOf(this.sources[i]);
+            ends[i] = this.snapshot.valueOf(this.termini[i]);
+        }
+        forest.addEdges(origins, ends, this.weights.clone());
+        return forest;
+    }
+}
@@ -0,0 +1,191 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps a topological order of an acyclic {@link DirectedGraph} up to date as edges are added, with the algorithm of
+ * Pearce and Kelly. Every node has a position, and every edge leads from a lower position to a higher one. An edge
+ * from x to y that already agrees with the order costs nothing. One that does not can only have put the nodes whose
+ * positions lie between y's and x's out of order, so a forward search from y and a backward search from x, each
+ * confined to that range, find every node that has to move, and the forward search finds the cycle the edge would
+ * close if it reaches x. The nodes found then trade the positions they already hold, those that reach x before those
+ * reachable from y. An insertion therefore takes time in proportion to the edges of the affected range, not to the
+ * size of the graph. Removing an edge never invalidates the order.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.UseConcurrentHashMap"})
+final class TopologicalOrder<T> {
+
+    /**
+     * Maps each node's value to its position. Positions are distinct, but need not be contiguous.
+     */
+    private final Map<T, Integer> positions = new HashMap<>();
+
+    /**
+     * Walks the graph's outbound edges.
+     */
+    private final EdgeCursor<T> successors;
+
+    /**
+     * Walks the graph's inbound edges.
+     */
+    private final EdgeCursor<T> predecessors;
+
+    /**
+     * The position the next node added will take.
+     */
+    private int nextPosition;
+
+    /**
+     * Orders the nodes of a graph that must have an index of its inbound edges, with Kahn's algorithm.
+     * @param graph the graph to order.
+     * @throws IllegalStateException if the graph has a cycle.
+     */
+    /* default */ TopologicalOrder(final DirectedGraph<T> graph) {
+        this.successors = graph.edgeCursor();
+        this.predecessors = graph.inboundCursor();
+        final Map<T, Integer> remaining = new HashMap<>();
+        final Deque<T> ready = new ArrayDeque<>();
+        for (final T node : graph) {
+            final int inDegree = graph.inDegree(node);
+            if (inDegree == 0) {
+                ready.add(node);
+            } else {
+                remaining.put(node, inDegree);
+            }
+        }
+        while (!ready.isEmpty()) {
+            final T node = ready.poll();
+            this.positions.put(node, this.nextPosition++);
+            this.successors.reset(node);
+            while (this.successors.advance()) {
+                final T successor = this.successors.destination();
+                if (remaining.merge(successor, -1, Integer::sum) == 0) {
+                    remaining.remove(successor);
+                    ready.add(successor);
+                }
+            }
+        }
+        if (!remaining.isEmpty()) {
+            throw new IllegalStateException("Cannot keep a topological order of a graph that has a cycle");
+        }
+    }
+
+    /**
+     * Places a node after every node already in the order, unless it is already in the order.
+     * @param value value of the node.
+     */
+    /* default */ void addNode(final T value) {
+        if (!this.positions.containsKey(value)) {
+            this.positions.put(value, this.nextPosition++);
+        }
+    }
+
+    /**
+     * Reorders the graph's nodes, if necessary, so that an edge between two nodes in the order would lead from a
+     * lower position to a higher one. The edge may or may not be in the graph yet.
+     * @param from value of the node that is the origin of the edge.
+     * @param to value of the node that is the terminus of the edge.
+     * @return true if the order now accommodates the edge, or false if the edge closes a cycle, in which case the
+     * order is unchanged, and stays valid if the edge is not added.
+     */
+    /* default */ boolean addEdge(final T from, final T to) {
+        final int lowerBound = this.positions.get(to);
+        final int upperBound = this.positions.get(from);
+        if (lowerBound > upperBound) {
+            return true;
+        }
+        if (lowerBound == upperBound) {
+            return false;
+        }
+        final List<T> forward = new ArrayList<>();
+        if (this.search(to, this.successors, upperBound, true, forward)) {
+            return false;
+        }
+        final List<T> backward = new ArrayList<>();
+        this.search(from, this.predecessors, lowerBound, false, backward);
+        this.reorder(backward, forward);
+        return true;
+    }
+
+    /**
+     * @return the nodes in topological order.
+     */
+    /* default */ List<T> nodes() {
+        final List<T> nodes = new ArrayList<>(this.positions.keySet());
+        nodes.sort(Comparator.comparing(this.positions::get));
+        return nodes;
+    }
+
+    /**
+     * Searches depth-first from a node, following only edges to nodes whose positions lie strictly between the
+     * start's and {@code bound}.
+     * @param start value of the node to start from.
+     * @param cursor walks the edges to follow.
+     * @param bound the position the search must not reach.
+     * @param forward true if the search follows outbound edges towards higher positions, or false if it follows
+     *                inbound edges towards lower positions.
+     * @param visited receives the nodes visited, including {@code start}.
+     * @return true if the search reached the node at {@code bound}, in which case it stops there.
+     */
+    private boolean search(final T start, final EdgeCursor<T> cursor, final int bound, final boolean forward,
+                           final List<T> visited) {
+        final Set<T> seen = new HashSet<>();
+        final Deque<T> stack = new ArrayDeque<>();
+        stack.push(start);
+        seen.add(start);
+        while (!stack.isEmpty()) {
+            final T node = stack.pop();
+            visited.add(node);
+            cursor.reset(node);
+            while (cursor.advance()) {
+                final T neighbor = cursor.destination();
+                final int position = this.positions.get(neighbor);
+                if (position == bound) {
+                    return true;
+                }
+                if ((forward ? position < bound : position > bound) && seen.add(neighbor)) {
+                    stack.push(neighbor);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hands the positions held by two groups of nodes back out, lowest first, to the first group and then the second,
+     * keeping each group's relative order.
+     * @param first the nodes that must come first.
+     * @param second the nodes that must come after every node in {@code first}.
+     */
+    private void reorder(final List<T> first, final List<T> second) {
+        final Comparator<T> byPosition = Comparator.comparing(this.positions::get);
+        first.sort(byPosition);
+        second.sort(byPosition);
+        final int[] held = new int[first.size() + second.size()];
+        int count = 0;
+        for (final T node : first) {
+            held[count++] = this.positions.get(node);
+        }
+        for (final T node : second) {
+            held[count++] = this.positions.get(node);
+        }
+        Arrays.sort(held);
+        count = 0;
+        for (final T node : first) {
+            this.positions.put(node, held[count++]);
+        }
+        for (final T node : second) {
+            this.positions.put(node, held[count++]);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Algorithms over directed acyclic graphs in compressed sparse row form (see {@link CsrGraph}), built on Kahn's
+ * algorithm: a node is placed once every node with an edge to it has been placed, which is tracked by counting down
+ * each node's in-degree in a primitive array.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class TopologicalSort {
+
+    /**
+     * Marks the absence of a predecessor on a path.
+     */
+    /* default */ static final int NO_PREDECESSOR = -1;
+
+    /**
+     * The most nodes of a level a single task expands without splitting.
+     */
+    private static final int LEVEL_GRAIN = 256;
+
+    private TopologicalSort() {
+    }
+
+    /**
+     * Orders the nodes so that every edge leads from an earlier node to a later one.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     * @return the ids of the nodes in topological order, or, if the graph has a cycle, of only those nodes that are
+     * not on or downstream of one, in which case the array is shorter than the number of nodes.
+     */
+    /* default */ static int[] order(final int[] offsets, final int[] targets) {
+        final int nodeCount = offsets.length - 1;
+        final int[] inDegrees = inDegrees(nodeCount, targets);
+        // the order doubles as the queue of nodes whose in-degree has reached zero
+        final int[] order = new int[nodeCount];
+        int tail = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (inDegrees[node] == 0) {
+                order[tail++] = node;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            final int node = order[head];
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                final int target = targets[i];
+                inDegrees[target]--;
+                if (inDegrees[target] == 0) {
+                    order[tail++] = target;
+                }
+            }
+        }
+        return tail == nodeCount ? order : Arrays.copyOf(order, tail);
+    }
+
+    /**
+     * Finds the lightest or heaviest path from a source node to every node by relaxing each node's edges in
+     * topological order, so each edge is relaxed exactly once.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     * @param weights CSR edge weights.
+     * @param order the ids of every node, in topological order.
+     * @param source id of the node to start from.
+     * @param longest true to find the heaviest paths, or false to find the lightest.
+     * @param distances receives the total weight of the path to each node, or positive infinity (for lightest paths)
+     *                  or negative infinity (for heaviest paths) if there is no path.
+     * @param predecessors receives the id of the node before each node on its path, or {@link #NO_PREDECESSOR} for the
+     *                     source and for nodes that cannot be reached.
+     */
+    @SuppressWarnings({"PMD.UseVarargs", "PMD.CyclomaticComplexity"})
+    /* default */ static void paths(final int[] offsets, final int[] targets, final double[] weights,
+                                    final int[] order, final int source, final boolean longest,
+                                    final double[] distances, final int[] predecessors) {
+        Arrays.fill(distances, longest ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY);
+        Arrays.fill(predecessors, NO_PREDECESSOR);
+        distances[source] = 0;
+        int start = 0;
+        while (order[start] != source) {
+            start++; // nodes before the source in the order cannot be reached from it
+        }
+        for (int position = start; position < order.length; position++) {
+            final int node = order[position];
+            if (predecessors[node] == NO_PREDECESSOR && node != source) {
+                continue;
+            }
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                final double distance = distances[node] + weights[i];
+                final int target = targets[i];
+                if (longest ? distance > distances[target] : distance < distances[target]) {
+                    distances[target] = distance;
+                    predecessors[target] = node;
+                }
+            }
+        }
+    }
+
+    /**
+     * Assigns each node a level: 0 if no edge leads to it, and otherwise one more than the highest level of any node
+     * with an edge to it. No edge joins two nodes on the same level, so each level can be processed as a batch once
+     * the levels before it are done. The levels are peeled off one at a time, and each is expanded in parallel, with
+     * the in-degrees counted down atomically.
+     * @param offsets CSR edge offsets of each node.
+     * @param targets CSR edge termini.
+     * @param pool the pool whose workers expand each level.
+     * @param levels receives the level of each node, indexed by node id.
+     * @return the number of levels, or -1 if the graph has a cycle.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    /* default */ static int levels(final int[] offsets, final int[] targets, final ForkJoinPool pool,
+                                    final int[] levels) {
+        final int nodeCount = offsets.length - 1;
+        final AtomicIntegerArray inDegrees = new AtomicIntegerArray(inDegrees(nodeCount, targets));
+        int[] frontier = new int[nodeCount];
+        int[] next = new int[nodeCount];
+        int frontierSize = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (inDegrees.get(node) == 0) {
+                frontier[frontierSize++] = node;
+            }
+        }
+        int placed = 0;
+        int level = 0;
+        final AtomicInteger nextSize = new AtomicInteger();
+        while (frontierSize > 0) {
+            for (int i = 0; i < frontierSize; i++) {
+                levels[frontier[i]] = level;
+            }
+            placed += frontierSize;
+            nextSize.set(0);
+            pool.invoke(new LevelStep(offsets, targets, inDegrees, frontier, next, nextSize, 0, frontierSize));
+            final int[] expanded = frontier;
+            frontier = next;
+            next = expanded;
+            frontierSize = nextSize.get();
+            level++;
+        }
+        return placed == nodeCount ? level : -1;
+    }
+
+    /**
+     * @param nodeCount the number of nodes.
+     * @param targets CSR edge termini.
+     * @return the number of edges leading to each node.
+     */
+    private static int[] inDegrees(final int nodeCount, final int[] targets) {
+        final int[] inDegrees = new int[nodeCount];
+        for (final int target : targets) {
+            inDegrees[target]++;
+        }
+        return inDegrees;
+    }
+
+    /**
+     * Counts down the in-degrees of the successors of a range of a level's nodes, adding each successor whose
+     * in-degree reaches zero to the next level. Exactly one task brings a node's in-degree to zero, so each node is
+     * added once.
+     */
+    private static final class LevelStep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * CSR edge offsets of each node.
+         */
+        private final int[] offsets;
+
+        /**
+         * CSR edge termini.
+         */
+        private final int[] targets;
+
+        /**
+         * The number of edges from unplaced nodes to each node.
+         */
+        private final AtomicIntegerArray inDegrees;
+
+        /**
+         * The nodes of the current level.
+         */
+        private final int[] frontier;
+
+        /**
+         * Receives the nodes of the next level.
+         */
+        private final int[] next;
+
+        /**
+         * The number of nodes in the next level so far.
+         */
+        private final AtomicInteger nextSize;
+
+        /**
+         * Index in the frontier of the first node to expand.
+         */
+        private final int start;
+
+        /**
+         * Index in the frontier after the last node to expand.
+         */
+        private final int end;
+
+        @SuppressWarnings({"PMD.ArrayIsStoredDirectly", "PMD.ExcessiveParameterList"})
+        private LevelStep(final int[] offsets, final int[] targets, final AtomicIntegerArray inDegrees,
+                          final int[] frontier, final int[] next, final AtomicInteger nextSize, final int start,
+                          final int end) {
+            super();
+            this.offsets = offsets;
+            this.targets = targets;
+            this.inDegrees = inDegrees;
+            this.frontier = frontier;
+            this.next = next;
+            this.nextSize = nextSize;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start > LEVEL_GRAIN) {
+                final int middle = (this.start + this.end) >>> 1;
+                invokeAll(this.split(this.start, middle), this.split(middle, this.end));
+                return;
+            }
+            int[] ready = new int[this.end - this.start];
+            int count = 0;
+            for (int position = this.start; position < this.end; position++) {
+                final int node = this.frontier[position];
+                for (int i = this.offsets[node]; i < this.offsets[node + 1]; i++) {
+                    final int target = this.targets[i];
+                    if (this.inDegrees.decrementAndGet(target) == 0) {
+                        if (count == ready.length) {
+                            ready = Arrays.copyOf(ready, count * 2 + 1);
+                        }
+                        ready[count++] = target;
+                    }
+                }
+            }
+            if (count > 0) {
+                System.arraycopy(ready, 0, this.next, this.nextSize.getAndAdd(count), count);
+            }
+        }
+
+        /**
+         * @param from index in the frontier of the first node to expand.
+         * @param until index in the frontier after the last node to expand.
+         * @return a task expanding the range.
+         */
+        private LevelStep split(final int from, final int until) {
+            return new LevelStep(this.offsets, this.targets, this.inDegrees, this.frontier, this.next, this.nextSize,
+                    from, until);
+        }
+    }
+}
@@ -1,9 +1,6 @@
 package com.andrewpuglionesi.datastructures.graph;
 
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Objects;
-import java.util.Set;
 
 /**
  * An undirected graph, in which each edge can be traversed from either node that it connects. (This is accomplished by
@@ -11,9 +8,22 @@ import java.util.Set;
  * @param <T> @param <T> the data type of nodes' values. This type should have a reliable hashCode() and equals()
  *           implementation, as the graph uses a hash table to store and retrieve nodes.
  */
-@SuppressWarnings("PMD.ShortVariable")
+@SuppressWarnings({"PMD.ShortVariable", "PMD.TooManyMethods"})
 public class UndirectedGraph<T> extends Graph<T> {
 
+    /**
+     * The graph's connected components, built on the first connectivity query and then kept up to date as nodes and
+     * edges are added. Deliberately not initialized here, because superclass constructors may add nodes before this
+     * class's field initializers would run.
+     */
+    private DisjointSets<T> connectivity;
+
+    /**
+     * Whether {@code connectivity} is being kept up to date. Union-find cannot split a set, so removing an edge stops
+     * the maintenance until the next connectivity query rebuilds the components.
+     */
+    private boolean connectivityCurrent;
+
     /**
      * See {@link Graph#Graph()}
      */
@@ -28,22 +38,74 @@ public class UndirectedGraph<T> extends Graph<T> {
         super(values);
     }
 
+    /**
+     * See {@link Graph#Graph(GraphStorage)}
+     */
+    public UndirectedGraph(final GraphStorage storage) {
+        super(storage);
+    }
+
+    /**
+     * See {@link Graph#Graph(Collection, GraphStorage)}
+     */
+    public UndirectedGraph(final Collection<T> values, final GraphStorage storage) {
+        super(values, storage);
+    }
+
+    /**
+     * See {@link Graph#Graph(AdjacencyStore)}
+     */
+    /* default */ UndirectedGraph(final AdjacencyStore<T> store) {
+        super(store);
+    }
+
+    @Override
+    public void addNode(final T value) {
+        super.addNode(value);
+        if (this.connectivityCurrent) {
+            this.connectivity.add(value);
+        }
+    }
+
     @Override
     public void addEdge(final T from, final T to, final double weight) {
-        super.insertEdge(from, to, weight);
-        super.insertEdge(to, from, weight);
+        super.insertEdgePair(from, to, weight);
+        if (this.connectivityCurrent) {
+            this.connectivity.union(from, to);
+        }
     }
 
     @Override
     public void addEdge(final T from, final T to) {
-        super.insertEdge(from, to);
-        super.insertEdge(to, from);
+        this.addEdge(from, to, DEFAULT_EDGE_WEIGHT);
+    }
+
+    /**
+     * The edges' nodes are added by the underlying storage rather than by {@link #addNode(Object)}, so the components
+     * are rebuilt by the next connectivity query rather than maintained edge by edge.
+     */
+    @Override
+    protected void insertEdges(final T[] origins, final T[] termini, final double[] weights, final int count) {
+        super.insertEdges(origins, termini, weights, count);
+        this.connectivityCurrent = false;
     }
 
     @Override
     public void removeEdge(final T from, final T to) {
-        super.deleteEdge(from, to);
-        super.deleteEdge(to, from);
+        if (this.containsEdge(from, to)) {
+            this.connectivityCurrent = false;
+        }
+        super.deleteEdgePair(from, to);
+    }
+
+    @Override
+    protected boolean isDirected() {
+        return false;
+    }
+
+    @Override
+    public UndirectedGraph<T> snapshot() {
+        return new UndirectedGraph<>(this.snapshotStore());
     }
 
     /**
@@ -52,59 +114,78 @@ public class UndirectedGraph<T> extends Graph<T> {
      * undirected graph, cycles are either self-directed edges or circular paths containing three or more nodes.
      * @return true if there exists a cycle in the graph.
      */
-    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
     @Override
     public boolean hasCycle() {
-        final Set<T> visited = new HashSet<>();
-        for (final T node : this) {
-            if (this.searchForCycle(node, null, visited, new HashSet<>())) {
-                return true;
-            }
-        }
-        return false;
+        // Searched iteratively over a snapshot of the graph, so that long paths can't overflow the call stack.
+        return this.cached(() -> this.freeze().hasCycle(), "hasCycle");
+    }
+
+    @Override
+    public boolean isConnectedGraph() {
+        // In an undirected graph, because the edges go in both directions, every node is connected to every other node
+        // if and only if all the nodes are in a single connected component.
+        return !this.isEmpty() && this.componentCount() == 1;
     }
 
     /**
-     * Returns true if a cycle is detected during a depth-first search.
-     *
-     * @param curr           the node currently being hit by the recursive search.
-     * @param prev           the node hit by the recursive search immediately before {@code curr}; curr's direct
-     *                       ancestor in the DFS tree.
-     * @param visited        a set of all nodes that have been visited by the cycle-searching algorithm since its inception.
-     * @param precedingNodes a set of nodes preceding this node in the current depth-first-search path. If a node in
-     *                       this set is reached, then there is a cycle.
-     * @return true if a cycle is detected during a depth-first search starting at {@code curr}.
+     * Counts the connected components of the graph. Nodes are in the same connected component if there is a path of
+     * zero or more edges between them. After the first call, this answers in constant time until an edge is removed.
+     * @return the number of connected components. An empty graph has no components.
      */
-    private boolean searchForCycle(final T curr, final T prev, final Set<T> visited, final Set<T> precedingNodes) {
-        if (precedingNodes.contains(curr)) {
-            return true;
-        }
-        if (visited.contains(curr)) {
-            return false;
-        }
-        precedingNodes.add(curr);
-        visited.add(curr);
-        for (final T neighbor : this.getNeighbors(curr)) {
-            // ignore back-edges between the node and its direct predecessor, because every edge is bidirectional
-            if (!Objects.equals(neighbor, prev) && this.searchForCycle(neighbor, curr, visited, precedingNodes)) {
-                return true;
-            }
-        }
-        precedingNodes.remove(curr);
-        return false;
+    public int componentCount() {
+        return this.components().countSets();
     }
 
-    @Override
-    public boolean isConnectedGraph() {
-        if (this.isEmpty()) {
-            return false;
+    /**
+     * Determines whether there is a path between two nodes. After the first connectivity query, this answers in
+     * near-constant time until an edge is removed.
+     * @param first value of a node.
+     * @param second value of a node.
+     * @return true if the nodes are in the same connected component. A node is always in its own component.
+     * @throws java.util.NoSuchElementException if either node does not exist in the graph.
+     */
+    public boolean sameComponent(final T first, final T second) {
+        return this.components().sameSet(first, second);
+    }
+
+    /**
+     * Partitions the graph into connected components over a fresh {@link #freeze() snapshot}, splitting the work
+     * among the workers of the common fork-join pool; see
+     * {@link CsrGraph#connectedComponents(java.util.concurrent.ForkJoinPool)}. Unlike {@link #componentCount()} and
+     * {@link #sameComponent(Object, Object)}, this labels every node with a compact component id in one pass.
+     * @return the component of every node, from which component sizes and members can also be retrieved.
+     */
+    public ComponentLabeling<T> connectedComponents() {
+        return this.freeze().connectedComponents();
+    }
+
+    /**
+     * Finds a minimum spanning forest of the graph: for every connected component, a tree connecting all of its nodes
+     * whose edges have the lightest total weight. The search runs over a fresh {@link #freeze() snapshot} of the
+     * graph, on the common fork-join pool, which splits the work among its workers if it has more than one; see
+     * {@link CsrGraph#minimumSpanningForest(java.util.concurrent.ForkJoinPool)}.
+     * @return the forest, with its total weight.
+     */
+    public SpanningForest<T> minimumSpanningForest() {
+        return this.freeze().minimumSpanningForest();
+    }
+
+    /**
+     * @return the graph's connected components, rebuilding them from scratch if they are not being maintained.
+     */
+    private DisjointSets<T> components() {
+        if (!this.connectivityCurrent) {
+            final DisjointSets<T> rebuilt = new DisjointSets<>();
+            for (final T node : this) {
+                rebuilt.add(node);
+            }
+            for (final T node : this) {
+                this.forEachNeighbor(node, neighbor -> rebuilt.union(node, neighbor));
+            }
+            this.connectivity = rebuilt;
+            this.connectivityCurrent = true;
         }
-        // In an undirected graph, because the edges go in both directions, we can take an arbitrary node and test
-        // whether it's connected to every other node. Because the edges are bidirectional, this would guarantee the
-        // entire graph is connected.
-        final T source = this.iterator().next();
-        final Set<T> nodesConnectedToSource = this.getNodesConnectedTo(source);
-        return nodesConnectedToSource.size() == this.size() - 1;
+        return this.connectivity;
     }
 
     /**
@@ -115,4 +196,15 @@ public class UndirectedGraph<T> extends Graph<T> {
         return super.totalWeight() / 2; // divide by 2 because every edge from A to B has a mirrored edge from B to A.
     }
 
+    /**
+     * Counts the graph's edges in constant time. The edge between two nodes counts once, as does an edge from a node
+     * to itself.
+     * @return the number of edges in the graph.
+     */
+    @Override
+    public long edgeCount() {
+        // every edge from A to B has a mirrored edge from B to A, except an edge from A to itself
+        return (super.edgeCount() + this.selfLoopCount()) / 2;
+    }
+
 }
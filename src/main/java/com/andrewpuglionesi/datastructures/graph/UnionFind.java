@@ -0,0 +1,111 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+
+/**
+ * A disjoint-set forest over the ints {@code 0} to {@code size() - 1}, stored in primitive arrays. Uses union by rank
+ * and path halving, so any sequence of operations runs in near-constant amortized time per operation.
+ */
+@SuppressWarnings("PMD.AvoidFieldNameMatchingMethodName")
+final class UnionFind {
+
+    /**
+     * {@code parents[i]} is the parent of element {@code i} in its tree; roots are their own parents.
+     */
+    private int[] parents;
+
+    /**
+     * Upper bound on the height of each root's tree.
+     */
+    private byte[] ranks;
+
+    /**
+     * The number of elements.
+     */
+    private int size;
+
+    /**
+     * The number of disjoint sets.
+     */
+    private int setCount;
+
+    /**
+     * Creates a forest of singleton sets.
+     * @param size the number of elements, each of which starts out in its own set.
+     */
+    /* default */ UnionFind(final int size) {
+        this.parents = new int[Math.max(size, 1)];
+        this.ranks = new byte[this.parents.length];
+        for (int element = 0; element < size; element++) {
+            this.parents[element] = element;
+        }
+        this.size = size;
+        this.setCount = size;
+    }
+
+    /**
+     * Adds a new element in a set of its own.
+     * @return the new element.
+     */
+    /* default */ int add() {
+        if (this.size == this.parents.length) {
+            this.parents = Arrays.copyOf(this.parents, this.size * 2);
+            this.ranks = Arrays.copyOf(this.ranks, this.size * 2);
+        }
+        this.parents[this.size] = this.size;
+        this.setCount++;
+        return this.size++;
+    }
+
+    /**
+     * @return the number of elements.
+     */
+    /* default */ int size() {
+        return this.size;
+    }
+
+    /**
+     * @return the number of disjoint sets.
+     */
+    /* default */ int countSets() {
+        return this.setCount;
+    }
+
+    /**
+     * @param element an element.
+     * @return the representative of the element's set.
+     */
+    /* default */ int find(final int element) {
+        int curr = element;
+        while (this.parents[curr] != curr) {
+            this.parents[curr] = this.parents[this.parents[curr]];
+            curr = this.parents[curr];
+        }
+        return curr;
+    }
+
+    /**
+     * Merges the sets containing two elements.
+     * @param first an element.
+     * @param second an element.
+     * @return true if the elements were in different sets before the call.
+     */
+    /* default */ boolean union(final int first, final int second) {
+        int firstRoot = this.find(first);
+        int secondRoot = this.find(second);
+        if (firstRoot == secondRoot) {
+            return false;
+        }
+        if (this.ranks[firstRoot] < this.ranks[secondRoot]) {
+            final int swap = firstRoot;
+            firstRoot = secondRoot;
+            secondRoot = swap;
+        }
+        this.parents[secondRoot] = firstRoot;
+        if (this.ranks[firstRoot] == this.ranks[secondRoot]) {
+            this.ranks[firstRoot]++;
+        }
+        this.setCount--;
+        return true;
+    }
+}
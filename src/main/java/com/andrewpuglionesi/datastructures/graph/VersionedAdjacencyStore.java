@@ -0,0 +1,619 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Stores a graph so that taking an immutable, point-in-time snapshot of it is cheap. Each node's value is interned to
+ * a dense int id, and nodes are kept in fixed-size pages, each node with a map from its neighbors' values to the
+ * connecting edges. Snapshots share the pages and the nodes' edge maps with the store; writes are copy-on-write.
+ * Every structure is stamped with the epoch it was created in, and taking a snapshot starts a new epoch. Before the
+ * store modifies a structure stamped with an earlier epoch (i.e., one that a snapshot may be sharing), it copies the
+ * structure, so the first write to a node after a snapshot copies the node's edges, its page and the page directory,
+ * and later writes to the same node modify the copies in place. A snapshot therefore costs O(1) to take, and its
+ * upkeep is proportional to the nodes changed after it rather than to the size of the graph.
+ * Writes and snapshots are serialized by a lock that readers of snapshots never take, so writers never wait for
+ * readers. Reading the store itself while another thread writes to it is not safe; concurrent readers should take a
+ * snapshot.
+ * Does not support null values.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings({"PMD.ShortVariable", "PMD.TooManyMethods", "PMD.CouplingBetweenObjects",
+        "PMD.AvoidFieldNameMatchingMethodName"})
+final class VersionedAdjacencyStore<T> implements AdjacencyStore<T> {
+
+    /**
+     * log2 of the number of nodes in a page.
+     */
+    private static final int PAGE_SHIFT = 10;
+
+    /**
+     * The number of nodes in a page.
+     */
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    /**
+     * Maps a node's value to its id. Ids are never reassigned, so snapshots share this map with the store, and ignore
+     * ids of nodes added after they were taken.
+     */
+    private final Map<T, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * Serializes writes and snapshots.
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * The pages of nodes: node {@code i} is {@code pages[i >>> PAGE_SHIFT][i & (PAGE_SIZE - 1)]}.
+     */
+    private NodeVersion<T>[][] pages = newDirectory(1);
+
+    /**
+     * The epoch in which each page was created.
+     */
+    private int[] pageEpochs = new int[1];
+
+    /**
+     * The epoch in which the page directory was created.
+     */
+    private int directoryEpoch;
+
+    /**
+     * The current epoch. Anything created in an earlier epoch may be shared with a snapshot.
+     */
+    private int epoch;
+
+    /**
+     * The number of nodes in the store.
+     */
+    private int size;
+
+    /**
+     * Counts the edges and sums their weights.
+     */
+    private final EdgeTally edgeTally = new EdgeTally();
+
+    @Override
+    public boolean addNode(final T value) {
+        this.writeLock.lock();
+        try {
+            if (this.ids.containsKey(value)) {
+                return false;
+            }
+            final int id = this.size;
+            final int page = id >>> PAGE_SHIFT;
+            this.ensureDirectoryWritable();
+            if (page == this.pages.length) {
+                this.pages = Arrays.copyOf(this.pages, page * 2);
+                this.pageEpochs = Arrays.copyOf(this.pageEpochs, page * 2);
+            }
+            if (this.pages[page] == null) {
+                this.pages[page] = newPage();
+                this.pageEpochs[page] = this.epoch;
+            }
+            // a slot past the end of the graph is never read by a snapshot, so the page can be written in place
+            this.pages[page][id & PAGE_SIZE - 1] = new NodeVersion<>(value, new HashMap<>(), this.epoch);
+            this.ids.put(value, id);
+            this.size = id + 1;
+            return true;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsNode(final T value) {
+        return this.ids.containsKey(value);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public void putEdge(final T from, final T to, final double weight) {
+        this.writeLock.lock();
+        try {
+            this.putWritableEdge(from, to, weight);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Holds the write lock for the whole batch, so a snapshot contains either all of the batch's edges or none of them.
+     */
+    @Override
+    public void putEdges(final T[] origins, final T[] termini, final double[] weights, final int count,
+                         final boolean mirrored) {
+        this.writeLock.lock();
+        try {
+            AdjacencyStore.super.putEdges(origins, termini, weights, count, mirrored);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void putEdgePair(final T first, final T second, final double weight) {
+        this.writeLock.lock();
+        try {
+            this.putWritableEdge(first, second, weight);
+            this.putWritableEdge(second, first, weight);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeEdge(final T from, final T to) {
+        this.writeLock.lock();
+        try {
+            if (!this.containsEdge(from, to)) {
+                return false;
+            }
+            this.edgeTally.removed(this.writableEdges(from).remove(to).getWeight(), from.equals(to));
+            return true;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeEdgePair(final T first, final T second) {
+        this.writeLock.lock();
+        try {
+            final boolean removedForward = this.removeEdge(first, second);
+            final boolean removedBackward = this.removeEdge(second, first);
+            return removedForward || removedBackward;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsEdge(final T from, final T to) {
+        final Integer id = this.ids.get(from);
+        return id != null && nodeAt(this.pages, id).edges.containsKey(to);
+    }
+
+    @Override
+    public double edgeWeight(final T from, final T to) {
+        return edgeWeight(this.pages, this.ids.get(from), from, to);
+    }
+
+    @Override
+    public int outDegree(final T from) {
+        return nodeAt(this.pages, this.ids.get(from)).edges.size();
+    }
+
+    @Override
+    public void forEachEdge(final T from, final ObjDoubleConsumer<T> action) {
+        forEachEdge(nodeAt(this.pages, this.ids.get(from)), action);
+    }
+
+    @Override
+    public EdgeTally tally() {
+        return this.edgeTally;
+    }
+
+    @Override
+    public EdgeCursor<T> newCursor() {
+        return new Cursor<>(this::nodeOf);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new NodeIterator<>(this.pages, this.size);
+    }
+
+    /**
+     * @param value value of a node.
+     * @return the current version of the node with the value, or null if there is no such node.
+     */
+    private NodeVersion<T> nodeOf(final T value) {
+        final Integer id = this.ids.get(value);
+        return id == null ? null : nodeAt(this.pages, id);
+    }
+
+    /**
+     * Takes a snapshot in constant time, by starting a new epoch so that the store copies anything it shares with the
+     * snapshot before modifying it.
+     * @return a read-only store holding the nodes and edges of this store as they are at the time of the call.
+     */
+    @Override
+    public AdjacencyStore<T> snapshot() {
+        this.writeLock.lock();
+        try {
+            this.epoch++;
+            return new Snapshot<>(this.ids, this.pages, this.size, this.edgeTally.copy());
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Makes the page directory safe to modify, copying it if a snapshot may be sharing it.
+     */
+    private void ensureDirectoryWritable() {
+        if (this.directoryEpoch != this.epoch) {
+            this.pages = this.pages.clone();
+            this.directoryEpoch = this.epoch;
+        }
+    }
+
+    /**
+     * Adds or updates an edge, keeping the tally up to date. The caller must hold the write lock.
+     * @param from value of the node that is the origin of the edge.
+     * @param to value of the node that is the terminus of the edge.
+     * @param weight the numeric weight of the edge.
+     */
+    private void putWritableEdge(final T from, final T to, final double weight) {
+        final Graph.Edge replaced = this.writableEdges(from).put(to, new Graph.Edge(weight));
+        if (replaced == null) {
+            this.edgeTally.added(weight, from.equals(to));
+        } else {
+            this.edgeTally.reweighted(replaced.getWeight(), weight);
+        }
+    }
+
+    /**
+     * Makes a node's edge map safe to modify, copying it, its page and the page directory as necessary if a snapshot
+     * may be sharing them.
+     * @param value value of a node in the store.
+     * @return the node's edge map, which no snapshot shares.
+     */
+    private Map<T, Graph.Edge> writableEdges(final T value) {
+        final int id = this.ids.get(value);
+        final int page = id >>> PAGE_SHIFT;
+        final int slot = id & PAGE_SIZE - 1;
+        this.ensureDirectoryWritable();
+        if (this.pageEpochs[page] != this.epoch) {
+            this.pages[page] = this.pages[page].clone();
+            this.pageEpochs[page] = this.epoch;
+        }
+        NodeVersion<T> node = this.pages[page][slot];
+        if (node.epoch != this.epoch) {
+            node = new NodeVersion<>(node.value, new HashMap<>(node.edges), this.epoch);
+            this.pages[page][slot] = node;
+        }
+        return node.edges;
+    }
+
+    /**
+     * @param capacity the number of pages the directory has room for.
+     * @param <T> the data type of nodes' values.
+     * @return an empty page directory.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> NodeVersion<T>[][] newDirectory(final int capacity) {
+        return (NodeVersion<T>[][]) new NodeVersion<?>[capacity][];
+    }
+
+    /**
+     * @param <T> the data type of nodes' values.
+     * @return an empty page.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> NodeVersion<T>[] newPage() {
+        return (NodeVersion<T>[]) new NodeVersion<?>[PAGE_SIZE];
+    }
+
+    /**
+     * @param pages a page directory.
+     * @param id a node's id.
+     * @param <T> the data type of nodes' values.
+     * @return the node with the id.
+     */
+    private static <T> NodeVersion<T> nodeAt(final NodeVersion<T>[][] pages, final int id) {
+        return pages[id >>> PAGE_SHIFT][id & PAGE_SIZE - 1];
+    }
+
+    /**
+     * @param pages a page directory.
+     * @param id the id of the origin of the edge, or null if there is no such node.
+     * @param from value of the node that is the origin of the edge.
+     * @param to value of the node that is the terminus of the edge.
+     * @param <T> the data type of nodes' values.
+     * @return the weight of the edge.
+     * @throws NoSuchElementException if the edge does not exist.
+     */
+    private static <T> double edgeWeight(final NodeVersion<T>[][] pages, final Integer id, final T from, final T to) {
+        final Graph.Edge edge = id == null ? null : nodeAt(pages, id).edges.get(to);
+        if (edge == null) {
+            throw new NoSuchElementException("No edge exists from " + from + " to " + to);
+        }
+        return edge.getWeight();
+    }
+
+    /**
+     * @param node a node.
+     * @param action callback receiving each of the node's edges' terminus and weight.
+     * @param <T> the data type of nodes' values.
+     */
+    private static <T> void forEachEdge(final NodeVersion<T> node, final ObjDoubleConsumer<T> action) {
+        for (final Map.Entry<T, Graph.Edge> entry : node.edges.entrySet()) {
+            action.accept(entry.getKey(), entry.getValue().getWeight());
+        }
+    }
+
+    /**
+     * A node's value and its edges, stamped with the epoch in which this version of the node was created.
+     * @param <T> the data type of nodes' values.
+     */
+    private static final class NodeVersion<T> {
+        /**
+         * Value of the node.
+         */
+        private final T value;
+
+        /**
+         * Maps the node's neighbors' values to the connecting edges.
+         */
+        private final Map<T, Graph.Edge> edges;
+
+        /**
+         * The epoch in which this version of the node was created.
+         */
+        private final int epoch;
+
+        private NodeVersion(final T value, final Map<T, Graph.Edge> edges, final int epoch) {
+            this.value = value;
+            this.edges = edges;
+            this.epoch = epoch;
+        }
+    }
+
+    /**
+     * A read-only, point-in-time view of the store, made of the page directory and node count at the time it was
+     * taken. The store never modifies anything a snapshot can reach, so snapshots can be read by any number of
+     * threads without locking.
+     * @param <T> the data type of nodes' values.
+     */
+    private static final class Snapshot<T> implements AdjacencyStore<T>, NodeSource<T> {
+        /**
+         * The store's node ids, including those of nodes added after the snapshot was taken.
+         */
+        private final Map<T, Integer> ids;
+
+        /**
+         * The page directory at the time the snapshot was taken.
+         */
+        private final NodeVersion<T>[][] pages;
+
+        /**
+         * The number of nodes at the time the snapshot was taken.
+         */
+        private final int size;
+
+        /**
+         * The count and weight sum of the edges at the time the snapshot was taken.
+         */
+        private final EdgeTally edgeTally;
+
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        private Snapshot(final Map<T, Integer> ids, final NodeVersion<T>[][] pages, final int size,
+                         final EdgeTally edgeTally) {
+            this.ids = ids;
+            this.pages = pages;
+            this.size = size;
+            this.edgeTally = edgeTally;
+        }
+
+        @Override
+        public boolean addNode(final T value) {
+            throw readOnly();
+        }
+
+        @Override
+        public boolean containsNode(final T value) {
+            return this.idOf(value) != null;
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public void putEdge(final T from, final T to, final double weight) {
+            throw readOnly();
+        }
+
+        @Override
+        public boolean removeEdge(final T from, final T to) {
+            throw readOnly();
+        }
+
+        @Override
+        public boolean containsEdge(final T from, final T to) {
+            final Integer id = this.idOf(from);
+            return id != null && nodeAt(this.pages, id).edges.containsKey(to);
+        }
+
+        @Override
+        public double edgeWeight(final T from, final T to) {
+            return VersionedAdjacencyStore.edgeWeight(this.pages, this.idOf(from), from, to);
+        }
+
+        @Override
+        public int outDegree(final T from) {
+            return nodeAt(this.pages, this.idOf(from)).edges.size();
+        }
+
+        @Override
+        public void forEachEdge(final T from, final ObjDoubleConsumer<T> action) {
+            VersionedAdjacencyStore.forEachEdge(nodeAt(this.pages, this.idOf(from)), action);
+        }
+
+        @Override
+        public EdgeTally tally() {
+            return this.edgeTally;
+        }
+
+        @Override
+        public EdgeCursor<T> newCursor() {
+            return new Cursor<>(this);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new NodeIterator<>(this.pages, this.size);
+        }
+
+        @Override
+        public NodeVersion<T> nodeOf(final T value) {
+            final Integer id = this.idOf(value);
+            return id == null ? null : nodeAt(this.pages, id);
+        }
+
+        /**
+         * @return this snapshot, which is already immutable.
+         */
+        @Override
+        public AdjacencyStore<T> snapshot() {
+            return this;
+        }
+
+        /**
+         * @param value value of a node.
+         * @return the node's id, or null if the node was not in the store when the snapshot was taken.
+         */
+        private Integer idOf(final T value) {
+            final Integer id = this.ids.get(value);
+            return id == null || id >= this.size ? null : id;
+        }
+
+        /**
+         * @return the exception thrown by every attempt to modify a snapshot.
+         */
+        private static UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("A graph snapshot cannot be modified");
+        }
+    }
+
+    /**
+     * Looks up nodes by value, in either the store or a snapshot of it.
+     * @param <T> the data type of nodes' values.
+     */
+    @FunctionalInterface
+    private interface NodeSource<T> {
+        /**
+         * @param value value of a node.
+         * @return the node with the value, or null if there is no such node.
+         */
+        NodeVersion<T> nodeOf(T value);
+    }
+
+    /**
+     * Iterates over the values of the first {@code size} nodes of a page directory.
+     * @param <T> the data type of nodes' values.
+     */
+    private static final class NodeIterator<T> implements Iterator<T> {
+        /**
+         * The page directory to read.
+         */
+        private final NodeVersion<T>[][] pages;
+
+        /**
+         * The number of nodes to iterate over.
+         */
+        private final int size;
+
+        /**
+         * The id of the next node.
+         */
+        private int nextId;
+
+        @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+        private NodeIterator(final NodeVersion<T>[][] pages, final int size) {
+            this.pages = pages;
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.nextId < this.size;
+        }
+
+        @Override
+        public T next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return nodeAt(this.pages, this.nextId++).value;
+        }
+    }
+
+    /**
+     * Walks a node's edges with an iterator over its edge map, so only one object is allocated per node.
+     * @param <T> the data type of nodes' values.
+     */
+    private static final class Cursor<T> implements EdgeCursor<T> {
+        /**
+         * The store or snapshot whose edges are walked.
+         */
+        private final NodeSource<T> nodes;
+
+        /**
+         * The node whose edges are being walked.
+         */
+        private T origin;
+
+        /**
+         * Iterator over the node's edge map.
+         */
+        private Iterator<Map.Entry<T, Graph.Edge>> edges;
+
+        /**
+         * The edge the cursor is on.
+         */
+        private Map.Entry<T, Graph.Edge> current;
+
+        private Cursor(final NodeSource<T> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public void reset(final T source) {
+            final NodeVersion<T> node = this.nodes.nodeOf(source);
+            if (node == null) {
+                throw new NoSuchElementException("Cannot retrieve edges because node does not exist in graph: "
+                        + source);
+            }
+            this.origin = source;
+            this.edges = node.edges.entrySet().iterator();
+        }
+
+        @Override
+        public boolean advance() {
+            if (this.edges == null || !this.edges.hasNext()) {
+                return false;
+            }
+            this.current = this.edges.next();
+            return true;
+        }
+
+        @Override
+        public T source() {
+            return this.origin;
+        }
+
+        @Override
+        public T destination() {
+            return this.current.getKey();
+        }
+
+        @Override
+        public double weight() {
+            return this.current.getValue().getWeight();
+        }
+    }
+}
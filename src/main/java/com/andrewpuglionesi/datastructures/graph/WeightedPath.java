@@ -0,0 +1,70 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of a weighted search between two nodes: the lightest path from one to the other, and its total weight.
+ * @param <T> the data type of nodes' values.
+ */
+@SuppressWarnings("PMD.AvoidFieldNameMatchingMethodName")
+public final class WeightedPath<T> {
+
+    /**
+     * The total weight of the path's edges, or positive infinity if there is no path.
+     */
+    private final double distance;
+
+    /**
+     * The nodes on the path, from the origin to the destination, or an empty list if there is no path.
+     */
+    private final List<T> nodes;
+
+    /**
+     * The number of nodes whose lightest path from the origin the search settled before it reached the destination.
+     */
+    private final int settled;
+
+    /**
+     * Creates a path.
+     * @param distance the total weight of the path's edges, or positive infinity if there is no path.
+     * @param nodes the nodes on the path, from the origin to the destination, or an empty list if there is no path.
+     * @param settled the number of nodes the search settled.
+     */
+    /* default */ WeightedPath(final double distance, final List<T> nodes, final int settled) {
+        this.distance = distance;
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.settled = settled;
+    }
+
+    /**
+     * @return the total weight of the edges on the path, 0 if the origin is the destination, or positive infinity if
+     * there is no path.
+     */
+    public double distance() {
+        return this.distance;
+    }
+
+    /**
+     * @return the nodes on the path, from the origin to the destination, both included, or an empty list if there is
+     * no path.
+     */
+    public List<T> nodes() {
+        return this.nodes;
+    }
+
+    /**
+     * @return true if there is a path from the origin to the destination.
+     */
+    public boolean exists() {
+        return !this.nodes.isEmpty();
+    }
+
+    /**
+     * @return the number of nodes whose lightest path from the origin the search settled, which measures how much of
+     * the graph it explored.
+     */
+    /* default */ int settledCount() {
+        return this.settled;
+    }
+}
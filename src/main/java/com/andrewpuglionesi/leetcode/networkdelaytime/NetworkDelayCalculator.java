@@ -57,9 +57,10 @@ public class NetworkDelayCalculator {
             if (visited.size() == network.size()) {
                 return Optional.of(curr.cumulativeWeight); // entire graph has been traversed
             }
-            final List<Graph<String>.EdgeView> outboundEdges = network.getOutboundEdges(curr.node);
-            outboundEdges.forEach(edge -> {
-                minHeap.add(new NetworkEdge(edge.getDestination(), curr.cumulativeWeight + edge.getWeight()));
+            network.forEachOutboundEdge(curr.node, (source, destination, weight) -> {
+                if (!visited.contains(destination)) {
+                    minHeap.add(new NetworkEdge(destination, curr.cumulativeWeight + weight));
+                }
             });
         }
         return Optional.empty(); // this will occur if the graph is not fully connected
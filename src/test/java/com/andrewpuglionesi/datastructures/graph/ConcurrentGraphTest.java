@@ -0,0 +1,151 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentGraphTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void concurrentDirectedGraphBasicOperations() {
+        ConcurrentDirectedGraph<String> graph = new ConcurrentDirectedGraph<>(List.of("a")) {{
+            addEdge("a", "b", 2);
+            addEdge("b", "c");
+            addEdge("c", "a");
+        }};
+        assertEquals(3, graph.size());
+        assertTrue(graph.containsEdge("a", "b"));
+        assertFalse(graph.containsEdge("b", "a"));
+        assertTrue(graph.hasCycle());
+        assertTrue(graph.isConnectedGraph());
+        assertEquals(2, graph.distanceBetween("a", "c"));
+        graph.removeEdge("c", "a");
+        assertFalse(graph.hasCycle());
+        assertEquals(2, graph.totalWeight());
+        assertEquals(new DirectedGraph<>() {{
+            addEdge("a", "b", 2);
+            addEdge("b", "c");
+        }}, graph);
+        assertThrows(UnsupportedOperationException.class, () -> graph.addNode("a"));
+    }
+
+    @Test
+    void concurrentUndirectedGraphBasicOperations() {
+        ConcurrentUndirectedGraph<String> graph = new ConcurrentUndirectedGraph<>(List.of("d")) {{
+            addEdge("a", "b");
+            addEdge("b", "c");
+        }};
+        assertTrue(graph.containsEdge("b", "a"));
+        assertEquals(2, graph.componentCount());
+        assertFalse(graph.isConnectedGraph());
+        assertTrue(graph.sameComponent("a", "c"));
+        graph.addEdge("c", "d");
+        assertTrue(graph.isConnectedGraph());
+        graph.removeEdge("c", "b");
+        assertFalse(graph.containsEdge("b", "c"));
+        assertFalse(graph.sameComponent("a", "d"));
+        assertThrows(NoSuchElementException.class, () -> graph.sameComponent("a", "e"));
+    }
+
+    @Test
+    void concurrentDirectedGraphKeepsEveryEdgeAddedByRacingThreads() throws Exception {
+        ConcurrentDirectedGraph<Integer> graph = new ConcurrentDirectedGraph<>();
+        int edgesPerThread = 5_000;
+        runConcurrently(thread -> {
+            for (int i = 0; i < edgesPerThread; i++) {
+                // every thread adds edges to and from the same nodes, so they all race to add those nodes
+                graph.addEdge(i % 100, thread * edgesPerThread + i);
+            }
+        });
+        assertEquals(THREADS * edgesPerThread, graph.freeze().edgeSlots());
+        assertEquals(THREADS * edgesPerThread, graph.size());
+    }
+
+    @Test
+    void concurrentUndirectedGraphChangesBothDirectionsTogether() throws Exception {
+        ConcurrentUndirectedGraph<Integer> graph = new ConcurrentUndirectedGraph<>();
+        int nodeCount = 50;
+        runConcurrently(thread -> {
+            for (int i = 0; i < 20_000; i++) {
+                int from = (i * 7 + thread) % nodeCount;
+                int to = (i * 13 + thread * 3) % nodeCount;
+                if ((i + thread) % 2 == 0) {
+                    graph.addEdge(from, to);
+                } else {
+                    graph.removeEdge(to, from);
+                }
+            }
+        });
+        for (int from = 0; from < nodeCount; from++) {
+            for (int to = 0; to < nodeCount; to++) {
+                if (graph.containsNode(from) && graph.containsNode(to)) {
+                    assertEquals(graph.containsEdge(from, to), graph.containsEdge(to, from));
+                }
+            }
+        }
+    }
+
+    @Test
+    void concurrentGraphTalliesRacingWrites() throws Exception {
+        ConcurrentDirectedGraph<Integer> graph = new ConcurrentDirectedGraph<>();
+        runConcurrently(thread -> {
+            for (int i = 0; i < 10_000; i++) {
+                int from = (i * 7 + thread) % 40;
+                int to = (i * 13 + thread * 3) % 40;
+                if ((i + thread) % 3 == 0) {
+                    graph.removeEdge(from, to);
+                } else {
+                    graph.addEdge(from, to, 0.1 * (i % 10));
+                }
+            }
+        });
+        CsrGraph<Integer> snapshot = graph.freeze();
+        assertEquals(snapshot.edgeSlots(), graph.edgeCount());
+        assertEquals(snapshot.totalWeight(), graph.totalWeight(), 1e-9);
+    }
+
+    /**
+     * Runs a task on several threads, released at the same moment, and waits for all of them to finish.
+     * @param task the task, which receives the index of the thread running it.
+     */
+    private static void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int index = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,789 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import com.andrewpuglionesi.datastructures.Counter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CsrGraphTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void freezeEmptyGraph() {
+        CsrGraph<String> snapshot = new DirectedGraph<String>().freeze();
+        assertTrue(snapshot.isEmpty());
+        assertFalse(snapshot.hasCycle());
+        assertFalse(snapshot.isConnectedGraph());
+        assertEquals(0, snapshot.totalWeight());
+        assertEquals(-1, snapshot.distanceBetween("a", "b"));
+    }
+
+    @Test
+    void freezeCopiesNodesAndEdges() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b", 2);
+            addEdge("a", "c", 3);
+            addNode("d");
+        }};
+        CsrGraph<String> snapshot = graph.freeze();
+        assertEquals(4, snapshot.size());
+        assertEquals(2, snapshot.edgeSlots());
+        assertTrue(snapshot.isDirected());
+        assertTrue(snapshot.containsNode("d"));
+        assertFalse(snapshot.containsNode("e"));
+        assertTrue(equalsIgnoreOrder(List.of("b", "c"), snapshot.getNeighbors("a")));
+        assertTrue(snapshot.getNeighbors("d").isEmpty());
+        assertEquals("b", snapshot.valueOf(snapshot.idOf("b")));
+        assertEquals(-1, snapshot.idOf("e"));
+        assertEquals(5, snapshot.totalWeight());
+    }
+
+    @Test
+    void freezeIsNotAffectedByLaterModifications() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b");
+        }};
+        CsrGraph<String> snapshot = graph.freeze();
+        graph.addEdge("b", "a");
+        graph.removeEdge("a", "b");
+        assertEquals(List.of("b"), snapshot.getNeighbors("a"));
+        assertTrue(snapshot.getNeighbors("b").isEmpty());
+    }
+
+    @Test
+    void getNeighborsNodeDoesNotExist() {
+        CsrGraph<String> snapshot = new UndirectedGraph<String>().freeze();
+        assertThrows(NoSuchElementException.class, () -> snapshot.getNeighbors("a"));
+    }
+
+    @Test
+    void distanceBetweenFollowsGraphConventions() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b");
+            addEdge("b", "c");
+            addEdge("c", "a");
+            addEdge("a", "c");
+            addNode("d");
+        }};
+        CsrGraph<String> snapshot = graph.freeze();
+        assertEquals(1, snapshot.distanceBetween("a", "c"));
+        assertEquals(2, snapshot.distanceBetween("b", "a"));
+        assertEquals(2, snapshot.distanceBetween("a", "a"));
+        assertEquals(-1, snapshot.distanceBetween("d", "d"));
+        assertEquals(-1, snapshot.distanceBetween("a", "d"));
+    }
+
+    @Test
+    void bidirectionalDistanceFollowsGraphConventions() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b");
+            addEdge("b", "c");
+            addEdge("c", "a");
+            addEdge("a", "c");
+            addNode("d");
+        }};
+        CsrGraph<String> snapshot = graph.freeze();
+        assertEquals(1, snapshot.distanceBetween("a", "c", SearchDirection.BIDIRECTIONAL));
+        assertEquals(2, snapshot.distanceBetween("b", "a", SearchDirection.BIDIRECTIONAL));
+        assertEquals(2, snapshot.distanceBetween("a", "a", SearchDirection.BIDIRECTIONAL));
+        assertEquals(-1, snapshot.distanceBetween("d", "d", SearchDirection.BIDIRECTIONAL));
+        assertEquals(-1, snapshot.distanceBetween("a", "d", SearchDirection.BIDIRECTIONAL));
+        assertEquals(-1, snapshot.distanceBetween("d", "a", SearchDirection.BIDIRECTIONAL));
+        assertEquals(-1, snapshot.distanceBetween("a", "e", SearchDirection.BIDIRECTIONAL));
+    }
+
+    @Test
+    void bidirectionalDistanceMatchesForwardDistanceOnRandomGraphs() {
+        Random random = new Random(17);
+        for (int trial = 0; trial < 200; trial++) {
+            Graph<Integer> graph = trial % 2 == 0 ? new DirectedGraph<>() : new UndirectedGraph<>();
+            int nodeCount = 1 + random.nextInt(30);
+            for (int node = 0; node < nodeCount; node++) {
+                graph.addNode(node);
+            }
+            int edgeCount = random.nextInt(nodeCount * 2);
+            for (int edge = 0; edge < edgeCount; edge++) {
+                graph.addEdge(random.nextInt(nodeCount), random.nextInt(nodeCount));
+            }
+            CsrGraph<Integer> snapshot = graph.freeze();
+            for (int from = 0; from < nodeCount; from++) {
+                for (int to = 0; to < nodeCount; to++) {
+                    assertEquals(snapshot.distanceBetween(from, to, SearchDirection.FORWARD),
+                            snapshot.distanceBetween(from, to, SearchDirection.BIDIRECTIONAL));
+                }
+            }
+        }
+    }
+
+    @Test
+    void distancesFromSource() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b");
+            addEdge("b", "c");
+            addEdge("c", "a");
+            addEdge("a", "c");
+            addNode("d");
+        }};
+        DistanceLabeling<String> distances = graph.distancesFrom("b");
+        assertEquals(0, distances.distanceTo("b"));
+        assertEquals(1, distances.distanceTo("c"));
+        assertEquals(2, distances.distanceTo("a"));
+        assertEquals(DistanceLabeling.UNREACHABLE, distances.distanceTo("d"));
+        assertEquals(3, distances.reachableCount());
+        assertThrows(NoSuchElementException.class, () -> distances.distanceTo("e"));
+        assertThrows(NoSuchElementException.class, () -> graph.distancesFrom("e"));
+    }
+
+    @Test
+    void parallelDistancesMatchSequentialSearch() {
+        Random random = new Random(99);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int trial = 0; trial < 6; trial++) {
+                // large and dense enough for the search to split levels among tasks and to switch to bottom-up
+                Graph<Integer> graph = trial % 2 == 0 ? new DirectedGraph<>(GraphStorage.PRIMITIVE)
+                        : new UndirectedGraph<>(GraphStorage.PRIMITIVE);
+                int nodeCount = 20_000;
+                for (int node = 0; node < nodeCount; node++) {
+                    graph.addNode(node);
+                }
+                for (int edge = 0; edge < nodeCount * (trial + 1); edge++) {
+                    graph.addEdge(random.nextInt(nodeCount), random.nextInt(nodeCount));
+                }
+                CsrGraph<Integer> snapshot = graph.freeze();
+                int source = random.nextInt(nodeCount);
+                int[] expected = sequentialDistances(snapshot, source);
+                int[] actual = snapshot.distancesFrom(source, pool).toArray();
+                for (int id = 0; id < nodeCount; id++) {
+                    assertEquals(expected[id], actual[id]);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void undirectedSnapshotHalvesTotalWeight() {
+        UndirectedGraph<String> graph = new UndirectedGraph<>() {{
+            addEdge("a", "b", 4);
+            addEdge("b", "c", 6);
+        }};
+        CsrGraph<String> snapshot = graph.freeze();
+        assertFalse(snapshot.isDirected());
+        assertEquals(10, snapshot.totalWeight());
+    }
+
+    @Test
+    void undirectedHasCycle() {
+        UndirectedGraph<String> line = new UndirectedGraph<>() {{
+            addEdge("a", "b");
+            addEdge("b", "c");
+        }};
+        assertFalse(line.freeze().hasCycle());
+        line.addEdge("c", "a");
+        assertTrue(line.freeze().hasCycle());
+        UndirectedGraph<String> loop = new UndirectedGraph<>() {{
+            addEdge("a", "a");
+        }};
+        assertTrue(loop.freeze().hasCycle());
+    }
+
+    @Test
+    void directedIsConnectedGraphRequiresStrongConnectivity() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b");
+            addEdge("b", "c");
+        }};
+        assertFalse(graph.freeze().isConnectedGraph());
+        graph.addEdge("c", "a");
+        assertTrue(graph.freeze().isConnectedGraph());
+    }
+
+    @Test
+    void matchesGraphOnRandomGraphs() {
+        Random random = new Random(743);
+        for (int trial = 0; trial < 200; trial++) {
+            Graph<Integer> graph = trial % 2 == 0 ? new DirectedGraph<>() : new UndirectedGraph<>();
+            int nodeCount = 1 + random.nextInt(12);
+            for (int node = 0; node < nodeCount; node++) {
+                graph.addNode(node);
+            }
+            int edgeCount = random.nextInt(nodeCount * 2);
+            for (int edge = 0; edge < edgeCount; edge++) {
+                graph.addEdge(random.nextInt(nodeCount), random.nextInt(nodeCount), random.nextInt(10));
+            }
+            CsrGraph<Integer> snapshot = graph.freeze();
+            assertEquals(graph.hasCycle(), snapshot.hasCycle());
+            assertEquals(graph.isConnectedGraph(), snapshot.isConnectedGraph());
+            assertEquals(graph.totalWeight(), snapshot.totalWeight(), 1e-9);
+            for (int from = 0; from < nodeCount; from++) {
+                assertTrue(equalsIgnoreOrder(graph.getNeighbors(from), snapshot.getNeighbors(from)));
+                for (int to = 0; to < nodeCount; to++) {
+                    assertEquals(graph.distanceBetween(from, to), snapshot.distanceBetween(from, to));
+                }
+            }
+        }
+    }
+
+    @Test
+    void topologicalOrderAndLevels() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("shirt", "tie");
+            addEdge("tie", "jacket");
+            addEdge("pants", "shoes");
+            addEdge("pants", "belt");
+            addEdge("belt", "jacket");
+            addEdge("socks", "shoes");
+            addNode("watch");
+        }};
+        CsrGraph<String> snapshot = graph.freeze();
+        List<String> order = snapshot.topologicalOrder();
+        assertEquals(graph.size(), order.size());
+        for (String node : graph) {
+            for (String neighbor : graph.getNeighbors(node)) {
+                assertTrue(order.indexOf(node) < order.indexOf(neighbor));
+            }
+        }
+        List<List<String>> levels = snapshot.topologicalLevels(new ForkJoinPool(2));
+        assertEquals(3, levels.size());
+        assertTrue(equalsIgnoreOrder(List.of("shirt", "pants", "socks", "watch"), levels.get(0)));
+        assertTrue(equalsIgnoreOrder(List.of("tie", "shoes", "belt"), levels.get(1)));
+        assertEquals(List.of("jacket"), levels.get(2));
+
+        graph.addEdge("jacket", "shirt");
+        assertThrows(IllegalStateException.class, () -> graph.freeze().topologicalOrder());
+        assertThrows(IllegalStateException.class, () -> graph.freeze().topologicalLevels());
+        assertThrows(IllegalStateException.class, () -> graph.freeze().dagLongestPathsFrom("shirt"));
+    }
+
+    @Test
+    void dagShortestAndLongestPaths() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b", 3);
+            addEdge("a", "c", 1);
+            addEdge("c", "b", 1);
+            addEdge("b", "d", 2);
+            addEdge("c", "d", 6);
+            addEdge("d", "e", -4);
+            addEdge("x", "a", 1);
+        }};
+        PathLabeling<String> shortest = graph.dagShortestPathsFrom("a");
+        assertEquals(0, shortest.distanceTo("a"));
+        assertEquals(2, shortest.distanceTo("b"));
+        assertEquals(0, shortest.distanceTo("e"));
+        assertEquals(List.of("a", "c", "b", "d", "e"), shortest.pathTo("e"));
+        assertFalse(shortest.isReachable("x"));
+        assertEquals(Double.POSITIVE_INFINITY, shortest.distanceTo("x"));
+        assertEquals(List.of(), shortest.pathTo("x"));
+        assertEquals(List.of("a"), shortest.pathTo("a"));
+
+        PathLabeling<String> longest = graph.dagLongestPathsFrom("x");
+        assertEquals(8, longest.distanceTo("d"));
+        assertEquals(List.of("x", "a", "c", "d", "e"), longest.pathTo("e"));
+        assertEquals(Double.NEGATIVE_INFINITY, graph.dagLongestPathsFrom("e").distanceTo("a"));
+        assertThrows(NoSuchElementException.class, () -> graph.dagShortestPathsFrom("z"));
+        assertThrows(NoSuchElementException.class, () -> longest.distanceTo("z"));
+    }
+
+    @Test
+    void levelsMatchLongestPathsInRandomDags() {
+        Random random = new Random(18);
+        DirectedGraph<Integer> graph = new DirectedGraph<>();
+        for (int i = 0; i < 3_000; i++) {
+            int from = random.nextInt(2_000);
+            graph.addEdge(from, from + 1 + random.nextInt(50), 1); // edges only lead to higher values, so no cycles
+        }
+        graph.addNode(-1);
+        for (Integer node : graph) {
+            if (node >= 0) {
+                graph.addEdge(-1, node, 1);
+            }
+        }
+        // a node's level is the number of edges on the longest path to it from the node that reaches every node
+        List<List<Integer>> levels = graph.topologicalLevels();
+        PathLabeling<Integer> longest = graph.dagLongestPathsFrom(-1);
+        for (int level = 0; level < levels.size(); level++) {
+            for (Integer node : levels.get(level)) {
+                assertEquals(level, longest.distanceTo(node));
+            }
+        }
+    }
+
+    @Test
+    void allPairsShortestPaths() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b", 4);
+            addEdge("a", "c", 1);
+            addEdge("c", "b", 2);
+            addEdge("b", "d", 1);
+            addEdge("d", "a", 3);
+            addEdge("c", "c", 5);
+            addNode("e");
+        }};
+        DistanceMatrix<String> distances = graph.allPairsShortestPaths();
+        assertEquals(5, distances.size());
+        assertEquals(3, distances.distance("a", "b"));
+        assertEquals(4, distances.distance("a", "d"));
+        assertEquals(5, distances.distance("b", "c"));
+        assertEquals(0, distances.distance("c", "c"));
+        assertEquals(Double.POSITIVE_INFINITY, distances.distance("a", "e"));
+        assertFalse(distances.isReachable("e", "a"));
+        assertTrue(distances.isReachable("d", "b"));
+        assertFalse(distances.isMapped());
+        CsrGraph<String> snapshot = graph.freeze();
+        double[] row = snapshot.allPairsShortestPaths().row("a");
+        assertEquals(1, row[snapshot.idOf("c")]);
+        assertThrows(NoSuchElementException.class, () -> distances.distance("a", "z"));
+
+        graph.addEdge("d", "c", -2); // negative, but on no negative cycle
+        assertEquals(-1, graph.allPairsShortestPaths().distance("b", "c"));
+        graph.addEdge("c", "d", -1);
+        assertThrows(IllegalStateException.class, graph::allPairsShortestPaths);
+    }
+
+    @Test
+    void floydWarshallMatchesDijkstraOnRandomGraphs() {
+        Random random = new Random(19);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int trial = 0; trial < 4; trial++) {
+                int nodeCount = 50 + random.nextInt(150); // spans several tiles, and a partial tile at the end
+                Graph<Integer> graph = trial % 2 == 0 ? new DirectedGraph<>() : new UndirectedGraph<>();
+                for (int i = 0; i < nodeCount; i++) {
+                    graph.addNode(i);
+                }
+                for (int i = 0; i < nodeCount * 3; i++) {
+                    graph.addEdge(random.nextInt(nodeCount), random.nextInt(nodeCount), random.nextInt(20));
+                }
+                CsrGraph<Integer> snapshot = graph.freeze();
+                DistanceMatrix<Integer> tiled = DistanceMatrix.allocate(snapshot);
+                AllPairsShortestPaths.floydWarshall(snapshot, pool, tiled);
+                DistanceMatrix<Integer> dijkstra = DistanceMatrix.allocate(snapshot);
+                AllPairsShortestPaths.dijkstra(snapshot, pool, dijkstra);
+                DistanceMatrix<Integer> chosen = snapshot.allPairsShortestPaths(pool);
+                for (int from = 0; from < nodeCount; from++) {
+                    for (int to = 0; to < nodeCount; to++) {
+                        assertEquals(tiled.get(from, to), dijkstra.get(from, to));
+                        assertEquals(dijkstra.get(from, to), chosen.get(from, to));
+                    }
+                    int hops = snapshot.distancesFrom(snapshot.valueOf(from), pool).reachableCount();
+                    int reachable = 0;
+                    for (double distance : dijkstra.row(snapshot.valueOf(from))) {
+                        if (distance != Double.POSITIVE_INFINITY) {
+                            reachable++;
+                        }
+                    }
+                    assertEquals(hops, reachable);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void allPairsShortestPathsMappedToFile() throws IOException {
+        Random random = new Random(190);
+        DirectedGraph<Integer> graph = new DirectedGraph<>();
+        for (int i = 0; i < 300; i++) {
+            graph.addEdge(random.nextInt(100), random.nextInt(100), 1 + random.nextInt(9));
+        }
+        CsrGraph<Integer> snapshot = graph.freeze();
+        Path file = directory.resolve("distances.bin");
+        DistanceMatrix<Integer> mapped = snapshot.allPairsShortestPaths(ForkJoinPool.commonPool(), file);
+        DistanceMatrix<Integer> onHeap = snapshot.allPairsShortestPaths();
+        assertTrue(mapped.isMapped());
+        assertEquals((long) Double.BYTES * snapshot.size() * snapshot.size(), Files.size(file));
+        for (Integer from : snapshot) {
+            assertArrayEquals(onHeap.row(from), mapped.row(from));
+        }
+        // the file holds the rows in order of id, in native byte order
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.nativeOrder());
+        int last = snapshot.size() - 1;
+        assertEquals(mapped.get(last, 0), bytes.getDouble(Double.BYTES * last * snapshot.size()));
+
+        graph.addEdge(0, 1, -1); // a negative edge forces Floyd-Warshall, which runs on the file's rows in place
+        CsrGraph<Integer> negative = graph.freeze();
+        mapped = negative.allPairsShortestPaths(ForkJoinPool.commonPool(), file);
+        onHeap = negative.allPairsShortestPaths();
+        for (Integer from : negative) {
+            assertArrayEquals(onHeap.row(from), mapped.row(from));
+        }
+        assertEquals(-1, mapped.distance(0, 1));
+    }
+
+    private <T> boolean equalsIgnoreOrder(Collection<T> c1, Collection<T> c2) {
+        return (new Counter<>(c1)).equals(new Counter<>(c2));
+    }
+
+    @Test
+    void transposeReversesEdges() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b", 2);
+            addEdge("a", "c", 3);
+        }};
+        CsrGraph<String> transpose = graph.freeze().transpose();
+        assertEquals(List.of("a"), transpose.getNeighbors("b"));
+        assertEquals(List.of("a"), transpose.getNeighbors("c"));
+        assertTrue(transpose.getNeighbors("a").isEmpty());
+        assertEquals(5, transpose.totalWeight());
+    }
+
+    @Test
+    void stronglyConnectedComponentsMatchMutualReachability() {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 200; trial++) {
+            DirectedGraph<Integer> graph = new DirectedGraph<>();
+            int nodeCount = 1 + random.nextInt(15);
+            for (int node = 0; node < nodeCount; node++) {
+                graph.addNode(node);
+            }
+            int edgeCount = random.nextInt(nodeCount * 2);
+            for (int edge = 0; edge < edgeCount; edge++) {
+                graph.addEdge(random.nextInt(nodeCount), random.nextInt(nodeCount));
+            }
+            ComponentLabeling<Integer> components = graph.freeze().stronglyConnectedComponents();
+            for (int from = 0; from < nodeCount; from++) {
+                for (int to = 0; to < nodeCount; to++) {
+                    boolean mutuallyReachable = from == to
+                            || graph.distanceBetween(from, to) > 0 && graph.distanceBetween(to, from) > 0;
+                    assertEquals(mutuallyReachable, components.sameComponent(from, to));
+                    if (graph.containsEdge(from, to)) {
+                        assertTrue(components.componentOf(from) >= components.componentOf(to));
+                    }
+                }
+            }
+        }
+    }
+
+    private static int[] sequentialDistances(CsrGraph<Integer> snapshot, int source) {
+        int[] distances = new int[snapshot.size()];
+        Arrays.fill(distances, -1);
+        Deque<Integer> queue = new ArrayDeque<>();
+        int sourceId = snapshot.idOf(source);
+        distances[sourceId] = 0;
+        queue.add(sourceId);
+        while (!queue.isEmpty()) {
+            int curr = queue.remove();
+            for (Integer neighbor : snapshot.getNeighbors(snapshot.valueOf(curr))) {
+                int neighborId = snapshot.idOf(neighbor);
+                if (distances[neighborId] < 0) {
+                    distances[neighborId] = distances[curr] + 1;
+                    queue.add(neighborId);
+                }
+            }
+        }
+        return distances;
+    }
+
+    @Test
+    void minimumSpanningForestMatchesKruskalOnRandomGraphs() {
+        Random random = new Random(23);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ForkJoinPool single = new ForkJoinPool(1); // runs Kruskal's algorithm rather than Boruvka's
+        try {
+            for (int trial = 0; trial < 4; trial++) {
+                // large enough for every round to be split among tasks, with few enough weights for many ties
+                UndirectedGraph<Integer> graph = new UndirectedGraph<>(GraphStorage.PRIMITIVE);
+                int nodeCount = 20_000;
+                for (int node = 0; node < nodeCount; node++) {
+                    graph.addNode(node);
+                }
+                for (int edge = 0; edge < nodeCount * (trial + 1) / 2; edge++) {
+                    graph.addEdge(random.nextInt(nodeCount), random.nextInt(nodeCount), random.nextInt(8) - 2);
+                }
+                CsrGraph<Integer> snapshot = graph.freeze();
+                List<double[]> edges = new ArrayList<>();
+                for (int from = 0; from < nodeCount; from++) {
+                    for (int i = snapshot.offsets()[from]; i < snapshot.offsets()[from + 1]; i++) {
+                        if (from < snapshot.targets()[i]) {
+                            edges.add(new double[] {snapshot.weights()[i], from, snapshot.targets()[i]});
+                        }
+                    }
+                }
+                edges.sort(Comparator.comparingDouble(edge -> edge[0]));
+                UnionFind kruskal = new UnionFind(nodeCount);
+                double expectedWeight = 0;
+                for (double[] edge : edges) {
+                    if (kruskal.union((int) edge[1], (int) edge[2])) {
+                        expectedWeight += edge[0];
+                    }
+                }
+                for (ForkJoinPool workers : List.of(pool, single)) {
+                    SpanningForest<Integer> forest = snapshot.minimumSpanningForest(workers);
+                    assertEquals(expectedWeight, forest.totalWeight());
+                    assertEquals(kruskal.countSets(), forest.treeCount());
+                    UnionFind trees = new UnionFind(nodeCount);
+                    forest.forEachEdge((from, to, weight) -> {
+                        assertTrue(trees.union(snapshot.idOf(from), snapshot.idOf(to)));
+                        assertEquals(graph.edgeWeight(from, to), weight);
+                    });
+                }
+            }
+        } finally {
+            pool.shutdown();
+            single.shutdown();
+        }
+    }
+
+    @Test
+    void minimumSpanningForestOnOneWorkerTellsApartWeightsThatDifferInTheirLastBits() {
+        UndirectedGraph<String> graph = new UndirectedGraph<>() {{
+            addEdge("a", "b", Math.nextUp(1.0));
+            addEdge("a", "c", 1.0 + 1e-12);
+            addEdge("b", "c", 1.0);
+            addEdge("c", "d", -1.0);
+            addEdge("b", "d", Math.nextDown(-1.0));
+        }};
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            UndirectedGraph<String> trees = graph.freeze().minimumSpanningForest(single).toGraph();
+            assertEquals(3, trees.edgeCount());
+            assertTrue(trees.containsEdge("a", "b"));
+            assertTrue(trees.containsEdge("b", "d"));
+            assertTrue(trees.containsEdge("c", "d"));
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    void minimumSpanningForestNeedsUndirectedGraph() {
+        CsrGraph<String> snapshot = new DirectedGraph<String>() {{
+            addEdge("a", "b");
+        }}.freeze();
+        assertThrows(UnsupportedOperationException.class, snapshot::minimumSpanningForest);
+        SpanningForest<String> empty = new UndirectedGraph<String>().freeze().minimumSpanningForest();
+        assertEquals(0, empty.edgeCount());
+        assertEquals(0, empty.treeCount());
+        assertEquals(0, empty.totalWeight());
+    }
+
+    @Test
+    void pageRankMatchesSequentialPowerIteration() {
+        Random random = new Random(11);
+        DirectedGraph<Integer> graph = new DirectedGraph<>();
+        for (int node = 0; node < 300; node++) {
+            graph.addNode(node);
+        }
+        for (int edge = 0; edge < 1200; edge++) {
+            graph.addEdge(random.nextInt(250), random.nextInt(300));
+        }
+        CsrGraph<Integer> snapshot = graph.freeze();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            CentralityScores<Integer> ranks = snapshot.pageRank(0.85, 1e-12, pool);
+            double[] expected = new double[300];
+            Arrays.fill(expected, 1.0 / 300);
+            for (int iteration = 0; iteration < ranks.iterations(); iteration++) {
+                double[] next = new double[300];
+                double dangling = 0;
+                for (int node = 0; node < 300; node++) {
+                    List<Integer> neighbors = snapshot.getNeighbors(node);
+                    if (neighbors.isEmpty()) {
+                        dangling += expected[node];
+                    }
+                    for (int neighbor : neighbors) {
+                        next[neighbor] += 0.85 * expected[node] / neighbors.size();
+                    }
+                }
+                for (int node = 0; node < 300; node++) {
+                    next[node] += (0.15 + 0.85 * dangling) / 300;
+                }
+                expected = next;
+            }
+            assertEquals(1.0, Arrays.stream(ranks.toArray()).sum(), 1e-9);
+            for (int node = 0; node < 300; node++) {
+                assertEquals(expected[node], ranks.score(node), 1e-12);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void pageRankWarmStartConvergesSooner() {
+        DirectedGraph<Integer> graph = new DirectedGraph<>();
+        Random random = new Random(5);
+        for (int edge = 0; edge < 2000; edge++) {
+            graph.addEdge(random.nextInt(500), random.nextInt(500));
+        }
+        CentralityScores<Integer> before = graph.pageRank();
+        graph.addEdge(0, 1);
+        graph.addEdge(501, 2);
+        CsrGraph<Integer> snapshot = graph.freeze();
+        CentralityScores<Integer> cold = snapshot.pageRank(0.85, 1e-9, ForkJoinPool.commonPool());
+        CentralityScores<Integer> warm = snapshot.pageRank(before, 0.85, 1e-9, ForkJoinPool.commonPool());
+        assertTrue(warm.iterations() < cold.iterations());
+        for (int node : snapshot) {
+            assertEquals(cold.score(node), warm.score(node), 1e-8);
+        }
+        assertFalse(before.containsNode(501));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.pageRank(1, 1e-9, ForkJoinPool.commonPool()));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.pageRank(0.85, 0, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void pageRankOfSymmetricGraphs() {
+        CentralityScores<String> ranks = new UndirectedGraph<String>() {{
+            addEdge("hub", "a");
+            addEdge("hub", "b");
+            addEdge("hub", "c");
+        }}.pageRank();
+        assertEquals(List.of("hub", "a"), ranks.top(2));
+        assertEquals(ranks.score("a"), ranks.score("c"), 1e-12);
+        CentralityScores<String> cycle = new DirectedGraph<String>() {{
+            addEdge("a", "b");
+            addEdge("b", "c");
+            addEdge("c", "a");
+        }}.pageRank();
+        assertEquals(1.0 / 3, cycle.score("b"), 1e-9);
+        assertThrows(NoSuchElementException.class, () -> cycle.score("d"));
+        assertEquals(0, new DirectedGraph<String>().pageRank().size());
+    }
+
+    @Test
+    void degreeCentrality() {
+        CsrGraph<String> snapshot = new DirectedGraph<String>() {{
+            addEdge("a", "b");
+            addEdge("a", "c");
+            addEdge("b", "c");
+        }}.freeze();
+        assertEquals(1.0, snapshot.degreeCentrality().score("a"));
+        assertEquals(0.0, snapshot.degreeCentrality().score("c"));
+        assertEquals(1.0, snapshot.inDegreeCentrality().score("c"));
+        assertEquals(0.5, snapshot.inDegreeCentrality().score("b"));
+        assertEquals(0.0, new UndirectedGraph<String>() {{
+            addNode("lonely");
+        }}.degreeCentrality().score("lonely"));
+    }
+
+    @Test
+    void betweennessCentralityIsExactWhenEveryNodeIsSampled() {
+        CentralityScores<String> path = new UndirectedGraph<String>() {{
+            addEdge("a", "b");
+            addEdge("b", "c");
+            addEdge("c", "d");
+        }}.betweennessCentrality(4, DistanceMetric.HOPS);
+        assertEquals(0.0, path.score("a"), 1e-12);
+        assertEquals(2.0, path.score("b"), 1e-12);
+        assertEquals(2.0, path.score("c"), 1e-12);
+        CentralityScores<String> diamond = new DirectedGraph<String>() {{
+            addEdge("s", "a");
+            addEdge("s", "b");
+            addEdge("a", "t");
+            addEdge("b", "t");
+        }}.betweennessCentrality(10, DistanceMetric.HOPS);
+        assertEquals(0.5, diamond.score("a"), 1e-12);
+        assertEquals(0.5, diamond.score("b"), 1e-12);
+        CsrGraph<String> weighted = new UndirectedGraph<String>() {{
+            addEdge("a", "b", 1);
+            addEdge("b", "c", 1);
+            addEdge("a", "c", 3);
+            addEdge("c", "d", 1);
+        }}.freeze();
+        assertEquals(2.0, weighted.betweennessCentrality(4, DistanceMetric.WEIGHTS).score("b"), 1e-12);
+        assertEquals(2.0, weighted.betweennessCentrality(4, DistanceMetric.WEIGHTS).score("c"), 1e-12);
+        assertEquals(0.0, weighted.betweennessCentrality(4, DistanceMetric.HOPS).score("b"), 1e-12);
+    }
+
+    @Test
+    void betweennessCentralityIsTheSameInParallel() {
+        Random random = new Random(3);
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>();
+        for (int edge = 0; edge < 600; edge++) {
+            graph.addEdge(random.nextInt(200), random.nextInt(200), 1 + random.nextInt(5));
+        }
+        CsrGraph<Integer> snapshot = graph.freeze();
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (DistanceMetric metric : DistanceMetric.values()) {
+                double[] exact = snapshot.betweennessCentrality(200, metric, 1, single).toArray();
+                assertArrayEquals(exact, snapshot.betweennessCentrality(200, metric, 2, pool).toArray(), 1e-9);
+                double[] sampled = snapshot.betweennessCentrality(50, metric, 1, pool).toArray();
+                assertEquals(Arrays.stream(exact).sum(), Arrays.stream(sampled).sum(),
+                        0.25 * Arrays.stream(exact).sum());
+            }
+        } finally {
+            single.shutdown();
+            pool.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class, () -> snapshot.betweennessCentrality(0, DistanceMetric.HOPS));
+        CsrGraph<String> zero = new DirectedGraph<String>() {{
+            addEdge("a", "b", 0);
+        }}.freeze();
+        assertThrows(IllegalStateException.class, () -> zero.betweennessCentrality(1, DistanceMetric.WEIGHTS));
+    }
+
+    @Test
+    void connectedComponentsMatchSequentialLabeling() {
+        Random random = new Random(19);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // a giant component with scattered small ones, then nothing but small ones
+            for (int edgeCount : new int[] {30000, 4000}) {
+                UndirectedGraph<Integer> graph = new UndirectedGraph<>();
+                for (int node = 0; node < 20000; node++) {
+                    graph.addNode(node);
+                }
+                for (int edge = 0; edge < edgeCount; edge++) {
+                    graph.addEdge(random.nextInt(20000), random.nextInt(20000));
+                }
+                CsrGraph<Integer> snapshot = graph.freeze();
+                ComponentLabeling<Integer> expected = snapshot.stronglyConnectedComponents();
+                ComponentLabeling<Integer> components = snapshot.connectedComponents(pool);
+                assertEquals(expected.componentCount(), components.componentCount());
+                assertEquals(graph.componentCount(), components.componentCount());
+                int[] firstOfComponent = new int[components.componentCount()];
+                int labeled = 0;
+                for (int id = 0; id < snapshot.size(); id++) {
+                    int node = snapshot.valueOf(id);
+                    int label = components.componentOf(node);
+                    if (label == labeled) {
+                        // components are numbered in order of their lowest ids
+                        firstOfComponent[label] = node;
+                        labeled++;
+                    }
+                    assertTrue(label < labeled);
+                    assertTrue(expected.sameComponent(firstOfComponent[label], node));
+                    assertTrue(graph.sameComponent(firstOfComponent[label], node));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void connectedComponentsNeedUndirectedGraph() {
+        CsrGraph<String> snapshot = new DirectedGraph<String>() {{
+            addEdge("a", "b");
+        }}.freeze();
+        assertThrows(UnsupportedOperationException.class, snapshot::connectedComponents);
+    }
+}
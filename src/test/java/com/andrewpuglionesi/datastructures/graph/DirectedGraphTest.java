@@ -8,6 +8,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -143,6 +144,250 @@ public class DirectedGraphTest {
         assertFalse(graph.containsEdge("Bob", "Bob"));
     }
 
+    @Test
+    void inboundNeighborsWithoutIndex() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "c", 2);
+            addEdge("b", "c", 3);
+            addEdge("c", "a");
+            addNode("d");
+        }};
+        assertFalse(graph.hasInboundIndex());
+        assertTrue(equalsIgnoreOrder(List.of("a", "b"), graph.getInboundNeighbors("c")));
+        assertEquals(List.of(), graph.getInboundNeighbors("d"));
+        assertEquals(2, graph.inDegree("c"));
+        assertEquals(1, graph.outDegree("c"));
+        List<String> edges = new ArrayList<>();
+        graph.getInboundEdges("c").forEach(edge -> edges.add(edge.getSource() + edge.getDestination() + edge.getWeight()));
+        assertTrue(equalsIgnoreOrder(List.of("ac2.0", "bc3.0"), edges));
+        assertThrows(NoSuchElementException.class, () -> graph.inDegree("z"));
+        assertThrows(NoSuchElementException.class, () -> graph.getInboundEdges("z"));
+    }
+
+    @Test
+    void inboundIndexStaysInSync() {
+        DirectedGraph<String> graph = new DirectedGraph<>(GraphStorage.PRIMITIVE) {{
+            addEdge("a", "c", 2);
+            addEdge("b", "c", 3);
+        }};
+        graph.indexInboundEdges();
+        graph.indexInboundEdges();
+        assertTrue(graph.hasInboundIndex());
+        graph.addNode("d");
+        graph.addEdge("d", "c", 4);
+        graph.addEdge("a", "c", 5);
+        graph.removeEdge("b", "c");
+        graph.addEdges(new String[] {"e", "c"}, new String[] {"c", "e"}, new double[] {6, 7});
+        assertEquals(3, graph.inDegree("c"));
+        assertEquals(0, graph.inDegree("d"));
+        assertEquals(1, graph.inDegree("e"));
+        assertEquals(List.of(), graph.getInboundNeighbors("d"));
+        List<String> edges = new ArrayList<>();
+        graph.getInboundEdges("c").forEach(edge -> edges.add(edge.getSource() + edge.getDestination() + edge.getWeight()));
+        assertTrue(equalsIgnoreOrder(List.of("ac5.0", "dc4.0", "ec6.0"), edges));
+        for (String node : graph) {
+            assertTrue(equalsIgnoreOrder(graph.getInboundNeighbors(node), scanInboundNeighbors(graph, node)));
+        }
+    }
+
+    @Test
+    void concurrentGraphInboundIndex() throws InterruptedException {
+        ConcurrentDirectedGraph<Integer> graph = new ConcurrentDirectedGraph<>();
+        graph.indexInboundEdges();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    graph.addEdge(i % 50, (i + offset) % 50);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Integer node : graph) {
+            assertTrue(equalsIgnoreOrder(graph.getInboundNeighbors(node), scanInboundNeighbors(graph, node)));
+        }
+    }
+
+    @Test
+    void concurrentGraphInboundIndexAgreesAfterRacingWrites() throws InterruptedException {
+        ConcurrentDirectedGraph<Integer> graph = new ConcurrentDirectedGraph<>();
+        graph.indexInboundEdges();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t;
+            threads.add(new Thread(() -> {
+                Random random = new Random(offset);
+                for (int i = 0; i < 5_000; i++) {
+                    int from = random.nextInt(10);
+                    int to = random.nextInt(10);
+                    if (random.nextBoolean()) {
+                        graph.addEdge(from, to, offset);
+                    } else {
+                        graph.removeEdge(from, to);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Integer node : graph) {
+            List<String> inbound = new ArrayList<>();
+            graph.getInboundEdges(node).forEach(edge -> inbound.add(edge.getSource() + ":" + edge.getWeight()));
+            List<String> scanned = new ArrayList<>();
+            for (Integer origin : scanInboundNeighbors(graph, node)) {
+                scanned.add(origin + ":" + graph.edgeWeight(origin, node));
+            }
+            assertTrue(equalsIgnoreOrder(scanned, inbound));
+        }
+    }
+
+    @Test
+    void tryAddEdgeAcyclic() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b");
+            addEdge("b", "c");
+        }};
+        assertTrue(graph.tryAddEdgeAcyclic("c", "d", 2));
+        assertTrue(graph.isMaintainingTopologicalOrder());
+        assertFalse(graph.tryAddEdgeAcyclic("d", "a"));
+        assertFalse(graph.tryAddEdgeAcyclic("e", "e"));
+        assertFalse(graph.containsNode("e"));
+        assertFalse(graph.containsEdge("d", "a"));
+        assertTrue(graph.tryAddEdgeAcyclic("x", "a"));
+        assertTrue(graph.tryAddEdgeAcyclic("d", "y"));
+        assertTrue(graph.tryAddEdgeAcyclic("m", "n"));
+        assertTrue(graph.tryAddEdgeAcyclic("n", "a")); // moves m and n ahead of a and its successors
+        assertFalse(graph.tryAddEdgeAcyclic("y", "m"));
+        assertTrue(graph.tryAddEdgeAcyclic("m", "y"));
+        assertFalse(graph.hasCycle());
+        assertEquals(2, graph.getOutboundEdges("c").get(0).getWeight());
+        List<String> order = graph.topologicalOrder();
+        assertEquals(graph.size(), order.size());
+        for (String node : graph) {
+            for (String neighbor : graph.getNeighbors(node)) {
+                assertTrue(order.indexOf(node) < order.indexOf(neighbor));
+            }
+        }
+    }
+
+    @Test
+    void tryAddEdgeAcyclicMatchesFullCycleCheck() {
+        Random random = new Random(17);
+        List<Integer> nodes = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            nodes.add(i);
+        }
+        DirectedGraph<Integer> graph = new DirectedGraph<>(nodes);
+        DirectedGraph<Integer> expected = new DirectedGraph<>(nodes);
+        for (int i = 0; i < 3_000; i++) {
+            int from = random.nextInt(60);
+            int to = random.nextInt(60);
+            if (random.nextInt(4) == 0) {
+                graph.removeEdge(from, to);
+                expected.removeEdge(from, to);
+                continue;
+            }
+            expected.addEdge(from, to);
+            boolean acyclic = !expected.hasCycle();
+            if (!acyclic) {
+                expected.removeEdge(from, to);
+            }
+            assertEquals(acyclic, graph.tryAddEdgeAcyclic(from, to));
+            assertEquals(expected, graph);
+        }
+        assertTrue(graph.isMaintainingTopologicalOrder());
+    }
+
+    @Test
+    void addingCycleStopsTopologicalOrder() {
+        DirectedGraph<String> graph = new DirectedGraph<>();
+        graph.maintainTopologicalOrder();
+        graph.addEdges(new String[] {"a", "b"}, new String[] {"b", "c"});
+        assertTrue(graph.isMaintainingTopologicalOrder());
+        graph.addEdge("c", "a");
+        assertFalse(graph.isMaintainingTopologicalOrder());
+        assertTrue(graph.hasCycle());
+        assertThrows(IllegalStateException.class, () -> graph.tryAddEdgeAcyclic("c", "d"));
+        graph.removeEdge("c", "a");
+        graph.maintainTopologicalOrder();
+        assertFalse(graph.hasCycle());
+        assertFalse(graph.tryAddEdgeAcyclic("c", "a"));
+        assertThrows(UnsupportedOperationException.class,
+                () -> new ConcurrentDirectedGraph<String>().maintainTopologicalOrder());
+    }
+
+    @Test
+    void addingCyclicBatchStopsTopologicalOrder() {
+        DirectedGraph<Integer> graph = new DirectedGraph<>(List.of(0, 1, 2, 3, 4, 5, 6));
+        graph.maintainTopologicalOrder();
+        graph.addEdges(new Integer[] {1, 3, 5}, new Integer[] {5, 1, 3}); // 1 -> 5 -> 3 -> 1
+        assertFalse(graph.isMaintainingTopologicalOrder());
+        assertTrue(graph.hasCycle());
+        assertTrue(graph.freeze().hasCycle());
+        assertTrue(graph.containsEdge(5, 3));
+        assertEquals(List.of(5), graph.getInboundNeighbors(3));
+    }
+
+    @Test
+    void addingBatchesKeepsTopologicalOrder() {
+        DirectedGraph<Integer> graph = new DirectedGraph<>(List.of(0, 1, 2, 3, 4, 5));
+        graph.maintainTopologicalOrder();
+        graph.addEdges(new Integer[] {4, 5}, new Integer[] {3, 2});
+        graph.addEdges(new Integer[] {2, 3, 2}, new Integer[] {4, 0, 4});
+        assertTrue(graph.isMaintainingTopologicalOrder());
+        assertEdgesFollowOrder(graph);
+
+        Random random = new Random(17);
+        for (int trial = 0; trial < 2_000; trial++) {
+            DirectedGraph<Integer> batched = new DirectedGraph<>(List.of(0, 1, 2, 3, 4, 5, 6));
+            batched.maintainTopologicalOrder();
+            for (int batch = 0; batch < 3; batch++) {
+                int size = 1 + random.nextInt(3);
+                Integer[] origins = new Integer[size];
+                Integer[] termini = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    origins[i] = random.nextInt(7);
+                    termini[i] = random.nextInt(7);
+                }
+                batched.addEdges(origins, termini);
+            }
+            assertEquals(batched.freeze().hasCycle(), batched.hasCycle());
+            if (batched.isMaintainingTopologicalOrder()) {
+                assertEdgesFollowOrder(batched);
+            }
+        }
+    }
+
+    private <T> void assertEdgesFollowOrder(DirectedGraph<T> graph) {
+        List<T> order = graph.topologicalOrder();
+        assertEquals(graph.size(), order.size());
+        for (T node : graph) {
+            for (T neighbor : graph.getNeighbors(node)) {
+                assertTrue(order.indexOf(node) < order.indexOf(neighbor));
+            }
+        }
+    }
+
+    private <T> List<T> scanInboundNeighbors(DirectedGraph<T> graph, T to) {
+        List<T> neighbors = new ArrayList<>();
+        for (T node : graph) {
+            if (graph.getNeighbors(node).contains(to)) {
+                neighbors.add(node);
+            }
+        }
+        return neighbors;
+    }
+
     private <T> boolean equalsIgnoreOrder(Collection<T> c1, Collection<T> c2) {
         return (new Counter<>(c1)).equals(new Counter<>(c2));
     }
@@ -342,6 +587,44 @@ public class DirectedGraphTest {
         assertEquals(2, graph.distanceBetween("John", "George"));
     }
 
+    @Test
+    void distanceBetweenBidirectional() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            // John -> Yoko -> Paul -> Ringo -> George
+            // John -> Paul
+            addEdge("John", "Yoko");
+            addEdge("Yoko", "Paul");
+            addEdge("Paul", "Ringo");
+            addEdge("Ringo", "George");
+            addEdge("John", "Paul");
+        }};
+        assertEquals(3, graph.distanceBetween("John", "George", SearchDirection.BIDIRECTIONAL));
+        assertEquals(-1, graph.distanceBetween("George", "John", SearchDirection.BIDIRECTIONAL));
+        assertEquals(-1, graph.distanceBetween("John", "Jimi", SearchDirection.BIDIRECTIONAL));
+    }
+
+    @Test
+    void distanceBetweenBidirectionalUsesInboundIndex() {
+        Random random = new Random(8);
+        DirectedGraph<Integer> graph = new DirectedGraph<>();
+        for (int node = 0; node < 400; node++) {
+            graph.addNode(node);
+        }
+        graph.indexInboundEdges();
+        for (int edge = 0; edge < 900; edge++) {
+            graph.addEdge(random.nextInt(400), random.nextInt(400));
+        }
+        for (int query = 0; query < 200; query++) {
+            int from = random.nextInt(400);
+            int to = random.nextInt(400);
+            assertEquals(graph.distanceBetween(from, to),
+                    graph.distanceBetween(from, to, SearchDirection.BIDIRECTIONAL));
+        }
+        graph.addEdge(400, 400);
+        assertEquals(1, graph.distanceBetween(400, 400, SearchDirection.BIDIRECTIONAL));
+        assertEquals(-1, graph.distanceBetween(400, 401, SearchDirection.BIDIRECTIONAL));
+    }
+
     @Test
     void isConnectedGraphEmptyGraph() {
         DirectedGraph<String> graph = new DirectedGraph<>();
@@ -646,4 +929,261 @@ public class DirectedGraphTest {
         DirectedGraph<String> graph = new DirectedGraph<>();
         assertFalse(graph.containsEdge("a", "b"));
     }
+
+    @Test
+    void forEachNeighbor() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b");
+            addEdge("a", "c");
+            addEdge("c", "a");
+        }};
+        List<String> neighbors = new ArrayList<>();
+        graph.forEachNeighbor("a", neighbors::add);
+        assertTrue(equalsIgnoreOrder(List.of("b", "c"), neighbors));
+        assertThrows(NoSuchElementException.class, () -> graph.forEachNeighbor("x", neighbors::add));
+    }
+
+    @Test
+    void forEachOutboundEdge() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b", 2);
+            addEdge("a", "c", 3);
+        }};
+        List<String> edges = new ArrayList<>();
+        graph.forEachOutboundEdge("a", (source, destination, weight) -> edges.add(source + destination + weight));
+        assertTrue(equalsIgnoreOrder(List.of("ab2.0", "ac3.0"), edges));
+        graph.forEachOutboundEdge("b", (source, destination, weight) -> edges.add(source + destination + weight));
+        assertEquals(2, edges.size());
+    }
+
+    @Test
+    void edgeCursorIsReusable() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b", 2);
+            addEdge("b", "c", 3);
+            addEdge("b", "a", 4);
+            addNode("d");
+        }};
+        EdgeCursor<String> cursor = graph.edgeCursor();
+        cursor.reset("a");
+        assertTrue(cursor.advance());
+        assertEquals("a", cursor.source());
+        assertEquals("b", cursor.destination());
+        assertEquals(2, cursor.weight());
+        assertFalse(cursor.advance());
+
+        cursor.reset("b");
+        List<String> destinations = new ArrayList<>();
+        while (cursor.advance()) {
+            destinations.add(cursor.destination());
+        }
+        assertTrue(equalsIgnoreOrder(List.of("a", "c"), destinations));
+
+        cursor.reset("d");
+        assertFalse(cursor.advance());
+        assertThrows(NoSuchElementException.class, () -> cursor.reset("x"));
+    }
+
+    @Test
+    void traversalsHandleVeryLongPaths() {
+        // long enough to overflow the call stack if any of these searches were recursive
+        int length = 300_000;
+        DirectedGraph<Integer> graph = new DirectedGraph<>(GraphStorage.PRIMITIVE);
+        for (int i = 0; i < length; i++) {
+            graph.addEdge(i, i + 1);
+        }
+        assertFalse(graph.hasCycle());
+        assertFalse(graph.isConnectedGraph());
+        assertEquals(length, graph.getNodesConnectedTo(0).size());
+        assertEquals(length, graph.distanceBetween(0, length));
+        graph.addEdge(length, 0);
+        assertTrue(graph.hasCycle());
+        assertTrue(graph.isConnectedGraph());
+    }
+
+    @Test
+    void stronglyConnectedComponentsEmptyGraph() {
+        DirectedGraph<String> graph = new DirectedGraph<>();
+        assertEquals(0, graph.stronglyConnectedComponents().componentCount());
+    }
+
+    @Test
+    void stronglyConnectedComponents() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            // {a, b, c} form a cycle that leads into the cycle {d, e}, which leads to the lone node f
+            addEdge("a", "b");
+            addEdge("b", "c");
+            addEdge("c", "a");
+            addEdge("c", "d");
+            addEdge("d", "e");
+            addEdge("e", "d");
+            addEdge("e", "f");
+            addEdge("f", "f");
+        }};
+        ComponentLabeling<String> components = graph.stronglyConnectedComponents();
+        assertEquals(3, components.componentCount());
+        assertTrue(components.sameComponent("a", "c"));
+        assertTrue(components.sameComponent("d", "e"));
+        assertFalse(components.sameComponent("c", "d"));
+        assertFalse(components.sameComponent("e", "f"));
+        // components are numbered in reverse topological order
+        assertTrue(components.componentOf("a") > components.componentOf("d"));
+        assertTrue(components.componentOf("d") > components.componentOf("f"));
+
+        int[] sizes = components.componentSizes();
+        assertEquals(3, sizes[components.componentOf("b")]);
+        assertEquals(2, sizes[components.componentOf("e")]);
+        assertEquals(1, sizes[components.componentOf("f")]);
+        assertEquals(Set.of("d", "e"), components.components().get(components.componentOf("d")));
+
+        DirectedGraph<Integer> condensation = components.condensation();
+        assertEquals(3, condensation.size());
+        assertFalse(condensation.hasCycle());
+        assertTrue(condensation.containsEdge(components.componentOf("a"), components.componentOf("d")));
+        assertTrue(condensation.containsEdge(components.componentOf("d"), components.componentOf("f")));
+        assertFalse(condensation.containsEdge(components.componentOf("a"), components.componentOf("f")));
+        assertThrows(NoSuchElementException.class, () -> components.componentOf("x"));
+    }
+
+    @Test
+    void shortestPathFollowsWeights() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b", 10);
+            addEdge("a", "c", 2);
+            addEdge("c", "d", 3);
+            addEdge("d", "b", 1);
+            addEdge("b", "a", 1);
+            addNode("e");
+        }};
+        WeightedPath<String> path = graph.shortestPath("a", "b");
+        assertTrue(path.exists());
+        assertEquals(6, path.distance());
+        assertEquals(List.of("a", "c", "d", "b"), path.nodes());
+        assertEquals(List.of("a"), graph.shortestPath("a", "a").nodes());
+        assertEquals(0, graph.shortestPath("a", "a").distance());
+        assertFalse(graph.shortestPath("a", "e").exists());
+        assertEquals(Double.POSITIVE_INFINITY, graph.shortestPath("e", "a").distance());
+        assertEquals(List.of(), graph.shortestPath("e", "a").nodes());
+        assertThrows(NoSuchElementException.class, () -> graph.shortestPath("a", "x"));
+        assertThrows(NoSuchElementException.class, () -> graph.shortestPath("x", "a", node -> 0));
+        graph.addEdge("c", "b", -1);
+        assertThrows(IllegalStateException.class, () -> graph.shortestPath("a", "b"));
+    }
+
+    @Test
+    void shortestPathMatchesAllPairsOnRandomGraphs() {
+        Random random = new Random(20);
+        DirectedGraph<Integer> graph = new DirectedGraph<>();
+        for (int i = 0; i < 600; i++) {
+            graph.addEdge(random.nextInt(150), random.nextInt(150), random.nextInt(10));
+        }
+        DistanceMatrix<Integer> expected = graph.allPairsShortestPaths();
+        for (int i = 0; i < 300; i++) {
+            int from = random.nextInt(150);
+            int to = random.nextInt(150);
+            if (!graph.containsNode(from) || !graph.containsNode(to)) {
+                continue;
+            }
+            WeightedPath<Integer> path = graph.shortestPath(from, to);
+            assertEquals(expected.distance(from, to), path.distance());
+            if (path.exists()) {
+                double weight = 0;
+                for (int node = 1; node < path.nodes().size(); node++) {
+                    weight += graph.edgeWeight(path.nodes().get(node - 1), path.nodes().get(node));
+                }
+                assertEquals(path.distance(), weight);
+                assertEquals(from, path.nodes().get(0));
+                assertEquals(to, path.nodes().get(path.nodes().size() - 1));
+            }
+        }
+    }
+
+    @Test
+    void versionCountsMutations() {
+        DirectedGraph<String> graph = new DirectedGraph<>();
+        assertEquals(0, graph.version());
+        graph.addNode("a");
+        long afterNode = graph.version();
+        assertTrue(afterNode > 0);
+        graph.addEdge("a", "b");
+        long afterEdge = graph.version();
+        assertTrue(afterEdge > afterNode);
+        graph.addEdge("a", "b", 3);
+        assertTrue(graph.version() > afterEdge);
+        long beforeRemoval = graph.version();
+        graph.removeEdge("b", "a");
+        assertEquals(beforeRemoval, graph.version());
+        graph.removeEdge("a", "b");
+        assertTrue(graph.version() > beforeRemoval);
+        long beforeBatch = graph.version();
+        graph.addEdges(new String[] {"b"}, new String[] {"c"});
+        assertTrue(graph.version() > beforeBatch);
+        long afterBatch = graph.version();
+        graph.addEdges(new String[] {}, new String[] {});
+        assertEquals(afterBatch, graph.version());
+        long beforeQueries = graph.version();
+        graph.hasCycle();
+        graph.distanceBetween("b", "c");
+        assertEquals(beforeQueries, graph.version());
+    }
+
+    @Test
+    void queryCacheServesRepeatedQueriesUntilTheGraphChanges() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b");
+            addEdge("b", "c");
+            addNode("d");
+        }};
+        assertEquals(0, graph.queryCacheHits());
+        graph.enableQueryCache(16);
+        assertEquals(2, graph.distanceBetween("a", "c"));
+        assertEquals(2, graph.distanceBetween("a", "c", SearchDirection.BIDIRECTIONAL));
+        assertFalse(graph.hasCycle());
+        assertFalse(graph.hasCycle());
+        assertEquals(Set.of("b", "c"), graph.getNodesConnectedTo("a"));
+        graph.getNodesConnectedTo("a").clear();
+        assertEquals(Set.of("b", "c"), graph.getNodesConnectedTo("a"));
+        assertEquals(4, graph.queryCacheHits());
+        assertEquals(3, graph.queryCacheMisses());
+
+        graph.addEdge("c", "a");
+        assertTrue(graph.hasCycle());
+        graph.addEdge("a", "c");
+        assertEquals(1, graph.distanceBetween("a", "c"));
+        graph.addEdge("c", "d");
+        assertEquals(Set.of("b", "c", "d"), graph.getNodesConnectedTo("a"));
+        graph.removeEdge("a", "c");
+        graph.removeEdge("c", "a");
+        assertEquals(2, graph.distanceBetween("a", "c"));
+        assertFalse(graph.hasCycle());
+        assertEquals(4, graph.queryCacheHits());
+        assertEquals(8, graph.queryCacheMisses());
+        assertThrows(NoSuchElementException.class, () -> graph.getNodesConnectedTo("x"));
+
+        graph.disableQueryCache();
+        assertEquals(2, graph.distanceBetween("a", "c"));
+        assertEquals(0, graph.queryCacheHits());
+        assertEquals(0, graph.queryCacheMisses());
+        assertThrows(IllegalArgumentException.class, () -> graph.enableQueryCache(0));
+    }
+
+    @Test
+    void queryCacheEvictsLeastRecentlyUsed() {
+        DirectedGraph<Integer> graph = new DirectedGraph<>() {{
+            addEdge(0, 1);
+            addEdge(1, 2);
+            addEdge(2, 3);
+        }};
+        graph.enableQueryCache(2);
+        graph.distanceBetween(0, 1);
+        graph.distanceBetween(0, 2);
+        graph.distanceBetween(0, 1);
+        graph.distanceBetween(0, 3);
+        assertEquals(1, graph.queryCacheHits());
+        graph.distanceBetween(0, 1);
+        assertEquals(2, graph.queryCacheHits());
+        graph.distanceBetween(0, 2);
+        assertEquals(2, graph.queryCacheHits());
+        assertEquals(4, graph.queryCacheMisses());
+    }
 }
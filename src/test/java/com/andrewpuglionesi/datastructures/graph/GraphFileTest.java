@@ -0,0 +1,138 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import com.andrewpuglionesi.datastructures.Counter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GraphFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void directedGraphRoundTrip() throws IOException {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b", 2);
+            addEdge("a", "c", 3.5);
+            addEdge("c", "a", -1);
+            addEdge("\u00e9t\u00e9", "a");
+            addNode("d");
+        }};
+        Path file = this.directory.resolve("graph.bin");
+        GraphFile.write(graph, file, NodeCodec.strings());
+        Graph<String> mapped = GraphFile.read(file, NodeCodec.strings());
+        assertInstanceOf(DirectedGraph.class, mapped);
+        assertEquals(graph, mapped);
+        assertEquals(5, mapped.size());
+        assertTrue(mapped.containsEdge("a", "c"));
+        assertFalse(mapped.containsEdge("b", "a"));
+        assertFalse(mapped.containsEdge("a", "z"));
+        assertTrue(equalsIgnoreOrder(List.of("b", "c"), mapped.getNeighbors("a")));
+        assertTrue(mapped.getNeighbors("d").isEmpty());
+        assertEquals(4.5, mapped.totalWeight());
+        assertEquals(2, mapped.distanceBetween("\u00e9t\u00e9", "c"));
+        assertTrue(mapped.hasCycle());
+        assertThrows(NoSuchElementException.class, () -> mapped.getNeighbors("z"));
+    }
+
+    @Test
+    void undirectedGraphRoundTrip() throws IOException {
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>() {{
+            addEdge(1, 2, 1);
+            addEdge(2, 3, 2);
+            addEdge(4, 4, 4);
+        }};
+        Path file = this.directory.resolve("graph.bin");
+        GraphFile.write(graph, file, NodeCodec.integers());
+        Graph<Integer> mapped = GraphFile.read(file, NodeCodec.integers());
+        assertInstanceOf(UndirectedGraph.class, mapped);
+        assertEquals(graph, mapped);
+        assertEquals(graph.totalWeight(), mapped.totalWeight());
+        assertEquals(2, ((UndirectedGraph<Integer>) mapped).componentCount());
+        assertFalse(mapped.isConnectedGraph());
+    }
+
+    @Test
+    void emptyGraphRoundTrip() throws IOException {
+        Path file = this.directory.resolve("graph.bin");
+        GraphFile.write(new DirectedGraph<Long>(), file, NodeCodec.longs());
+        Graph<Long> mapped = GraphFile.read(file, NodeCodec.longs());
+        assertTrue(mapped.isEmpty());
+        assertFalse(mapped.isConnectedGraph());
+    }
+
+    @Test
+    void randomGraphRoundTrip() throws IOException {
+        Random random = new Random(3);
+        DirectedGraph<Long> graph = new DirectedGraph<>(GraphStorage.PRIMITIVE);
+        for (int i = 0; i < 20_000; i++) {
+            graph.addEdge((long) random.nextInt(1_000), (long) random.nextInt(1_000), random.nextDouble());
+        }
+        Path file = this.directory.resolve("graph.bin");
+        GraphFile.write(graph, file, NodeCodec.longs());
+        Graph<Long> mapped = GraphFile.read(file, NodeCodec.longs());
+        assertEquals(graph, mapped);
+        for (Long node : graph) {
+            assertEquals(graph.distanceBetween(0L, node), mapped.distanceBetween(0L, node));
+        }
+        assertEquals(graph.totalWeight(), mapped.totalWeight(), 1e-6);
+        assertEquals(graph.freeze().distancesFrom(0L).reachableCount(), mapped.distancesFrom(0L).reachableCount());
+    }
+
+    @Test
+    void mappedGraphCannotBeModified() throws IOException {
+        DirectedGraph<Integer> graph = new DirectedGraph<>() {{
+            addEdge(1, 2);
+        }};
+        Path file = this.directory.resolve("graph.bin");
+        GraphFile.write(graph, file, NodeCodec.integers());
+        Graph<Integer> mapped = GraphFile.read(file, NodeCodec.integers());
+        assertThrows(UnsupportedOperationException.class, () -> mapped.addNode(3));
+        assertThrows(UnsupportedOperationException.class, () -> mapped.addEdge(1, 2, 5));
+        assertThrows(UnsupportedOperationException.class, () -> mapped.removeEdge(1, 2));
+        assertSame(mapped.snapshotStore(), mapped.snapshotStore());
+        assertEquals(graph, mapped);
+    }
+
+    @Test
+    void rejectsFilesThatAreNotGraphFiles() throws IOException {
+        Path file = this.directory.resolve("graph.bin");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> GraphFile.read(file, NodeCodec.integers()));
+        Files.write(file, new byte[3]);
+        assertThrows(IOException.class, () -> GraphFile.read(file, NodeCodec.integers()));
+    }
+
+    @Test
+    void rejectsTruncatedFiles() throws IOException {
+        DirectedGraph<Integer> graph = new DirectedGraph<>() {{
+            addEdge(1, 2);
+            addEdge(2, 3);
+        }};
+        Path file = this.directory.resolve("graph.bin");
+        GraphFile.write(graph, file, NodeCodec.integers());
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+        assertThrows(IOException.class, () -> GraphFile.read(file, NodeCodec.integers()));
+    }
+
+    private <T> boolean equalsIgnoreOrder(Collection<T> c1, Collection<T> c2) {
+        return (new Counter<>(c1)).equals(new Counter<>(c2));
+    }
+}
@@ -0,0 +1,434 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import com.andrewpuglionesi.datastructures.Counter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GraphStorageTest {
+
+    @Test
+    void primitiveStorageBasicOperations() {
+        DirectedGraph<String> graph = new DirectedGraph<>(GraphStorage.PRIMITIVE) {{
+            addEdge("a", "b", 2);
+            addEdge("a", "c", 3);
+            addEdge("a", "b", 4); // updates a->b edge weight
+        }};
+        assertEquals(3, graph.size());
+        assertTrue(graph.containsEdge("a", "b"));
+        assertFalse(graph.containsEdge("b", "a"));
+        assertFalse(graph.containsEdge("x", "a"));
+        assertTrue(equalsIgnoreOrder(List.of("b", "c"), graph.getNeighbors("a")));
+        assertEquals(7, graph.totalWeight());
+        graph.removeEdge("a", "b");
+        assertEquals(List.of("c"), graph.getNeighbors("a"));
+        assertEquals(3, graph.totalWeight());
+        graph.removeEdge("a", "x");
+        assertEquals(3, graph.size());
+    }
+
+    @Test
+    void primitiveStorageEdgeCursor() {
+        UndirectedGraph<String> graph = new UndirectedGraph<>(GraphStorage.PRIMITIVE) {{
+            addEdge("a", "b", 2);
+            addEdge("a", "c", 3);
+            addNode("d");
+        }};
+        EdgeCursor<String> cursor = graph.edgeCursor();
+        cursor.reset("a");
+        List<String> destinations = new ArrayList<>();
+        double weight = 0;
+        while (cursor.advance()) {
+            assertEquals("a", cursor.source());
+            destinations.add(cursor.destination());
+            weight += cursor.weight();
+        }
+        assertTrue(equalsIgnoreOrder(List.of("b", "c"), destinations));
+        assertEquals(5, weight);
+        cursor.reset("d");
+        assertFalse(cursor.advance());
+        assertThrows(NoSuchElementException.class, () -> cursor.reset("x"));
+    }
+
+    @Test
+    void primitiveStorageDuplicateNode() {
+        UndirectedGraph<String> graph = new UndirectedGraph<>(List.of("a"), GraphStorage.PRIMITIVE);
+        assertThrows(UnsupportedOperationException.class, () -> graph.addNode("a"));
+    }
+
+    @Test
+    void storageDoesNotAffectEquality() {
+        UndirectedGraph<String> hashGraph = new UndirectedGraph<>(GraphStorage.HASH) {{
+            addEdge("a", "b", 1);
+            addEdge("b", "c", 2);
+        }};
+        UndirectedGraph<String> primitiveGraph = new UndirectedGraph<>(GraphStorage.PRIMITIVE) {{
+            addEdge("b", "c", 2);
+            addEdge("a", "b", 1);
+        }};
+        assertEquals(hashGraph, primitiveGraph);
+        assertEquals(hashGraph.hashCode(), primitiveGraph.hashCode());
+        primitiveGraph.addEdge("a", "b", 5);
+        assertFalse(hashGraph.equals(primitiveGraph));
+    }
+
+    @Test
+    void primitiveStorageMatchesHashStorageUnderRandomOperations() {
+        Random random = new Random(2);
+        DirectedGraph<Integer> hashGraph = new DirectedGraph<>();
+        DirectedGraph<Integer> primitiveGraph = new DirectedGraph<>(GraphStorage.PRIMITIVE);
+        for (int i = 0; i < 20_000; i++) {
+            int from = random.nextInt(50);
+            int to = random.nextInt(50);
+            if (random.nextInt(3) == 0) {
+                hashGraph.removeEdge(from, to);
+                primitiveGraph.removeEdge(from, to);
+            } else {
+                double weight = random.nextInt(100);
+                hashGraph.addEdge(from, to, weight);
+                primitiveGraph.addEdge(from, to, weight);
+            }
+        }
+        assertEquals(hashGraph, primitiveGraph);
+        assertEquals(hashGraph.hashCode(), primitiveGraph.hashCode());
+        assertEquals(hashGraph.totalWeight(), primitiveGraph.totalWeight(), 1e-6);
+        for (Integer node : hashGraph) {
+            assertTrue(equalsIgnoreOrder(hashGraph.getNeighbors(node), primitiveGraph.getNeighbors(node)));
+            assertEquals(hashGraph.distanceBetween(0, node), primitiveGraph.distanceBetween(0, node));
+        }
+        assertEquals(hashGraph.hasCycle(), primitiveGraph.hasCycle());
+        assertEquals(hashGraph.isConnectedGraph(), primitiveGraph.isConnectedGraph());
+    }
+
+    @Test
+    void denseStorageMatchesHashStorageUnderRandomOperations() {
+        Random random = new Random(6);
+        DirectedGraph<Integer> hashGraph = new DirectedGraph<>();
+        DirectedGraph<Integer> denseGraph = new DirectedGraph<>(GraphStorage.DENSE);
+        UndirectedGraph<Integer> hashUndirected = new UndirectedGraph<>();
+        UndirectedGraph<Integer> denseUndirected = new UndirectedGraph<>(GraphStorage.DENSE);
+        for (int i = 0; i < 20_000; i++) {
+            int from = random.nextInt(150); // more than two words' worth of nodes
+            int to = random.nextInt(150);
+            if (random.nextInt(3) == 0) {
+                hashGraph.removeEdge(from, to);
+                denseGraph.removeEdge(from, to);
+                hashUndirected.removeEdge(from, to);
+                denseUndirected.removeEdge(from, to);
+            } else {
+                double weight = random.nextInt(4); // many edges keep the default weight
+                hashGraph.addEdge(from, to, weight);
+                denseGraph.addEdge(from, to, weight);
+                hashUndirected.addEdge(from, to, weight);
+                denseUndirected.addEdge(from, to, weight);
+            }
+        }
+        assertEquals(hashGraph, denseGraph);
+        assertEquals(hashUndirected, denseUndirected);
+        assertEquals(hashGraph.totalWeight(), denseGraph.totalWeight(), 1e-6);
+        for (Integer node : hashGraph) {
+            assertTrue(equalsIgnoreOrder(hashGraph.getNeighbors(node), denseGraph.getNeighbors(node)));
+            assertEquals(hashGraph.distanceBetween(0, node), denseGraph.distanceBetween(0, node));
+            assertEquals(hashGraph.distanceBetween(node, node), denseGraph.distanceBetween(node, node));
+            assertEquals(hashGraph.getNodesConnectedTo(node), denseGraph.getNodesConnectedTo(node));
+        }
+        assertEquals(hashGraph.isConnectedGraph(), denseGraph.isConnectedGraph());
+        assertEquals(hashUndirected.componentCount(), denseUndirected.componentCount());
+    }
+
+    @Test
+    void denseStorageSparseGraph() {
+        DirectedGraph<String> graph = new DirectedGraph<>(GraphStorage.DENSE) {{
+            addEdge("a", "b");
+            addEdge("b", "c", 2);
+            addNode("d");
+        }};
+        assertEquals(2, graph.distanceBetween("a", "c"));
+        assertEquals(-1, graph.distanceBetween("c", "a"));
+        assertEquals(-1, graph.distanceBetween("a", "a"));
+        assertEquals(-1, graph.distanceBetween("a", "z"));
+        assertEquals(Set.of("b", "c"), graph.getNodesConnectedTo("a"));
+        assertEquals(2, graph.totalWeight());
+        assertTrue(graph.getNeighbors("d").isEmpty());
+    }
+
+    @Test
+    void forDensitySuggestsDenseStorageForSmallDenseGraphs() {
+        assertEquals(GraphStorage.DENSE, GraphStorage.forDensity(5_000, 1_000_000));
+        assertEquals(GraphStorage.PRIMITIVE, GraphStorage.forDensity(5_000, 20_000));
+        assertEquals(GraphStorage.PRIMITIVE, GraphStorage.forDensity(1_000_000, 100_000_000));
+    }
+
+    @Test
+    void snapshotIsNotAffectedByLaterModifications() {
+        for (GraphStorage storage : GraphStorage.values()) {
+            UndirectedGraph<String> graph = new UndirectedGraph<>(storage) {{
+                addEdge("a", "b", 1);
+                addEdge("b", "c", 2);
+            }};
+            UndirectedGraph<String> first = graph.snapshot();
+            graph.addEdge("c", "a", 3);
+            graph.removeEdge("a", "b");
+            graph.addNode("d");
+            UndirectedGraph<String> second = graph.snapshot();
+            graph.addEdge("d", "a");
+
+            assertEquals(new UndirectedGraph<>() {{
+                addEdge("a", "b", 1);
+                addEdge("b", "c", 2);
+            }}, first);
+            assertFalse(first.hasCycle());
+            assertFalse(first.containsNode("d"));
+            assertEquals(new UndirectedGraph<>() {{
+                addEdge("b", "c", 2);
+                addEdge("c", "a", 3);
+                addNode("d");
+            }}, second);
+            assertFalse(second.isConnectedGraph());
+            assertTrue(graph.isConnectedGraph());
+        }
+    }
+
+    @Test
+    void snapshotCannotBeModified() {
+        DirectedGraph<String> snapshot = new DirectedGraph<String>(GraphStorage.VERSIONED) {{
+            addEdge("a", "b");
+        }}.snapshot();
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.addNode("c"));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.addEdge("a", "b", 2));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.removeEdge("a", "b"));
+        assertEquals(snapshot, snapshot.snapshot());
+    }
+
+    @Test
+    void versionedSnapshotsMatchCopiesUnderRandomOperations() {
+        Random random = new Random(3);
+        // enough nodes to span several pages of the versioned store
+        int nodeCount = 3000;
+        DirectedGraph<Integer> graph = new DirectedGraph<>(GraphStorage.VERSIONED);
+        List<DirectedGraph<Integer>> snapshots = new ArrayList<>();
+        List<DirectedGraph<Integer>> copies = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            int from = random.nextInt(nodeCount);
+            int to = random.nextInt(nodeCount);
+            if (random.nextInt(3) == 0) {
+                graph.removeEdge(from, to);
+            } else {
+                graph.addEdge(from, to, random.nextInt(100));
+            }
+            if (i % 5_000 == 0) {
+                snapshots.add(graph.snapshot());
+                copies.add(copyOf(graph));
+            }
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(copies.get(i), snapshots.get(i));
+            assertEquals(copies.get(i).size(), snapshots.get(i).size());
+        }
+        assertEquals(copyOf(graph), graph);
+    }
+
+    @Test
+    void versionedSnapshotsAreConsistentWhileWriterRuns() throws Exception {
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>(GraphStorage.VERSIONED);
+        Thread writer = new Thread(() -> {
+            Random random = new Random(4);
+            for (int i = 0; i < 100_000; i++) {
+                int from = random.nextInt(2_000);
+                int to = random.nextInt(2_000);
+                if (random.nextInt(4) == 0) {
+                    graph.removeEdge(from, to);
+                } else {
+                    graph.addEdge(from, to);
+                }
+            }
+        });
+        writer.start();
+        do {
+            UndirectedGraph<Integer> snapshot = graph.snapshot();
+            for (Integer node : snapshot) {
+                snapshot.forEachNeighbor(node, neighbor -> assertTrue(snapshot.containsEdge(neighbor, node)));
+            }
+            snapshot.hasCycle();
+        } while (writer.isAlive());
+        writer.join();
+    }
+
+    @Test
+    void bulkEdgesMatchEdgesAddedOneAtATime() {
+        Random random = new Random(5);
+        Integer[] origins = new Integer[5_000];
+        Integer[] termini = new Integer[5_000];
+        double[] weights = new double[5_000];
+        for (int i = 0; i < origins.length; i++) {
+            origins[i] = random.nextInt(300);
+            termini[i] = random.nextInt(300);
+            weights[i] = random.nextInt(100); // repeated edges must end up with their last weight
+        }
+        for (GraphStorage storage : GraphStorage.values()) {
+            DirectedGraph<Integer> directed = new DirectedGraph<>(storage);
+            UndirectedGraph<Integer> undirected = new UndirectedGraph<>(storage);
+            DirectedGraph<Integer> expectedDirected = new DirectedGraph<>();
+            UndirectedGraph<Integer> expectedUndirected = new UndirectedGraph<>();
+            for (int i = 0; i < 100; i++) { // the batch lands on a graph that already has nodes and edges
+                directed.addEdge(origins[i], termini[i], -1);
+                undirected.addEdge(origins[i], termini[i], -1);
+                expectedDirected.addEdge(origins[i], termini[i], -1);
+                expectedUndirected.addEdge(origins[i], termini[i], -1);
+            }
+            directed.addEdges(origins, termini, weights);
+            undirected.addEdges(origins, termini, weights);
+            for (int i = 0; i < origins.length; i++) {
+                expectedDirected.addEdge(origins[i], termini[i], weights[i]);
+                expectedUndirected.addEdge(origins[i], termini[i], weights[i]);
+            }
+            assertEquals(expectedDirected, directed);
+            assertEquals(expectedUndirected, undirected);
+            assertEquals(expectedUndirected.componentCount(), undirected.componentCount());
+            for (Integer node : expectedDirected) {
+                assertTrue(equalsIgnoreOrder(expectedDirected.getNeighbors(node), directed.getNeighbors(node)));
+            }
+        }
+    }
+
+    @Test
+    void bulkEdgesFromViews() {
+        DirectedGraph<String> source = new DirectedGraph<>() {{
+            addEdge("a", "b", 1);
+            addEdge("b", "c", 2);
+            addEdge("c", "a", 3);
+            addNode("d");
+        }};
+        List<Graph<String>.EdgeView> edges = new ArrayList<>();
+        for (String node : source) {
+            edges.addAll(source.getOutboundEdges(node));
+        }
+        DirectedGraph<String> fromIterable = new DirectedGraph<>(GraphStorage.PRIMITIVE);
+        fromIterable.addEdges(edges);
+        DirectedGraph<String> fromStream = new DirectedGraph<>();
+        fromStream.addEdges(edges.stream().filter(edge -> edge.getWeight() > 1));
+        assertEquals(3, fromIterable.size()); // "d" has no edges, so it is not added
+        assertEquals(3.0, fromIterable.getOutboundEdges("c").get(0).getWeight());
+        assertTrue(fromIterable.containsEdge("a", "b"));
+        assertTrue(fromStream.containsEdge("b", "c"));
+        assertTrue(fromStream.containsEdge("c", "a"));
+        assertFalse(fromStream.containsEdge("a", "b"));
+    }
+
+    @Test
+    void bulkEdgesRequireArraysOfEqualLength() {
+        DirectedGraph<Integer> graph = new DirectedGraph<>();
+        assertThrows(IllegalArgumentException.class,
+                () -> graph.addEdges(new Integer[] {1, 2}, new Integer[] {2, 3}, new double[] {1}));
+        assertThrows(IllegalArgumentException.class, () -> graph.addEdges(new Integer[] {1}, new Integer[] {}));
+        assertTrue(graph.isEmpty());
+    }
+
+    private static DirectedGraph<Integer> copyOf(DirectedGraph<Integer> graph) {
+        DirectedGraph<Integer> copy = new DirectedGraph<>();
+        for (Integer node : graph) {
+            copy.addNode(node);
+        }
+        for (Integer node : graph) {
+            graph.forEachOutboundEdge(node, copy::addEdge);
+        }
+        return copy;
+    }
+
+    @Test
+    void runningTallyMatchesRecountUnderRandomOperations() {
+        List<DirectedGraph<Integer>> directed = List.of(new DirectedGraph<>(), new DirectedGraph<>(GraphStorage.PRIMITIVE),
+                new DirectedGraph<>(GraphStorage.VERSIONED), new DirectedGraph<>(GraphStorage.DENSE),
+                new ConcurrentDirectedGraph<>());
+        List<UndirectedGraph<Integer>> undirected = List.of(new UndirectedGraph<>(),
+                new UndirectedGraph<>(GraphStorage.PRIMITIVE), new ConcurrentUndirectedGraph<>());
+        Random random = new Random(16);
+        for (int i = 0; i < 20_000; i++) {
+            int from = random.nextInt(100);
+            int to = random.nextInt(100);
+            double weight = random.nextInt(1000) / 7.0;
+            boolean remove = random.nextInt(3) == 0;
+            for (Graph<Integer> graph : concat(directed, undirected)) {
+                if (remove) {
+                    graph.removeEdge(from, to);
+                } else {
+                    graph.addEdge(from, to, weight);
+                }
+            }
+        }
+        for (DirectedGraph<Integer> graph : directed) {
+            assertEquals(countEdges(graph), graph.edgeCount());
+            assertEquals(sumWeights(graph), graph.totalWeight(), 1e-6);
+            assertEquals(graph.edgeCount(), graph.snapshot().edgeCount());
+            assertEquals(graph.totalWeight(), graph.snapshot().totalWeight());
+        }
+        for (UndirectedGraph<Integer> graph : undirected) {
+            long loops = 0;
+            for (Integer node : graph) {
+                loops += graph.containsEdge(node, node) ? 1 : 0;
+            }
+            assertEquals((countEdges(graph) + loops) / 2, graph.edgeCount());
+            assertEquals(sumWeights(graph) / 2, graph.totalWeight(), 1e-6);
+        }
+    }
+
+    @Test
+    void runningTallyIsCompensated() {
+        DirectedGraph<Integer> graph = new DirectedGraph<>(GraphStorage.PRIMITIVE);
+        graph.addEdge(0, 1, 1e16);
+        for (int i = 2; i < 10_002; i++) {
+            graph.addEdge(0, i, 1);
+        }
+        graph.removeEdge(0, 1);
+        // naive summation would round away every one of the unit weights while 1e16 was part of the sum
+        assertEquals(10_000, graph.totalWeight());
+        assertEquals(10_000, graph.edgeCount());
+        graph.addEdge(0, 2, Double.POSITIVE_INFINITY);
+        assertEquals(Double.POSITIVE_INFINITY, graph.totalWeight());
+        graph.addEdge(0, 2, 1);
+        assertEquals(10_000, graph.totalWeight());
+        for (int i = 2; i < 10_002; i++) {
+            graph.removeEdge(0, i);
+        }
+        assertEquals(0, graph.totalWeight());
+        assertEquals(0, graph.edgeCount());
+    }
+
+    private static <T> List<Graph<T>> concat(List<? extends Graph<T>> first, List<? extends Graph<T>> second) {
+        List<Graph<T>> graphs = new ArrayList<>(first);
+        graphs.addAll(second);
+        return graphs;
+    }
+
+    private static <T> long countEdges(Graph<T> graph) {
+        long count = 0;
+        for (T node : graph) {
+            count += graph.getNeighbors(node).size();
+        }
+        return count;
+    }
+
+    private static <T> double sumWeights(Graph<T> graph) {
+        double sum = 0;
+        for (T node : graph) {
+            for (Graph<T>.EdgeView edge : graph.getOutboundEdges(node)) {
+                sum += edge.getWeight();
+            }
+        }
+        return sum;
+    }
+
+    private <T> boolean equalsIgnoreOrder(Collection<T> c1, Collection<T> c2) {
+        return (new Counter<>(c1)).equals(new Counter<>(c2));
+    }
+}
@@ -0,0 +1,112 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LandmarkOracleTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void boundsAndExactDistances() {
+        DirectedGraph<String> graph = new DirectedGraph<>() {{
+            addEdge("a", "b", 2);
+            addEdge("b", "c", 2);
+            addEdge("a", "c", 5);
+            addEdge("c", "d", 1);
+            addEdge("d", "a", 1);
+            addNode("e");
+        }};
+        LandmarkOracle<String> oracle = graph.landmarkOracle(2, DistanceMetric.WEIGHTS);
+        assertEquals(5, oracle.size());
+        assertEquals(2, oracle.landmarks().size());
+        assertEquals(DistanceMetric.WEIGHTS, oracle.metric());
+        assertEquals(4, oracle.distance("a", "c"));
+        assertEquals(List.of("a", "b", "c", "d"), oracle.shortestPath("a", "d").nodes());
+        assertEquals(0, oracle.distance("b", "b"));
+        assertTrue(oracle.lowerBound("a", "d") <= 5);
+        assertTrue(oracle.upperBound("a", "d") >= 5);
+        assertEquals(Double.POSITIVE_INFINITY, oracle.distance("a", "e"));
+        assertFalse(oracle.shortestPath("e", "a").exists());
+
+        LandmarkOracle<String> hops = graph.landmarkOracle(10, DistanceMetric.HOPS);
+        assertEquals(5, hops.landmarks().size()); // capped at the number of nodes
+        assertEquals(1, hops.distance("a", "c"));
+        assertEquals(graph.distanceBetween("b", "a"), (int) hops.distance("b", "a"));
+
+        assertThrows(NoSuchElementException.class, () -> oracle.distance("a", "z"));
+        assertThrows(IllegalArgumentException.class, () -> graph.landmarkOracle(0, DistanceMetric.HOPS));
+        graph.addEdge("e", "a", -1);
+        assertThrows(IllegalStateException.class, () -> graph.landmarkOracle(2, DistanceMetric.WEIGHTS));
+        graph.landmarkOracle(2, DistanceMetric.HOPS); // weights do not matter when counting hops
+    }
+
+    @Test
+    void boundsBracketTrueDistancesOnRandomGraphs() {
+        Random random = new Random(21);
+        for (int trial = 0; trial < 4; trial++) {
+            Graph<Integer> graph = trial % 2 == 0 ? new DirectedGraph<>() : new UndirectedGraph<>();
+            for (int i = 0; i < 400; i++) {
+                graph.addEdge(random.nextInt(200), random.nextInt(200), 1 + random.nextInt(9));
+            }
+            for (int i = 0; i < 20; i++) {
+                graph.addEdge(200 + i, 200 + (i + 1) % 20, 1); // a separate component
+            }
+            DistanceMatrix<Integer> expected = graph.allPairsShortestPaths();
+            LandmarkOracle<Integer> weighted = graph.landmarkOracle(8, DistanceMetric.WEIGHTS);
+            LandmarkOracle<Integer> hops = graph.landmarkOracle(8, DistanceMetric.HOPS);
+            CsrGraph<Integer> snapshot = graph.freeze();
+            for (int query = 0; query < 500; query++) {
+                Integer from = snapshot.valueOf(random.nextInt(snapshot.size()));
+                Integer to = snapshot.valueOf(random.nextInt(snapshot.size()));
+                double distance = expected.distance(from, to);
+                assertTrue(weighted.lowerBound(from, to) <= distance);
+                assertTrue(weighted.upperBound(from, to) >= distance);
+                assertEquals(distance, weighted.distance(from, to));
+                assertEquals(distance, weighted.shortestPath(from, to).distance());
+                int hopCount = snapshot.distancesFrom(from).distanceTo(to);
+                assertEquals(hopCount == DistanceLabeling.UNREACHABLE ? Double.POSITIVE_INFINITY : hopCount,
+                        hops.distance(from, to));
+            }
+        }
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        Random random = new Random(210);
+        DirectedGraph<String> graph = new DirectedGraph<>();
+        for (int i = 0; i < 300; i++) {
+            graph.addEdge("n" + random.nextInt(100), "n" + random.nextInt(100), random.nextInt(5));
+        }
+        LandmarkOracle<String> oracle = graph.landmarkOracle(4, DistanceMetric.WEIGHTS);
+        Path file = directory.resolve("oracle.alt");
+        oracle.write(file, NodeCodec.strings());
+        LandmarkOracle<String> read = LandmarkOracle.read(file, NodeCodec.strings());
+        assertEquals(oracle.landmarks(), read.landmarks());
+        assertEquals(DistanceMetric.WEIGHTS, read.metric());
+        for (String from : graph) {
+            for (String to : graph) {
+                assertEquals(oracle.lowerBound(from, to), read.lowerBound(from, to));
+                assertEquals(oracle.upperBound(from, to), read.upperBound(from, to));
+                assertEquals(oracle.distance(from, to), read.distance(from, to));
+            }
+        }
+
+        Path garbage = directory.resolve("garbage");
+        Files.write(garbage, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> LandmarkOracle.read(garbage, NodeCodec.strings()));
+    }
+}
@@ -0,0 +1,54 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LongIntHashMapTest {
+
+    @Test
+    void getAbsentKey() {
+        LongIntHashMap map = new LongIntHashMap(0);
+        assertEquals(LongIntHashMap.ABSENT, map.get(5));
+        assertEquals(LongIntHashMap.ABSENT, map.remove(5));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void putOverwritesValue() {
+        LongIntHashMap map = new LongIntHashMap(0);
+        map.put(LongIntHashMap.key(1, 2), 7);
+        map.put(LongIntHashMap.key(1, 2), 8);
+        assertEquals(1, map.size());
+        assertEquals(8, map.get(LongIntHashMap.key(1, 2)));
+        assertEquals(LongIntHashMap.ABSENT, map.get(LongIntHashMap.key(2, 1)));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(17);
+        LongIntHashMap map = new LongIntHashMap(0);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = LongIntHashMap.key(random.nextInt(64), random.nextInt(64));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.getOrDefault(key, LongIntHashMap.ABSENT), map.remove(key));
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int high = 0; high < 64; high++) {
+            for (int low = 0; low < 64; low++) {
+                long key = LongIntHashMap.key(high, low);
+                assertEquals(expected.getOrDefault(key, LongIntHashMap.ABSENT), map.get(key));
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.andrewpuglionesi.datastructures.graph;
+
+import com.andrewpuglionesi.datastructures.Counter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffHeapGraphTest {
+
+    @Test
+    void basicOperations() {
+        try (OffHeapDirectedGraph<String> graph = new OffHeapDirectedGraph<>(List.of("a", "b"))) {
+            graph.addEdge("a", "b", 2);
+            graph.addEdge("b", "c", 3);
+            graph.addEdge("a", "b", 5);
+            assertEquals(3, graph.size());
+            assertTrue(graph.containsEdge("a", "b"));
+            assertFalse(graph.containsEdge("b", "a"));
+            assertEquals(8, graph.totalWeight());
+            assertEquals(2, graph.distanceBetween("a", "c"));
+            assertEquals(List.of("b"), graph.getNeighbors("a"));
+            graph.removeEdge("a", "b");
+            assertFalse(graph.containsEdge("a", "b"));
+            assertEquals(-1, graph.distanceBetween("a", "c"));
+            assertThrows(NoSuchElementException.class, () -> graph.getNeighbors("z"));
+            assertThrows(UnsupportedOperationException.class, () -> graph.addNode("a"));
+        }
+    }
+
+    @Test
+    void matchesHashStorageUnderRandomOperations() {
+        Random random = new Random(4);
+        DirectedGraph<Integer> expectedDirected = new DirectedGraph<>();
+        UndirectedGraph<Integer> expectedUndirected = new UndirectedGraph<>();
+        // small slabs, so that the regions span several of them
+        try (OffHeapDirectedGraph<Integer> directed = new OffHeapDirectedGraph<>(new OffHeapAdjacencyStore<>(12));
+             OffHeapUndirectedGraph<Integer> undirected = new OffHeapUndirectedGraph<>()) {
+            for (int i = 0; i < 40_000; i++) {
+                int from = random.nextInt(500);
+                int to = random.nextInt(i < 20_000 ? 500 : 20);
+                if (random.nextInt(4) == 0) {
+                    expectedDirected.removeEdge(from, to);
+                    expectedUndirected.removeEdge(from, to);
+                    directed.removeEdge(from, to);
+                    undirected.removeEdge(from, to);
+                } else {
+                    double weight = random.nextInt(100);
+                    expectedDirected.addEdge(from, to, weight);
+                    expectedUndirected.addEdge(from, to, weight);
+                    directed.addEdge(from, to, weight);
+                    undirected.addEdge(from, to, weight);
+                }
+            }
+            assertEquals(expectedDirected, directed);
+            assertEquals(expectedUndirected, undirected);
+            assertEquals(expectedDirected.totalWeight(), directed.totalWeight(), 1e-6);
+            assertEquals(expectedUndirected.componentCount(), undirected.componentCount());
+            for (Integer node : expectedDirected) {
+                assertTrue(equalsIgnoreOrder(expectedDirected.getNeighbors(node), directed.getNeighbors(node)));
+                assertEquals(expectedDirected.distanceBetween(0, node), directed.distanceBetween(0, node));
+            }
+            assertEquals(expectedDirected, directed.snapshot());
+            assertEquals(expectedUndirected, undirected.snapshot());
+        }
+    }
+
+    @Test
+    void closedGraphCannotBeUsed() {
+        OffHeapUndirectedGraph<Integer> graph = new OffHeapUndirectedGraph<>();
+        graph.addEdge(1, 2);
+        EdgeCursor<Integer> cursor = graph.edgeCursor();
+        graph.close();
+        graph.close();
+        assertThrows(IllegalStateException.class, () -> graph.addEdge(2, 3));
+        assertThrows(IllegalStateException.class, () -> graph.containsEdge(1, 2));
+        assertThrows(IllegalStateException.class, () -> graph.getNeighbors(1));
+        assertThrows(IllegalStateException.class, () -> cursor.reset(1));
+    }
+
+    @Test
+    void regionSpansSlabs() {
+        OffHeapRegion region = new OffHeapRegion(12);
+        region.ensureCapacity(20_000);
+        assertTrue(region.capacity() >= 20_000);
+        for (int i = 0; i < 2_500; i++) {
+            region.putLong(i * 8L, i * 31L);
+        }
+        region.ensureCapacity(40_000);
+        for (int i = 0; i < 2_500; i++) {
+            assertEquals(i * 31L, region.getLong(i * 8L));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> region.getInt(region.capacity()));
+        region.free();
+        assertThrows(IllegalStateException.class, () -> region.getInt(0));
+        assertThrows(IllegalStateException.class, () -> region.ensureCapacity(1));
+    }
+
+    private <T> boolean equalsIgnoreOrder(Collection<T> c1, Collection<T> c2) {
+        return (new Counter<>(c1)).equals(new Counter<>(c2));
+    }
+}
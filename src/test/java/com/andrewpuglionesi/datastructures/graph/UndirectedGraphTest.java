@@ -10,6 +10,7 @@ import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
@@ -561,4 +562,176 @@ public class UndirectedGraphTest {
         }};
         assertEquals(-3, graph.totalWeight());
     }
+
+    @Test
+    void traversalsHandleVeryLongPaths() {
+        // long enough to overflow the call stack if any of these searches were recursive
+        int length = 300_000;
+        UndirectedGraph<Integer> graph = new UndirectedGraph<>(GraphStorage.PRIMITIVE);
+        for (int i = 0; i < length; i++) {
+            graph.addEdge(i, i + 1);
+        }
+        assertFalse(graph.hasCycle());
+        assertTrue(graph.isConnectedGraph());
+        assertEquals(length, graph.getNodesConnectedTo(0).size());
+        assertEquals(length, graph.distanceBetween(0, length));
+        graph.addEdge(length, 0);
+        assertTrue(graph.hasCycle());
+    }
+
+    @Test
+    void componentCountEmptyGraph() {
+        assertEquals(0, new UndirectedGraph<String>().componentCount());
+    }
+
+    @Test
+    void addEdgesAcceptsNullNodes() {
+        UndirectedGraph<String> graph = new UndirectedGraph<>();
+        graph.addEdges(new String[] {null, "y"}, new String[] {"x", null});
+        assertTrue(graph.containsEdge("x", null));
+        assertTrue(graph.containsEdge(null, "y"));
+        assertEquals(2, graph.outDegree(null));
+    }
+
+    @Test
+    void connectedComponents() {
+        UndirectedGraph<String> graph = new UndirectedGraph<>() {{
+            addEdge("a", "b");
+            addEdge("b", "c");
+            addEdge("d", "e");
+            addNode("f");
+            addEdge("g", "g");
+        }};
+        ComponentLabeling<String> components = graph.connectedComponents();
+        assertEquals(4, components.componentCount());
+        assertEquals(graph.componentCount(), components.componentCount());
+        assertTrue(components.sameComponent("a", "c"));
+        assertFalse(components.sameComponent("c", "d"));
+        assertFalse(components.sameComponent("f", "g"));
+        assertArrayEquals(new int[] {3, 2, 1, 1}, components.componentSizes());
+        assertEquals(0, new UndirectedGraph<String>().connectedComponents().componentCount());
+    }
+
+    @Test
+    void componentCountTracksAddedNodesAndEdges() {
+        UndirectedGraph<String> graph = new UndirectedGraph<>(List.of("a", "b", "c"));
+        assertEquals(3, graph.componentCount());
+        graph.addEdge("a", "b");
+        assertEquals(2, graph.componentCount());
+        graph.addEdge("c", "d");
+        assertEquals(2, graph.componentCount());
+        graph.addNode("e");
+        assertEquals(3, graph.componentCount());
+        graph.addEdge("b", "d");
+        assertEquals(2, graph.componentCount());
+        assertTrue(graph.sameComponent("a", "c"));
+        assertFalse(graph.sameComponent("a", "e"));
+        assertTrue(graph.sameComponent("e", "e"));
+    }
+
+    @Test
+    void componentsRebuiltAfterEdgeRemoval() {
+        UndirectedGraph<String> graph = new UndirectedGraph<>() {{
+            addEdge("a", "b");
+            addEdge("b", "c");
+            addEdge("c", "a");
+        }};
+        assertTrue(graph.isConnectedGraph());
+        graph.removeEdge("a", "b");
+        assertTrue(graph.isConnectedGraph());
+        graph.removeEdge("c", "b");
+        assertFalse(graph.isConnectedGraph());
+        assertEquals(2, graph.componentCount());
+        assertFalse(graph.sameComponent("a", "b"));
+        graph.addEdge("b", "a");
+        assertTrue(graph.sameComponent("c", "b"));
+    }
+
+    @Test
+    void sameComponentNonexistentNode() {
+        UndirectedGraph<String> graph = new UndirectedGraph<>(List.of("a"));
+        assertThrows(NoSuchElementException.class, () -> graph.sameComponent("a", "b"));
+    }
+
+    @Test
+    void shortestPathWithHeuristicExploresLessOfAGrid() {
+        int side = 60;
+        UndirectedGraph<Integer> grid = new UndirectedGraph<>();
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                int cell = row * side + column;
+                if (column + 1 < side) {
+                    grid.addEdge(cell, cell + 1, 1);
+                }
+                if (row + 1 < side) {
+                    grid.addEdge(cell, cell + side, 1);
+                }
+            }
+        }
+        int from = 10 * side + 10;
+        int to = 20 * side + 30;
+        // the Manhattan distance between two cells never exceeds the length of the path between them
+        WeightedPath<Integer> guided = grid.shortestPath(from, to,
+                cell -> Math.abs(cell / side - to / side) + Math.abs(cell % side - to % side));
+        WeightedPath<Integer> unguided = grid.shortestPath(from, to);
+        assertEquals(30, guided.distance());
+        assertEquals(30, unguided.distance());
+        assertEquals(31, guided.nodes().size());
+        assertTrue(guided.settledCount() < unguided.settledCount() / 4);
+        assertTrue(unguided.settledCount() < side * side); // stops once the destination is settled
+    }
+
+    @Test
+    void queryCacheNeverServesStaleCycles() {
+        UndirectedGraph<String> graph = new UndirectedGraph<>() {{
+            addEdge("a", "b");
+            addEdge("b", "c");
+        }};
+        graph.enableQueryCache(8);
+        assertFalse(graph.hasCycle());
+        assertFalse(graph.hasCycle());
+        graph.addEdge("c", "a");
+        assertTrue(graph.hasCycle());
+        assertTrue(graph.hasCycle());
+        graph.removeEdge("a", "c");
+        assertFalse(graph.hasCycle());
+        assertEquals(2, graph.queryCacheHits());
+        assertEquals(3, graph.queryCacheMisses());
+    }
+
+    @Test
+    void minimumSpanningForest() {
+        UndirectedGraph<String> graph = new UndirectedGraph<>() {{
+            addEdge("a", "b", 4);
+            addEdge("a", "h", 8);
+            addEdge("b", "c", 8);
+            addEdge("b", "h", 11);
+            addEdge("c", "d", 7);
+            addEdge("c", "f", 4);
+            addEdge("c", "i", 2);
+            addEdge("d", "e", 9);
+            addEdge("d", "f", 14);
+            addEdge("e", "f", 10);
+            addEdge("f", "g", 2);
+            addEdge("g", "h", 1);
+            addEdge("g", "i", 6);
+            addEdge("h", "i", 7);
+            addEdge("x", "y", 3);
+            addEdge("x", "x", -5);
+            addNode("z");
+        }};
+        SpanningForest<String> forest = graph.minimumSpanningForest();
+        assertEquals(40, forest.totalWeight());
+        assertEquals(9, forest.edgeCount());
+        assertEquals(3, forest.treeCount());
+        UndirectedGraph<String> trees = forest.toGraph();
+        assertEquals(graph.size(), trees.size());
+        assertEquals(9, trees.edgeCount());
+        assertEquals(40, trees.totalWeight());
+        assertEquals(3, trees.componentCount());
+        assertFalse(trees.hasCycle());
+        assertTrue(trees.containsEdge("g", "h"));
+        assertTrue(trees.containsEdge("y", "x"));
+        assertFalse(trees.containsEdge("b", "h"));
+    }
 }